@@ -0,0 +1,70 @@
+package Caravane.kafka;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The JSON of a device event, as the collector reads it into a DeviceEvent: the
+ * common fields (eventId, timestamp, deviceId, deviceType, eventType, severity),
+ * then those of the device type, written by each agent's writer.
+ */
+public final class DeviceEventJson {
+
+    /**
+     * Writes the fields specific to one event.
+     */
+    public interface Fields {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private DeviceEventJson() {
+    }
+
+    /**
+     * @param sizeHint expected length of the JSON, to size the buffer once
+     */
+    public static String write(JsonFactory json, int sizeHint, LocalDateTime timestamp, String deviceId,
+                               String deviceType, String eventType, String severity, Fields fields) {
+        StringWriter out = new StringWriter(sizeHint);
+        try (JsonGenerator gen = json.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("eventId", eventId());
+            gen.writeStringField("timestamp", timestamp(timestamp));
+            gen.writeStringField("deviceId", deviceId);
+            gen.writeStringField("deviceType", deviceType);
+            gen.writeStringField("eventType", eventType);
+            gen.writeStringField("severity", severity);
+            fields.write(gen);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            // A StringWriter does not fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Local time to the second, the collector's format.
+     */
+    public static String timestamp(LocalDateTime time) {
+        return TIMESTAMP.format(time);
+    }
+
+    // Random (version 4) UUID without SecureRandom's cost per event
+    public static String eventId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & ~(0xC000000000000000L)) | 0x8000000000000000L;
+        return new UUID(most, least).toString();
+    }
+}
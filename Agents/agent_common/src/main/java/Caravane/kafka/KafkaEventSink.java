@@ -0,0 +1,72 @@
+package Caravane.kafka;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends an agent's events to one Kafka topic, keyed by deviceId so that one device's
+ * events stay in order on one partition.
+ *
+ * The producer batches ({@code kafka.linger-ms}, {@code kafka.batch-size} bytes) and
+ * compresses with lz4. A send never blocks the caller for long
+ * ({@code kafka.max-block-ms}); failures are counted and logged.
+ */
+public class KafkaEventSink implements AutoCloseable {
+
+    private final KafkaProducer<String, String> producer;
+    private final String topic;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public KafkaEventSink(Properties settings, String topic) {
+        Properties config = new Properties();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, settings.getProperty("kafka.bootstrap-servers"));
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, settings.getProperty("kafka.linger-ms", "100"));
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, settings.getProperty("kafka.batch-size", "16384"));
+        config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, settings.getProperty("kafka.max-block-ms", "5000"));
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, settings.getProperty("kafka.delivery-timeout-ms", "120000"));
+        this.producer = new KafkaProducer<>(config);
+        this.topic = topic;
+    }
+
+    public void send(String key, String json) {
+        try {
+            producer.send(new ProducerRecord<>(topic, key, json), (metadata, e) -> {
+                if (e != null) {
+                    failed.increment();
+                    System.err.println("Failed to send event: " + e.getMessage());
+                } else {
+                    sent.increment();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Broker unreachable past max.block.ms
+            failed.increment();
+            System.err.println("Failed to send event: " + e.getMessage());
+        }
+    }
+
+    public long sent() {
+        return sent.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    @Override
+    public void close() {
+        producer.close(Duration.ofSeconds(10));
+    }
+}
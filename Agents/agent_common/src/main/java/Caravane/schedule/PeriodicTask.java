@@ -0,0 +1,25 @@
+package Caravane.schedule;
+
+import java.io.IOException;
+
+/**
+ * A task run by a ScheduledExecutorService at a fixed rate or delay.
+ */
+public interface PeriodicTask {
+
+    void run() throws IOException;
+
+    /**
+     * Runs {@code task}, logging its failures as {@code what} failed. Not rethrown:
+     * an exception escaping a periodic task cancels its schedule.
+     */
+    static Runnable logFailures(String what, PeriodicTask task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException e) {
+                System.err.println(what + " failed: " + e);
+            }
+        };
+    }
+}
@@ -0,0 +1,193 @@
+package Caravane;
+
+import Caravane.compression.CompressionProfile;
+import Caravane.compression.SensorCompressor;
+import Caravane.gateway.ReadingParser;
+import Caravane.gateway.ReadingParser.Reading;
+import Caravane.kafka.KafkaEventSink;
+import Caravane.publisher.IoTEventWriter;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Edge gateway between the local MQTT broker and Kafka: every reading published by
+ * the sensors goes through the {@link SensorCompressor} of its sensor (deviceId +
+ * sensorType), configured by the {@link CompressionProfile} of its sensorType, and
+ * only the readings it keeps are forwarded to {@code device-events-iot}.
+ *
+ * MQTT callbacks arrive on one paho thread; a "sensor-keepalive" thread flushes the
+ * readings held back by sensors that went quiet. Both lock the sensor.
+ */
+public class IoTGateway implements MqttCallbackExtended, AutoCloseable {
+
+    private final class Sensor implements SensorCompressor.Output {
+        final String deviceId;
+        final String sensorType;
+        final SensorCompressor compressor;
+        String location;
+        String unit;
+
+        Sensor(String deviceId, String sensorType) {
+            this.deviceId = deviceId;
+            this.sensorType = sensorType;
+            this.compressor = new SensorCompressor(profile(sensorType));
+        }
+
+        @Override
+        public void emit(long timeMillis, double value, String reason) {
+            sink.send(deviceId, writer.write(deviceId, sensorType, location, unit, timeMillis, value, reason));
+            forwarded.increment();
+        }
+    }
+
+    private final Properties settings;
+    private final ReadingParser parser;
+    private final IoTEventWriter writer;
+    private final KafkaEventSink sink;
+    private final Map<String, CompressionProfile> profiles = new ConcurrentHashMap<>();
+    private final Map<String, Sensor> sensors = new ConcurrentHashMap<>();
+    // Only touched by the MQTT callback thread
+    private final Reading reading = new Reading();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sensor-keepalive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private MqttAsyncClient client;
+    private String[] topicFilters;
+    private int qos;
+
+    public IoTGateway(Properties settings, ReadingParser parser, IoTEventWriter writer, KafkaEventSink sink) {
+        this.settings = settings;
+        this.parser = parser;
+        this.writer = writer;
+        this.sink = sink;
+    }
+
+    public void start() throws MqttException {
+        topicFilters = settings.getProperty("mqtt.topic-filters", "sensors/#").split(",");
+        qos = Integer.parseInt(settings.getProperty("mqtt.qos", "1"));
+
+        client = new MqttAsyncClient(settings.getProperty("mqtt.broker-url", "tcp://localhost:1883"),
+                settings.getProperty("mqtt.client-id", "hivemind-iot-gateway"), new MemoryPersistence());
+        client.setCallback(this);
+        MqttConnectOptions options = new MqttConnectOptions();
+        // The compressors' state is in memory: nothing to resume after a restart
+        options.setCleanSession(true);
+        options.setAutomaticReconnect(true);
+        options.setMaxInflight(Integer.parseInt(settings.getProperty("mqtt.max-inflight", "1000")));
+        client.connect(options).waitForCompletion();
+
+        timer.scheduleWithFixedDelay(this::tick, 1, 1, TimeUnit.SECONDS);
+        long statsSeconds = Long.parseLong(settings.getProperty("agent.stats-seconds", "60"));
+        timer.scheduleAtFixedRate(this::logStats, statsSeconds, statsSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void connectComplete(boolean reconnect, String serverURI) {
+        try {
+            int[] qosLevels = new int[topicFilters.length];
+            Arrays.fill(qosLevels, qos);
+            client.subscribe(topicFilters, qosLevels);
+            System.out.println("📡 IoT gateway " + (reconnect ? "reconnected" : "connected") + " to " + serverURI
+                    + " - subscribed to " + Arrays.toString(topicFilters));
+        } catch (MqttException e) {
+            System.err.println("❌ MQTT subscribe failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) {
+        received.increment();
+        if (!parser.parse(topic, message.getPayload(), reading)) {
+            rejected.increment();
+            return;
+        }
+        Sensor sensor = sensors.computeIfAbsent(reading.deviceId + "/" + reading.sensorType,
+                key -> new Sensor(reading.deviceId, reading.sensorType));
+        long time = reading.timeMillis > 0 ? reading.timeMillis : System.currentTimeMillis();
+        synchronized (sensor) {
+            if (reading.location != null) {
+                sensor.location = reading.location;
+            }
+            if (reading.unit != null) {
+                sensor.unit = reading.unit;
+            }
+            sensor.compressor.offer(time, reading.value, sensor);
+        }
+    }
+
+    private CompressionProfile profile(String sensorType) {
+        return profiles.computeIfAbsent(sensorType, type -> {
+            CompressionProfile profile = CompressionProfile.load(settings, type);
+            System.out.println("Compression of " + type + ": " + profile);
+            return profile;
+        });
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (Sensor sensor : sensors.values()) {
+            synchronized (sensor) {
+                sensor.compressor.tick(now, sensor);
+            }
+        }
+    }
+
+    private void logStats() {
+        long in = received.sum();
+        long out = forwarded.sum();
+        System.out.printf("📊 IoT gateway: %d sensors, received=%d rejected=%d forwarded=%d (%.1fx) sent=%d failed=%d%n",
+                sensors.size(), in, rejected.sum(), out, out == 0 ? 0.0 : (double) in / out, sink.sent(), sink.failed());
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+        System.err.println("MQTT connection lost: " + cause.getMessage());
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+        // The gateway only subscribes
+    }
+
+    @Override
+    public void close() throws MqttException, InterruptedException {
+        if (client != null && client.isConnected()) {
+            client.disconnect().waitForCompletion();
+        }
+        timer.shutdown();
+        timer.awaitTermination(5, TimeUnit.SECONDS);
+        // The readings still held back, so the last value of each sensor is upstream
+        for (Sensor sensor : sensors.values()) {
+            synchronized (sensor) {
+                sensor.compressor.flush(sensor);
+            }
+        }
+        logStats();
+        sink.close();
+        if (client != null) {
+            client.close();
+        }
+    }
+}
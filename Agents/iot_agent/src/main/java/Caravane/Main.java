@@ -1,17 +1,72 @@
 package Caravane;
 
-//TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
-// click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
+import Caravane.gateway.ReadingParser;
+import Caravane.kafka.KafkaEventSink;
+import Caravane.publisher.IoTEventWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless IoT gateway: {@code java -jar iot_agent.jar [agent.properties]}.
+ *
+ * Settings come from the bundled agent.properties, then the given file, then
+ * {@code -D} system properties, each overriding the previous one.
+ */
 public class Main {
-    public static void main(String[] args) {
-        //TIP Press <shortcut actionId="ShowIntentionActions"/> with your caret at the highlighted text
-        // to see how IntelliJ IDEA suggests fixing it.
-        System.out.printf("Hello and welcome!");
+    public static void main(String[] args) throws Exception {
+        Properties settings = new Properties();
+        try (InputStream defaults = Main.class.getResourceAsStream("/agent.properties")) {
+            if (defaults != null) {
+                settings.load(defaults);
+            }
+        }
+        if (args.length > 0) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+                settings.load(reader);
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("kafka.") || name.startsWith("mqtt.") || name.startsWith("agent.")
+                    || name.startsWith("compression.")) {
+                settings.setProperty(name, System.getProperty(name));
+            }
+        }
+
+        String gatewayId = settings.getProperty("agent.gateway-id", "").isBlank()
+                ? "GW-" + hostname() : settings.getProperty("agent.gateway-id");
+        KafkaEventSink sink = new KafkaEventSink(settings, settings.getProperty("agent.topic", "device-events-iot"));
+        IoTGateway gateway = new IoTGateway(settings,
+                new ReadingParser(settings.getProperty("mqtt.topic-pattern", "sensors/{location}/{deviceId}/{sensorType}")),
+                new IoTEventWriter(gatewayId), sink);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                gateway.close();
+            } catch (Exception e) {
+                System.err.println("Gateway shutdown failed: " + e);
+            }
+            stopped.countDown();
+        }, "iot-gateway-shutdown"));
+
+        gateway.start();
+        System.out.println("IoT gateway " + gatewayId + " forwarding to " + settings.getProperty("kafka.bootstrap-servers"));
+        stopped.await();
+    }
 
-        for (int i = 1; i <= 5; i++) {
-            //TIP Press <shortcut actionId="Debug"/> to start debugging your code. We have set one <icon src="AllIcons.Debugger.Db_set_breakpoint"/> breakpoint
-            // for you, but you can always add more by pressing <shortcut actionId="ToggleLineBreakpoint"/>.
-            System.out.println("i = " + i);
+    private static String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return System.getenv().getOrDefault("HOSTNAME", "unknown");
         }
     }
-}
\ No newline at end of file
+}
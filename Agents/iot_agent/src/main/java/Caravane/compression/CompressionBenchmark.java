@@ -0,0 +1,170 @@
+package Caravane.compression;
+
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Reduction ratio, reconstruction error and threshold crossings of the bundled
+ * compression profiles on synthetic 1 Hz sensor traces: temperature and humidity
+ * following a daily cycle with sensor noise and resolution, excursions past the
+ * thresholds, and on/off motion and door sensors.
+ *
+ * The forwarded readings are expanded back (linear interpolation for the swinging
+ * door, last value for the deadband) and compared with every raw reading; every raw
+ * threshold crossing must be among the forwarded readings.
+ *
+ * Usage: {@code CompressionBenchmark [hours] [sensors-per-type]}
+ */
+public class CompressionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int hours = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        int sensors = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Properties settings = new Properties();
+        try (InputStream in = CompressionBenchmark.class.getResourceAsStream("/agent.properties")) {
+            if (in != null) {
+                settings.load(in);
+            }
+        }
+
+        System.out.println("=".repeat(84));
+        System.out.printf("🌡️ %d h at 1 Hz, %d sensors per type%n", hours, sensors);
+        System.out.printf("%-16s %12s %10s %8s %10s %10s %12s%n",
+                "", "readings", "forwarded", "ratio", "max error", "crossings", "readings/s");
+        long totalIn = 0;
+        long totalOut = 0;
+        for (String type : new String[] { "TEMPERATURE", "HUMIDITY", "MOTION", "DOOR_SENSOR" }) {
+            CompressionProfile profile = CompressionProfile.load(settings, type);
+            Random random = new Random(type.hashCode());
+            int samples = hours * 3600;
+            double maxError = 0;
+            long in = 0;
+            long out = 0;
+            long crossings = 0;
+            long kept = 0;
+            long nanos = 0;
+            for (int s = 0; s < sensors; s++) {
+                double[] trace = trace(type, samples, random);
+                Recorder recorder = new Recorder(2 * samples);
+                SensorCompressor compressor = new SensorCompressor(profile);
+                long t0 = System.nanoTime();
+                for (int i = 0; i < samples; i++) {
+                    compressor.offer(i * 1000L, trace[i], recorder);
+                }
+                compressor.flush(recorder);
+                nanos += System.nanoTime() - t0;
+
+                in += samples;
+                out += recorder.count;
+                maxError = Math.max(maxError, maxError(trace, recorder, profile.mode));
+                for (int i = 1; i < samples; i++) {
+                    if (profile.band(trace[i]) != profile.band(trace[i - 1])) {
+                        crossings++;
+                        if (recorder.forwarded(i)) {
+                            kept++;
+                        }
+                    }
+                }
+            }
+            totalIn += in;
+            totalOut += out;
+            System.out.printf("%-16s %,12d %,10d %7.1fx %10.3f %4d / %-4d %,12.0f%n", type, in, out,
+                    (double) in / out, maxError, kept, crossings, in * 1e9 / nanos);
+        }
+        System.out.printf("%-16s %,12d %,10d %7.1fx%n", "total", totalIn, totalOut, (double) totalIn / totalOut);
+        System.out.println("=".repeat(84));
+    }
+
+    private static double[] trace(String type, int samples, Random random) {
+        double[] trace = new double[samples];
+        double drift = 0;
+        boolean on = false;
+        int excursion = 0;
+        for (int i = 0; i < samples; i++) {
+            double day = Math.sin(2 * Math.PI * i / 86_400.0);
+            switch (type) {
+                case "TEMPERATURE" -> {
+                    drift += random.nextGaussian() * 0.002;
+                    // A few overheating episodes per day, past the 30 and 40 °C thresholds
+                    if (excursion == 0 && random.nextInt(20_000) == 0) {
+                        excursion = 1200;
+                    }
+                    double heat = excursion > 0 ? 22 * Math.sin(Math.PI * excursion-- / 1200.0) : 0;
+                    trace[i] = round(21 + 5 * day + drift + heat + random.nextGaussian() * 0.08, 0.1);
+                }
+                case "HUMIDITY" -> {
+                    drift += random.nextGaussian() * 0.01;
+                    trace[i] = round(45 + 20 * day + drift + random.nextGaussian() * 0.3, 1);
+                }
+                default -> {
+                    // Motion: a few minutes of activity now and then; door: opened for a few seconds
+                    if (random.nextInt(type.equals("MOTION") ? 900 : 1800) == 0) {
+                        on = !on;
+                    }
+                    trace[i] = on ? 1 : 0;
+                }
+            }
+        }
+        return trace;
+    }
+
+    private static double round(double value, double resolution) {
+        return Math.round(value / resolution) * resolution;
+    }
+
+    private static double maxError(double[] trace, Recorder recorder, CompressionProfile.Mode mode) {
+        double max = 0;
+        int k = 0;
+        for (int i = 0; i < trace.length; i++) {
+            long t = i * 1000L;
+            while (k + 1 < recorder.count && recorder.times[k + 1] <= t) {
+                k++;
+            }
+            double rebuilt;
+            if (mode == CompressionProfile.Mode.SWINGING_DOOR && k + 1 < recorder.count && recorder.times[k] < t) {
+                double share = (double) (t - recorder.times[k]) / (recorder.times[k + 1] - recorder.times[k]);
+                rebuilt = recorder.values[k] + share * (recorder.values[k + 1] - recorder.values[k]);
+            } else {
+                rebuilt = recorder.values[k];
+            }
+            max = Math.max(max, Math.abs(rebuilt - trace[i]));
+        }
+        return max;
+    }
+
+    private static final class Recorder implements SensorCompressor.Output {
+        final long[] times;
+        final double[] values;
+        int count;
+
+        Recorder(int capacity) {
+            times = new long[capacity];
+            values = new double[capacity];
+        }
+
+        @Override
+        public void emit(long timeMillis, double value, String reason) {
+            times[count] = timeMillis;
+            values[count] = value;
+            count++;
+        }
+
+        boolean forwarded(int sample) {
+            long t = sample * 1000L;
+            int lo = 0;
+            int hi = count - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] < t) {
+                    lo = mid + 1;
+                } else if (times[mid] > t) {
+                    hi = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
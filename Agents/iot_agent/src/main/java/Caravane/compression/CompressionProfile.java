@@ -0,0 +1,69 @@
+package Caravane.compression;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the readings of one sensor type are compressed, from the agent properties:
+ * <pre>
+ * compression.&lt;type&gt;.mode=swinging-door | deadband | none
+ * compression.&lt;type&gt;.deviation=0.2         (in the sensor's unit)
+ * compression.&lt;type&gt;.keepalive-seconds=300
+ * compression.&lt;type&gt;.thresholds=0,30,40
+ * </pre>
+ * with {@code <type>} the lower-case sensorType; missing keys fall back to
+ * {@code compression.default.*}.
+ */
+public final class CompressionProfile {
+
+    public enum Mode { NONE, DEADBAND, SWINGING_DOOR }
+
+    public final Mode mode;
+    public final double deviation;
+    public final long keepAliveMillis;
+    // Sorted
+    public final double[] thresholds;
+
+    public CompressionProfile(Mode mode, double deviation, long keepAliveMillis, double... thresholds) {
+        this.mode = mode;
+        this.deviation = deviation;
+        this.keepAliveMillis = keepAliveMillis;
+        this.thresholds = thresholds.clone();
+        Arrays.sort(this.thresholds);
+    }
+
+    public static CompressionProfile load(Properties settings, String sensorType) {
+        String prefix = "compression." + sensorType.toLowerCase(Locale.ROOT) + ".";
+        String mode = setting(settings, prefix, "mode", "swinging-door");
+        String thresholds = setting(settings, prefix, "thresholds", "").trim();
+        return new CompressionProfile(
+                Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT).replace('-', '_')),
+                Double.parseDouble(setting(settings, prefix, "deviation", "0.5")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(setting(settings, prefix, "keepalive-seconds", "300"))),
+                thresholds.isEmpty() ? new double[0]
+                        : Arrays.stream(thresholds.split(",")).mapToDouble(t -> Double.parseDouble(t.trim())).toArray());
+    }
+
+    private static String setting(Properties settings, String prefix, String name, String fallback) {
+        return settings.getProperty(prefix + name, settings.getProperty("compression.default." + name, fallback));
+    }
+
+    /**
+     * @return how many thresholds are at or below the value: a change of band is a crossing
+     */
+    int band(double value) {
+        int band = 0;
+        while (band < thresholds.length && value >= thresholds[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    @Override
+    public String toString() {
+        return mode + " ±" + deviation + ", keep-alive " + keepAliveMillis / 1000 + " s, thresholds "
+                + Arrays.toString(thresholds);
+    }
+}
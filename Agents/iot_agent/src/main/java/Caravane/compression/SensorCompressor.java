@@ -0,0 +1,176 @@
+package Caravane.compression;
+
+/**
+ * Compresses the readings of one sensor into the few that are worth forwarding.
+ *
+ * <ul>
+ * <li>DEADBAND: a reading is forwarded when it differs from the last forwarded one
+ * by more than the deviation.</li>
+ * <li>SWINGING_DOOR: a reading is forwarded when the straight line from the last
+ * forwarded reading can no longer pass within the deviation of every reading held
+ * back since. The held-back readings can then be rebuilt upstream by linear
+ * interpolation, each within the deviation. The point forwarded is the last one that
+ * still fitted, so the stream runs one reading behind.</li>
+ * </ul>
+ * In both modes a reading that moves the value across one of the profile's thresholds
+ * is forwarded at once (reason THRESHOLD), preceded by the held-back reading, so the
+ * crossing is never smoothed away. Nothing is held back for more than the keep-alive
+ * interval: a steady sensor still sends a KEEPALIVE reading every interval, and
+ * {@link #tick} flushes the last reading of a sensor that went quiet.
+ *
+ * Not thread-safe; the gateway synchronizes on the sensor.
+ */
+public class SensorCompressor {
+
+    public static final String CHANGE = "CHANGE";
+    public static final String THRESHOLD = "THRESHOLD";
+    public static final String KEEPALIVE = "KEEPALIVE";
+
+    /**
+     * Receives the readings to forward.
+     */
+    public interface Output {
+        void emit(long timeMillis, double value, String reason);
+    }
+
+    private final CompressionProfile profile;
+
+    private boolean started;
+    private int band;
+    private long lastTime;
+    // Last forwarded reading
+    private long archivedTime;
+    private double archivedValue;
+    // Last reading received, and whether it was forwarded
+    private long heldTime;
+    private double heldValue;
+    private boolean held;
+    // Slopes from the archived reading that keep every held-back reading within the deviation
+    private double lowerSlope;
+    private double upperSlope;
+
+    private long readings;
+    private long forwarded;
+
+    public SensorCompressor(CompressionProfile profile) {
+        this.profile = profile;
+    }
+
+    public void offer(long timeMillis, double value, Output out) {
+        readings++;
+        if (!started) {
+            started = true;
+            lastTime = timeMillis;
+            band = profile.band(value);
+            archive(timeMillis, value, CHANGE, out);
+            return;
+        }
+        // Out of order: the door only swings forward in time
+        long time = Math.max(timeMillis, lastTime);
+        lastTime = time;
+
+        int newBand = profile.band(value);
+        if (newBand != band) {
+            band = newBand;
+            flushHeld(out);
+            archive(time, value, THRESHOLD, out);
+            return;
+        }
+
+        switch (profile.mode) {
+            case NONE:
+                archive(time, value, CHANGE, out);
+                return;
+            case DEADBAND:
+                if (Math.abs(value - archivedValue) > profile.deviation) {
+                    archive(time, value, CHANGE, out);
+                    return;
+                }
+                break;
+            case SWINGING_DOOR:
+                if (!swing(time, value, out)) {
+                    return;
+                }
+                break;
+        }
+
+        if (time - archivedTime >= profile.keepAliveMillis) {
+            archive(time, value, KEEPALIVE, out);
+        } else {
+            held = true;
+            heldTime = time;
+            heldValue = value;
+        }
+    }
+
+    /**
+     * @return true if the reading fits the door from the archived one and can be held
+     * back, false if it was forwarded
+     */
+    private boolean swing(long time, double value, Output out) {
+        long dt = time - archivedTime;
+        if (dt <= 0) {
+            // Same instant as the archived reading: no slope, only the deviation counts
+            if (Math.abs(value - archivedValue) <= profile.deviation) {
+                return true;
+            }
+            archive(time, value, CHANGE, out);
+            return false;
+        }
+        double slope = (value - archivedValue) / dt;
+        if (slope < lowerSlope || slope > upperSlope) {
+            // The door closed: the held reading is the end of the last segment that fits
+            flushHeld(out);
+            dt = time - archivedTime;
+            if (dt <= 0) {
+                archive(time, value, CHANGE, out);
+                return false;
+            }
+        }
+        lowerSlope = Math.max(lowerSlope, (value - profile.deviation - archivedValue) / dt);
+        upperSlope = Math.min(upperSlope, (value + profile.deviation - archivedValue) / dt);
+        return true;
+    }
+
+    /**
+     * Forwards the last reading if it was held back for the keep-alive interval.
+     */
+    public void tick(long nowMillis, Output out) {
+        if (held && nowMillis - archivedTime >= profile.keepAliveMillis) {
+            held = false;
+            archive(heldTime, heldValue, KEEPALIVE, out);
+        }
+    }
+
+    /**
+     * Forwards the last reading if it was held back: on shutdown.
+     */
+    public void flush(Output out) {
+        flushHeld(out);
+    }
+
+    private void flushHeld(Output out) {
+        if (held) {
+            held = false;
+            archive(heldTime, heldValue, CHANGE, out);
+        }
+    }
+
+    private void archive(long time, double value, String reason, Output out) {
+        held = false;
+        archivedTime = time;
+        archivedValue = value;
+        lowerSlope = Double.NEGATIVE_INFINITY;
+        upperSlope = Double.POSITIVE_INFINITY;
+        forwarded++;
+        out.emit(time, value, reason);
+    }
+
+    public long readings() {
+        return readings;
+    }
+
+    public long forwarded() {
+        return forwarded;
+    }
+}
@@ -0,0 +1,158 @@
+package Caravane.gateway;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+
+/**
+ * Reads an MQTT message into a {@link Reading}, with the conventions of the
+ * collector's MQTT bridge: the topic is matched against a level template such as
+ * {@code sensors/{location}/{deviceId}/{sensorType}}, and the payload is either a
+ * bare number or a JSON object whose fields ({@code value}/{@code sensorValue},
+ * {@code unit}, {@code timestamp} in epoch milliseconds or ISO local time,
+ * {@code deviceId}, ...) take precedence over the topic.
+ */
+public class ReadingParser {
+
+    /**
+     * One reading, reused from message to message.
+     */
+    public static final class Reading {
+        public String deviceId;
+        public String sensorType;
+        public String location;
+        public String unit;
+        public double value;
+        // 0 when the payload has none: the arrival time is used
+        public long timeMillis;
+
+        void clear() {
+            deviceId = null;
+            sensorType = null;
+            location = null;
+            unit = null;
+            value = Double.NaN;
+            timeMillis = 0;
+        }
+    }
+
+    private final JsonFactory json = new JsonFactory();
+    private final ZoneId zone = ZoneId.systemDefault();
+    // Field name per topic level, null for literal / wildcard levels
+    private final String[] levelFields;
+
+    public ReadingParser(String topicTemplate) {
+        String[] levels = topicTemplate.split("/");
+        this.levelFields = new String[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            String level = levels[i];
+            if (level.startsWith("{") && level.endsWith("}")) {
+                levelFields[i] = level.substring(1, level.length() - 1);
+            }
+        }
+    }
+
+    /**
+     * @return false if the message has no deviceId, sensorType or numeric value
+     */
+    public boolean parse(String topic, byte[] payload, Reading reading) {
+        reading.clear();
+        applyTopic(topic, reading);
+        try {
+            int first = firstNonWhitespace(payload);
+            if (first >= 0 && payload[first] == '{') {
+                applyJson(payload, reading);
+            } else if (first >= 0) {
+                reading.value = Double.parseDouble(new String(payload, StandardCharsets.US_ASCII).trim());
+            }
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+        return reading.deviceId != null && reading.sensorType != null && !Double.isNaN(reading.value);
+    }
+
+    private void applyTopic(String topic, Reading reading) {
+        int level = 0;
+        int start = 0;
+        while (level < levelFields.length && start <= topic.length()) {
+            int end = topic.indexOf('/', start);
+            if (end < 0) {
+                end = topic.length();
+            }
+            String field = levelFields[level];
+            if (field != null) {
+                set(reading, field, topic.substring(start, end));
+            }
+            level++;
+            start = end + 1;
+        }
+    }
+
+    private void applyJson(byte[] payload, Reading reading) throws IOException {
+        try (JsonParser parser = json.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            boolean sensorValue = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "sensorValue" -> {
+                        if (token.isNumeric()) {
+                            reading.value = parser.getDoubleValue();
+                            sensorValue = true;
+                        }
+                    }
+                    case "value" -> {
+                        if (token.isNumeric() && !sensorValue) {
+                            reading.value = parser.getDoubleValue();
+                        }
+                    }
+                    case "timestamp" -> {
+                        if (token.isNumeric()) {
+                            reading.timeMillis = parser.getLongValue();
+                        } else if (token == JsonToken.VALUE_STRING) {
+                            reading.timeMillis = LocalDateTime.parse(parser.getText()).atZone(zone)
+                                    .toInstant().toEpochMilli();
+                        }
+                    }
+                    default -> {
+                        if (token == JsonToken.VALUE_STRING) {
+                            set(reading, field, parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void set(Reading reading, String field, String value) {
+        switch (field) {
+            case "deviceId" -> reading.deviceId = value;
+            case "sensorType" -> reading.sensorType = value.toUpperCase(Locale.ROOT);
+            case "location" -> reading.location = value;
+            case "unit" -> reading.unit = value;
+            default -> {
+                // unknown placeholder: ignored
+            }
+        }
+    }
+
+    private static int firstNonWhitespace(byte[] payload) {
+        for (int i = 0; i < payload.length; i++) {
+            if (!Character.isWhitespace(payload[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
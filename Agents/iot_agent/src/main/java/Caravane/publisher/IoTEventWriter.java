@@ -0,0 +1,45 @@
+package Caravane.publisher;
+
+import Caravane.compression.SensorCompressor;
+import Caravane.kafka.DeviceEventJson;
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Writes a forwarded reading as an IOT device event, the JSON the collector reads
+ * into an IoTEvent ({@code eventType} SENSOR_READING, like the MQTT bridge's). The
+ * {@code compression} field tells why it was forwarded (CHANGE, THRESHOLD,
+ * KEEPALIVE); a threshold crossing is MEDIUM severity.
+ */
+public class IoTEventWriter {
+
+    private final JsonFactory json = new JsonFactory();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final String gatewayId;
+
+    public IoTEventWriter(String gatewayId) {
+        this.gatewayId = gatewayId;
+    }
+
+    public String write(String deviceId, String sensorType, String location, String unit,
+                        long timeMillis, double value, String reason) {
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), zone);
+        String severity = SensorCompressor.THRESHOLD.equals(reason) ? "MEDIUM" : "LOW";
+        return DeviceEventJson.write(json, 320, timestamp, deviceId, "IOT", "SENSOR_READING", severity, gen -> {
+            gen.writeStringField("authenticationStatus", "NONE");
+            gen.writeStringField("sensorType", sensorType);
+            gen.writeNumberField("sensorValue", value);
+            if (location != null) {
+                gen.writeStringField("location", location);
+            }
+            if (unit != null) {
+                gen.writeStringField("unit", unit);
+            }
+            gen.writeStringField("compression", reason);
+            gen.writeStringField("gatewayId", gatewayId);
+        });
+    }
+}
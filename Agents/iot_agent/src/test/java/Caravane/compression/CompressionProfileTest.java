@@ -0,0 +1,50 @@
+package Caravane.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompressionProfileTest {
+
+    @Test
+    void readsTheSensorTypeThenTheDefaults() {
+        Properties settings = new Properties();
+        settings.setProperty("compression.default.mode", "deadband");
+        settings.setProperty("compression.default.deviation", "1.5");
+        settings.setProperty("compression.default.keepalive-seconds", "600");
+        settings.setProperty("compression.temperature.mode", "swinging-door");
+        settings.setProperty("compression.temperature.thresholds", " 40, 0 ,30");
+
+        CompressionProfile temperature = CompressionProfile.load(settings, "TEMPERATURE");
+        assertEquals(CompressionProfile.Mode.SWINGING_DOOR, temperature.mode);
+        assertEquals(1.5, temperature.deviation);
+        assertEquals(600_000L, temperature.keepAliveMillis);
+        assertArrayEquals(new double[] { 0, 30, 40 }, temperature.thresholds);
+
+        CompressionProfile humidity = CompressionProfile.load(settings, "HUMIDITY");
+        assertEquals(CompressionProfile.Mode.DEADBAND, humidity.mode);
+        assertEquals(0, humidity.thresholds.length);
+    }
+
+    @Test
+    void fallsBackToTheBuiltInDefaults() {
+        CompressionProfile profile = CompressionProfile.load(new Properties(), "MOTION");
+        assertEquals(CompressionProfile.Mode.SWINGING_DOOR, profile.mode);
+        assertEquals(0.5, profile.deviation);
+        assertEquals(300_000L, profile.keepAliveMillis);
+    }
+
+    @Test
+    void countsTheThresholdsReached() {
+        CompressionProfile profile = new CompressionProfile(CompressionProfile.Mode.DEADBAND, 0.5, 1000, 30, 0, 40);
+        assertEquals(0, profile.band(-5));
+        assertEquals(1, profile.band(0));
+        assertEquals(1, profile.band(29.99));
+        assertEquals(2, profile.band(30));
+        assertEquals(3, profile.band(41));
+        assertEquals(0, new CompressionProfile(CompressionProfile.Mode.NONE, 0, 1000).band(100));
+    }
+}
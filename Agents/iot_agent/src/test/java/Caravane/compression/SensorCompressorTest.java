@@ -0,0 +1,166 @@
+package Caravane.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensorCompressorTest {
+
+    private static final long MINUTE = 60_000;
+
+    /**
+     * The forwarded readings, in order.
+     */
+    private static final class Recorder implements SensorCompressor.Output {
+        final List<Long> times = new ArrayList<>();
+        final List<Double> values = new ArrayList<>();
+        final List<String> reasons = new ArrayList<>();
+
+        @Override
+        public void emit(long timeMillis, double value, String reason) {
+            times.add(timeMillis);
+            values.add(value);
+            reasons.add(reason);
+        }
+    }
+
+    @Test
+    void forwardsAThresholdCrossingWithTheReadingBeforeIt() {
+        for (CompressionProfile.Mode mode : CompressionProfile.Mode.values()) {
+            if (mode == CompressionProfile.Mode.NONE) {
+                continue;
+            }
+            SensorCompressor compressor = new SensorCompressor(new CompressionProfile(mode, 1.0, 5 * MINUTE, 30));
+            Recorder out = new Recorder();
+            compressor.offer(0, 29.0, out);
+            compressor.offer(1000, 29.4, out);
+            compressor.offer(2000, 29.8, out);
+            assertEquals(1, out.values.size(), mode.toString());
+
+            // 0.2 above the last reading, well within the deviation: forwarded anyway
+            compressor.offer(3000, 30.0, out);
+            assertEquals(List.of(29.0, 29.8, 30.0), out.values, mode.toString());
+            assertEquals(List.of(0L, 2000L, 3000L), out.times, mode.toString());
+            assertEquals(SensorCompressor.THRESHOLD, out.reasons.get(2), mode.toString());
+
+            compressor.offer(4000, 29.9, out);
+            assertEquals(SensorCompressor.THRESHOLD, out.reasons.get(3), mode.toString());
+            assertEquals(4, out.values.size(), mode.toString());
+        }
+    }
+
+    @Test
+    void sendsASteadySensorEveryKeepAliveInterval() {
+        SensorCompressor compressor = new SensorCompressor(
+                new CompressionProfile(CompressionProfile.Mode.SWINGING_DOOR, 0.5, 5 * MINUTE));
+        Recorder out = new Recorder();
+        for (long t = 0; t <= 12 * MINUTE; t += 1000) {
+            compressor.offer(t, 21.0, out);
+        }
+        assertEquals(List.of(0L, 5 * MINUTE, 10 * MINUTE), out.times);
+        assertEquals(List.of(SensorCompressor.CHANGE, SensorCompressor.KEEPALIVE, SensorCompressor.KEEPALIVE),
+                out.reasons);
+    }
+
+    @Test
+    void tickFlushesTheLastReadingOfAQuietSensor() {
+        SensorCompressor compressor = new SensorCompressor(
+                new CompressionProfile(CompressionProfile.Mode.DEADBAND, 0.5, 5 * MINUTE));
+        Recorder out = new Recorder();
+        compressor.offer(0, 21.0, out);
+        compressor.offer(10_000, 21.2, out);
+
+        compressor.tick(5 * MINUTE - 1, out);
+        assertEquals(1, out.values.size());
+        compressor.tick(5 * MINUTE, out);
+        assertEquals(List.of(21.0, 21.2), out.values);
+        assertEquals(10_000L, out.times.get(1));
+        assertEquals(SensorCompressor.KEEPALIVE, out.reasons.get(1));
+
+        // Nothing held back any more
+        compressor.tick(20 * MINUTE, out);
+        compressor.flush(out);
+        assertEquals(2, out.values.size());
+    }
+
+    @Test
+    void keepsTheSwingingDoorWithinTheDeviation() {
+        double deviation = 0.2;
+        SensorCompressor compressor = new SensorCompressor(
+                new CompressionProfile(CompressionProfile.Mode.SWINGING_DOOR, deviation, 5 * MINUTE));
+        Random random = new Random(42);
+        int samples = 6 * 3600;
+        double[] trace = new double[samples];
+        Recorder out = new Recorder();
+        for (int i = 0; i < samples; i++) {
+            // Slow cycle, noise, and a 0.1 resolution like a real sensor
+            double value = 20 + 3 * Math.sin(i * 2 * Math.PI / 7200) + random.nextGaussian() * 0.05;
+            trace[i] = Math.round(value * 10) / 10.0;
+            compressor.offer(i * 1000L, trace[i], out);
+        }
+        compressor.flush(out);
+
+        assertEquals(samples, compressor.readings());
+        assertEquals(out.values.size(), compressor.forwarded());
+        assertTrue(out.values.size() < samples / 10, out.values.size() + " forwarded");
+        assertEquals(0L, out.times.get(0));
+        assertEquals((samples - 1) * 1000L, out.times.get(out.times.size() - 1));
+
+        // Every raw reading rebuilt by linear interpolation between the forwarded ones
+        int segment = 0;
+        double maxError = 0;
+        for (int i = 0; i < samples; i++) {
+            long t = i * 1000L;
+            while (out.times.get(segment + 1) < t) {
+                segment++;
+            }
+            long t0 = out.times.get(segment);
+            long t1 = out.times.get(segment + 1);
+            double v0 = out.values.get(segment);
+            double v1 = out.values.get(segment + 1);
+            double rebuilt = t1 == t0 ? v1 : v0 + (v1 - v0) * (t - t0) / (t1 - t0);
+            maxError = Math.max(maxError, Math.abs(rebuilt - trace[i]));
+        }
+        assertTrue(maxError <= deviation + 1e-9, "max error " + maxError);
+    }
+
+    @Test
+    void forwardsADeadbandChangeLargerThanTheDeviation() {
+        SensorCompressor compressor = new SensorCompressor(
+                new CompressionProfile(CompressionProfile.Mode.DEADBAND, 0.5, 5 * MINUTE));
+        Recorder out = new Recorder();
+        compressor.offer(0, 50.0, out);
+        compressor.offer(1000, 50.5, out);
+        compressor.offer(2000, 49.6, out);
+        compressor.offer(3000, 50.6, out);
+        assertEquals(List.of(50.0, 50.6), out.values);
+        assertEquals(SensorCompressor.CHANGE, out.reasons.get(1));
+    }
+
+    @Test
+    void forwardsEveryReadingWithoutCompression() {
+        SensorCompressor compressor = new SensorCompressor(
+                new CompressionProfile(CompressionProfile.Mode.NONE, 0.5, 5 * MINUTE));
+        Recorder out = new Recorder();
+        for (int i = 0; i < 10; i++) {
+            compressor.offer(i * 1000L, 1.0, out);
+        }
+        assertEquals(10, out.values.size());
+    }
+
+    @Test
+    void takesALateReadingAtTheTimeOfTheLastOne() {
+        SensorCompressor compressor = new SensorCompressor(
+                new CompressionProfile(CompressionProfile.Mode.SWINGING_DOOR, 0.5, 5 * MINUTE));
+        Recorder out = new Recorder();
+        compressor.offer(10_000, 20.0, out);
+        compressor.offer(5_000, 25.0, out);
+        assertEquals(List.of(10_000L, 10_000L), out.times);
+        assertEquals(25.0, out.values.get(1));
+    }
+}
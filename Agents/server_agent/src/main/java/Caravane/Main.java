@@ -1,17 +1,89 @@
 package Caravane;
 
-//TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
-// click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
+import Caravane.kafka.KafkaEventSink;
+import Caravane.publisher.ServerEventWriter;
+import Caravane.snapshot.ListenerScanner;
+import Caravane.snapshot.ProcessScanner;
+import Caravane.snapshot.SessionScanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless server agent: {@code java -jar server_agent.jar [agent.properties]}.
+ *
+ * Settings come from the bundled agent.properties, then the given file, then
+ * {@code -D} system properties, each overriding the previous one.
+ */
 public class Main {
-    public static void main(String[] args) {
-        //TIP Press <shortcut actionId="ShowIntentionActions"/> with your caret at the highlighted text
-        // to see how IntelliJ IDEA suggests fixing it.
-        System.out.printf("Hello and welcome!");
-
-        for (int i = 1; i <= 5; i++) {
-            //TIP Press <shortcut actionId="Debug"/> to start debugging your code. We have set one <icon src="AllIcons.Debugger.Db_set_breakpoint"/> breakpoint
-            // for you, but you can always add more by pressing <shortcut actionId="ToggleLineBreakpoint"/>.
-            System.out.println("i = " + i);
+    public static void main(String[] args) throws Exception {
+        Properties settings = new Properties();
+        try (InputStream defaults = Main.class.getResourceAsStream("/agent.properties")) {
+            if (defaults != null) {
+                settings.load(defaults);
+            }
+        }
+        if (args.length > 0) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+                settings.load(reader);
+            }
+        }
+        for (String name : settings.stringPropertyNames()) {
+            String override = System.getProperty(name);
+            if (override != null) {
+                settings.setProperty(name, override);
+            }
+        }
+
+        String hostname = hostname();
+        String deviceId = settings.getProperty("agent.device-id", "").isBlank()
+                ? "SRV-" + hostname : settings.getProperty("agent.device-id");
+        Path procRoot = Paths.get(settings.getProperty("agent.proc-root", "/proc"));
+        if (!Files.isDirectory(procRoot)) {
+            System.err.println("No procfs at " + procRoot + ": the server agent only runs on Linux");
+            System.exit(1);
+        }
+
+        KafkaEventSink sink = new KafkaEventSink(settings, settings.getProperty("agent.topic", "device-events-server"));
+        ServerAgent agent = new ServerAgent(
+                new ProcessScanner(procRoot, Paths.get(settings.getProperty("agent.passwd", "/etc/passwd"))),
+                new ListenerScanner(procRoot),
+                new SessionScanner(Paths.get(settings.getProperty("agent.utmp", "/run/utmp")),
+                        Paths.get(settings.getProperty("agent.logind-sessions", "/run/systemd/sessions"))),
+                new ServerEventWriter(deviceId, hostname), sink,
+                Long.parseLong(settings.getProperty("agent.interval-seconds", "2")),
+                Long.parseLong(settings.getProperty("agent.heartbeat-seconds", "300")),
+                Integer.parseInt(settings.getProperty("agent.max-process-events", "200")));
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                agent.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stopped.countDown();
+        }, "server-agent-shutdown"));
+
+        System.out.println("Server agent " + deviceId + " sending changes to "
+                + settings.getProperty("kafka.bootstrap-servers"));
+        agent.start();
+        stopped.await();
+    }
+
+    private static String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return System.getenv().getOrDefault("HOSTNAME", "unknown");
         }
     }
-}
\ No newline at end of file
+}
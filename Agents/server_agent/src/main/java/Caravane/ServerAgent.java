@@ -0,0 +1,231 @@
+package Caravane;
+
+import Caravane.kafka.KafkaEventSink;
+import Caravane.publisher.ServerEventWriter;
+import Caravane.schedule.PeriodicTask;
+import Caravane.snapshot.ListenerScanner;
+import Caravane.snapshot.ListenerScanner.Listener;
+import Caravane.snapshot.ProcessScanner;
+import Caravane.snapshot.ProcessScanner.Process;
+import Caravane.snapshot.SessionScanner;
+import Caravane.snapshot.SessionScanner.Session;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Snapshots processes, listening sockets and logged-in users every
+ * {@code agent.interval-seconds} and sends only what changed since the previous
+ * snapshot: PROCESS_STARTED/ENDED, LISTENER_OPENED/CLOSED, SESSION_OPENED/CLOSED.
+ * A server where nothing happens sends nothing but an AGENT_HEARTBEAT every
+ * {@code agent.heartbeat-seconds}.
+ *
+ * The first snapshot is the baseline and is not sent. When one scan finds more than
+ * {@code agent.max-process-events} process changes (a build, a fork storm), a single
+ * PROCESS_CHURN event with the counts replaces them.
+ */
+public class ServerAgent implements AutoCloseable {
+
+    private final ProcessScanner processScanner;
+    private final ListenerScanner listenerScanner;
+    private final SessionScanner sessionScanner;
+    private final ServerEventWriter writer;
+    private final KafkaEventSink sink;
+    private final long intervalSeconds;
+    private final long heartbeatSeconds;
+    private final int maxProcessEvents;
+
+    private Map<Long, Process> processes;
+    private Map<String, Listener> listeners;
+    private Map<String, Session> sessions;
+    private long nextHeartbeat;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "server-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ServerAgent(ProcessScanner processScanner, ListenerScanner listenerScanner, SessionScanner sessionScanner,
+                       ServerEventWriter writer, KafkaEventSink sink,
+                       long intervalSeconds, long heartbeatSeconds, int maxProcessEvents) {
+        this.processScanner = processScanner;
+        this.listenerScanner = listenerScanner;
+        this.sessionScanner = sessionScanner;
+        this.writer = writer;
+        this.sink = sink;
+        this.intervalSeconds = intervalSeconds;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.maxProcessEvents = maxProcessEvents;
+    }
+
+    public void start() {
+        timer.scheduleWithFixedDelay(PeriodicTask.logFailures("Snapshot", this::scan), 0, intervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    void scan() throws IOException {
+        if (processes == null) {
+            processes = processScanner.scan(Map.of());
+            listeners = listenerScanner.scan(Map.of());
+            sessions = sessionScanner.scan();
+            System.out.println("Baseline: " + processes.size() + " processes, " + listeners.size()
+                    + " listeners, " + sessions.size() + " sessions");
+        } else {
+            Map<Long, Process> currentProcesses = processScanner.scan(processes);
+            diffProcesses(processes, currentProcesses);
+            processes = currentProcesses;
+
+            Map<String, Listener> currentListeners = listenerScanner.scan(listeners);
+            diff(listeners, currentListeners, this::listenerOpened, this::listenerClosed);
+            listeners = currentListeners;
+
+            Map<String, Session> currentSessions = sessionScanner.scan();
+            diff(sessions, currentSessions, this::sessionOpened, this::sessionClosed);
+            sessions = currentSessions;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextHeartbeat) {
+            heartbeat();
+            nextHeartbeat = now + TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        }
+    }
+
+    private static <K, V> void diff(Map<K, V> previous, Map<K, V> current, Consumer<V> added, Consumer<V> removed) {
+        if (previous == current) {
+            return;
+        }
+        for (Map.Entry<K, V> entry : current.entrySet()) {
+            if (!previous.containsKey(entry.getKey())) {
+                added.accept(entry.getValue());
+            }
+        }
+        for (Map.Entry<K, V> entry : previous.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                removed.accept(entry.getValue());
+            }
+        }
+    }
+
+    private void diffProcesses(Map<Long, Process> previous, Map<Long, Process> current) {
+        List<Process> started = new ArrayList<>();
+        List<Process> ended = new ArrayList<>();
+        diff(previous, current, started::add, ended::add);
+        if (started.size() + ended.size() > maxProcessEvents) {
+            send(writer.write("PROCESS_CHURN", "MEDIUM", null, gen -> {
+                gen.writeNumberField("processesStarted", started.size());
+                gen.writeNumberField("processesEnded", ended.size());
+                gen.writeNumberField("processCount", current.size());
+            }));
+            return;
+        }
+        started.forEach(this::processStarted);
+        ended.forEach(this::processEnded);
+    }
+
+    private void processStarted(Process p) {
+        send(writer.write("PROCESS_STARTED", "LOW", p.name, gen -> {
+            gen.writeStringField("processName", p.name);
+            gen.writeNumberField("pid", p.pid);
+            gen.writeNumberField("ppid", p.ppid);
+            if (p.user != null) {
+                gen.writeStringField("username", p.user);
+                gen.writeNumberField("userId", p.uid);
+            }
+            if (p.commandLine != null && !p.commandLine.isEmpty()) {
+                gen.writeStringField("commandLine", p.commandLine);
+            }
+            gen.writeStringField("authenticationStatus", "NONE");
+        }));
+    }
+
+    private void processEnded(Process p) {
+        send(writer.write("PROCESS_ENDED", "LOW", p.name, gen -> {
+            gen.writeStringField("processName", p.name);
+            gen.writeNumberField("pid", p.pid);
+            if (p.user != null) {
+                gen.writeStringField("username", p.user);
+            }
+            gen.writeStringField("authenticationStatus", "NONE");
+        }));
+    }
+
+    private void listenerOpened(Listener l) {
+        // A new port reachable from the network is worth a look, a loopback one less so
+        send(writer.write("LISTENER_OPENED", l.isLoopback() ? "LOW" : "MEDIUM", l.processName,
+                gen -> writeListener(gen, l)));
+    }
+
+    private void listenerClosed(Listener l) {
+        send(writer.write("LISTENER_CLOSED", "LOW", l.processName, gen -> writeListener(gen, l)));
+    }
+
+    private static void writeListener(JsonGenerator gen, Listener l) throws IOException {
+        gen.writeStringField("protocol", l.protocol);
+        gen.writeStringField("localAddress", l.address);
+        gen.writeNumberField("port", l.port);
+        if (l.pid > 0) {
+            gen.writeNumberField("pid", l.pid);
+            gen.writeStringField("processName", l.processName);
+        }
+        gen.writeStringField("authenticationStatus", "NONE");
+    }
+
+    private void sessionOpened(Session s) {
+        send(writer.write("SESSION_OPENED", "MEDIUM", null, gen -> {
+            writeSession(gen, s);
+            gen.writeStringField("authenticationStatus", "SUCCESS");
+        }));
+    }
+
+    private void sessionClosed(Session s) {
+        send(writer.write("SESSION_CLOSED", "LOW", null, gen -> {
+            writeSession(gen, s);
+            gen.writeStringField("authenticationStatus", "NONE");
+        }));
+    }
+
+    private static void writeSession(JsonGenerator gen, Session s) throws IOException {
+        gen.writeStringField("username", s.user);
+        gen.writeStringField("terminal", s.line);
+        if (!s.host.isEmpty()) {
+            gen.writeStringField("remoteHost", s.host);
+            if (s.host.matches("[0-9.]+|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*")) {
+                gen.writeStringField("sourceIp", s.host);
+            }
+        }
+        if (s.pid > 0) {
+            gen.writeNumberField("pid", s.pid);
+        }
+        gen.writeNumberField("loginTime", s.loginEpochSeconds);
+    }
+
+    private void heartbeat() {
+        send(writer.write("AGENT_HEARTBEAT", "LOW", "server-agent", gen -> {
+            gen.writeNumberField("processCount", processes.size());
+            gen.writeNumberField("listenerCount", listeners.size());
+            gen.writeNumberField("sessionCount", sessions.size());
+            gen.writeNumberField("eventsSent", sink.sent());
+            gen.writeNumberField("eventsFailed", sink.failed());
+            gen.writeStringField("authenticationStatus", "NONE");
+        }));
+    }
+
+    private void send(String json) {
+        sink.send(writer.deviceId(), json);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        timer.shutdown();
+        timer.awaitTermination(10, TimeUnit.SECONDS);
+        sink.close();
+    }
+}
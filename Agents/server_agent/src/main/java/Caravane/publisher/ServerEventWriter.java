@@ -0,0 +1,41 @@
+package Caravane.publisher;
+
+import Caravane.kafka.DeviceEventJson;
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes the agent's events as SERVER device events, the JSON the collector reads
+ * into a ServerEvent: the common DeviceEvent fields plus {@code serverName} and
+ * {@code service}, then the fields of the event type (pid, port...), which the
+ * collector ignores but keeps in the raw record.
+ */
+public class ServerEventWriter {
+
+    private final JsonFactory json = new JsonFactory();
+    private final String deviceId;
+    private final String serverName;
+
+    public ServerEventWriter(String deviceId, String serverName) {
+        this.deviceId = deviceId;
+        this.serverName = serverName;
+    }
+
+    /**
+     * Also the record key of the events.
+     */
+    public String deviceId() {
+        return deviceId;
+    }
+
+    public String write(String eventType, String severity, String service, DeviceEventJson.Fields fields) {
+        return DeviceEventJson.write(json, 384, LocalDateTime.now(), deviceId, "SERVER", eventType, severity, gen -> {
+            gen.writeStringField("serverName", serverName);
+            if (service != null) {
+                gen.writeStringField("service", service);
+            }
+            fields.write(gen);
+        });
+    }
+}
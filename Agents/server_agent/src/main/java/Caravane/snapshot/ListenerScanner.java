@@ -0,0 +1,197 @@
+package Caravane.snapshot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Listening sockets from {@code /proc/net/tcp}, {@code tcp6}, {@code udp} and
+ * {@code udp6}: TCP sockets in LISTEN, UDP sockets bound without a peer.
+ *
+ * A listener is keyed by protocol, address and port, so a service restart (new
+ * socket on the same port) is not a change. UDP sockets on ephemeral ports
+ * ({@code ip_local_port_range}) are client sockets (resolvers...) and are skipped. The owning process is looked up from
+ * the socket inode only for new listeners, by scanning {@code /proc/<pid>/fd}.
+ */
+public class ListenerScanner {
+
+    public static final class Listener {
+        public final String protocol;
+        public final String address;
+        public final int port;
+        public final long inode;
+        public int pid = -1;
+        public String processName;
+
+        Listener(String protocol, String address, int port, long inode) {
+            this.protocol = protocol;
+            this.address = address;
+            this.port = port;
+            this.inode = inode;
+        }
+
+        public boolean isLoopback() {
+            return address.startsWith("127.") || address.equals("::1");
+        }
+
+        String key() {
+            return protocol + " " + address + ":" + port;
+        }
+    }
+
+    private static final int TCP_LISTEN = 0x0A;
+    private static final int UDP_UNCONNECTED = 0x07;
+
+    private final Path procRoot;
+    private int ephemeralLow = 32768;
+    private int ephemeralHigh = 60999;
+
+    public ListenerScanner(Path procRoot) {
+        this.procRoot = procRoot;
+        try {
+            String[] range = Files.readString(procRoot.resolve("sys/net/ipv4/ip_local_port_range")).trim().split("\\s+");
+            ephemeralLow = Integer.parseInt(range[0]);
+            ephemeralHigh = Integer.parseInt(range[1]);
+        } catch (IOException | RuntimeException e) {
+            // Linux default range
+        }
+    }
+
+    /**
+     * @param known the previous scan: listeners found there keep their owner
+     * @return the current listeners by protocol, address and port
+     */
+    public Map<String, Listener> scan(Map<String, Listener> known) throws IOException {
+        Map<String, Listener> listeners = new HashMap<>();
+        read("tcp", "net/tcp", TCP_LISTEN, listeners);
+        read("tcp6", "net/tcp6", TCP_LISTEN, listeners);
+        read("udp", "net/udp", UDP_UNCONNECTED, listeners);
+        read("udp6", "net/udp6", UDP_UNCONNECTED, listeners);
+
+        Map<Long, Listener> unknown = new HashMap<>();
+        for (Map.Entry<String, Listener> entry : listeners.entrySet()) {
+            Listener previous = known.get(entry.getKey());
+            if (previous != null) {
+                entry.setValue(previous);
+            } else {
+                unknown.put(entry.getValue().inode, entry.getValue());
+            }
+        }
+        if (!unknown.isEmpty()) {
+            findOwners(unknown);
+        }
+        return listeners;
+    }
+
+    // "  sl  local_address rem_address   st ... uid  timeout inode"
+    private void read(String protocol, String file, int state, Map<String, Listener> listeners) throws IOException {
+        Path path = procRoot.resolve(file);
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+        for (int i = 1; i < lines.size(); i++) {
+            String[] fields = lines.get(i).trim().split("\\s+");
+            if (fields.length < 10 || Integer.parseInt(fields[3], 16) != state) {
+                continue;
+            }
+            String remote = fields[2];
+            if (state == UDP_UNCONNECTED && !remote.substring(remote.indexOf(':') + 1).equals("0000")) {
+                continue;
+            }
+            String local = fields[1];
+            int colon = local.indexOf(':');
+            int port = Integer.parseInt(local.substring(colon + 1), 16);
+            if (state == UDP_UNCONNECTED && port >= ephemeralLow && port <= ephemeralHigh) {
+                continue;
+            }
+            Listener listener = new Listener(protocol, address(local.substring(0, colon)), port,
+                    Long.parseLong(fields[9]));
+            listeners.putIfAbsent(listener.key(), listener);
+        }
+    }
+
+    /**
+     * Hex address of /proc/net: 32-bit words in host (little-endian) order.
+     */
+    static String address(String hex) {
+        if (hex.length() == 8) {
+            long word = Long.parseLong(hex, 16);
+            return (word & 0xFF) + "." + ((word >> 8) & 0xFF) + "." + ((word >> 16) & 0xFF) + "." + ((word >> 24) & 0xFF);
+        }
+        int[] groups = new int[8];
+        for (int w = 0; w < 4; w++) {
+            long word = Long.parseLong(hex.substring(w * 8, w * 8 + 8), 16);
+            // Bytes of the word in network order: b0 b1 | b2 b3
+            groups[w * 2] = (int) ((word & 0xFF) << 8 | (word >> 8) & 0xFF);
+            groups[w * 2 + 1] = (int) ((word >> 16 & 0xFF) << 8 | (word >> 24) & 0xFF);
+        }
+        // Longest run of zero groups becomes "::" (RFC 5952)
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            int j = i;
+            while (j < 8 && groups[j] == 0) {
+                j++;
+            }
+            if (j - i > bestLength) {
+                bestStart = i;
+                bestLength = j - i;
+            }
+            i = j == i ? i + 1 : j;
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                text.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (text.length() > 0 && text.charAt(text.length() - 1) != ':') {
+                text.append(':');
+            }
+            text.append(Integer.toHexString(groups[i]));
+        }
+        return text.toString();
+    }
+
+    private void findOwners(Map<Long, Listener> byInode) {
+        Set<Long> missing = new HashSet<>(byInode.keySet());
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(procRoot)) {
+            for (Path dir : dirs) {
+                if (missing.isEmpty()) {
+                    return;
+                }
+                String pid = dir.getFileName().toString();
+                if (!Character.isDigit(pid.charAt(0))) {
+                    continue;
+                }
+                try (DirectoryStream<Path> fds = Files.newDirectoryStream(dir.resolve("fd"))) {
+                    for (Path fd : fds) {
+                        String target = Files.readSymbolicLink(fd).toString();
+                        if (!target.startsWith("socket:[")) {
+                            continue;
+                        }
+                        long inode = Long.parseLong(target.substring(8, target.length() - 1));
+                        if (missing.remove(inode)) {
+                            Listener listener = byInode.get(inode);
+                            listener.pid = Integer.parseInt(pid);
+                            listener.processName = Files.readString(dir.resolve("comm")).trim();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Exited, or another user's process without the privileges to look
+                }
+            }
+        } catch (IOException e) {
+            // Owners stay unknown
+        }
+    }
+}
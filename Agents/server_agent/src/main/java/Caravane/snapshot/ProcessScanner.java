@@ -0,0 +1,208 @@
+package Caravane.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running processes from {@code /proc/<pid>/stat}.
+ *
+ * A process is keyed by pid and start time, so a reused pid is a new process. Only
+ * {@code stat} is read for every process at every scan; the owner and command line
+ * are read once, when the process first shows up. Kernel threads are left out.
+ */
+public class ProcessScanner {
+
+    public static final class Process {
+        public final int pid;
+        public final int ppid;
+        public final String name;
+        public final long startTicks;
+        public int uid = -1;
+        public String user;
+        public String commandLine;
+
+        Process(int pid, int ppid, String name, long startTicks) {
+            this.pid = pid;
+            this.ppid = ppid;
+            this.name = name;
+            this.startTicks = startTicks;
+        }
+    }
+
+    private static final int KTHREADD = 2;
+    private static final int MAX_COMMAND_LINE = 1024;
+
+    private final Path procRoot;
+    private final Path passwd;
+    private final byte[] buffer = new byte[4096];
+    private Map<Integer, String> userNames = new HashMap<>();
+    private FileTime passwdModified;
+
+    public ProcessScanner(Path procRoot, Path passwd) {
+        this.procRoot = procRoot;
+        this.passwd = passwd;
+    }
+
+    /**
+     * @param known the previous scan: processes found there are reused as is
+     * @return the current processes by {@link #key}
+     */
+    public Map<Long, Process> scan(Map<Long, Process> known) throws IOException {
+        Map<Long, Process> processes = new HashMap<>(Math.max(16, known.size() * 2));
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(procRoot)) {
+            for (Path dir : dirs) {
+                String name = dir.getFileName().toString();
+                if (!isNumber(name)) {
+                    continue;
+                }
+                Process process = readStat(dir.resolve("stat"));
+                if (process == null || process.pid == KTHREADD || process.ppid == KTHREADD) {
+                    continue;
+                }
+                long key = key(process.pid, process.startTicks);
+                Process previous = known.get(key);
+                if (previous == null) {
+                    describe(dir, process);
+                    previous = process;
+                }
+                processes.put(key, previous);
+            }
+        }
+        return processes;
+    }
+
+    // pid < 2^22 (pid_max), start time in clock ticks since boot
+    static long key(int pid, long startTicks) {
+        return (startTicks << 22) | pid;
+    }
+
+    // "pid (comm) state ppid ... starttime(22) ...", comm may hold spaces and parentheses
+    private Process readStat(Path stat) {
+        int length;
+        try (InputStream in = Files.newInputStream(stat)) {
+            length = in.readNBytes(buffer, 0, buffer.length);
+        } catch (IOException e) {
+            // Exited since the directory listing
+            return null;
+        }
+        int open = indexOf((byte) '(', 0, length);
+        int close = lastIndexOf((byte) ')', length);
+        if (open < 0 || close < open) {
+            return null;
+        }
+        int pid = (int) parseLong(0, open - 1);
+        String name = new String(buffer, open + 1, close - open - 1, StandardCharsets.UTF_8);
+        // Fields from 3 (state) on, one per blank
+        int field = 2;
+        int pos = close + 1;
+        int ppid = 0;
+        long startTicks = -1;
+        while (pos < length && field < 22) {
+            while (pos < length && buffer[pos] == ' ') {
+                pos++;
+            }
+            field++;
+            int end = pos;
+            while (end < length && buffer[end] != ' ' && buffer[end] != '\n') {
+                end++;
+            }
+            if (field == 4) {
+                ppid = (int) parseLong(pos, end);
+            } else if (field == 22) {
+                startTicks = parseLong(pos, end);
+            }
+            pos = end;
+        }
+        return startTicks < 0 ? null : new Process(pid, ppid, name, startTicks);
+    }
+
+    private void describe(Path dir, Process process) {
+        try {
+            for (String line : Files.readAllLines(dir.resolve("status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("Uid:")) {
+                    process.uid = Integer.parseInt(line.substring(4).trim().split("\\s+")[0]);
+                    process.user = userName(process.uid);
+                    break;
+                }
+            }
+            byte[] cmdline = Files.readAllBytes(dir.resolve("cmdline"));
+            int length = Math.min(cmdline.length, MAX_COMMAND_LINE);
+            // Arguments are NUL separated
+            for (int i = 0; i < length; i++) {
+                if (cmdline[i] == 0) {
+                    cmdline[i] = ' ';
+                }
+            }
+            process.commandLine = new String(cmdline, 0, length, StandardCharsets.UTF_8).trim();
+        } catch (IOException | RuntimeException e) {
+            // Exited or not readable (hidepid): name and pid are enough
+        }
+    }
+
+    private String userName(int uid) throws IOException {
+        FileTime modified = Files.exists(passwd) ? Files.getLastModifiedTime(passwd) : null;
+        if (modified != null && !modified.equals(passwdModified)) {
+            Map<Integer, String> names = new HashMap<>();
+            List<String> lines = Files.readAllLines(passwd, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                String[] fields = line.split(":");
+                if (fields.length > 2) {
+                    try {
+                        names.put(Integer.parseInt(fields[2]), fields[0]);
+                    } catch (NumberFormatException ignored) {
+                        // Comment or NIS line
+                    }
+                }
+            }
+            userNames = names;
+            passwdModified = modified;
+        }
+        return userNames.getOrDefault(uid, Integer.toString(uid));
+    }
+
+    private int indexOf(byte b, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(byte b, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long parseLong(int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+            }
+        }
+        return value;
+    }
+
+    private static boolean isNumber(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return !name.isEmpty();
+    }
+}
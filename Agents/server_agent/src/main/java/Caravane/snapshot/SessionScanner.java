@@ -0,0 +1,170 @@
+package Caravane.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Logged-in users, from the utmp file ({@code who}'s source) or, on systems that no
+ * longer write it, from systemd-logind's {@code /run/systemd/sessions}.
+ *
+ * The source is parsed again only when it changed (modification time), so an idle
+ * server costs a stat per scan.
+ */
+public class SessionScanner {
+
+    public static final class Session {
+        public final String user;
+        public final String line;
+        public final String host;
+        public final int pid;
+        public final long loginEpochSeconds;
+
+        Session(String user, String line, String host, int pid, long loginEpochSeconds) {
+            this.user = user;
+            this.line = line;
+            this.host = host;
+            this.pid = pid;
+            this.loginEpochSeconds = loginEpochSeconds;
+        }
+
+        String key() {
+            return user + "|" + line + "|" + loginEpochSeconds;
+        }
+    }
+
+    // struct utmp on Linux x86-64 / aarch64 (glibc, musl)
+    private static final int RECORD = 384;
+    private static final int USER_PROCESS = 7;
+
+    private final Path utmp;
+    private final Path logindSessions;
+    private FileTime lastModified;
+    private Map<String, Session> last = new HashMap<>();
+
+    public SessionScanner(Path utmp, Path logindSessions) {
+        this.utmp = utmp;
+        this.logindSessions = logindSessions;
+    }
+
+    /**
+     * @return the current sessions by user, terminal and login time
+     */
+    public Map<String, Session> scan() throws IOException {
+        Path source = Files.exists(utmp) ? utmp : logindSessions;
+        if (!Files.exists(source)) {
+            return last;
+        }
+        FileTime modified = Files.getLastModifiedTime(source);
+        if (modified.equals(lastModified)) {
+            return last;
+        }
+        last = source == utmp ? readUtmp() : readLogind();
+        lastModified = modified;
+        return last;
+    }
+
+    private Map<String, Session> readUtmp() throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(utmp)).order(ByteOrder.LITTLE_ENDIAN);
+        Map<String, Session> sessions = new HashMap<>();
+        for (int base = 0; base + RECORD <= data.limit(); base += RECORD) {
+            if (data.getShort(base) != USER_PROCESS) {
+                continue;
+            }
+            int pid = data.getInt(base + 4);
+            String line = string(data, base + 8, 32);
+            String user = string(data, base + 44, 32);
+            String host = string(data, base + 76, 256);
+            long loginSeconds = data.getInt(base + 340) & 0xFFFFFFFFL;
+            if (host.isEmpty()) {
+                host = address(data, base + 348);
+            }
+            Session session = new Session(user, line, host, pid, loginSeconds);
+            sessions.put(session.key(), session);
+        }
+        return sessions;
+    }
+
+    // One file per session: USER=, CLASS=, TTY=, REMOTE_HOST=, LEADER=, REALTIME= (microseconds)
+    private Map<String, Session> readLogind() throws IOException {
+        Map<String, Session> sessions = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(logindSessions)) {
+            for (Path file : files) {
+                Map<String, String> values = new HashMap<>();
+                try {
+                    for (String entry : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                        int eq = entry.indexOf('=');
+                        if (eq > 0) {
+                            values.put(entry.substring(0, eq), entry.substring(eq + 1));
+                        }
+                    }
+                } catch (IOException e) {
+                    // Session closed while listing
+                    continue;
+                }
+                // Not logins: systemd --user managers, greeters, background sessions
+                if (!values.getOrDefault("CLASS", "user").startsWith("user")) {
+                    continue;
+                }
+                String line = values.getOrDefault("TTY", values.getOrDefault("SERVICE", file.getFileName().toString()));
+                Session session = new Session(values.getOrDefault("USER", "?"), line,
+                        values.getOrDefault("REMOTE_HOST", ""), parseInt(values.get("LEADER")),
+                        parseLong(values.get("REALTIME")) / 1_000_000);
+                sessions.put(session.key(), session);
+            }
+        }
+        return sessions;
+    }
+
+    private static String string(ByteBuffer data, int offset, int size) {
+        int length = 0;
+        while (length < size && data.get(offset + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        data.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ut_addr_v6: an IPv4 address is in the first word, network order
+    private static String address(ByteBuffer data, int offset) {
+        boolean v4 = data.getInt(offset + 4) == 0 && data.getInt(offset + 8) == 0 && data.getInt(offset + 12) == 0;
+        if (v4 && data.getInt(offset) == 0) {
+            return "";
+        }
+        if (v4) {
+            return (data.get(offset) & 0xFF) + "." + (data.get(offset + 1) & 0xFF) + "."
+                    + (data.get(offset + 2) & 0xFF) + "." + (data.get(offset + 3) & 0xFF);
+        }
+        byte[] bytes = new byte[16];
+        data.get(offset, bytes);
+        try {
+            return java.net.InetAddress.getByAddress(bytes).getHostAddress();
+        } catch (java.net.UnknownHostException e) {
+            return "";
+        }
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return value == null ? -1 : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
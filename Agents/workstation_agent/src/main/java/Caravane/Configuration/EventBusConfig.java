@@ -0,0 +1,72 @@
+package Caravane.Configuration;
+
+import Caravane.bus.RingBufferEventBus;
+import Caravane.bus.WaitStrategy;
+import Caravane.events.FileChangedEvent;
+import Caravane.events.IntegrityEvent;
+import Caravane.events.PeriodicEvent;
+import Caravane.subscriber.EventSubscriber;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+
+/**
+ * The bus the file watcher publishes to, with one consumer thread per
+ * {@link EventSubscriber}. Spring's ApplicationEventPublisher dispatched on the
+ * publishing thread, so every subscriber (and its Kafka send) slowed down the reads.
+ */
+@Configuration
+public class EventBusConfig {
+
+    @Value("${agent.bus.buffer-size:1024}")
+    private int bufferSize;
+
+    @Value("${agent.bus.wait-strategy:blocking}")
+    private String waitStrategy;
+
+    @Value("${agent.bus.max-batch:256}")
+    private int maxBatch;
+
+    // Destroyed before the subscribers it depends on: they get the events still in the ring
+    @Bean(destroyMethod = "shutdown")
+    public RingBufferEventBus<FileChangedEvent> fileEventBus(List<EventSubscriber> subscribers) {
+        // MULTI: the file reader pool publishes from several threads
+        RingBufferEventBus<FileChangedEvent> bus = new RingBufferEventBus<>(bufferSize,
+                RingBufferEventBus.ProducerType.MULTI, WaitStrategy.named(waitStrategy), maxBatch);
+        for (EventSubscriber subscriber : subscribers) {
+            bus.subscribe(subscriber.getClass().getSimpleName(),
+                    (event, sequence, endOfBatch) -> subscriber.handlefilechanged(event));
+        }
+        bus.start();
+        return bus;
+    }
+
+    // One sample per interval: a small ring, written by the sampler thread only
+    @Bean(destroyMethod = "shutdown")
+    public RingBufferEventBus<PeriodicEvent> periodicEventBus(List<EventSubscriber> subscribers) {
+        RingBufferEventBus<PeriodicEvent> bus = new RingBufferEventBus<>(64,
+                RingBufferEventBus.ProducerType.SINGLE, WaitStrategy.named(waitStrategy), maxBatch);
+        for (EventSubscriber subscriber : subscribers) {
+            bus.subscribe(subscriber.getClass().getSimpleName() + "-periodic",
+                    (event, sequence, endOfBatch) -> subscriber.handleperiodic(event));
+        }
+        bus.start();
+        return bus;
+    }
+
+    // MULTI: the integrity check workers and the scrub thread both publish
+    @Bean(destroyMethod = "shutdown")
+    public RingBufferEventBus<IntegrityEvent> integrityEventBus(List<EventSubscriber> subscribers) {
+        RingBufferEventBus<IntegrityEvent> bus = new RingBufferEventBus<>(256,
+                RingBufferEventBus.ProducerType.MULTI, WaitStrategy.named(waitStrategy), maxBatch);
+        for (EventSubscriber subscriber : subscribers) {
+            bus.subscribe(subscriber.getClass().getSimpleName() + "-integrity",
+                    (event, sequence, endOfBatch) -> subscriber.handleintegrity(event));
+        }
+        bus.start();
+        return bus;
+    }
+}
@@ -0,0 +1,111 @@
+package Caravane.bus;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.SimpleApplicationEventMulticaster;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events/sec and publish latency of {@link RingBufferEventBus}, per wait strategy,
+ * against Spring's synchronous multicaster (what ApplicationEventPublisher dispatches
+ * through). The subscriber spins {@code work-ns} per event to stand for the Kafka
+ * forwarding: with Spring the publisher pays it, with the bus only the consumer does
+ * (until the ring is full).
+ *
+ * Usage: {@code EventBusBenchmark [events] [work-ns] [buffer-size]}
+ */
+public class EventBusBenchmark {
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        long workNs = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        int bufferSize = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        long[] latencies = new long[events];
+
+        System.out.println("=".repeat(72));
+        System.out.printf("🚌 %,d events, %d ns of work per event, ring of %d%n", events, workNs, bufferSize);
+        System.out.printf("%-24s %14s %10s %10s %10s%n", "", "events/s", "p50 ns", "p99 ns", "p99.9 ns");
+
+        // Warm-up rounds, not reported
+        spring(events / 10, workNs, latencies);
+        bus(events / 10, workNs, bufferSize, "yielding", RingBufferEventBus.ProducerType.SINGLE, latencies);
+
+        report("spring (sync)", events, spring(events, workNs, latencies), latencies);
+        for (String strategy : new String[] { "busy-spin", "yielding", "sleeping", "blocking" }) {
+            long ns = bus(events, workNs, bufferSize, strategy, RingBufferEventBus.ProducerType.SINGLE, latencies);
+            report("bus " + strategy, events, ns, latencies);
+        }
+        long ns = bus(events, workNs, bufferSize, "blocking", RingBufferEventBus.ProducerType.MULTI, latencies);
+        report("bus blocking (multi)", events, ns, latencies);
+        System.out.println("=".repeat(72));
+    }
+
+    private static long spring(int events, long workNs, long[] latencies) {
+        SimpleApplicationEventMulticaster multicaster = new SimpleApplicationEventMulticaster();
+        CountDownLatch done = new CountDownLatch(1);
+        multicaster.addApplicationListener((ApplicationListener<PayloadApplicationEvent<Long>>) event -> {
+            handle(event.getPayload(), workNs);
+            if (event.getPayload() == events - 1) {
+                done.countDown();
+            }
+        });
+        Object source = new Object();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            long start = System.nanoTime();
+            multicaster.multicastEvent(new PayloadApplicationEvent<>(source, (long) i));
+            latencies[i] = System.nanoTime() - start;
+        }
+        return System.nanoTime() - t0;
+    }
+
+    private static long bus(int events, long workNs, int bufferSize, String strategy,
+                            RingBufferEventBus.ProducerType producerType, long[] latencies) throws InterruptedException {
+        RingBufferEventBus<Long> bus = new RingBufferEventBus<>(bufferSize, producerType,
+                WaitStrategy.named(strategy), 256);
+        CountDownLatch done = new CountDownLatch(1);
+        bus.subscribe("bench", (event, sequence, endOfBatch) -> {
+            handle(event, workNs);
+            if (event == events - 1) {
+                done.countDown();
+            }
+        });
+        bus.start();
+        // Boxed up front: the publish itself is measured, not Long.valueOf
+        Long[] boxed = new Long[events];
+        for (int i = 0; i < events; i++) {
+            boxed[i] = (long) i;
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            long start = System.nanoTime();
+            bus.publish(boxed[i]);
+            latencies[i] = System.nanoTime() - start;
+        }
+        done.await();
+        long elapsed = System.nanoTime() - t0;
+        bus.shutdown(TimeUnit.SECONDS.toMillis(1));
+        return elapsed;
+    }
+
+    private static void handle(long event, long workNs) {
+        long end = System.nanoTime() + workNs;
+        long x = event;
+        while (System.nanoTime() < end) {
+            x = x * 31 + 7;
+        }
+        sink = x;
+    }
+
+    private static void report(String name, int events, long elapsedNs, long[] latencies) {
+        long[] sorted = Arrays.copyOf(latencies, events);
+        Arrays.sort(sorted);
+        System.out.printf("%-24s %,14.0f %,10d %,10d %,10d%n", name, events * 1e9 / elapsedNs,
+                sorted[events / 2], sorted[(int) (events * 0.99)], sorted[(int) (events * 0.999)]);
+    }
+}
@@ -0,0 +1,13 @@
+package Caravane.bus;
+
+/**
+ * Subscriber of a {@link RingBufferEventBus}, called on its own consumer thread.
+ */
+public interface EventHandler<T> {
+
+    /**
+     * @param endOfBatch true for the last event available when the batch was read:
+     *                   the moment to flush anything accumulated over the batch
+     */
+    void onEvent(T event, long sequence, boolean endOfBatch) throws Exception;
+}
@@ -0,0 +1,257 @@
+package Caravane.bus;
+
+import Caravane.publisher.EventPublisher;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded event bus between the agent's publishers and subscribers, on a ring of
+ * preallocated slots (Disruptor-style).
+ *
+ * {@link #publish} claims the next sequence, stores the event in its slot and moves
+ * the cursor: no lock, no allocation, no queue node. Every subscriber has its own
+ * consumer thread and position, and reads all the events published since its last
+ * read as one batch. Subscribers are therefore independent: a slow Kafka send only
+ * delays the forwarder, never the file reads or another subscriber. The producer
+ * waits only when the slowest consumer is a whole ring behind, which bounds memory
+ * and pushes back on the publishers.
+ *
+ * With {@link ProducerType#SINGLE} the cursor is advanced with a plain ordered write,
+ * which is only correct if one thread publishes. {@link ProducerType#MULTI} claims
+ * with a CAS and marks each slot published, for several publishing threads (the file
+ * reader pool).
+ */
+public class RingBufferEventBus<T> implements EventPublisher<T> {
+
+    public enum ProducerType { SINGLE, MULTI }
+
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final int bufferSize;
+    private final int mask;
+    private final int shift;
+    private final Object[] entries;
+    private final ProducerType producerType;
+    private final WaitStrategy waitStrategy;
+    private final int maxBatch;
+
+    // SINGLE: last published; MULTI: last claimed (see available)
+    private final Sequence cursor = new Sequence(-1);
+    // MULTI: lap number of the last publish of each slot
+    private final int[] available;
+    // SINGLE: producer-thread state, no sharing
+    private long nextValue = -1;
+    private long cachedGate = -1;
+
+    private final List<Consumer> consumers = new ArrayList<>();
+    private volatile Sequence[] gating = new Sequence[0];
+    private volatile boolean stopping;
+    private boolean started;
+    // One subscriber: it drops its events from the slots, otherwise they wait for the next lap
+    private boolean clearSlots;
+
+    /**
+     * @param bufferSize power of two, the number of events in flight at most
+     * @param maxBatch   largest batch handed to a subscriber before its position is published
+     */
+    public RingBufferEventBus(int bufferSize, ProducerType producerType, WaitStrategy waitStrategy, int maxBatch) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.mask = bufferSize - 1;
+        this.shift = Integer.numberOfTrailingZeros(bufferSize);
+        this.entries = new Object[bufferSize];
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+        this.maxBatch = maxBatch;
+        if (producerType == ProducerType.MULTI) {
+            available = new int[bufferSize];
+            for (int i = 0; i < bufferSize; i++) {
+                AVAILABLE.setRelease(available, i, -1);
+            }
+        } else {
+            available = null;
+        }
+    }
+
+    /**
+     * Adds a subscriber, before {@link #start}.
+     */
+    public synchronized void subscribe(String name, EventHandler<? super T> handler) {
+        if (started) {
+            throw new IllegalStateException("Subscribe before start()");
+        }
+        consumers.add(new Consumer(name, handler));
+    }
+
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        Sequence[] positions = new Sequence[consumers.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = consumers.get(i).position;
+        }
+        gating = positions;
+        clearSlots = positions.length == 1;
+        for (Consumer consumer : consumers) {
+            consumer.thread.start();
+        }
+    }
+
+    @Override
+    public void publish(T event) {
+        if (producerType == ProducerType.SINGLE) {
+            long next = nextValue + 1;
+            if (next - bufferSize > cachedGate) {
+                cachedGate = awaitCapacity(next);
+            }
+            entries[(int) next & mask] = event;
+            nextValue = next;
+            cursor.set(next);
+        } else {
+            long current;
+            long next;
+            do {
+                current = cursor.get();
+                next = current + 1;
+                if (next - bufferSize > minimumPosition(current)) {
+                    awaitCapacity(next);
+                }
+            } while (!cursor.compareAndSet(current, next));
+            entries[(int) next & mask] = event;
+            AVAILABLE.setRelease(available, (int) next & mask, (int) (next >>> shift));
+        }
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Waits until the slowest consumer has freed the slot of {@code next}.
+     *
+     * @return the minimum consumer position seen
+     */
+    private long awaitCapacity(long next) {
+        long gate;
+        while (next - bufferSize > (gate = minimumPosition(next - 1))) {
+            if (stopping) {
+                throw new IllegalStateException("Event bus stopped");
+            }
+            LockSupport.parkNanos(1_000);
+        }
+        return gate;
+    }
+
+    private long minimumPosition(long defaultValue) {
+        long minimum = defaultValue;
+        for (Sequence position : gating) {
+            minimum = Math.min(minimum, position.get());
+        }
+        return minimum;
+    }
+
+    /**
+     * Highest sequence up to {@code availableSequence} whose slot, and every slot
+     * before it from {@code from}, is published.
+     */
+    private long highestPublished(long from, long availableSequence) {
+        if (producerType == ProducerType.SINGLE) {
+            return availableSequence;
+        }
+        for (long sequence = from; sequence <= availableSequence; sequence++) {
+            if ((int) AVAILABLE.getAcquire(available, (int) sequence & mask) != (int) (sequence >>> shift)) {
+                return sequence - 1;
+            }
+        }
+        return availableSequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T entry(long sequence) {
+        return (T) entries[(int) sequence & mask];
+    }
+
+    /**
+     * Events published but not yet handled by the slowest subscriber.
+     */
+    public long backlog() {
+        long claimed = cursor.get();
+        return claimed - minimumPosition(claimed);
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Lets the subscribers handle what was published (for at most {@code timeoutMillis})
+     * then stops their threads. Publishing after this is an error.
+     */
+    public void shutdown(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long last = cursor.get();
+        while (minimumPosition(last) < last && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        stopping = true;
+        waitStrategy.signalAll();
+        for (Consumer consumer : consumers) {
+            consumer.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+    }
+
+    public void shutdown() throws InterruptedException {
+        shutdown(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private final class Consumer implements Runnable {
+        final Sequence position = new Sequence(-1);
+        final EventHandler<? super T> handler;
+        final Thread thread;
+
+        Consumer(String name, EventHandler<? super T> handler) {
+            this.handler = handler;
+            this.thread = new Thread(this, "bus-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = position.get() + 1;
+            try {
+                while (true) {
+                    long availableSequence = waitStrategy.waitFor(next, cursor, () -> stopping);
+                    if (availableSequence < next) {
+                        return;
+                    }
+                    long last = Math.min(highestPublished(next, availableSequence), next + maxBatch - 1);
+                    if (last < next) {
+                        // Claimed, not yet published
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    for (long sequence = next; sequence <= last; sequence++) {
+                        try {
+                            handler.onEvent(entry(sequence), sequence, sequence == last);
+                        } catch (Exception e) {
+                            System.err.println(thread.getName() + " failed on event " + sequence + ": " + e);
+                        }
+                        if (clearSlots) {
+                            entries[(int) sequence & mask] = null;
+                        }
+                    }
+                    position.set(last);
+                    next = last + 1;
+                }
+            } catch (InterruptedException e) {
+                // Stopped
+            }
+        }
+    }
+}
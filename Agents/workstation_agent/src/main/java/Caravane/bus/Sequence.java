@@ -0,0 +1,58 @@
+package Caravane.bus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A sequence number written by one thread and read by others, padded so that two
+ * sequences never share a cache line (the producer cursor and a consumer position
+ * are updated by different cores all the time).
+ */
+class LhsPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class SequenceValue extends LhsPadding {
+    protected volatile long value;
+}
+
+class RhsPadding extends SequenceValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+public class Sequence extends RhsPadding {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public Sequence(long initial) {
+        VALUE.setRelease(this, initial);
+    }
+
+    public long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /**
+     * Publishes the value: the writes made before are visible to a reader that sees it.
+     */
+    public void set(long value) {
+        VALUE.setRelease(this, value);
+    }
+
+    public boolean compareAndSet(long expected, long value) {
+        return VALUE.compareAndSet(this, expected, value);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
@@ -0,0 +1,161 @@
+package Caravane.bus;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a consumer waits for the producer, trading latency for CPU:
+ * <ul>
+ * <li>{@code busy-spin}: lowest latency, burns a core per consumer</li>
+ * <li>{@code yielding}: spins then yields, near busy-spin latency, a core when idle</li>
+ * <li>{@code sleeping}: spins, yields, then parks for {@code sleepNanos}; idle cost is
+ * negligible, latency up to the park time</li>
+ * <li>{@code blocking}: waits on a condition signalled by the producer; no idle cost,
+ * a lock per publish while someone waits. The agent's default.</li>
+ * </ul>
+ */
+public interface WaitStrategy {
+
+    /**
+     * Waits until {@code cursor} reaches {@code sequence}.
+     *
+     * @return the cursor, at least {@code sequence} unless {@code stopping} became true
+     */
+    long waitFor(long sequence, Sequence cursor, BooleanSupplier stopping) throws InterruptedException;
+
+    /**
+     * Called by the producer after each publish, and at shutdown.
+     */
+    void signalAll();
+
+    static WaitStrategy named(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "busy-spin":
+                return new BusySpin();
+            case "yielding":
+                return new Yielding();
+            case "sleeping":
+                return new Sleeping(TimeUnit.MICROSECONDS.toNanos(100));
+            case "blocking":
+                return new Blocking();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name
+                        + " (busy-spin, yielding, sleeping, blocking)");
+        }
+    }
+
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier stopping) {
+            long available;
+            while ((available = cursor.get()) < sequence && !stopping.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    final class Yielding implements WaitStrategy {
+        private static final int SPINS = 100;
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier stopping) {
+            int spins = SPINS;
+            long available;
+            while ((available = cursor.get()) < sequence && !stopping.getAsBoolean()) {
+                if (spins > 0) {
+                    spins--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    final class Sleeping implements WaitStrategy {
+        private static final int SPINS = 100;
+        private static final int YIELDS = 100;
+
+        private final long sleepNanos;
+
+        public Sleeping(long sleepNanos) {
+            this.sleepNanos = sleepNanos;
+        }
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier stopping) {
+            int tries = SPINS + YIELDS;
+            long available;
+            while ((available = cursor.get()) < sequence && !stopping.getAsBoolean()) {
+                if (tries > YIELDS) {
+                    tries--;
+                    Thread.onSpinWait();
+                } else if (tries > 0) {
+                    tries--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(sleepNanos);
+                }
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    final class Blocking implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+        // The producer only takes the lock when a consumer may be waiting
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier stopping) throws InterruptedException {
+            long available = cursor.get();
+            if (available >= sequence) {
+                return available;
+            }
+            lock.lock();
+            try {
+                waiters.incrementAndGet();
+                while ((available = cursor.get()) < sequence && !stopping.getAsBoolean()) {
+                    // Timed: a signal racing with the increment above costs a millisecond, not a hang
+                    published.awaitNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            } finally {
+                waiters.decrementAndGet();
+                lock.unlock();
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAll() {
+            if (waiters.get() > 0) {
+                lock.lock();
+                try {
+                    published.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
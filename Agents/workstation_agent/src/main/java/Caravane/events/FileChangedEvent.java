@@ -15,12 +15,19 @@ public class FileChangedEvent {
     private final String filename;
     private String changetype;
     private final String newcontent;
+    // Run by the subscriber once the content is acked by Kafka or spooled to disk
+    private final Runnable handedOff;
 
 
     public FileChangedEvent(String filename, String chngetype, String newcontent) {
+        this(filename, chngetype, newcontent, () -> { });
+    }
+
+    public FileChangedEvent(String filename, String chngetype, String newcontent, Runnable handedOff) {
         this.filename = filename;
         this.changetype = chngetype;
         this.newcontent = newcontent;
+        this.handedOff = handedOff;
     }
 
     public String getFilename() {
@@ -48,6 +55,10 @@ public class FileChangedEvent {
         return newcontent;
     }
 
+    public Runnable getHandedOff() {
+        return handedOff;
+    }
+
     @Override
     public String toString() {
         return "FileChangedEvent{" +
@@ -0,0 +1,93 @@
+package Caravane.events;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A change of the content of an integrity-monitored file, published by
+ * IntegrityMonitor: what kind of change, the chunks whose content is new and the
+ * file digests before and after.
+ *
+ * changeKind is CREATED, MODIFIED, APPENDED, REPLACED (new inode) or DELETED;
+ * detectedBy is WATCH (file system event, or a change of size / modification time
+ * found by the periodic scrub) or SCRUB: the scrub found other content under the same
+ * size and modification time, a change made to go unnoticed.
+ */
+public class IntegrityEvent {
+
+    /**
+     * A chunk of the new version that the previous version did not have.
+     */
+    public static final class Chunk {
+        private final long offset;
+        private final long length;
+        private final String sha256;
+
+        public Chunk(long offset, long length, String sha256) {
+            this.offset = offset;
+            this.length = length;
+            this.sha256 = sha256;
+        }
+
+        public long getOffset() { return offset; }
+        public long getLength() { return length; }
+        public String getSha256() { return sha256; }
+    }
+
+    private final LocalDateTime timestamp;
+    private final String path;
+    private final String changeKind;
+    private final String detectedBy;
+    private final long previousSize;
+    private final long size;
+    private final String previousDigest;
+    private final String digest;
+    private final int chunkCount;
+    private final int changedChunkCount;
+    private final int removedChunkCount;
+    // At most integrity.max-reported-chunks of the changedChunkCount
+    private final List<Chunk> changedChunks;
+    private final long bytesHashed;
+
+    public IntegrityEvent(LocalDateTime timestamp, String path, String changeKind, String detectedBy,
+                          long previousSize, long size, String previousDigest, String digest, int chunkCount,
+                          int changedChunkCount, int removedChunkCount, List<Chunk> changedChunks, long bytesHashed) {
+        this.timestamp = timestamp;
+        this.path = path;
+        this.changeKind = changeKind;
+        this.detectedBy = detectedBy;
+        this.previousSize = previousSize;
+        this.size = size;
+        this.previousDigest = previousDigest;
+        this.digest = digest;
+        this.chunkCount = chunkCount;
+        this.changedChunkCount = changedChunkCount;
+        this.removedChunkCount = removedChunkCount;
+        this.changedChunks = changedChunks;
+        this.bytesHashed = bytesHashed;
+    }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getPath() { return path; }
+    public String getChangeKind() { return changeKind; }
+    public String getDetectedBy() { return detectedBy; }
+    public long getPreviousSize() { return previousSize; }
+    public long getSize() { return size; }
+    public String getPreviousDigest() { return previousDigest; }
+    public String getDigest() { return digest; }
+    public int getChunkCount() { return chunkCount; }
+    public int getChangedChunkCount() { return changedChunkCount; }
+    public int getRemovedChunkCount() { return removedChunkCount; }
+    public List<Chunk> getChangedChunks() { return changedChunks; }
+    public long getBytesHashed() { return bytesHashed; }
+
+    @Override
+    public String toString() {
+        return "IntegrityEvent{" +
+                "path='" + path + '\'' +
+                ", change=" + changeKind +
+                ", by=" + detectedBy +
+                ", chunks=" + changedChunkCount + "/" + chunkCount +
+                '}';
+    }
+}
@@ -1,4 +1,54 @@
 package Caravane.events;
 
+import java.time.LocalDateTime;
+
+/**
+ * One sample of the host metrics, published by PeriodicPublisher. Percentages are
+ * 0-100 with one decimal, as in the collector's ServerEvent.
+ */
 public class PeriodicEvent {
+
+    private final LocalDateTime timestamp;
+    private final String hostname;
+    private final double cpuUsage;
+    private final double memoryUsage;
+    private final double diskUsage;
+    private final int activeConnections;
+    private final double loadAverage;
+    private final double netRxBytesPerSec;
+    private final double netTxBytesPerSec;
+
+    public PeriodicEvent(LocalDateTime timestamp, String hostname, double cpuUsage, double memoryUsage,
+                         double diskUsage, int activeConnections, double loadAverage,
+                         double netRxBytesPerSec, double netTxBytesPerSec) {
+        this.timestamp = timestamp;
+        this.hostname = hostname;
+        this.cpuUsage = cpuUsage;
+        this.memoryUsage = memoryUsage;
+        this.diskUsage = diskUsage;
+        this.activeConnections = activeConnections;
+        this.loadAverage = loadAverage;
+        this.netRxBytesPerSec = netRxBytesPerSec;
+        this.netTxBytesPerSec = netTxBytesPerSec;
+    }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getHostname() { return hostname; }
+    public double getCpuUsage() { return cpuUsage; }
+    public double getMemoryUsage() { return memoryUsage; }
+    public double getDiskUsage() { return diskUsage; }
+    public int getActiveConnections() { return activeConnections; }
+    public double getLoadAverage() { return loadAverage; }
+    public double getNetRxBytesPerSec() { return netRxBytesPerSec; }
+    public double getNetTxBytesPerSec() { return netTxBytesPerSec; }
+
+    @Override
+    public String toString() {
+        return "PeriodicEvent{" +
+                "cpu=" + cpuUsage +
+                ", memory=" + memoryUsage +
+                ", disk=" + diskUsage +
+                ", connections=" + activeConnections +
+                '}';
+    }
 }
@@ -0,0 +1,128 @@
+package Caravane.integrity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Cuts a file into chunks ({@link Chunker}) and hashes each with SHA-256.
+ *
+ * Files are read through memory-mapped windows of {@value #WINDOW} bytes: the
+ * digest reads the page cache directly, with no copy into the Java heap. Files under
+ * {@value #MAP_THRESHOLD} bytes are read into a per-thread buffer instead, since a
+ * mapping costs more than the copy for those. Before each window the bytes it adds
+ * are taken from the {@link IoBudget}.
+ *
+ * Thread-safe: digest and buffer are per thread.
+ */
+public class ChunkHasher {
+
+    static final int WINDOW = 8 << 20;
+    static final int MAP_THRESHOLD = 1 << 20;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<ByteBuffer> SMALL_FILES = ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 << 10));
+
+    private final Chunker chunker;
+
+    public ChunkHasher(Chunker chunker) {
+        if (chunker.maxSize() * 2 > WINDOW) {
+            throw new IllegalArgumentException("Chunks too large for a " + WINDOW + " byte window: " + chunker);
+        }
+        this.chunker = chunker;
+    }
+
+    public Chunker chunker() {
+        return chunker;
+    }
+
+    /**
+     * Where hashing starts again for a file that only grew: at its last chunk, which
+     * may have been cut short by the previous end of the file.
+     */
+    public static long resumeOffset(ChunkIndex previous) {
+        return previous == null || previous.chunkCount() == 0 ? 0 : previous.start(previous.chunkCount() - 1);
+    }
+
+    /**
+     * @param previous when not null, the chunks before {@link #resumeOffset} are taken
+     *                 from it without reading them (the file only grew)
+     * @throws IOException also when the file shrank while being read
+     */
+    public ChunkIndex hash(FileChannel channel, String fileKey, long size, long modifiedMillis,
+                           ChunkIndex previous, IoBudget budget) throws IOException, InterruptedException {
+        int kept = previous == null ? 0 : Math.max(0, previous.chunkCount() - 1);
+        long[] ends = new long[kept + 64];
+        byte[] hashes = new byte[ends.length * ChunkIndex.HASH_BYTES];
+        if (kept > 0) {
+            System.arraycopy(previous.ends(), 0, ends, 0, kept);
+            System.arraycopy(previous.hashes(), 0, hashes, 0, kept * ChunkIndex.HASH_BYTES);
+        }
+        int count = kept;
+        MessageDigest sha = SHA256.get();
+
+        long pos = kept > 0 ? previous.end(kept - 1) : 0;
+        long budgeted = pos;
+        try {
+            while (pos < size) {
+                int length = (int) Math.min(WINDOW, size - pos);
+                budget.acquire(pos + length - budgeted);
+                budgeted = pos + length;
+                ByteBuffer window = size < MAP_THRESHOLD ? read(channel, pos, length)
+                        : channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                boolean last = pos + length == size;
+
+                int offset = 0;
+                while (offset < length && (last || length - offset >= chunker.maxSize())) {
+                    int chunk = chunker.cut(window, offset, length);
+                    if (count == ends.length) {
+                        ends = Arrays.copyOf(ends, count * 2);
+                        hashes = Arrays.copyOf(hashes, count * 2 * ChunkIndex.HASH_BYTES);
+                    }
+                    window.limit(offset + chunk).position(offset);
+                    sha.update(window);
+                    sha.digest(hashes, count * ChunkIndex.HASH_BYTES, ChunkIndex.HASH_BYTES);
+                    window.limit(length);
+                    offset += chunk;
+                    ends[count++] = pos + offset;
+                }
+                // The next window starts at the first chunk this one could not finish
+                pos += offset;
+            }
+        } catch (InternalError e) {
+            // Access past the end of a mapping: the file was truncated under us
+            throw new IOException("File shrank while hashing", e);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+
+        sha.update(hashes, 0, count * ChunkIndex.HASH_BYTES);
+        return new ChunkIndex(fileKey, size, modifiedMillis, Arrays.copyOf(ends, count),
+                Arrays.copyOf(hashes, count * ChunkIndex.HASH_BYTES), sha.digest());
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = SMALL_FILES.get();
+        if (buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(length);
+            SMALL_FILES.set(buffer);
+        }
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("File shrank while hashing");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,84 @@
+package Caravane.integrity;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * The chunk hashes of one version of a file: chunk {@code i} covers
+ * {@code [end(i - 1), end(i))} and has the SHA-256 {@code hash(i)}.
+ *
+ * The file digest is the SHA-256 of the chunk hashes in order. It identifies the
+ * content as well as a digest of the whole file would (for a given chunking), and
+ * can be computed again without reading the chunks that did not change.
+ *
+ * Immutable once built.
+ */
+public final class ChunkIndex {
+
+    public static final int HASH_BYTES = 32;
+    private static final HexFormat HEX = HexFormat.of();
+
+    public final String fileKey;
+    public final long size;
+    public final long modifiedMillis;
+    private final long[] ends;
+    private final byte[] hashes;
+    private final byte[] digest;
+
+    ChunkIndex(String fileKey, long size, long modifiedMillis, long[] ends, byte[] hashes, byte[] digest) {
+        this.fileKey = fileKey;
+        this.size = size;
+        this.modifiedMillis = modifiedMillis;
+        this.ends = ends;
+        this.hashes = hashes;
+        this.digest = digest;
+    }
+
+    public int chunkCount() {
+        return ends.length;
+    }
+
+    public long start(int chunk) {
+        return chunk == 0 ? 0 : ends[chunk - 1];
+    }
+
+    public long end(int chunk) {
+        return ends[chunk];
+    }
+
+    /**
+     * First 8 bytes of the chunk hash, enough to tell chunks apart when comparing
+     * two versions of a file.
+     */
+    public long hashPrefix(int chunk) {
+        long prefix = 0;
+        for (int i = 0; i < 8; i++) {
+            prefix = prefix << 8 | (hashes[chunk * HASH_BYTES + i] & 0xFF);
+        }
+        return prefix;
+    }
+
+    public String hashHex(int chunk) {
+        return HEX.formatHex(hashes, chunk * HASH_BYTES, (chunk + 1) * HASH_BYTES);
+    }
+
+    public String digestHex() {
+        return HEX.formatHex(digest);
+    }
+
+    boolean sameContent(ChunkIndex other) {
+        return Arrays.equals(digest, other.digest);
+    }
+
+    long[] ends() {
+        return ends;
+    }
+
+    byte[] hashes() {
+        return hashes;
+    }
+
+    byte[] digest() {
+        return digest;
+    }
+}
@@ -0,0 +1,128 @@
+package Caravane.integrity;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Where a file is cut into chunks.
+ *
+ * <ul>
+ * <li>fixed: every {@code size} bytes. Cheapest, but an insertion shifts and changes
+ * every chunk after it.</li>
+ * <li>content-defined: a cut where a gear rolling hash of the last bytes matches a
+ * mask (FastCDC), between {@code size / 4} and {@code size * 4} bytes, {@code size}
+ * on average. The cuts follow the content, so an insertion only changes the chunks
+ * around it.</li>
+ * </ul>
+ * The gear table is seeded with a constant: the cuts of a file must not change from
+ * one run of the agent to the next, the chunk hashes are compared with saved ones.
+ */
+public final class Chunker {
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x48697665_4D696E64L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final boolean contentDefined;
+    private final int min;
+    private final int average;
+    private final int max;
+    // Normalized chunking: a harder mask before the average size, an easier one after
+    private final long maskHard;
+    private final long maskEasy;
+
+    private Chunker(boolean contentDefined, int size) {
+        this.contentDefined = contentDefined;
+        this.average = size;
+        this.min = contentDefined ? size / 4 : size;
+        this.max = contentDefined ? size * 4 : size;
+        int bits = 31 - Integer.numberOfLeadingZeros(size);
+        this.maskHard = mask(bits + 1);
+        this.maskEasy = mask(bits - 1);
+    }
+
+    public static Chunker fixed(int size) {
+        return new Chunker(false, size);
+    }
+
+    public static Chunker contentDefined(int averageSize) {
+        if (Integer.bitCount(averageSize) != 1 || averageSize < 256) {
+            throw new IllegalArgumentException("Average chunk size must be a power of 2 >= 256: " + averageSize);
+        }
+        return new Chunker(true, averageSize);
+    }
+
+    public static Chunker named(String mode, int size) {
+        switch (mode.trim().toLowerCase(Locale.ROOT)) {
+            case "fixed":
+                return fixed(size);
+            case "content-defined":
+            case "cdc":
+                return contentDefined(size);
+            default:
+                throw new IllegalArgumentException("Unknown chunking: " + mode);
+        }
+    }
+
+    // Every other bit from the top: the high bits of the gear hash depend on the most bytes
+    private static long mask(int bits) {
+        long mask = 0;
+        for (int i = 0; i < bits; i++) {
+            mask |= 1L << (63 - i * 2);
+        }
+        return mask;
+    }
+
+    /**
+     * Largest chunk: the look-ahead a caller must have in memory to find a cut.
+     */
+    public int maxSize() {
+        return max;
+    }
+
+    /**
+     * @param data bytes from {@code start} to {@code end}, which is the end of the file
+     *             or at least {@link #maxSize()} bytes further
+     * @return the length of the chunk at {@code start}
+     */
+    public int cut(ByteBuffer data, int start, int end) {
+        int available = end - start;
+        if (available <= min) {
+            return available;
+        }
+        if (!contentDefined) {
+            return min;
+        }
+        int limit = Math.min(available, max);
+        int normal = Math.min(limit, average);
+        long hash = 0;
+        int i = min;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data.get(start + i) & 0xFF];
+            if ((hash & maskHard) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data.get(start + i) & 0xFF];
+            if ((hash & maskEasy) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Identifies the chunking in saved state: hashes cut differently cannot be compared.
+     */
+    @Override
+    public String toString() {
+        return (contentDefined ? "cdc" : "fixed") + "-" + average;
+    }
+}
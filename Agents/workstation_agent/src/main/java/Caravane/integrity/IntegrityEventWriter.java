@@ -0,0 +1,67 @@
+package Caravane.integrity;
+
+import Caravane.events.IntegrityEvent;
+import Caravane.kafka.DeviceEventJson;
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * Writes an {@link IntegrityEvent} as a WORKSTATION device event (FILE_CHANGED), the
+ * JSON the collector reads into a WorkstationEvent; the digests and chunks are extra
+ * fields it keeps in the raw record.
+ *
+ * Severity: a change found by the scrub is HIGH (the content changed, size and
+ * modification time did not), a modification, replacement or deletion MEDIUM, a
+ * creation or an append LOW.
+ */
+public class IntegrityEventWriter {
+
+    private final JsonFactory json;
+
+    public IntegrityEventWriter(JsonFactory json) {
+        this.json = json;
+    }
+
+    public String write(IntegrityEvent event, String deviceId) {
+        return DeviceEventJson.write(json, 512 + event.getChangedChunks().size() * 128, event.getTimestamp(),
+                deviceId, "WORKSTATION", "FILE_CHANGED", severity(event), gen -> {
+                    gen.writeStringField("fileName", event.getPath());
+                    gen.writeStringField("authenticationStatus", "NONE");
+                    gen.writeStringField("changeKind", event.getChangeKind());
+                    gen.writeStringField("detectedBy", event.getDetectedBy());
+                    gen.writeNumberField("previousSize", event.getPreviousSize());
+                    gen.writeNumberField("size", event.getSize());
+                    if (event.getPreviousDigest() != null) {
+                        gen.writeStringField("previousDigest", event.getPreviousDigest());
+                    }
+                    if (event.getDigest() != null) {
+                        gen.writeStringField("digest", event.getDigest());
+                    }
+                    gen.writeNumberField("chunkCount", event.getChunkCount());
+                    gen.writeNumberField("changedChunkCount", event.getChangedChunkCount());
+                    gen.writeNumberField("removedChunkCount", event.getRemovedChunkCount());
+                    gen.writeArrayFieldStart("changedChunks");
+                    for (IntegrityEvent.Chunk chunk : event.getChangedChunks()) {
+                        gen.writeStartObject();
+                        gen.writeNumberField("offset", chunk.getOffset());
+                        gen.writeNumberField("length", chunk.getLength());
+                        gen.writeStringField("sha256", chunk.getSha256());
+                        gen.writeEndObject();
+                    }
+                    gen.writeEndArray();
+                    gen.writeNumberField("bytesHashed", event.getBytesHashed());
+                });
+    }
+
+    private static String severity(IntegrityEvent event) {
+        if (IntegrityMonitor.SCRUB.equals(event.getDetectedBy())) {
+            return "HIGH";
+        }
+        switch (event.getChangeKind()) {
+            case IntegrityMonitor.CREATED:
+            case IntegrityMonitor.APPENDED:
+                return "LOW";
+            default:
+                return "MEDIUM";
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package Caravane.integrity;
+
+import Caravane.events.IntegrityEvent;
+import Caravane.publisher.EventPublisher;
+import Caravane.publisher.FileReadScheduler;
+import Caravane.publisher.WatchFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Integrity monitoring of the watched files selected by {@code integrity.include}:
+ * configuration files, binaries, anything where tailing the content means nothing
+ * but a change must be seen. Each file is kept as a {@link ChunkIndex}; a change is
+ * published as an {@link IntegrityEvent} with the chunks that are new and the new
+ * file digest.
+ *
+ * <ul>
+ * <li>An event whose file has the same fileKey, size and modification time as its
+ * index costs a stat.</li>
+ * <li>A file of {@code integrity.append-only} that grew is hashed from its last
+ * chunk only; the chunks before are taken as they were.</li>
+ * <li>Any other change is hashed again in full: nothing tells which part of a file
+ * was rewritten without reading it. Only the chunks that changed are reported.</li>
+ * <li>Every {@code integrity.scrub-hours}, every file is hashed again in full. This
+ * catches what the shortcuts above cannot: a change that kept size and modification
+ * time, an append-only file rewritten in place, a watch event lost.</li>
+ * </ul>
+ * Reads are throttled by an {@link IoBudget} ({@code integrity.io-bytes-per-second});
+ * the scrub has its own, smaller one so it never delays the check of a modified file.
+ * Checks run on {@code integrity.workers} threads, one at a time per file. A file is
+ * hashed without any lock: only the comparison with its stored index and the update
+ * are, so a check never waits for a scrub of the same file, which then gives way.
+ */
+@Component
+public class IntegrityMonitor {
+
+    public static final String CREATED = "CREATED";
+    public static final String MODIFIED = "MODIFIED";
+    public static final String APPENDED = "APPENDED";
+    public static final String REPLACED = "REPLACED";
+    public static final String DELETED = "DELETED";
+    public static final String WATCH = "WATCH";
+    public static final String SCRUB = "SCRUB";
+
+    @Autowired
+    private EventPublisher<IntegrityEvent> ap;
+
+    @Value("${integrity.include:}")
+    private String[] include;
+
+    @Value("${integrity.exclude:}")
+    private String[] exclude;
+
+    @Value("${integrity.append-only:}")
+    private String[] appendOnlyGlobs;
+
+    @Value("${integrity.chunking:content-defined}")
+    private String chunking;
+
+    @Value("${integrity.chunk-bytes:65536}")
+    private int chunkBytes;
+
+    @Value("${integrity.io-bytes-per-second:33554432}")
+    private long ioBytesPerSecond;
+
+    @Value("${integrity.io-burst-bytes:8388608}")
+    private long ioBurstBytes;
+
+    @Value("${integrity.scrub-hours:24}")
+    private long scrubHours;
+
+    @Value("${integrity.scrub-bytes-per-second:8388608}")
+    private long scrubBytesPerSecond;
+
+    @Value("${integrity.workers:1}")
+    private int workers;
+
+    @Value("${integrity.max-reported-chunks:32}")
+    private int maxReportedChunks;
+
+    @Value("${integrity.state-file:${user.home}/.hivemind/integrity.state}")
+    private Path stateFile;
+
+    @Value("${integrity.checkpoint-seconds:30}")
+    private long checkpointSeconds;
+
+    private final Object[] locks = new Object[64];
+
+    private boolean enabled;
+    private WatchFilter filter;
+    private WatchFilter appendOnly;
+    private ChunkHasher hasher;
+    private IntegrityStore store;
+    private IoBudget budget;
+    private IoBudget scrubBudget;
+    private FileReadScheduler scheduler;
+    private ScheduledExecutorService timer;
+
+    @PostConstruct
+    public void init() throws IOException {
+        filter = new WatchFilter(FileSystems.getDefault(), include, exclude);
+        enabled = include.length > 0 && !String.join("", include).isBlank();
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        // No globs: no append-only file (an empty WatchFilter would match them all)
+        if (!String.join("", appendOnlyGlobs).isBlank()) {
+            appendOnly = new WatchFilter(FileSystems.getDefault(), appendOnlyGlobs, new String[0]);
+        }
+        hasher = new ChunkHasher(Chunker.named(chunking, chunkBytes));
+        store = new IntegrityStore(stateFile, hasher.chunker());
+        store.load();
+        budget = new IoBudget(ioBytesPerSecond, ioBurstBytes);
+        scrubBudget = new IoBudget(scrubBytesPerSecond, ioBurstBytes);
+        scheduler = new FileReadScheduler("integrity-check", workers, this::check);
+
+        // Two threads: a scrub takes hours, checkpoints must go on meanwhile
+        timer = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "integrity-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::checkpointQuietly, checkpointSeconds, checkpointSeconds, TimeUnit.SECONDS);
+        if (scrubHours > 0) {
+            timer.scheduleWithFixedDelay(this::scrub, scrubHours, scrubHours, TimeUnit.HOURS);
+        }
+        System.out.println("Integrity monitoring of " + String.join(",", include) + " (" + hasher.chunker()
+                + " chunks, " + (ioBytesPerSecond >> 20) + " MiB/s)");
+    }
+
+    public boolean watchesFile(Path root, Path file) {
+        return enabled && filter.watchesFile(root, file);
+    }
+
+    /**
+     * Checks a file after a watch event, or when the watcher finds it.
+     *
+     * @param created a creation event: a file not seen before is reported as CREATED.
+     *                Otherwise it is taken as the baseline when there was no saved state.
+     */
+    public void submit(Path file, boolean created) {
+        scheduler.submit(file, created);
+    }
+
+    /**
+     * After lost watch events: the monitored files of {@code dir} that are gone.
+     */
+    public void rescan(Path dir) {
+        if (!enabled) {
+            return;
+        }
+        for (Path file : store.files()) {
+            if (file.startsWith(dir) && !Files.exists(file)) {
+                scheduler.submit(file, false);
+            }
+        }
+    }
+
+    private void check(Path file, String typechange) {
+        try {
+            verify(file, WATCH, CREATED.equals(typechange), false);
+        } catch (IOException e) {
+            System.err.println("Integrity check of " + file + " failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void verify(Path file, String detectedBy, boolean created, boolean full)
+            throws IOException, InterruptedException {
+        Object lock = locks[(file.hashCode() & 0x7FFFFFFF) % locks.length];
+        while (true) {
+            ChunkIndex previous = store.get(file);
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                synchronized (lock) {
+                    ChunkIndex last = store.get(file);
+                    if (last != null) {
+                        store.remove(file);
+                        publish(file, DELETED, detectedBy, last, null, 0);
+                    }
+                }
+                return;
+            }
+            if (!attrs.isRegularFile()) {
+                return;
+            }
+            String fileKey = String.valueOf(attrs.fileKey());
+            long size = attrs.size();
+            long modified = attrs.lastModifiedTime().toMillis();
+            boolean sameFile = previous != null && previous.fileKey.equals(fileKey);
+            boolean unchanged = sameFile && previous.size == size && previous.modifiedMillis == modified;
+            if (!full && unchanged) {
+                return;
+            }
+            String by = detectedBy;
+            if (full && !unchanged) {
+                // Changed the visible way: the watch event is lost or still queued, not a stealthy edit
+                by = WATCH;
+            }
+
+            // append-only globs are matched on the file name
+            boolean append = !full && sameFile && size >= previous.size
+                    && appendOnly != null && appendOnly.watchesFile(file.getParent(), file);
+            // Hashed without the lock: a scrub reading a large file at its rate must not
+            // hold up the check of a modified file
+            ChunkIndex index;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                index = hasher.hash(channel, fileKey, size, modified, append ? previous : null,
+                        full ? scrubBudget : budget);
+            }
+
+            synchronized (lock) {
+                if (store.get(file) != previous) {
+                    // Another check committed meanwhile. The scrub leaves the file to it,
+                    // a check compares again with what it committed
+                    if (full) {
+                        return;
+                    }
+                    continue;
+                }
+                store.put(file, index);
+
+                long hashed = size - (append ? ChunkHasher.resumeOffset(previous) : 0);
+                if (previous == null) {
+                    if (created || store.loaded()) {
+                        publish(file, CREATED, by, null, index, hashed);
+                    }
+                } else if (!previous.sameContent(index)) {
+                    publish(file, !sameFile ? REPLACED : append ? APPENDED : MODIFIED, by, previous, index, hashed);
+                }
+            }
+            return;
+        }
+    }
+
+    private void publish(Path file, String changeKind, String detectedBy, ChunkIndex previous, ChunkIndex current,
+                         long hashed) {
+        List<IntegrityEvent.Chunk> changed = new ArrayList<>();
+        int changedCount = 0;
+        int removedCount = 0;
+        Set<Long> before = prefixes(previous);
+        Set<Long> after = prefixes(current);
+        if (current != null) {
+            for (int i = 0; i < current.chunkCount(); i++) {
+                if (!before.contains(current.hashPrefix(i))) {
+                    changedCount++;
+                    if (changed.size() < maxReportedChunks) {
+                        changed.add(new IntegrityEvent.Chunk(current.start(i), current.end(i) - current.start(i),
+                                current.hashHex(i)));
+                    }
+                }
+            }
+        }
+        if (previous != null) {
+            for (int i = 0; i < previous.chunkCount(); i++) {
+                if (!after.contains(previous.hashPrefix(i))) {
+                    removedCount++;
+                }
+            }
+        }
+        ap.publish(new IntegrityEvent(LocalDateTime.now(), file.toString(), changeKind, detectedBy,
+                previous != null ? previous.size : 0, current != null ? current.size : 0,
+                previous != null ? previous.digestHex() : null, current != null ? current.digestHex() : null,
+                current != null ? current.chunkCount() : 0, changedCount, removedCount, changed, hashed));
+    }
+
+    private static Set<Long> prefixes(ChunkIndex index) {
+        if (index == null) {
+            return Set.of();
+        }
+        Set<Long> prefixes = new HashSet<>(index.chunkCount() * 2);
+        for (int i = 0; i < index.chunkCount(); i++) {
+            prefixes.add(index.hashPrefix(i));
+        }
+        return prefixes;
+    }
+
+    private void scrub() {
+        long start = System.nanoTime();
+        long bytes = scrubBudget.bytesGranted();
+        int files = 0;
+        for (Path file : List.copyOf(store.files())) {
+            try {
+                verify(file, SCRUB, false, true);
+                files++;
+            } catch (IOException e) {
+                System.err.println("Integrity scrub of " + file + " failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        System.out.printf("Integrity scrub: %d files, %d MiB in %d s%n", files,
+                (scrubBudget.bytesGranted() - bytes) >> 20, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    private void checkpointQuietly() {
+        try {
+            store.checkpoint();
+        } catch (IOException e) {
+            System.err.println("Failed to save integrity state to " + stateFile + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        timer.shutdownNow();
+        scheduler.shutdown();
+        store.checkpoint();
+    }
+}
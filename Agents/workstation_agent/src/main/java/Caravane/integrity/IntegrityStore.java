@@ -0,0 +1,151 @@
+package Caravane.integrity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link ChunkIndex} of every monitored file, saved to a local state file so a
+ * restarted agent compares the files with what they were before it stopped, and
+ * changes made meanwhile are reported.
+ *
+ * Binary: a header with the chunking, then per file its path, fileKey, size,
+ * modification time, chunk ends, chunk hashes and digest. Written like the tail
+ * offsets, through a temporary file fsynced then atomically renamed. A state file
+ * written with another chunking is ignored: its hashes cannot be compared.
+ */
+public class IntegrityStore {
+
+    private static final int MAGIC = 0x484D4958; // "HMIX"
+    private static final int VERSION = 1;
+
+    private final Path stateFile;
+    private final String chunking;
+    private final Map<Path, ChunkIndex> indexes = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private boolean loaded;
+
+    public IntegrityStore(Path stateFile, Chunker chunker) {
+        this.stateFile = stateFile;
+        this.chunking = chunker.toString();
+    }
+
+    public ChunkIndex get(Path file) {
+        return indexes.get(file);
+    }
+
+    public void put(Path file, ChunkIndex index) {
+        indexes.put(file, index);
+        dirty = true;
+    }
+
+    public void remove(Path file) {
+        if (indexes.remove(file) != null) {
+            dirty = true;
+        }
+    }
+
+    public Set<Path> files() {
+        return indexes.keySet();
+    }
+
+    /**
+     * @return whether a state file was loaded: without one, every file is new
+     */
+    public boolean loaded() {
+        return loaded;
+    }
+
+    public void load() throws IOException {
+        if (!Files.exists(stateFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.err.println("Ignoring integrity state " + stateFile + ": unknown format");
+                return;
+            }
+            String savedChunking = in.readUTF();
+            if (!savedChunking.equals(chunking)) {
+                System.out.println("Integrity state " + stateFile + " was written with " + savedChunking
+                        + " chunks, now " + chunking + ": starting a new baseline");
+                return;
+            }
+            int count = in.readInt();
+            for (int f = 0; f < count; f++) {
+                Path path = Paths.get(in.readUTF());
+                String fileKey = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                int chunks = in.readInt();
+                long[] ends = new long[chunks];
+                for (int i = 0; i < chunks; i++) {
+                    ends[i] = in.readLong();
+                }
+                byte[] hashes = new byte[chunks * ChunkIndex.HASH_BYTES];
+                in.readFully(hashes);
+                byte[] digest = new byte[ChunkIndex.HASH_BYTES];
+                in.readFully(digest);
+                indexes.put(path, new ChunkIndex(fileKey, size, modified, ends, hashes, digest));
+            }
+        }
+        loaded = true;
+        System.out.println("Loaded the chunk hashes of " + indexes.size() + " files from " + stateFile);
+    }
+
+    /**
+     * Writes the indexes to the state file if they changed since the last call.
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Path parent = stateFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            // A snapshot: files checked meanwhile are in the next checkpoint
+            Map<Path, ChunkIndex> snapshot = Map.copyOf(indexes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(chunking);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<Path, ChunkIndex> entry : snapshot.entrySet()) {
+                ChunkIndex index = entry.getValue();
+                out.writeUTF(entry.getKey().toString());
+                out.writeUTF(index.fileKey);
+                out.writeLong(index.size);
+                out.writeLong(index.modifiedMillis);
+                out.writeInt(index.chunkCount());
+                for (long end : index.ends()) {
+                    out.writeLong(end);
+                }
+                out.write(index.hashes());
+                out.write(index.digest());
+            }
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        }
+        Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,61 @@
+package Caravane.integrity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket in bytes: refills at {@code bytesPerSecond}, holds at most
+ * {@code burstBytes}. A reader asks for the bytes it is about to read and sleeps
+ * until the bucket covers them.
+ *
+ * A request larger than what is left is granted right away and leaves the bucket in
+ * debt; the next reader waits for the debt to be repaid. Requests are thus never
+ * refused or starved whatever their size, and the average rate holds. A rate of 0 or
+ * less means no limit.
+ */
+public class IoBudget {
+
+    private final double bytesPerNano;
+    private final double burstBytes;
+
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    private long bytesGranted;
+    private long nanosWaited;
+
+    public IoBudget(long bytesPerSecond, long burstBytes) {
+        this.bytesPerNano = bytesPerSecond / 1e9;
+        this.burstBytes = burstBytes;
+        this.tokens = burstBytes;
+    }
+
+    public void acquire(long bytes) throws InterruptedException {
+        if (bytesPerNano <= 0) {
+            synchronized (this) {
+                bytesGranted += bytes;
+            }
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(burstBytes, tokens + (now - lastRefill) * bytesPerNano);
+            lastRefill = now;
+            tokens -= bytes;
+            bytesGranted += bytes;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / bytesPerNano);
+            nanosWaited += waitNanos;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public synchronized long bytesGranted() {
+        return bytesGranted;
+    }
+
+    public synchronized long nanosWaited() {
+        return nanosWaited;
+    }
+}
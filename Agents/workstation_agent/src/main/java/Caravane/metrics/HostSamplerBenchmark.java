@@ -0,0 +1,45 @@
+package Caravane.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+
+/**
+ * Cost of one {@link HostSampler} sample: CPU time and bytes allocated per sample,
+ * and the resulting share of a core at a 1 s interval.
+ *
+ * Usage: {@code HostSamplerBenchmark [samples] [proc-root] [disk-path]}
+ */
+public class HostSamplerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        String procRoot = args.length > 1 ? args[1] : "/proc";
+        String diskPath = args.length > 2 ? args[2] : "/";
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+
+        try (HostSampler sampler = new HostSampler(Paths.get(procRoot), Paths.get(diskPath))) {
+            // Warm-up: JIT, buffer growth
+            for (int i = 0; i < samples / 10 + 1; i++) {
+                sampler.sample(System.nanoTime());
+            }
+            long cpu0 = threads.getCurrentThreadCpuTime();
+            long bytes0 = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < samples; i++) {
+                sampler.sample(System.nanoTime());
+            }
+            long cpuNs = (threads.getCurrentThreadCpuTime() - cpu0) / samples;
+            long bytes = (threads.getThreadAllocatedBytes(thread) - bytes0) / samples;
+
+            System.out.println("=".repeat(60));
+            System.out.printf("📈 cpu=%.1f%% mem=%.1f%% disk=%.1f%% conns=%d load=%.2f%n",
+                    sampler.cpuUsage(), sampler.memoryUsage(), sampler.diskUsage(),
+                    sampler.activeConnections(), sampler.loadAverage());
+            System.out.printf("per sample     : %,d ns CPU, %,d bytes allocated%n", cpuNs, bytes);
+            System.out.printf("at 1 s interval: %.4f%% of a core%n", cpuNs / 1e9 * 100);
+            System.out.println("=".repeat(60));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package Caravane.metrics;
+
+import Caravane.events.PeriodicEvent;
+import Caravane.kafka.DeviceEventJson;
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * Writes a {@link PeriodicEvent} as a SERVER device event (HOST_METRICS), the JSON
+ * the collector reads into a ServerEvent; loadAverage and the network rates are
+ * extra fields it ignores. Severity follows the simulator's thresholds.
+ */
+public class MetricsEventWriter {
+
+    private final JsonFactory json;
+
+    public MetricsEventWriter(JsonFactory json) {
+        this.json = json;
+    }
+
+    public String write(PeriodicEvent event, String deviceId, String service) {
+        return DeviceEventJson.write(json, 384, event.getTimestamp(), deviceId, "SERVER", "HOST_METRICS",
+                severity(event), gen -> {
+                    gen.writeStringField("serverName", event.getHostname());
+                    gen.writeStringField("service", service);
+                    gen.writeNumberField("cpuUsage", event.getCpuUsage());
+                    gen.writeNumberField("memoryUsage", event.getMemoryUsage());
+                    gen.writeNumberField("diskUsage", event.getDiskUsage());
+                    gen.writeNumberField("activeConnections", event.getActiveConnections());
+                    gen.writeNumberField("loadAverage", event.getLoadAverage());
+                    gen.writeNumberField("netRxBytesPerSec", Math.round(event.getNetRxBytesPerSec()));
+                    gen.writeNumberField("netTxBytesPerSec", Math.round(event.getNetTxBytesPerSec()));
+                    gen.writeStringField("authenticationStatus", "NONE");
+                });
+    }
+
+    private static String severity(PeriodicEvent event) {
+        if (event.getCpuUsage() > 80 || event.getMemoryUsage() > 85) {
+            return "CRITICAL";
+        }
+        if (event.getCpuUsage() > 60 || event.getMemoryUsage() > 70) {
+            return "HIGH";
+        }
+        return "LOW";
+    }
+}
@@ -0,0 +1,181 @@
+package Caravane.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A procfs file kept open and read again from the start at every sample, with a
+ * cursor to parse it in place: no String, no regex, no allocation once the buffer
+ * has grown to the file's size.
+ */
+class ProcFile implements Closeable {
+
+    private final FileChannel channel;
+    private byte[] data;
+    private ByteBuffer buffer;
+    private int length;
+    private int pos;
+
+    ProcFile(Path path, int initialCapacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.data = new byte[initialCapacity];
+        this.buffer = ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Reads the current content, growing the buffer if the file no longer fits.
+     */
+    void load() throws IOException {
+        while (true) {
+            channel.position(0);
+            buffer.clear();
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // procfs hands out the content in pieces
+            }
+            if (buffer.hasRemaining()) {
+                length = buffer.position();
+                pos = 0;
+                return;
+            }
+            data = new byte[data.length * 2];
+            buffer = ByteBuffer.wrap(data);
+        }
+    }
+
+    /**
+     * Moves to the first line starting with {@code prefix}, just after it.
+     */
+    boolean seekLine(String prefix) {
+        int lineStart = 0;
+        while (lineStart < length) {
+            if (matches(lineStart, prefix)) {
+                pos = lineStart + prefix.length();
+                return true;
+            }
+            int end = lineEnd(lineStart);
+            lineStart = end + 1;
+        }
+        return false;
+    }
+
+    void rewind() {
+        pos = 0;
+    }
+
+    /**
+     * Moves to the start of the next line.
+     *
+     * @return false at the end of the file
+     */
+    boolean nextLine() {
+        pos = lineEnd(pos) + 1;
+        return pos < length;
+    }
+
+    /**
+     * Skips blanks, then reads an unsigned decimal integer (0 if none).
+     */
+    long nextLong() {
+        skipBlanks();
+        long value = 0;
+        while (pos < length && isDigit(data[pos])) {
+            value = value * 10 + (data[pos++] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Skips blanks, then reads a decimal like {@code 0.52}.
+     */
+    double nextDecimal() {
+        double value = nextLong();
+        if (pos < length && data[pos] == '.') {
+            pos++;
+            double scale = 0.1;
+            while (pos < length && isDigit(data[pos])) {
+                value += (data[pos++] - '0') * scale;
+                scale /= 10;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Skips blanks and the next blank-separated field.
+     */
+    void skipField() {
+        skipBlanks();
+        while (pos < length && data[pos] != ' ' && data[pos] != '\t' && data[pos] != '\n') {
+            pos++;
+        }
+    }
+
+    /**
+     * Skips blanks, then the text up to and including {@code c} on this line.
+     *
+     * @return false if the line has no {@code c}
+     */
+    boolean skipPast(char c) {
+        while (pos < length && data[pos] != '\n') {
+            if (data[pos++] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the line has another field after blanks.
+     */
+    boolean hasField() {
+        skipBlanks();
+        return pos < length && data[pos] != '\n';
+    }
+
+    /**
+     * True if the next field (after blanks) is {@code word}.
+     */
+    boolean nextFieldIs(String word) {
+        skipBlanks();
+        return matches(pos, word);
+    }
+
+    private void skipBlanks() {
+        while (pos < length && (data[pos] == ' ' || data[pos] == '\t')) {
+            pos++;
+        }
+    }
+
+    private boolean matches(int at, String text) {
+        if (at + text.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (data[at + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int lineEnd(int from) {
+        int i = from;
+        while (i < length && data[i] != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,74 @@
+package Caravane.parser;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Login messages of auth.log besides PAM: sshd, su and systemd-logind.
+ * <pre>
+ * Accepted publickey for mrc from 10.0.0.5 port 51234 ssh2
+ * Failed password for invalid user admin from 203.0.113.7 port 40022 ssh2
+ * Invalid user admin from 203.0.113.7 port 40022
+ * FAILED su for root by mrc
+ * New session 12 of user mrc.
+ * </pre>
+ */
+public class AuthMessages implements SyslogMessageParser {
+
+    private static final Pattern SSH_ACCEPTED = Pattern.compile("^Accepted (\\S+) for (\\S+) from (\\S+) port \\d+");
+    private static final Pattern SSH_FAILED = Pattern.compile(
+            "^Failed (\\S+) for (invalid user )?(\\S+) from (\\S+) port \\d+");
+    private static final Pattern SSH_INVALID_USER = Pattern.compile("^Invalid user (\\S*) from (\\S+)");
+    private static final Pattern SU = Pattern.compile("^(Successful|FAILED) su for (\\S+) by (\\S+)");
+    private static final Pattern LOGIND_SESSION = Pattern.compile("^New session \\S+ of user ([^\\s.]+)");
+
+    @Override
+    public boolean parse(String program, String message, LogEvent event) {
+        Matcher m;
+        switch (program) {
+            case "sshd":
+                if ((m = SSH_ACCEPTED.matcher(message)).find()) {
+                    login(event, true, m.group(2), m.group(3));
+                    return true;
+                }
+                if ((m = SSH_FAILED.matcher(message)).find()) {
+                    login(event, false, m.group(3), m.group(4));
+                    return true;
+                }
+                if ((m = SSH_INVALID_USER.matcher(message)).find()) {
+                    login(event, false, m.group(1), m.group(2));
+                    return true;
+                }
+                return false;
+            case "su":
+                if ((m = SU.matcher(message)).find()) {
+                    boolean success = m.group(1).equals("Successful");
+                    event.eventType = success ? "SU_SUCCESS" : "SU_FAILURE";
+                    event.severity = success ? "MEDIUM" : "HIGH";
+                    event.targetUser = m.group(2);
+                    event.username = m.group(3);
+                    event.authentication(success);
+                    return true;
+                }
+                return false;
+            case "systemd-logind":
+                if ((m = LOGIND_SESSION.matcher(message)).find()) {
+                    event.eventType = "SESSION_OPENED";
+                    event.severity = "LOW";
+                    event.username = m.group(1);
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private static void login(LogEvent event, boolean success, String user, String sourceIp) {
+        event.eventType = success ? "LOGIN_SUCCESS" : "LOGIN_FAILURE";
+        event.severity = success ? "LOW" : "HIGH";
+        event.username = user;
+        event.sourceIp = sourceIp;
+        event.authentication(success);
+    }
+}
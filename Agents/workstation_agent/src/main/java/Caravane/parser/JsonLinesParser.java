@@ -0,0 +1,102 @@
+package Caravane.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * JSON lines (one object per line, as written by structured loggers). Common field
+ * names are mapped to the event: time/timestamp/@timestamp/ts (ISO-8601 or epoch
+ * millis), level/severity, msg/message, user/username, process/program, pid,
+ * host/hostname, event/eventType/type, ip/src_ip/sourceIp. Nested values are
+ * skipped, other fields ignored.
+ */
+public class JsonLinesParser implements LogLineParser {
+
+    private final JsonFactory json;
+
+    public JsonLinesParser(JsonFactory json) {
+        this.json = json;
+    }
+
+    @Override
+    public boolean parse(String line, LogEvent event) {
+        if (line.isEmpty() || line.charAt(0) != '{') {
+            return false;
+        }
+        try (JsonParser parser = json.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                String text = parser.getText();
+                switch (field) {
+                    case "time", "timestamp", "@timestamp", "ts" -> event.timestamp = time(value, parser, text);
+                    case "level", "severity" -> event.severity = severity(text);
+                    case "msg", "message" -> event.message = text;
+                    case "user", "username" -> event.username = text;
+                    case "process", "processName", "program" -> event.processName = text;
+                    case "pid" -> event.pid = text;
+                    case "host", "hostname" -> event.hostname = text;
+                    case "event", "eventType", "type" -> event.eventType = text;
+                    case "ip", "src_ip", "sourceIp" -> event.sourceIp = text;
+                    default -> { }
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        if (event.eventType == null) {
+            event.eventType = "APP_LOG";
+        }
+        if (event.severity == null) {
+            event.severity = "LOW";
+        }
+        return true;
+    }
+
+    private static LocalDateTime time(JsonToken token, JsonParser parser, String text) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneId.systemDefault());
+        }
+        try {
+            return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(text);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static String severity(String level) {
+        switch (level.toLowerCase(Locale.ROOT)) {
+            case "fatal", "critical", "crit", "alert", "emerg", "panic":
+                return "CRITICAL";
+            case "error", "err":
+                return "HIGH";
+            case "warn", "warning":
+                return "MEDIUM";
+            default:
+                return "LOW";
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package Caravane.parser;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Collapses repeated log events (cron runs, PAM session open/close pairs, the same
+ * failure over and over) before they leave the agent.
+ *
+ * Events are keyed by a fingerprint of the file, event type, user, target user,
+ * source IP and message, with digit runs of the message masked: PIDs, times,
+ * counters and session numbers do not make two lines different, while a failure
+ * from another IP or for another user does. The first event of a fingerprint is
+ * sent at once, so alerts are not delayed; the repeats within the following
+ * {@code windowMillis} are only counted, and when the window closes one summary is
+ * emitted: the last repeat with {@code repeatCount} and the first/last timestamps.
+ *
+ * At most {@code maxEntries} fingerprints are kept; beyond that the oldest window is
+ * closed early (its summary emitted), so memory stays bounded and no count is lost.
+ * Thread-safe, callers share one instance.
+ */
+public class LogDeduplicator {
+
+    /**
+     * Receives the events to forward.
+     */
+    public interface Sink {
+        void emit(LogEvent event, String logFile);
+    }
+
+    private static final class Window {
+        final long openedAt;
+        final String logFile;
+        final LogEvent last = new LogEvent();
+        int repeats;
+        LocalDateTime firstRepeat;
+
+        Window(long openedAt, String logFile) {
+            this.openedAt = openedAt;
+            this.logFile = logFile;
+        }
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long windowMillis;
+    private final int maxEntries;
+    private final Sink sink;
+    // Insertion order = opening order: expired windows are at the head
+    private final LinkedHashMap<Long, Window> windows = new LinkedHashMap<>();
+
+    private long linesIn;
+    private long eventsOut;
+
+    public LogDeduplicator(long windowMillis, int maxEntries, Sink sink) {
+        this.windowMillis = windowMillis;
+        this.maxEntries = maxEntries;
+        this.sink = sink;
+    }
+
+    /**
+     * Forwards {@code event} to the sink, unless it repeats an event of the current
+     * window. The event is not kept: it may be reused once this returns.
+     */
+    public void offer(LogEvent event, String logFile, long nowMillis) {
+        offer(event, logFile, nowMillis, sink);
+    }
+
+    /**
+     * As {@link #offer(LogEvent, String, long)}, emitting to {@code to} instead of the
+     * sink: the event, and the summaries of the windows it closes.
+     */
+    public synchronized void offer(LogEvent event, String logFile, long nowMillis, Sink to) {
+        linesIn++;
+        long key = fingerprint(logFile, event);
+        Window window = windows.get(key);
+        if (window != null && nowMillis - window.openedAt < windowMillis) {
+            if (window.repeats++ == 0) {
+                window.firstRepeat = timestamp(event);
+            }
+            window.last.copyFrom(event);
+            return;
+        }
+        if (window != null) {
+            // Expired but not flushed yet
+            windows.remove(key);
+            close(window, to);
+        }
+        windows.put(key, new Window(nowMillis, logFile));
+        if (windows.size() > maxEntries) {
+            Iterator<Window> eldest = windows.values().iterator();
+            Window evicted = eldest.next();
+            eldest.remove();
+            close(evicted, to);
+        }
+        emit(event, logFile, to);
+    }
+
+    /**
+     * Emits the summaries of the windows closed at {@code nowMillis}.
+     */
+    public synchronized void expire(long nowMillis) {
+        Iterator<Window> it = windows.values().iterator();
+        while (it.hasNext()) {
+            Window window = it.next();
+            if (nowMillis - window.openedAt < windowMillis) {
+                break;
+            }
+            it.remove();
+            close(window, sink);
+        }
+    }
+
+    /**
+     * Emits every pending summary, at shutdown.
+     */
+    public synchronized void flush() {
+        for (Window window : windows.values()) {
+            close(window, sink);
+        }
+        windows.clear();
+    }
+
+    private void close(Window window, Sink to) {
+        if (window.repeats == 0) {
+            return;
+        }
+        LogEvent summary = window.last;
+        summary.lastSeen = timestamp(summary);
+        summary.firstSeen = window.firstRepeat;
+        summary.timestamp = summary.lastSeen;
+        summary.repeatCount = window.repeats;
+        emit(summary, window.logFile, to);
+    }
+
+    private void emit(LogEvent event, String logFile, Sink to) {
+        eventsOut++;
+        to.emit(event, logFile);
+    }
+
+    private static LocalDateTime timestamp(LogEvent event) {
+        return event.timestamp != null ? event.timestamp : LocalDateTime.now();
+    }
+
+    public synchronized long linesIn() {
+        return linesIn;
+    }
+
+    public synchronized long eventsOut() {
+        return eventsOut;
+    }
+
+    /**
+     * Share of the lines not sent as events of their own, 0 when nothing was collapsed.
+     */
+    public synchronized double reductionRatio() {
+        return linesIn == 0 ? 0 : 1 - (double) eventsOut / linesIn;
+    }
+
+    public synchronized int size() {
+        return windows.size();
+    }
+
+    /**
+     * 64-bit FNV-1a over the identifying fields, without building the normalized string.
+     */
+    static long fingerprint(String logFile, LogEvent event) {
+        long h = FNV_OFFSET;
+        h = mix(h, logFile, false);
+        h = mix(h, event.eventType, false);
+        h = mix(h, event.username, false);
+        h = mix(h, event.targetUser, false);
+        h = mix(h, event.sourceIp, false);
+        h = mix(h, event.processName, true);
+        return mix(h, event.message, true);
+    }
+
+    private static long mix(long h, String value, boolean maskDigits) {
+        if (value != null) {
+            boolean inDigits = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (maskDigits && c >= '0' && c <= '9') {
+                    if (inDigits) {
+                        continue;
+                    }
+                    inDigits = true;
+                    c = '#';
+                } else {
+                    inDigits = false;
+                }
+                h = (h ^ c) * FNV_PRIME;
+            }
+        }
+        // Field separator: ("ab", "c") and ("a", "bc") differ
+        return (h ^ 0xFFFF) * FNV_PRIME;
+    }
+}
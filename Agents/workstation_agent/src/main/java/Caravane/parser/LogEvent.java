@@ -0,0 +1,94 @@
+package Caravane.parser;
+
+import java.time.LocalDateTime;
+
+/**
+ * One parsed log line, with the fields of the collector's WorkstationEvent
+ * (eventType, severity, username, processName, authenticationStatus...) plus the
+ * syslog context. Mutable and reused: {@link #reset} before each line.
+ */
+public class LogEvent {
+
+    LocalDateTime timestamp;
+    String eventType;
+    String severity;
+    String username;
+    String userId;
+    String targetUser;
+    String processName;
+    String pid;
+    String fileName;
+    String authenticationStatus;
+    Boolean loginSuccess;
+    String sourceIp;
+    String hostname;
+    String message;
+    // Set on the summary of collapsed repeats, see LogDeduplicator
+    int repeatCount;
+    LocalDateTime firstSeen;
+    LocalDateTime lastSeen;
+
+    public void reset() {
+        timestamp = null;
+        eventType = null;
+        severity = null;
+        username = null;
+        userId = null;
+        targetUser = null;
+        processName = null;
+        pid = null;
+        fileName = null;
+        authenticationStatus = null;
+        loginSuccess = null;
+        sourceIp = null;
+        hostname = null;
+        message = null;
+        repeatCount = 0;
+        firstSeen = null;
+        lastSeen = null;
+    }
+
+    void copyFrom(LogEvent other) {
+        timestamp = other.timestamp;
+        eventType = other.eventType;
+        severity = other.severity;
+        username = other.username;
+        userId = other.userId;
+        targetUser = other.targetUser;
+        processName = other.processName;
+        pid = other.pid;
+        fileName = other.fileName;
+        authenticationStatus = other.authenticationStatus;
+        loginSuccess = other.loginSuccess;
+        sourceIp = other.sourceIp;
+        hostname = other.hostname;
+        message = other.message;
+        repeatCount = other.repeatCount;
+        firstSeen = other.firstSeen;
+        lastSeen = other.lastSeen;
+    }
+
+    void authentication(boolean success) {
+        authenticationStatus = success ? "SUCCESS" : "FAILURE";
+        loginSuccess = success;
+    }
+
+    // Getters
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getEventType() { return eventType; }
+    public String getSeverity() { return severity; }
+    public String getUsername() { return username; }
+    public String getUserId() { return userId; }
+    public String getTargetUser() { return targetUser; }
+    public String getProcessName() { return processName; }
+    public String getPid() { return pid; }
+    public String getFileName() { return fileName; }
+    public String getAuthenticationStatus() { return authenticationStatus; }
+    public Boolean getLoginSuccess() { return loginSuccess; }
+    public String getSourceIp() { return sourceIp; }
+    public String getHostname() { return hostname; }
+    public String getMessage() { return message; }
+    public int getRepeatCount() { return repeatCount; }
+    public LocalDateTime getFirstSeen() { return firstSeen; }
+    public LocalDateTime getLastSeen() { return lastSeen; }
+}
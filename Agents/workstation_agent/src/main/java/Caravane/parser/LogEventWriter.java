@@ -0,0 +1,55 @@
+package Caravane.parser;
+
+import Caravane.kafka.DeviceEventJson;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a {@link LogEvent} as a WORKSTATION device event, the JSON the collector
+ * reads into a WorkstationEvent (extra fields are ignored there). Streaming
+ * generator: escaping of newlines, backslashes and non-ASCII text is Jackson's.
+ */
+public class LogEventWriter {
+
+    private final JsonFactory json;
+
+    public LogEventWriter(JsonFactory json) {
+        this.json = json;
+    }
+
+    public String write(LogEvent event, String deviceId, String logFile) {
+        LocalDateTime timestamp = event.timestamp != null ? event.timestamp : LocalDateTime.now();
+        String severity = event.severity != null ? event.severity : "LOW";
+        return DeviceEventJson.write(json, 256, timestamp, deviceId, "WORKSTATION", event.eventType, severity, gen -> {
+            field(gen, "username", event.username);
+            field(gen, "userId", event.userId);
+            field(gen, "processName", event.processName);
+            field(gen, "fileName", event.fileName);
+            gen.writeStringField("authenticationStatus",
+                    event.authenticationStatus != null ? event.authenticationStatus : "NONE");
+            if (event.loginSuccess != null) {
+                gen.writeBooleanField("loginSuccess", event.loginSuccess);
+            }
+            field(gen, "sourceIp", event.sourceIp);
+            field(gen, "targetUser", event.targetUser);
+            field(gen, "hostname", event.hostname);
+            field(gen, "pid", event.pid);
+            field(gen, "logFile", logFile);
+            field(gen, "message", event.message);
+            if (event.repeatCount > 0) {
+                gen.writeNumberField("repeatCount", event.repeatCount);
+                gen.writeStringField("firstSeen", DeviceEventJson.timestamp(event.firstSeen));
+                gen.writeStringField("lastSeen", DeviceEventJson.timestamp(event.lastSeen));
+            }
+        });
+    }
+
+    private static void field(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package Caravane.parser;
+
+/**
+ * Turns one log line into a {@link LogEvent}. Implementations hold only
+ * precompiled, immutable state and are shared by the reader threads.
+ */
+public interface LogLineParser {
+
+    /**
+     * @return false if the line is not in this parser's format ({@code event} may
+     *         then be partly filled and must be reset)
+     */
+    boolean parse(String line, LogEvent event);
+}
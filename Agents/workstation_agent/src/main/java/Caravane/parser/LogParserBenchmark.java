@@ -0,0 +1,109 @@
+package Caravane.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lines/sec of the default parser chains, parse only and parse + JSON, on generated
+ * sudo/PAM, sshd and JSON lines, or on the lines of a real file.
+ *
+ * Usage: {@code LogParserBenchmark [lines] [rounds] [file]}
+ */
+public class LogParserBenchmark {
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        JsonFactory json = new JsonFactory();
+        LogParserRegistry registry = LogParserRegistry.defaults(json);
+        LogEventWriter writer = new LogEventWriter(json);
+
+        String fileName;
+        List<String> source;
+        if (args.length > 2) {
+            Path file = Paths.get(args[2]);
+            fileName = file.getFileName().toString();
+            source = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } else {
+            fileName = "auth.log";
+            source = generated(count);
+        }
+        LogLineParser parser = registry.parserFor(fileName);
+        if (parser == null || source.isEmpty()) {
+            System.out.println("No parser or no lines for " + fileName);
+            return;
+        }
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = source.get(i % source.size());
+        }
+
+        System.out.println("=".repeat(60));
+        System.out.printf("📜 %,d lines of %s%n", count, fileName);
+        long bestParse = Long.MAX_VALUE;
+        long bestWrite = Long.MAX_VALUE;
+        // Round 0 is warm-up
+        for (int round = 0; round <= rounds; round++) {
+            long parseNs = time(parser, null, lines, fileName);
+            long writeNs = time(parser, writer, lines, fileName);
+            if (round > 0) {
+                bestParse = Math.min(bestParse, parseNs);
+                bestWrite = Math.min(bestWrite, writeNs);
+            }
+        }
+        System.out.printf("parse          : %,12.0f lines/s%n", count * 1e9 / bestParse);
+        System.out.printf("parse + JSON   : %,12.0f lines/s%n", count * 1e9 / bestWrite);
+        System.out.println("=".repeat(60));
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static long time(LogLineParser parser, LogEventWriter writer, String[] lines, String fileName) {
+        LogEvent event = new LogEvent();
+        long t0 = System.nanoTime();
+        for (String line : lines) {
+            event.reset();
+            parser.parse(line, event);
+            sink += writer != null ? writer.write(event, "WS-BENCH", fileName).length() : event.eventType.length();
+        }
+        return System.nanoTime() - t0;
+    }
+
+    private static List<String> generated(int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] users = { "mrc", "maya", "admin", "deploy" };
+        String[] months = { "Dec", "ديسمبر", "déc." };
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, 10_000); i++) {
+            String header = String.format("%s %2d %02d:%02d:%02d maya ", months[random.nextInt(months.length)],
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60));
+            String user = users[random.nextInt(users.length)];
+            int pid = 1000 + random.nextInt(60_000);
+            String ip = "10.0." + random.nextInt(256) + "." + random.nextInt(256);
+            switch (i % 6) {
+                case 0 -> lines.add(header + "sudo[" + pid + "]: pam_unix(sudo:session): session opened for user root(uid=0) by "
+                        + user + "(uid=1000)");
+                case 1 -> lines.add(header + "sudo[" + pid + "]: pam_unix(sudo:session): session closed for user root");
+                case 2 -> lines.add(header + "sudo[" + pid + "]:      " + user
+                        + " : TTY=pts/1 ; PWD=/home/" + user + " ; USER=root ; COMMAND=/usr/bin/apt update");
+                case 3 -> lines.add(header + "sshd[" + pid + "]: Accepted publickey for " + user + " from " + ip
+                        + " port " + (1024 + random.nextInt(60_000)) + " ssh2");
+                case 4 -> lines.add(header + "sshd[" + pid + "]: Failed password for invalid user " + user + " from "
+                        + ip + " port " + (1024 + random.nextInt(60_000)) + " ssh2");
+                default -> lines.add(header + "CRON[" + pid + "]: (root) CMD (run-parts /etc/cron.hourly)");
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,82 @@
+package Caravane.parser;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * Parser chains selected by file name glob, first registration first.
+ *
+ * A chain tries its parsers in order; a line none of them reads becomes a raw
+ * LOG_LINE event, so nothing is dropped. Files matching no glob are not forwarded.
+ */
+public class LogParserRegistry {
+
+    private static final class Entry {
+        final PathMatcher matcher;
+        final LogLineParser chain;
+
+        Entry(PathMatcher matcher, LogLineParser chain) {
+            this.matcher = matcher;
+            this.chain = chain;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Optional<LogLineParser>> byFileName = new ConcurrentHashMap<>();
+
+    /**
+     * auth.log / secure (sudo, PAM, sshd, su), sudo*.log, JSON lines, and any other
+     * *.log as JSON lines or syslog.
+     */
+    public static LogParserRegistry defaults(JsonFactory json) {
+        SyslogParser syslog = new SyslogParser(new SudoPamMessages(), new AuthMessages());
+        JsonLinesParser jsonLines = new JsonLinesParser(json);
+        return new LogParserRegistry()
+                .register("{auth.log,auth.log.*,secure,secure-*}", syslog)
+                .register("sudo*.log", new SyslogParser(new SudoPamMessages()))
+                .register("{*.jsonl,*.ndjson}", jsonLines)
+                .register("*.log", jsonLines, syslog);
+    }
+
+    public LogParserRegistry register(String fileNameGlob, LogLineParser... chain) {
+        LogLineParser[] parsers = chain.clone();
+        entries.add(new Entry(FileSystems.getDefault().getPathMatcher("glob:" + fileNameGlob), (line, event) -> {
+            for (LogLineParser parser : parsers) {
+                if (parser.parse(line, event)) {
+                    return true;
+                }
+                event.reset();
+            }
+            event.eventType = "LOG_LINE";
+            event.severity = "LOW";
+            event.message = line;
+            return true;
+        }));
+        byFileName.clear();
+        return this;
+    }
+
+    /**
+     * Parser chain of a file, or null if the file is not forwarded.
+     */
+    public LogLineParser parserFor(String fileName) {
+        return byFileName.computeIfAbsent(fileName, name -> {
+            Path path = Paths.get(name);
+            for (Entry entry : entries) {
+                if (entry.matcher.matches(path)) {
+                    return Optional.of(entry.chain);
+                }
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+}
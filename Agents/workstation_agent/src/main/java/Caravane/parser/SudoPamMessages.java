@@ -0,0 +1,105 @@
+package Caravane.parser;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PAM session and authentication messages of any program (sudo, su, sshd, cron,
+ * login...) and sudo's own command log:
+ * <pre>
+ * pam_unix(sudo:session): session opened for user root(uid=0) by mrc(uid=1000)
+ * pam_unix(sudo:auth): authentication failure; logname=mrc uid=1000 euid=0 tty=/dev/pts/0 ruser=mrc rhost=  user=mrc
+ *     mrc : TTY=pts/0 ; PWD=/home/mrc ; USER=root ; COMMAND=/usr/bin/apt update
+ *     mrc : 3 incorrect password attempts ; TTY=pts/0 ; PWD=/home/mrc ; USER=root ; COMMAND=/usr/bin/id
+ *     bob : user NOT in sudoers ; TTY=pts/1 ; PWD=/home/bob ; USER=root ; COMMAND=/bin/sh
+ * </pre>
+ * PAM events are named after the PAM service: SUDO_SESSION_OPENED, SSHD_AUTH_FAILURE...
+ */
+public class SudoPamMessages implements SyslogMessageParser {
+
+    private static final Pattern PAM_SESSION = Pattern.compile(
+            "^pam_\\w+\\(([\\w-]+):session\\): session (opened|closed) for user ([^\\s(]+)(?:\\(uid=(\\d+)\\))?"
+                    + "(?: by ([^\\s(]*)(?:\\(uid=(\\d+)\\))?)?");
+    private static final Pattern PAM_AUTH_FAILURE = Pattern.compile(
+            "^pam_\\w+\\(([\\w-]+):auth\\): authentication failure;(.*)$");
+    private static final Pattern PAM_FIELD = Pattern.compile("(\\w+)=(\\S*)");
+    private static final Pattern SUDO_COMMAND = Pattern.compile(
+            "^\\s*(\\S+) : (?:(?:(\\d+) incorrect password attempts?"
+                    + "|(user NOT in sudoers|command not allowed|user NOT authorized on host)) ; )?"
+                    + "(?:TTY=(\\S+) ; )?PWD=(\\S+) ; USER=(\\S+) ; (?:.* ; )?COMMAND=(.*)$");
+
+    @Override
+    public boolean parse(String program, String message, LogEvent event) {
+        Matcher m = PAM_SESSION.matcher(message);
+        if (m.find()) {
+            String service = m.group(1).toUpperCase();
+            boolean opened = m.group(2).equals("opened");
+            event.eventType = service + (opened ? "_SESSION_OPENED" : "_SESSION_CLOSED");
+            event.severity = opened && service.equals("SUDO") ? "MEDIUM" : "LOW";
+            event.targetUser = m.group(3);
+            boolean byUser = m.group(5) != null && !m.group(5).isEmpty();
+            event.username = byUser ? m.group(5) : m.group(3);
+            event.userId = byUser ? m.group(6) : m.group(4);
+            if (opened) {
+                event.authentication(true);
+            }
+            return true;
+        }
+
+        m = PAM_AUTH_FAILURE.matcher(message);
+        if (m.find()) {
+            event.eventType = m.group(1).toUpperCase() + "_AUTH_FAILURE";
+            event.severity = "HIGH";
+            event.authentication(false);
+            Matcher field = PAM_FIELD.matcher(m.group(2));
+            String user = null;
+            String ruser = null;
+            String logname = null;
+            while (field.find()) {
+                String value = field.group(2);
+                if (value.isEmpty()) {
+                    continue;
+                }
+                switch (field.group(1)) {
+                    case "user" -> user = value;
+                    case "ruser" -> ruser = value;
+                    case "logname" -> logname = value;
+                    case "uid" -> event.userId = value;
+                    case "rhost" -> event.sourceIp = value;
+                    default -> { }
+                }
+            }
+            event.username = ruser != null ? ruser : logname != null ? logname : user;
+            event.targetUser = user;
+            return true;
+        }
+
+        if (program.equals("sudo")) {
+            m = SUDO_COMMAND.matcher(message);
+            if (m.matches()) {
+                event.username = m.group(1);
+                event.targetUser = m.group(6);
+                String command = m.group(7).trim();
+                int space = command.indexOf(' ');
+                String executable = space < 0 ? command : command.substring(0, space);
+                event.fileName = executable;
+                event.processName = executable.substring(executable.lastIndexOf('/') + 1);
+                if (m.group(2) != null) {
+                    event.eventType = "SUDO_AUTH_FAILURE";
+                    event.severity = "HIGH";
+                    event.authentication(false);
+                } else if (m.group(3) != null) {
+                    event.eventType = "SUDO_DENIED";
+                    event.severity = "HIGH";
+                    event.authentication(false);
+                } else {
+                    event.eventType = "SUDO_COMMAND";
+                    event.severity = "MEDIUM";
+                    event.authentication(true);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,13 @@
+package Caravane.parser;
+
+/**
+ * Parser of the message part of a syslog line, once {@link SyslogParser} has read
+ * the header (time, host, program, pid).
+ */
+public interface SyslogMessageParser {
+
+    /**
+     * @return false if the message is not one this parser knows
+     */
+    boolean parse(String program, String message, LogEvent event);
+}
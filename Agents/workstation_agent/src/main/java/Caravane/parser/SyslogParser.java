@@ -0,0 +1,145 @@
+package Caravane.parser;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Syslog lines: {@code <time> <host> <program>[<pid>]: <message>}.
+ *
+ * The time is either RFC 3339 (rsyslog's default on recent systems, kept as local
+ * time) or the classic {@code MMM dd HH:mm:ss}, whose month follows the system
+ * locale: English, French and Arabic month names (Egyptian and Levantine forms,
+ * e.g. {@code ديسمبر}, {@code كانون الأول}) are recognised. The classic format has no
+ * year: the current one is assumed, or the previous one for dates more than a day
+ * ahead (December lines read in January).
+ *
+ * The message goes through the {@link SyslogMessageParser}s in order; a message none
+ * of them knows gives a generic SYSLOG event.
+ */
+public class SyslogParser implements LogLineParser {
+
+    private static final Pattern CLASSIC = Pattern.compile(
+            "^(\\S+(?: \\S+)?)\\s+(\\d{1,2})\\s+(\\d{2}):(\\d{2}):(\\d{2})\\s+(\\S+)\\s+([^\\s\\[:]+)(?:\\[(\\d+)\\])?:\\s?(.*)$");
+    private static final Pattern RFC3339 = Pattern.compile(
+            "^(\\d{4})-(\\d{2})-(\\d{2})T(\\d{2}):(\\d{2}):(\\d{2})(?:\\.\\d+)?(?:Z|[+-]\\d{2}:?\\d{2})?\\s+(\\S+)\\s+([^\\s\\[:]+)(?:\\[(\\d+)\\])?:\\s?(.*)$");
+
+    private static final Map<String, Integer> MONTHS = new HashMap<>();
+
+    static {
+        String[][] names = {
+                { "jan", "january", "janv", "janvier", "يناير", "كانون الثاني" },
+                { "feb", "february", "févr", "fevr", "février", "fevrier", "فبراير", "شباط" },
+                { "mar", "march", "mars", "مارس", "اذار" },
+                { "apr", "april", "avr", "avril", "ابريل", "نيسان" },
+                { "may", "mai", "مايو", "ايار" },
+                { "jun", "june", "juin", "يونيو", "حزيران" },
+                { "jul", "july", "juil", "juillet", "يوليو", "تموز" },
+                { "aug", "august", "août", "aout", "اغسطس", "اب" },
+                { "sep", "sept", "september", "septembre", "سبتمبر", "ايلول" },
+                { "oct", "october", "octobre", "اكتوبر", "تشرين الاول" },
+                { "nov", "november", "novembre", "نوفمبر", "تشرين الثاني" },
+                { "dec", "december", "déc", "decembre", "décembre", "ديسمبر", "كانون الاول" },
+        };
+        for (int month = 0; month < names.length; month++) {
+            for (String name : names[month]) {
+                MONTHS.put(name, month + 1);
+            }
+        }
+    }
+
+    private final SyslogMessageParser[] messageParsers;
+
+    public SyslogParser(SyslogMessageParser... messageParsers) {
+        this.messageParsers = messageParsers;
+    }
+
+    @Override
+    public boolean parse(String line, LogEvent event) {
+        String program;
+        String message;
+        Matcher m = CLASSIC.matcher(line);
+        if (m.matches()) {
+            Integer month = month(m.group(1));
+            if (month == null) {
+                return false;
+            }
+            try {
+                event.timestamp = withYear(month, Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)),
+                        Integer.parseInt(m.group(4)), Integer.parseInt(m.group(5)), LocalDateTime.now());
+            } catch (DateTimeException e) {
+                return false;
+            }
+            event.hostname = m.group(6);
+            program = m.group(7);
+            event.pid = m.group(8);
+            message = m.group(9);
+        } else {
+            m = RFC3339.matcher(line);
+            if (!m.matches()) {
+                return false;
+            }
+            try {
+                event.timestamp = LocalDateTime.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                        Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)), Integer.parseInt(m.group(5)),
+                        Integer.parseInt(m.group(6)));
+            } catch (DateTimeException e) {
+                return false;
+            }
+            event.hostname = m.group(7);
+            program = m.group(8);
+            event.pid = m.group(9);
+            message = m.group(10);
+        }
+
+        event.processName = program;
+        event.message = message;
+        for (SyslogMessageParser parser : messageParsers) {
+            if (parser.parse(program, message, event)) {
+                return true;
+            }
+        }
+        event.eventType = "SYSLOG";
+        event.severity = "LOW";
+        return true;
+    }
+
+    static Integer month(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        if (key.endsWith(".")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        Integer month = MONTHS.get(key);
+        if (month == null) {
+            // Arabic: the hamza / madda forms of alef are written either way
+            month = MONTHS.get(key.replace('أ', 'ا').replace('إ', 'ا').replace('آ', 'ا'));
+        }
+        return month;
+    }
+
+    /**
+     * The latest time with these fields that is not more than a day after {@code now}.
+     *
+     * @throws DateTimeException for a day the month never has
+     */
+    static LocalDateTime withYear(int month, int day, int hour, int minute, int second, LocalDateTime now) {
+        int year = now.getYear();
+        // Feb 29 outside a leap year: the last leap year's
+        while (month == 2 && day == 29 && !Year.isLeap(year)) {
+            year--;
+        }
+        LocalDateTime time = LocalDateTime.of(year, month, day, hour, minute, second);
+        if (time.isAfter(now.plusDays(1))) {
+            do {
+                year--;
+            } while (month == 2 && day == 29 && !Year.isLeap(year));
+            time = LocalDateTime.of(year, month, day, hour, minute, second);
+        }
+        return time;
+    }
+}
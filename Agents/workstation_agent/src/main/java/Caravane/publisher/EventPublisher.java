@@ -1,8 +1,13 @@
 package Caravane.publisher;
 
+/**
+ * Hands the events of a publisher to the subscribers, see overall_idea.
+ */
 public interface EventPublisher <T>{
 
-
-
-
+    /**
+     * Delivers {@code event} to every subscriber. May wait while the subscribers
+     * are too far behind, never while they handle the event.
+     */
+    void publish(T event);
 }
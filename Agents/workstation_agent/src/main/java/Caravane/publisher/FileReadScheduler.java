@@ -0,0 +1,88 @@
+package Caravane.publisher;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs file reads on a fixed pool of workers, one read at a time per file.
+ *
+ * Requests for a file that is already queued or being read are coalesced: the
+ * running read is followed by exactly one more, however many events arrived
+ * meanwhile. A file is therefore in the queue at most once, which bounds the queue
+ * by the number of watched files, and a slow file only ever holds one worker.
+ */
+public class FileReadScheduler {
+
+    private static final class FileState {
+        final Path file;
+        // Requests not yet covered by a read; > 0 while queued or running
+        final AtomicInteger requests = new AtomicInteger();
+        volatile boolean created;
+
+        FileState(Path file) {
+            this.file = file;
+        }
+    }
+
+    private final ExecutorService workers;
+    private final BiConsumer<Path, String> read;
+    // One small entry per path seen since startup
+    private final Map<Path, FileState> files = new ConcurrentHashMap<>();
+
+    /**
+     * @param read called with the file and "CREATED" or "MODIFIED"
+     */
+    public FileReadScheduler(int threads, BiConsumer<Path, String> read) {
+        this("file-reader", threads, read);
+    }
+
+    /**
+     * @param name prefix of the worker thread names
+     */
+    public FileReadScheduler(String name, int threads, BiConsumer<Path, String> read) {
+        this.read = read;
+        AtomicInteger ids = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, name + "-" + ids.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public void submit(Path file, boolean created) {
+        FileState state = files.computeIfAbsent(file, FileState::new);
+        if (created) {
+            state.created = true;
+        }
+        if (state.requests.getAndIncrement() == 0) {
+            workers.execute(() -> drain(state));
+        }
+    }
+
+    private void drain(FileState state) {
+        int covered;
+        do {
+            covered = state.requests.get();
+            boolean created = state.created;
+            state.created = false;
+            try {
+                read.accept(state.file, created ? "CREATED" : "MODIFIED");
+            } catch (RuntimeException e) {
+                System.err.println("Failed to read " + state.file + ": " + e.getMessage());
+            }
+        } while (state.requests.addAndGet(-covered) != 0);
+    }
+
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
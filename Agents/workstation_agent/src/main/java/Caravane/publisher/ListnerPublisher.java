@@ -1,100 +1,240 @@
 package Caravane.publisher;
 
 import Caravane.events.FileChangedEvent;
+import Caravane.integrity.IntegrityMonitor;
+import Caravane.tail.FileTailer;
+import Caravane.tail.TailOffsetStore;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.file.*;
-import java.util.HashMap;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches the {@code watch.paths} roots (recursively with {@code watch.recursive})
+ * and publishes the lines appended to the files selected by {@link WatchFilter}.
+ *
+ * The watcher thread only drains the WatchService and registers new directories;
+ * reads run on a {@link FileReadScheduler} pool of {@code watch.workers} threads,
+ * which hand the lines to the subscribers through the event bus without waiting
+ * for them.
+ * After an OVERFLOW (events lost by the OS queue) the directory is rescanned: every
+ * watched file is read again from its offset, which only costs a stat for files
+ * that did not change.
+ *
+ * Files selected by {@code integrity.include} go to the {@link IntegrityMonitor}
+ * instead of (or as well as, when both match) the tailer.
+ */
 @Component
 public class ListnerPublisher {
 
     @Autowired
-    private ApplicationEventPublisher ap;
+    private EventPublisher<FileChangedEvent> ap;
+
+    @Value("${watch.paths:${watch.path}}")
+    private String[] watchPaths;
+
+    @Value("${watch.recursive:true}")
+    private boolean recursive;
+
+    @Value("${watch.include:*.log}")
+    private String[] include;
+
+    @Value("${watch.exclude:}")
+    private String[] exclude;
+
+    @Value("${watch.workers:4}")
+    private int workers;
+
+    @Autowired
+    private FileTailer tailer;
 
-    @Value("${watch.path}")
-    private Path pathToWatch;
+    @Autowired
+    private TailOffsetStore offsets;
 
-    private final Map<Path, Long> lastPointer = new HashMap<>();
+    @Autowired
+    private IntegrityMonitor integrity;
+
+    private final List<Path> roots = new ArrayList<>();
+    // Registered directory of every key, with the root it belongs to
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final Map<Path, Path> rootOf = new ConcurrentHashMap<>();
+
+    private WatchFilter filter;
+    private FileReadScheduler scheduler;
+    private WatchService watchService;
+    private Thread watcher;
 
     @PostConstruct
-    public void init() {
+    public void init() throws IOException {
+        for (String path : watchPaths) {
+            if (!path.isBlank()) {
+                roots.add(Paths.get(path.trim()).toAbsolutePath().normalize());
+            }
+        }
+        filter = new WatchFilter(FileSystems.getDefault(), include, exclude);
+        scheduler = new FileReadScheduler(workers, this::tail);
+        watchService = FileSystems.getDefault().newWatchService();
         startwatching();
     }
 
     public void startwatching() {
-        new Thread(() -> {
-            try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
-                // Register the directory for events
-                pathToWatch.register(watchService,
-                        StandardWatchEventKinds.ENTRY_CREATE,
-                        StandardWatchEventKinds.ENTRY_DELETE,
-                        StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(() -> {
+            try {
+                for (Path root : roots) {
+                    register(root, root, false);
+                }
+                System.out.println("Watching " + directories.size() + " directories under " + roots);
+                catchUp();
 
                 while (true) {
                     WatchKey key = watchService.take(); // Wait for OS event
+                    Path dir = directories.get(key);
+                    if (dir == null) {
+                        key.cancel();
+                        continue;
+                    }
+                    Path root = rootOf.get(dir);
 
                     for (WatchEvent<?> event : key.pollEvents()) {
                         WatchEvent.Kind<?> kind = event.kind();
-                        String filename = event.context().toString();
-                        Path file = pathToWatch.resolve((Path) event.context());
-
-                        String typechange = "";
-                        String newcontent = "";
-
-                        if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
-                            typechange = "CREATED";
-                            lastPointer.put(file, 0L);
-                        } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
-                            typechange = "DELETED";
-                            lastPointer.remove(file);
-                        } else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
-                            typechange = "MODIFIED";
-                            // Small delay for Linux filesystem sync
-                            Thread.sleep(100);
-                            newcontent = readFromLastPointer(file);
+                        if (kind == StandardWatchEventKinds.OVERFLOW) {
+                            System.out.println("Watch events lost, rescanning " + dir);
+                            rescan(root, dir);
+                            continue;
                         }
-
-                        // Publish the event ONLY if there is actual data to send
-                        if (newcontent != null && !newcontent.isEmpty()) {
-                            System.out.println("Event Triggered for: " + filename);
-                            ap.publishEvent(new FileChangedEvent(filename, typechange, newcontent));
+                        Path path = dir.resolve((Path) event.context());
+
+                        if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                            if (recursive && filter.watchesDirectory(root, path)) {
+                                // Files created before the registration get no event of their own
+                                register(root, path, true);
+                            }
+                        } else {
+                            boolean created = kind == StandardWatchEventKinds.ENTRY_CREATE;
+                            if (filter.watchesFile(root, path)) {
+                                // Deletions go through the scheduler too, ordered with the file's reads
+                                scheduler.submit(path, created);
+                            }
+                            if (integrity.watchesFile(root, path)) {
+                                integrity.submit(path, created);
+                            }
                         }
                     }
-                    key.reset();
+                    if (!key.reset()) {
+                        directories.remove(key);
+                        rootOf.remove(dir);
+                    }
                 }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Shutting down
             } catch (Exception e) {
                 e.printStackTrace();
             }
-        }).start();
+        }, "file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
     }
 
-    private String readFromLastPointer(Path file) throws IOException {
-        if (!Files.exists(file) || Files.isDirectory(file)) {
-            lastPointer.remove(file);
-            return null;
-        }
+    /**
+     * Registers {@code dir} and, when recursive, its subdirectories. With
+     * {@code scanFiles}, the watched files already present are read as well.
+     */
+    private void register(Path root, Path dir, boolean scanFiles) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                if (!filter.watchesDirectory(root, d)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (!rootOf.containsKey(d)) {
+                    WatchKey key = d.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+                    directories.put(key, d);
+                    rootOf.put(d, root);
+                }
+                return recursive || d.equals(dir) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
 
-        long pointer = lastPointer.getOrDefault(file, 0L);
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (scanFiles && attrs.isRegularFile() && filter.watchesFile(root, file)) {
+                    scheduler.submit(file, true);
+                }
+                // Also at startup: compared with the hashes saved before the agent stopped
+                if (attrs.isRegularFile() && integrity.watchesFile(root, file)) {
+                    integrity.submit(file, scanFiles);
+                }
+                return FileVisitResult.CONTINUE;
+            }
 
-        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
-            long fileLength = raf.length();
-            if (fileLength < pointer) pointer = 0;
-            if (fileLength == pointer) return null;
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                System.err.println("Cannot watch " + file + ": " + e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
 
-            raf.seek(pointer);
-            byte[] buffer = new byte[(int) (fileLength - pointer)];
-            raf.readFully(buffer);
+    private void rescan(Path root, Path dir) throws IOException {
+        register(root, dir, true);
+        // Deleted while events were lost: the read finds no file and drops its offset
+        for (Path file : offsets.files()) {
+            if (file.startsWith(dir) && !Files.exists(file)) {
+                scheduler.submit(file, false);
+            }
+        }
+        integrity.rescan(dir);
+    }
 
-            lastPointer.put(file, raf.getFilePointer());
-            return new String(buffer).trim();
+    /**
+     * Sends what was appended while the agent was stopped, from the saved offsets.
+     */
+    private void catchUp() {
+        for (Path file : offsets.files()) {
+            for (Path root : roots) {
+                if (file.startsWith(root) && filter.watchesFile(root, file)) {
+                    scheduler.submit(file, false);
+                    break;
+                }
+            }
         }
+        // Monitored files deleted while the agent was stopped
+        for (Path root : roots) {
+            integrity.rescan(root);
+        }
+    }
+
+    /**
+     * Publishes the new lines of a file, one event per chunk. Partial lines are left
+     * for the next call, so no sleep is needed to let the writer finish. The chunk's
+     * offset is saved once the subscriber has handed it off.
+     */
+    private void tail(Path file, String typechange) {
+        String filename = file.getFileName().toString();
+        try {
+            tailer.tail(file, (content, handedOff) -> {
+                System.out.println("Event Triggered for: " + filename);
+                ap.publish(new FileChangedEvent(filename, typechange, content, handedOff));
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to read " + file + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        watchService.close();
+        scheduler.shutdown();
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,92 @@
 package Caravane.publisher;
 
+import Caravane.events.PeriodicEvent;
+import Caravane.metrics.HostSampler;
+import Caravane.schedule.PeriodicTask;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the host metrics every {@code metrics.interval-ms} with a
+ * {@link HostSampler} and publishes them as {@link PeriodicEvent}s. Only runs where
+ * procfs exists (Linux); elsewhere it logs and stays idle.
+ */
+@Component
 public class PeriodicPublisher {
+
+    @Autowired
+    private EventPublisher<PeriodicEvent> ap;
+
+    @Value("${metrics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${metrics.interval-ms:5000}")
+    private long intervalMs;
+
+    @Value("${metrics.proc-root:/proc}")
+    private Path procRoot;
+
+    @Value("${metrics.disk-path:/}")
+    private Path diskPath;
+
+    private HostSampler sampler;
+    private ScheduledExecutorService timer;
+    private String hostname;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!Files.exists(procRoot.resolve("stat"))) {
+            System.out.println("No procfs at " + procRoot + ", host metrics disabled");
+            return;
+        }
+        try {
+            sampler = new HostSampler(procRoot, diskPath);
+            hostname = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            System.err.println("Host metrics disabled: " + e.getMessage());
+            return;
+        }
+        // One thread: the sampler and the SINGLE producer bus both rely on it
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "host-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(PeriodicTask.logFailures("Host sample", this::sample), 0, intervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void sample() throws IOException {
+        if (sampler.sample(System.nanoTime())) {
+            ap.publish(new PeriodicEvent(LocalDateTime.now(), hostname,
+                    sampler.cpuUsage(), sampler.memoryUsage(), sampler.diskUsage(),
+                    sampler.activeConnections(), sampler.loadAverage(),
+                    sampler.netRxBytesPerSec(), sampler.netTxBytesPerSec()));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (timer != null) {
+            timer.shutdown();
+            timer.awaitTermination(5, TimeUnit.SECONDS);
+            sampler.close();
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package Caravane.publisher;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Include / exclude globs of the watched files.
+ *
+ * A pattern without '/' is matched against the file name ({@code *.log}), a pattern
+ * with '/' against the path relative to its watch root ({@code nginx/*.log},
+ * {@code **}{@code /archive/**}). A file is watched when it matches an include and
+ * no exclude; excluded directories are not descended into.
+ */
+public class WatchFilter {
+
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+
+    private static final class Pattern {
+        final PathMatcher matcher;
+        final boolean onName;
+
+        Pattern(FileSystem fs, String glob) {
+            this.matcher = fs.getPathMatcher("glob:" + glob);
+            this.onName = !glob.contains("/");
+        }
+
+        boolean matches(Path relative) {
+            Path name = relative.getFileName();
+            return matcher.matches(onName ? (name != null ? name : relative) : relative);
+        }
+    }
+
+    public WatchFilter(FileSystem fs, String[] includes, String[] excludes) {
+        this.includes = compile(fs, includes);
+        this.excludes = compile(fs, excludes);
+    }
+
+    public boolean watchesFile(Path root, Path file) {
+        Path relative = root.relativize(file);
+        return (includes.isEmpty() || anyMatch(includes, relative)) && !anyMatch(excludes, relative);
+    }
+
+    public boolean watchesDirectory(Path root, Path dir) {
+        return dir.equals(root) || !anyMatch(excludes, root.relativize(dir));
+    }
+
+    private static boolean anyMatch(List<Pattern> patterns, Path relative) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> compile(FileSystem fs, String[] globs) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String glob : globs) {
+            if (!glob.isBlank()) {
+                patterns.add(new Pattern(fs, glob.trim()));
+            }
+        }
+        return patterns;
+    }
+}
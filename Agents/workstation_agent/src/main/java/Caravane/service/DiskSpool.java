@@ -0,0 +1,366 @@
+package Caravane.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Append-only on-disk queue of the messages the broker could not take.
+ *
+ * Messages are appended to segment files of about {@code segmentBytes}, in two
+ * lanes: LOW severity and everything else. Each message gets a sequence number and
+ * {@link #peek} merges the lanes by it, so messages come out in the order they went
+ * in. When the spool would exceed {@code maxBytes}, whole segments are dropped,
+ * oldest LOW segment first, then the oldest of the other lane.
+ *
+ * Segments are named {@code <lane>-<first seq>.seg} and deleted once every message
+ * in them is {@link #remove removed}. A restart never appends to an existing
+ * segment, so a record torn by a crash only ends its segment early; messages
+ * peeked but not removed before a stop are read again after the restart
+ * (at-least-once). Not meant for concurrent readers: one sender peeks and removes.
+ */
+public class DiskSpool implements Closeable {
+
+    private static final class Segment {
+        final Path path;
+        long bytes;
+        boolean fullyRead;
+
+        Segment(Path path, long bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Segments of one severity class, appended at the tail and read from the head.
+     */
+    private final class Lane {
+        final String name;
+        final List<Segment> segments = new ArrayList<>();
+        Segment writing;
+        FileOutputStream file;
+        DataOutputStream out;
+        Segment reading;
+        DataInputStream in;
+        // Read from disk, not handed out yet
+        SpooledMessage lookahead;
+        // Handed out by peek, not removed yet
+        final Deque<SpooledMessage> peeked = new ArrayDeque<>();
+
+        Lane(String name) {
+            this.name = name;
+        }
+
+        void append(SpooledMessage message, byte[] record) throws IOException {
+            if (writing == null || writing.bytes >= segmentBytes) {
+                roll();
+                writing = new Segment(dir.resolve(String.format("%s-%020d.seg", name, message.seq)), 0);
+                file = new FileOutputStream(writing.path.toFile());
+                out = new DataOutputStream(new BufferedOutputStream(file, 65536));
+                segments.add(writing);
+            }
+            out.write(record);
+            writing.bytes += record.length;
+        }
+
+        void roll() throws IOException {
+            if (out != null) {
+                out.flush();
+                file.getFD().sync();
+                out.close();
+            }
+            writing = null;
+            file = null;
+            out = null;
+        }
+
+        SpooledMessage head() throws IOException {
+            if (lookahead == null) {
+                lookahead = readNext();
+            }
+            return lookahead;
+        }
+
+        private SpooledMessage readNext() throws IOException {
+            for (Segment segment : segments) {
+                if (segment.fullyRead) {
+                    continue;
+                }
+                if (reading != segment) {
+                    closeReader();
+                    if (segment == writing) {
+                        out.flush();
+                    }
+                    try {
+                        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path), 65536));
+                    } catch (NoSuchFileException e) {
+                        segment.fullyRead = true;
+                        continue;
+                    }
+                    reading = segment;
+                }
+                if (segment == writing) {
+                    // Only whole records reach the file, the reader never sees half of one
+                    out.flush();
+                }
+                try {
+                    SpooledMessage message = read(in);
+                    message.segment = segment;
+                    return message;
+                } catch (EOFException e) {
+                    if (segment == writing) {
+                        return null;
+                    }
+                    // End of the segment, or a record torn by a crash
+                    segment.fullyRead = true;
+                    closeReader();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Deletes the head segments whose messages have all been removed.
+         */
+        void deleteDelivered() throws IOException {
+            while (!segments.isEmpty()) {
+                Segment head = segments.get(0);
+                if ((!peeked.isEmpty() && peeked.peekFirst().segment == head)
+                        || (lookahead != null && lookahead.segment == head)) {
+                    return;
+                }
+                boolean drained;
+                if (head == writing) {
+                    // The segment being written goes too once the reader caught up with it
+                    drained = head() == null;
+                } else {
+                    // Read ahead to find out whether its last message was the one removed:
+                    // a delivered segment left on disk would be sent again after a restart
+                    if (!head.fullyRead) {
+                        head();
+                    }
+                    drained = head.fullyRead;
+                }
+                if (!drained) {
+                    return;
+                }
+                drop(head);
+            }
+        }
+
+        void drop(Segment segment) throws IOException {
+            segments.remove(segment);
+            if (segment == reading) {
+                closeReader();
+            }
+            if (segment == writing) {
+                roll();
+            }
+            peeked.removeIf(m -> m.segment == segment);
+            if (lookahead != null && lookahead.segment == segment) {
+                lookahead = null;
+            }
+            totalBytes -= segment.bytes;
+            Files.deleteIfExists(segment.path);
+        }
+
+        void closeReader() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+            in = null;
+            reading = null;
+        }
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final long segmentBytes;
+    private final Lane low = new Lane("low");
+    private final Lane other = new Lane("other");
+
+    private long nextSeq;
+    private long totalBytes;
+    private long evictedSegments;
+
+    public DiskSpool(Path dir, long maxBytes, long segmentBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    public synchronized void append(SpooledMessage message) throws IOException {
+        message.seq = nextSeq++;
+        byte[] record = encode(message);
+        while (totalBytes + record.length > maxBytes && evictOldest()) {
+            evictedSegments++;
+        }
+        (message.low ? low : other).append(message, record);
+        totalBytes += record.length;
+    }
+
+    /**
+     * Appends messages in order and forces them to disk.
+     */
+    public synchronized void append(List<SpooledMessage> messages) throws IOException {
+        for (SpooledMessage message : messages) {
+            append(message);
+        }
+        sync();
+    }
+
+    /**
+     * Up to {@code max} of the oldest messages, in order. They stay in the spool, and
+     * are returned again by the next call, until {@link #remove} is called.
+     */
+    public synchronized List<SpooledMessage> peek(int max) throws IOException {
+        if (low.peeked.isEmpty() && other.peeked.isEmpty()) {
+            for (int i = 0; i < max; i++) {
+                SpooledMessage fromLow = low.head();
+                SpooledMessage fromOther = other.head();
+                if (fromLow == null && fromOther == null) {
+                    break;
+                }
+                Lane lane = fromOther == null || (fromLow != null && fromLow.seq < fromOther.seq) ? low : other;
+                lane.peeked.addLast(lane.lookahead);
+                lane.lookahead = null;
+            }
+        }
+        List<SpooledMessage> batch = new ArrayList<>(low.peeked.size() + other.peeked.size());
+        batch.addAll(low.peeked);
+        batch.addAll(other.peeked);
+        batch.sort((a, b) -> Long.compare(a.seq, b.seq));
+        return batch;
+    }
+
+    /**
+     * Removes delivered messages returned by {@link #peek}.
+     */
+    public synchronized void remove(List<SpooledMessage> delivered) throws IOException {
+        for (SpooledMessage message : delivered) {
+            // Already gone if its segment was evicted meanwhile
+            (message.low ? low : other).peeked.remove(message);
+        }
+        low.deleteDelivered();
+        other.deleteDelivered();
+    }
+
+    public synchronized boolean isEmpty() throws IOException {
+        return low.peeked.isEmpty() && other.peeked.isEmpty() && low.head() == null && other.head() == null;
+    }
+
+    public synchronized long sizeInBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long evictedSegments() {
+        return evictedSegments;
+    }
+
+    /**
+     * Forces the appended messages to disk.
+     */
+    public synchronized void sync() throws IOException {
+        for (Lane lane : new Lane[] { low, other }) {
+            if (lane.out != null) {
+                lane.out.flush();
+                lane.file.getFD().sync();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Lane lane : new Lane[] { low, other }) {
+            lane.roll();
+            lane.closeReader();
+        }
+    }
+
+    private boolean evictOldest() throws IOException {
+        Lane lane = !low.segments.isEmpty() ? low : other;
+        if (lane.segments.isEmpty()) {
+            return false;
+        }
+        Segment oldest = lane.segments.get(0);
+        System.err.println("Spool full (" + totalBytes + " bytes), dropping " + oldest.path.getFileName());
+        lane.drop(oldest);
+        return true;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.seg")) {
+            stream.forEach(files::add);
+        }
+        // Zero-padded first sequence: name order is age order within a lane
+        files.sort(null);
+        for (Path path : files) {
+            Lane lane = path.getFileName().toString().startsWith(low.name + "-") ? low : other;
+            Segment segment = new Segment(path, Files.size(path));
+            lane.segments.add(segment);
+            totalBytes += segment.bytes;
+            nextSeq = Math.max(nextSeq, lastSeq(path) + 1);
+        }
+        if (!files.isEmpty()) {
+            System.out.println("Spool: " + files.size() + " segments, " + totalBytes + " bytes to send");
+        }
+    }
+
+    private static long lastSeq(Path path) throws IOException {
+        long last = -1;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 65536))) {
+            while (true) {
+                last = read(in).seq;
+            }
+        } catch (EOFException e) {
+            return last;
+        }
+    }
+
+    private static byte[] encode(SpooledMessage message) throws IOException {
+        byte[] value = message.value.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(message.seq);
+        out.writeBoolean(message.low);
+        out.writeUTF(message.topic);
+        out.writeBoolean(message.key != null);
+        out.writeUTF(message.key != null ? message.key : "");
+        out.writeInt(value.length);
+        out.write(value);
+        return bytes.toByteArray();
+    }
+
+    private static SpooledMessage read(DataInputStream in) throws IOException {
+        long seq = in.readLong();
+        boolean low = in.readBoolean();
+        String topic = in.readUTF();
+        boolean hasKey = in.readBoolean();
+        String key = in.readUTF();
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        SpooledMessage message = new SpooledMessage(topic, hasKey ? key : null,
+                new String(value, StandardCharsets.UTF_8), low);
+        message.seq = seq;
+        return message;
+    }
+}
@@ -1,27 +1,308 @@
 package Caravane.service;
 
-import Caravane.events.FileChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+
+/**
+ * Asynchronous Kafka sender with store-and-forward.
+ *
+ * {@link #send} only enqueues: a sender thread takes messages in batches of
+ * {@code agent.send.batch-size} and hands them to the Kafka producer, which does
+ * the network batching. When a batch fails (broker down, laptop offline) the
+ * failed messages and everything after them go to a {@link DiskSpool}. While the
+ * spool holds messages, new ones are appended behind them, and every
+ * {@code agent.send.retry-seconds} the sender tries to drain it, oldest first; once
+ * empty, sending is direct again. A full in-memory queue spills to the spool too,
+ * so the caller never waits on the broker: the queued messages then the new one,
+ * in one append, so a device's events stay in order and cost one fsync per spill.
+ * The only reordering left is a direct batch that fails while a spill happens: it
+ * is spooled behind the spilled messages.
+ *
+ * The spool is bounded by {@code agent.spool.max-bytes}, dropping LOW severity
+ * messages first. Messages still queued in memory at shutdown are spooled.
+ *
+ * A message sent with a completion has it run once the message is acked by Kafka
+ * or forced to the spool, on the sender thread or the spilling caller.
+ */
 @Service
 
 public class KafkaProducer {
 
-
-
     @Autowired
     KafkaTemplate<String,String> kft;
+
+    @Value("${agent.send.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${agent.send.batch-size:500}")
+    private int batchSize;
+
+    @Value("${agent.send.linger-ms:50}")
+    private long lingerMs;
+
+    @Value("${agent.send.timeout-seconds:30}")
+    private long sendTimeoutSeconds;
+
+    @Value("${agent.send.retry-seconds:5}")
+    private long retrySeconds;
+
+    @Value("${agent.spool.dir:${user.home}/.hivemind/spool}")
+    private Path spoolDir;
+
+    @Value("${agent.spool.max-bytes:536870912}")
+    private long spoolMaxBytes;
+
+    @Value("${agent.spool.segment-bytes:8388608}")
+    private long spoolSegmentBytes;
+
+    private BlockingQueue<SpooledMessage> queue;
+    private DiskSpool spool;
+    // False while the spool holds messages: new ones go behind them
+    private volatile boolean direct = true;
+    private volatile boolean running = true;
+    private Thread sender;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder spooled = new LongAdder();
+
+    @PostConstruct
+    public void start() throws IOException {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        spool = new DiskSpool(spoolDir, spoolMaxBytes, spoolSegmentBytes);
+        direct = spool.isEmpty();
+        sender = new Thread(this::run, "kafka-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
     public void send(String topic, String msg){
+        send(topic, null, msg);
+    }
+
+    // key = deviceId: keeps the device's events in order on one partition
+    public void send(String topic, String key, String msg){
+        send(topic, key, msg, null);
+    }
+
+    /**
+     * @param handedOff run once the message is acked or spooled, null for none
+     */
+    public void send(String topic, String key, String msg, Runnable handedOff){
+        SpooledMessage message = new SpooledMessage(topic, key, msg, SpooledMessage.isLowSeverity(msg));
+        message.handedOff = handedOff;
+        if (queue.offer(message)) {
+            LockSupport.unpark(sender);
+            return;
+        }
+        // Sender behind: spill to disk rather than block the file watcher. The queued
+        // messages are older, they go first; one fsync for all of them
+        synchronized (this) {
+            direct = false;
+            List<SpooledMessage> spill = new ArrayList<>(queue.size() + 1);
+            queue.drainTo(spill);
+            spill.add(message);
+            toSpool(spill);
+        }
+    }
 
+    private void run() {
+        List<SpooledMessage> batch = new ArrayList<>(batchSize);
+        long nextDrain = 0;
+        while (running || !queue.isEmpty()) {
+            boolean sending = false;
+            try {
+                batch.clear();
+                boolean spooling;
+                // Taken and, when spooling, appended under the lock of the spill in send():
+                // a spill cannot land between the two and overtake this batch
+                synchronized (this) {
+                    queue.drainTo(batch, batchSize);
+                    spooling = !direct;
+                    if (spooling) {
+                        toSpool(batch);
+                    }
+                }
+
+                if (!spooling) {
+                    if (batch.isEmpty()) {
+                        awaitMessages();
+                        continue;
+                    }
+                    sending = true;
+                    List<SpooledMessage> failed = sendBatch(batch);
+                    sending = false;
+                    if (!failed.isEmpty()) {
+                        System.err.println("Kafka unreachable, spooling to " + spoolDir);
+                        synchronized (this) {
+                            direct = false;
+                            toSpool(failed);
+                        }
+                        nextDrain = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(retrySeconds);
+                    }
+                } else if (running && System.currentTimeMillis() >= nextDrain) {
+                    if (drainSpool()) {
+                        System.out.println("Kafka reachable again, spool drained (sent=" + sent.sum()
+                                + " spooled=" + spooled.sum() + " evicted segments=" + spool.evictedSegments() + ")");
+                    } else {
+                        nextDrain = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(retrySeconds);
+                    }
+                } else if (batch.isEmpty()) {
+                    awaitMessages();
+                }
+            } catch (InterruptedException e) {
+                // Stopped mid-send: the batch may be resent after the restart, not lost
+                if (sending) {
+                    toSpool(batch);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Up to {@code agent.send.linger-ms}, or until {@link #send} enqueues a message.
+     */
+    private void awaitMessages() throws InterruptedException {
+        if (queue.isEmpty()) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(lingerMs));
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Sends the spool oldest first until it is empty or a send fails. On success,
+     * sending is direct again.
+     */
+    private boolean drainSpool() throws InterruptedException {
         try {
-            kft.send("device-events-workstation", msg).get(); // blocks
-            System.out.println("Message sent successfully!");
-        } catch (Exception e) {
-            System.err.println("Failed to send message: " + e.getMessage());
+            while (true) {
+                List<SpooledMessage> batch = spool.peek(batchSize);
+                if (batch.isEmpty()) {
+                    // Messages that arrived during the drain are spooled before the switch;
+                    // the lock keeps a concurrent spill from landing after it
+                    synchronized (this) {
+                        List<SpooledMessage> late = new ArrayList<>();
+                        queue.drainTo(late);
+                        if (late.isEmpty() && spool.isEmpty()) {
+                            direct = true;
+                            return true;
+                        }
+                        spool.append(late);
+                        for (SpooledMessage message : late) {
+                            handedOff(message);
+                        }
+                    }
+                    continue;
+                }
+                List<SpooledMessage> failed = sendBatch(batch);
+                List<SpooledMessage> delivered = new ArrayList<>(batch);
+                delivered.removeAll(failed);
+                spool.remove(delivered);
+                if (!failed.isEmpty()) {
+                    return false;
+                }
+                if (!running) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Spool read failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Sends a batch and waits for the acks, {@code agent.send.timeout-seconds} at most
+     * for the whole batch. A send that fails in {@code send()} itself (no broker
+     * metadata within {@code agent.kafka.max-block-ms}) stops the batch: the next
+     * ones would block as long, they are returned unsent.
+     *
+     * @return the messages that were not delivered
+     */
+    private List<SpooledMessage> sendBatch(List<SpooledMessage> batch) throws InterruptedException {
+        List<CompletableFuture<?>> acks = new ArrayList<>(batch.size());
+        for (SpooledMessage message : batch) {
+            CompletableFuture<?> ack;
+            try {
+                ack = kft.send(message.topic, message.key, message.value);
+            } catch (RuntimeException e) {
+                break;
+            }
+            if (ack.isCompletedExceptionally()) {
+                break;
+            }
+            acks.add(ack);
+        }
+        List<SpooledMessage> failed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(sendTimeoutSeconds);
+        for (int i = 0; i < acks.size(); i++) {
+            try {
+                acks.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sent.increment();
+                handedOff(batch.get(i));
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failed.add(batch.get(i));
+            }
+        }
+        failed.addAll(batch.subList(acks.size(), batch.size()));
+        return failed;
+    }
+
+    private void toSpool(List<SpooledMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            spool.append(messages);
+            spooled.add(messages.size());
+            for (SpooledMessage message : messages) {
+                handedOff(message);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to spool " + messages.size() + " messages: " + e.getMessage());
+        }
+    }
+
+    private static void handedOff(SpooledMessage message) {
+        Runnable handedOff = message.handedOff;
+        if (handedOff != null) {
+            message.handedOff = null;
+            handedOff.run();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        sender.join(TimeUnit.SECONDS.toMillis(sendTimeoutSeconds));
+        if (sender.isAlive()) {
+            sender.interrupt();
+            sender.join();
         }
+        List<SpooledMessage> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        toSpool(rest);
+        spool.close();
     }
 
 
@@ -0,0 +1,39 @@
+package Caravane.service;
+
+/**
+ * Message waiting to be sent to Kafka, in memory or in the {@link DiskSpool}.
+ */
+public class SpooledMessage {
+
+    final String topic;
+    final String key;
+    final String value;
+    // LOW severity: evicted first when the spool is full
+    final boolean low;
+    // Assigned by the spool, orders messages across its lanes
+    long seq;
+    // Spool segment the message was read from
+    Object segment;
+    // Run once acked by Kafka or appended to the spool; in memory only
+    Runnable handedOff;
+
+    public SpooledMessage(String topic, String key, String value, boolean low) {
+        this.topic = topic;
+        this.key = key;
+        this.value = value;
+        this.low = low;
+    }
+
+    /**
+     * True for a JSON event whose "severity" is "LOW". Unknown severity counts as
+     * important.
+     */
+    static boolean isLowSeverity(String json) {
+        int field = json.indexOf("\"severity\"");
+        if (field < 0) {
+            return false;
+        }
+        int open = json.indexOf('"', json.indexOf(':', field) + 1);
+        return open > 0 && json.startsWith("LOW\"", open + 1);
+    }
+}
@@ -1,12 +1,20 @@
 package Caravane.subscriber;
 
 import Caravane.events.FileChangedEvent;
+import Caravane.events.IntegrityEvent;
+import Caravane.events.PeriodicEvent;
 
 public interface EventSubscriber {
 
     public void handlefilechanged(FileChangedEvent event);
 
+    // Host metrics samples, ignored unless overridden
+    default void handleperiodic(PeriodicEvent event) {
+    }
 
+    // Content changes of integrity-monitored files, ignored unless overridden
+    default void handleintegrity(IntegrityEvent event) {
+    }
 
 
 
@@ -1,38 +1,210 @@
 package Caravane.subscriber;
 
 import Caravane.events.FileChangedEvent;
+import Caravane.events.IntegrityEvent;
+import Caravane.events.PeriodicEvent;
+import Caravane.integrity.IntegrityEventWriter;
+import Caravane.metrics.MetricsEventWriter;
+import Caravane.parser.LogDeduplicator;
+import Caravane.parser.LogEvent;
+import Caravane.parser.LogEventWriter;
+import Caravane.parser.LogLineParser;
+import Caravane.parser.LogParserRegistry;
 import Caravane.service.KafkaProducer;
+import com.fasterxml.jackson.core.JsonFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * this class objective is to make the "packaging" of the event to make it
  * publishable in the kafka topics
+ *
+ * Called on its own thread by the file event bus (see EventBusConfig).
+ *
+ * Every new line of a watched file becomes one WorkstationEvent-shaped JSON
+ * message, read by the parser chain {@link LogParserRegistry} selects from the
+ * file name (sudo/PAM, auth.log, syslog, JSON lines). Lines no parser knows are
+ * sent as raw LOG_LINE events.
+ *
+ * With {@code agent.dedup.enabled}, repeats within {@code agent.dedup.window-seconds}
+ * are collapsed by a {@link LogDeduplicator} into one summary event carrying
+ * {@code repeatCount}, {@code firstSeen} and {@code lastSeen}.
+ *
+ * A chunk is handed off (its tail offset may be saved) once every event it produced
+ * is acked by Kafka or spooled. Repeats folded into a summary are only counted in
+ * memory until the window closes: a crash loses those counts, not the lines sent.
+ *
+ * Host metric samples go to the server topic as HOST_METRICS ServerEvents.
+ * Every event carries the agent's {@code agent.device-id} (default
+ * {@code WS-<hostname>}), which is also its Kafka key.
+ * Integrity changes go to the workstation topic as FILE_CHANGED events.
  */
 @Component
 public class KafkaForwarderService implements EventSubscriber {
 
+    private static final String TOPIC = "device-events-workstation";
+    // Host metrics are ServerEvents: the server metric baselines are built from this topic
+    private static final String METRICS_TOPIC = "device-events-server";
+
+    // Shared by the reader threads: parsers and factory are thread-safe
+    private static final JsonFactory JSON = new JsonFactory();
+    private final LogParserRegistry parsers = LogParserRegistry.defaults(JSON);
+    private final LogEventWriter writer = new LogEventWriter(JSON);
+    private final MetricsEventWriter metricsWriter = new MetricsEventWriter(JSON);
+    private final IntegrityEventWriter integrityWriter = new IntegrityEventWriter(JSON);
+
     @Autowired
     private KafkaProducer kp;
 
-    @EventListener
+    // Default WS-<hostname>. Also the record key: each agent's events stay in order on
+    // one partition, and the fleet spreads over all of them
+    @Value("${agent.device-id:}")
+    private String deviceId;
+
+    @Value("${agent.dedup.enabled:true}")
+    private boolean dedupEnabled;
+
+    @Value("${agent.dedup.window-seconds:30}")
+    private long dedupWindowSeconds;
+
+    @Value("${agent.dedup.max-entries:10000}")
+    private int dedupMaxEntries;
+
+    @Value("${agent.dedup.stats-seconds:60}")
+    private long statsSeconds;
+
+    private LogDeduplicator dedup;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Runs the chunk's completion once the initial reference and every event added
+     * are handed off.
+     */
+    private static final class Handoff implements Runnable {
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final Runnable done;
+
+        Handoff(Runnable done) {
+            this.done = done;
+        }
+
+        Runnable add() {
+            pending.incrementAndGet();
+            return this;
+        }
+
+        @Override
+        public void run() {
+            if (pending.decrementAndGet() == 0) {
+                done.run();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (deviceId.isBlank()) {
+            deviceId = "WS-" + hostname();
+        }
+        if (!dedupEnabled) {
+            return;
+        }
+        dedup = new LogDeduplicator(TimeUnit.SECONDS.toMillis(dedupWindowSeconds), dedupMaxEntries, this::send);
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-dedup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(() -> dedup.expire(System.currentTimeMillis()), 1, 1, TimeUnit.SECONDS);
+        timer.scheduleAtFixedRate(this::logStats, statsSeconds, statsSeconds, TimeUnit.SECONDS);
+    }
+
     @Override
     public void handlefilechanged(FileChangedEvent event) {
-        // Keep your original check
-        if (event.getFilename().endsWith(".log") == true) {
+        LogLineParser parser = parsers.parserFor(event.getFilename());
+        if (parser == null) {
+            event.getHandedOff().run();
+            return;
+        }
+        Handoff handoff = new Handoff(event.getHandedOff());
+        LogDeduplicator.Sink sink = (parsed, logFile) -> send(parsed, logFile, handoff.add());
+
+        String content = event.getNewcontent();
+        LogEvent line = new LogEvent();
+        int count = 0;
+        int start = 0;
+        while (start < content.length()) {
+            int end = content.indexOf('\n', start);
+            if (end < 0) {
+                end = content.length();
+            }
+            int last = end > start && content.charAt(end - 1) == '\r' ? end - 1 : end;
+            if (last > start) {
+                line.reset();
+                parser.parse(content.substring(start, last), line);
+                if (dedup != null) {
+                    dedup.offer(line, event.getFilename(), System.currentTimeMillis(), sink);
+                } else {
+                    sink.emit(line, event.getFilename());
+                }
+                count++;
+            }
+            start = end + 1;
+        }
+        handoff.run();
+        System.out.println("Forwarded to Kafka: " + event.getFilename() + " (" + count + " lines)");
+    }
+
+    @Override
+    public void handleperiodic(PeriodicEvent event) {
+        kp.send(METRICS_TOPIC, deviceId, metricsWriter.write(event, deviceId, "workstation-agent"));
+    }
+
+    @Override
+    public void handleintegrity(IntegrityEvent event) {
+        kp.send(TOPIC, deviceId, integrityWriter.write(event, deviceId));
+        System.out.println("Forwarded to Kafka: " + event);
+    }
+
+    private void send(LogEvent line, String logFile) {
+        kp.send(TOPIC, deviceId, writer.write(line, deviceId, logFile));
+    }
+
+    private void send(LogEvent line, String logFile, Runnable handedOff) {
+        kp.send(TOPIC, deviceId, writer.write(line, deviceId, logFile), handedOff);
+    }
 
-            // LOGIC ADDED: We must include event.getNewcontent() in the JSON
-            // so the subscriber actually receives the log data.
-            String json = String.format(
-                    "{\"eventType\":\"FILE_CHANGED\",\"deviceId\":\"WS-AGENT\",\"severity\":\"LOW\",\"filename\":\"%s\",\"changeType\":\"%s\",\"content\":\"%s\",\"timestamp\":%d}",
-                    event.getFilename(),
-                    event.getTypechange(), // Ensure this getter name matches your Event class
-                    event.getNewcontent().replace("\"", "\\\""), // Sanitize for JSON
-                    System.currentTimeMillis());
+    private static String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return System.getenv().getOrDefault("HOSTNAME", "unknown");
+        }
+    }
+
+    private void logStats() {
+        if (dedup.linesIn() > 0) {
+            System.out.printf("Log dedup: %d lines -> %d events (%.1f%% fewer), %d fingerprints%n",
+                    dedup.linesIn(), dedup.eventsOut(), dedup.reductionRatio() * 100, dedup.size());
+        }
+    }
 
-            kp.send("device-events-workstation", json);
-            System.out.println("Forwarded to Kafka: " + event.getFilename());
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            // Pending counts go out before KafkaProducer spools its queue
+            dedup.flush();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package Caravane.tail;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Reads what was appended to a file since the last call, in chunks of at most
+ * {@code tail.chunk-bytes}, whatever the file grew by.
+ *
+ * Each chunk handed to the consumer ends on a line boundary (without the final
+ * newline); an unterminated last line stays in the file until its newline arrives.
+ * A single line longer than a chunk is cut at the chunk size, moved back to the
+ * last UTF-8 character boundary. The saved offset covers a chunk only once the
+ * consumer runs its completion (see {@link TailOffsetStore#advance}).
+ *
+ * Files are followed by fileKey (device + inode) and size:
+ * <ul>
+ * <li>same fileKey, smaller than the offset: truncated (copytruncate rotation),
+ * read again from the start</li>
+ * <li>new fileKey: replaced (rename rotation). The rest of the previous version is
+ * read first if it is still in the directory under a name starting with the file's
+ * name (app.log.1, app.log-20250101...), then the new file from the start</li>
+ * </ul>
+ *
+ * Calls for the same file must not run concurrently.
+ */
+@Component
+public class FileTailer {
+
+    /**
+     * Receives the chunks read.
+     */
+    public interface ChunkSink {
+        /**
+         * @param handedOff to run once the chunk is acked by Kafka or spooled to disk
+         */
+        void accept(String chunk, Runnable handedOff);
+    }
+
+    @Autowired
+    private TailOffsetStore offsets;
+
+    @Value("${tail.chunk-bytes:65536}")
+    private int chunkBytes;
+
+    /**
+     * @return bytes consumed
+     */
+    public long tail(Path file, ChunkSink chunks) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            offsets.remove(file);
+            return 0;
+        }
+        if (!attrs.isRegularFile()) {
+            return 0;
+        }
+
+        String fileKey = fileKey(attrs);
+        TailOffsetStore.Offset saved = offsets.get(file);
+        long consumed = 0;
+        long position = 0;
+        if (saved != null && saved.fileKey.equals(fileKey)) {
+            position = saved.position;
+            if (attrs.size() < position) {
+                System.out.println("Truncated, reading again from the start: " + file);
+                position = 0;
+            }
+        } else if (saved != null) {
+            Path rotated = findRotated(file, saved.fileKey);
+            if (rotated != null) {
+                System.out.println("Rotated: finishing " + rotated + " before " + file);
+                consumed += read(rotated, file, saved.fileKey, saved.position, chunks);
+            }
+        }
+        return consumed + read(file, file, fileKey, position, chunks);
+    }
+
+    /**
+     * Forgets a deleted file.
+     */
+    public void forget(Path file) {
+        offsets.remove(file);
+    }
+
+    /**
+     * Reads {@code source} from {@code position}, recording progress under
+     * {@code stateKey} / {@code fileKey} after every chunk.
+     */
+    private long read(Path source, Path stateKey, String fileKey, long position, ChunkSink chunks)
+            throws IOException {
+        long start = position;
+        ByteBuffer buffer = ByteBuffer.allocate(chunkBytes);
+        byte[] bytes = buffer.array();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            while (true) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                int end = lastNewline(bytes, read);
+                int length;
+                int next;
+                if (end >= 0) {
+                    length = end;
+                    next = end + 1;
+                } else if (read == bytes.length) {
+                    length = charBoundary(bytes, read);
+                    next = length;
+                } else {
+                    // Unterminated last line: wait for the rest of it
+                    break;
+                }
+                if (length > 0 && bytes[length - 1] == '\r') {
+                    length--;
+                }
+                position += next;
+                Runnable handedOff = offsets.advance(stateKey, fileKey, position);
+                if (length > 0) {
+                    chunks.accept(new String(bytes, 0, length, StandardCharsets.UTF_8), handedOff);
+                } else {
+                    handedOff.run();
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted between the attribute read and the open
+        }
+        if (position == start) {
+            // Record the file even when there is nothing to read yet
+            offsets.put(stateKey, fileKey, position);
+        }
+        return position - start;
+    }
+
+    private Path findRotated(Path file, String fileKey) throws IOException {
+        Path dir = file.getParent();
+        if (dir == null) {
+            return null;
+        }
+        String name = file.getFileName().toString();
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(dir, name + "?*")) {
+            for (Path sibling : siblings) {
+                try {
+                    if (fileKey.equals(fileKey(Files.readAttributes(sibling, BasicFileAttributes.class)))) {
+                        return sibling;
+                    }
+                } catch (NoSuchFileException e) {
+                    // Rotated away meanwhile
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String fileKey(BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        // No inode on Windows: the creation time changes on replacement as well
+        return key != null ? key.toString() : "created=" + attrs.creationTime().toMillis();
+    }
+
+    private static int lastNewline(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves a cut at {@code length} back to the start of the UTF-8 character it
+     * would split, so both halves decode. Not valid UTF-8 there: cut as is.
+     */
+    static int charBoundary(byte[] bytes, int length) {
+        int lead = length - 1;
+        while (lead > 0 && length - lead < 4 && (bytes[lead] & 0xC0) == 0x80) {
+            lead--;
+        }
+        int b = bytes[lead] & 0xFF;
+        int size = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        if (lead == 0 || size == 1 || lead + size <= length) {
+            return length;
+        }
+        return lead;
+    }
+}
@@ -0,0 +1,229 @@
+package Caravane.tail;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read offsets of the tailed files, checkpointed to a local state file so a
+ * restarted agent resumes where it stopped.
+ *
+ * One line per file: {@code position<TAB>fileKey<TAB>path}. The file is rewritten
+ * every {@code tail.checkpoint-seconds} when something changed, and on shutdown,
+ * through a temporary file that is fsynced then atomically renamed: a crash leaves
+ * either the previous or the new state, never a torn one.
+ *
+ * Each file has a read position, where the next read starts, and a saved position.
+ * {@link #advance} moves the read position at once and returns a completion for the
+ * data read up to it; the saved position only moves once that completion and all
+ * the earlier ones of the file have run, i.e. once the data is acked by Kafka or in
+ * the disk spool. After a crash, what was read but not handed off yet is read again.
+ */
+@Component
+public class TailOffsetStore {
+
+    /**
+     * Position in one version of a file, identified by its fileKey (device + inode).
+     */
+    public static final class Offset {
+        public final String fileKey;
+        public final long position;
+
+        public Offset(String fileKey, long position) {
+            this.fileKey = fileKey;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Offsets of one file: read, saved, and the ones in between waiting for their
+     * completion, oldest first.
+     */
+    private static final class Tracked {
+        volatile Offset read;
+        Offset saved;
+        final Deque<Pending> pending = new ArrayDeque<>();
+
+        Tracked(Offset offset) {
+            this.read = offset;
+            this.saved = offset;
+        }
+    }
+
+    private static final class Pending {
+        final Offset offset;
+        boolean done;
+
+        Pending(Offset offset) {
+            this.offset = offset;
+        }
+    }
+
+    @Value("${tail.state-file:${user.home}/.hivemind/tail-offsets.state}")
+    private Path stateFile;
+
+    @Value("${tail.checkpoint-seconds:5}")
+    private long checkpointSeconds;
+
+    private final Map<Path, Tracked> offsets = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private ScheduledExecutorService checkpoints;
+
+    @PostConstruct
+    public void init() throws IOException {
+        load();
+        checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tail-offsets-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpoints.scheduleWithFixedDelay(this::checkpointQuietly, checkpointSeconds, checkpointSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Where the next read of {@code file} starts.
+     */
+    public Offset get(Path file) {
+        Tracked tracked = offsets.get(file);
+        return tracked != null ? tracked.read : null;
+    }
+
+    /**
+     * Moves the read position, and the saved one once the earlier reads are handed off.
+     */
+    public void put(Path file, String fileKey, long position) {
+        advance(file, fileKey, position).run();
+    }
+
+    /**
+     * Moves the read position of {@code file}.
+     *
+     * @return to run once the data read up to {@code position} is handed off: the
+     * saved position then moves to the last position whose data and predecessors
+     * are all handed off
+     */
+    public Runnable advance(Path file, String fileKey, long position) {
+        Pending pending = new Pending(new Offset(fileKey, position));
+        Tracked tracked = offsets.computeIfAbsent(file, f -> new Tracked(null));
+        synchronized (tracked) {
+            tracked.read = pending.offset;
+            tracked.pending.add(pending);
+        }
+        return () -> complete(tracked, pending);
+    }
+
+    private void complete(Tracked tracked, Pending pending) {
+        synchronized (tracked) {
+            pending.done = true;
+            while (!tracked.pending.isEmpty() && tracked.pending.peek().done) {
+                tracked.saved = tracked.pending.poll().offset;
+                dirty = true;
+            }
+        }
+    }
+
+    public void remove(Path file) {
+        if (offsets.remove(file) != null) {
+            dirty = true;
+        }
+    }
+
+    public Set<Path> files() {
+        return offsets.keySet();
+    }
+
+    /**
+     * Writes the offsets to the state file if they changed since the last call.
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Path parent = stateFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Path, Tracked> entry : offsets.entrySet()) {
+                Offset offset;
+                synchronized (entry.getValue()) {
+                    offset = entry.getValue().saved;
+                }
+                if (offset == null) {
+                    continue;
+                }
+                writer.write(offset.position + "\t" + offset.fileKey + "\t" + entry.getKey() + "\n");
+            }
+            writer.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        }
+        Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.err.println("Failed to save tail offsets to " + stateFile + ": " + e.getMessage());
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(stateFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length < 3) {
+                    continue;
+                }
+                try {
+                    Offset offset = new Offset(fields[1], Long.parseLong(fields[0]));
+                    offsets.put(Paths.get(fields[2]), new Tracked(offset));
+                } catch (RuntimeException e) {
+                    System.err.println("Ignoring bad tail offset line: " + line);
+                }
+            }
+        }
+        System.out.println("Loaded " + offsets.size() + " tail offsets from " + stateFile);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (checkpoints != null) {
+            checkpoints.shutdownNow();
+        }
+        checkpoint();
+    }
+}
@@ -0,0 +1,130 @@
+package Caravane.integrity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkHasherTest {
+
+    private static final int CHUNK = 8192;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void contentDefinedCutsSurviveAnInsertion() throws Exception {
+        byte[] original = random(3 << 20, 1);
+        byte[] inserted = insert(original, 1_500_000, random(100, 2));
+        ChunkHasher hasher = new ChunkHasher(Chunker.contentDefined(CHUNK));
+
+        ChunkIndex before = hash(hasher, original, null);
+        ChunkIndex after = hash(hasher, inserted, null);
+
+        // Only the chunks around the insertion are new
+        assertTrue(newChunks(before, after) <= 3, newChunks(before, after) + " new chunks");
+        for (int i = 0; i < after.chunkCount(); i++) {
+            long length = after.end(i) - after.start(i);
+            assertTrue(length <= CHUNK * 4, "chunk " + i + " is " + length + " bytes");
+            assertTrue(length >= CHUNK / 4 || i == after.chunkCount() - 1, "chunk " + i + " is " + length + " bytes");
+        }
+    }
+
+    @Test
+    void fixedCutsShiftAfterAnInsertion() throws Exception {
+        byte[] original = random(3 << 20, 1);
+        byte[] inserted = insert(original, 1_500_000, random(100, 2));
+        ChunkHasher hasher = new ChunkHasher(Chunker.fixed(CHUNK));
+
+        ChunkIndex before = hash(hasher, original, null);
+        ChunkIndex after = hash(hasher, inserted, null);
+
+        // Every chunk from the insertion on
+        int shifted = after.chunkCount() - 1_500_000 / CHUNK;
+        assertTrue(newChunks(before, after) >= shifted, newChunks(before, after) + " new chunks");
+    }
+
+    @Test
+    void hashesOnlyTheEndOfAFileThatGrew() throws Exception {
+        byte[] original = random(2 << 20, 3);
+        byte[] grown = insert(original, original.length, random(300_000, 4));
+        ChunkHasher hasher = new ChunkHasher(Chunker.contentDefined(CHUNK));
+        ChunkIndex previous = hash(hasher, original, null);
+
+        IoBudget budget = new IoBudget(0, 0);
+        ChunkIndex appended = hash(hasher, grown, previous, budget);
+        ChunkIndex full = hash(hasher, grown, null);
+
+        assertEquals(grown.length - ChunkHasher.resumeOffset(previous), budget.bytesGranted());
+        assertEquals(full.digestHex(), appended.digestHex());
+        assertTrue(Arrays.equals(full.ends(), appended.ends()));
+        assertArrayEquals(full.hashes(), appended.hashes());
+    }
+
+    @Test
+    void readsSmallAndMappedFilesAlike() throws Exception {
+        ChunkHasher hasher = new ChunkHasher(Chunker.contentDefined(CHUNK));
+        byte[] small = random(ChunkHasher.MAP_THRESHOLD - 1, 5);
+        byte[] large = insert(small, small.length, new byte[2]);
+
+        ChunkIndex smallIndex = hash(hasher, small, null);
+        ChunkIndex largeIndex = hash(hasher, large, null);
+
+        // Same content up to the last chunk, whichever way the file was read
+        for (int i = 0; i < smallIndex.chunkCount() - 1; i++) {
+            assertEquals(smallIndex.hashHex(i), largeIndex.hashHex(i));
+        }
+    }
+
+    private ChunkIndex hash(ChunkHasher hasher, byte[] content, ChunkIndex previous) throws Exception {
+        return hash(hasher, content, previous, new IoBudget(0, 0));
+    }
+
+    private ChunkIndex hash(ChunkHasher hasher, byte[] content, ChunkIndex previous, IoBudget budget)
+            throws Exception {
+        Path file = Files.write(dir.resolve("file-" + content.length + "-" + (previous != null)), content);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return hasher.hash(channel, "inode", content.length, 0, previous, budget);
+        }
+    }
+
+    private static int newChunks(ChunkIndex before, ChunkIndex after) {
+        Set<Long> known = new HashSet<>();
+        for (int i = 0; i < before.chunkCount(); i++) {
+            known.add(before.hashPrefix(i));
+        }
+        int added = 0;
+        for (int i = 0; i < after.chunkCount(); i++) {
+            if (!known.contains(after.hashPrefix(i))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] insert(byte[] content, int at, byte[] added) {
+        byte[] result = new byte[content.length + added.length];
+        System.arraycopy(content, 0, result, 0, at);
+        System.arraycopy(added, 0, result, at, added.length);
+        System.arraycopy(content, at, result, at + added.length, content.length - at);
+        return result;
+    }
+}
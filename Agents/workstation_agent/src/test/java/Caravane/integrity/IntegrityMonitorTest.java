@@ -0,0 +1,87 @@
+package Caravane.integrity;
+
+import Caravane.events.IntegrityEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class IntegrityMonitorTest {
+
+    @TempDir
+    Path dir;
+
+    private final BlockingQueue<IntegrityEvent> events = new LinkedBlockingQueue<>();
+    private IntegrityMonitor monitor;
+    private Thread scrub;
+
+    @AfterEach
+    void stop() throws Exception {
+        if (scrub != null) {
+            scrub.interrupt();
+            scrub.join();
+        }
+        monitor.stop();
+    }
+
+    @Test
+    void checksAFileWhileTheScrubReadsIt() throws Exception {
+        monitor = monitor(256 << 10);
+        Path file = Files.write(dir.resolve("big.conf"), random(2 << 20, 1));
+        monitor.submit(file, true);
+        assertEquals(IntegrityMonitor.CREATED, next().getChangeKind());
+
+        // About 8 s at 256 KiB/s
+        scrub = new Thread(() -> ReflectionTestUtils.invokeMethod(monitor, "scrub"));
+        scrub.start();
+        Thread.sleep(200);
+
+        Files.write(file, random(2 << 20, 2));
+        monitor.submit(file, false);
+        IntegrityEvent modified = next();
+        assertEquals(IntegrityMonitor.MODIFIED, modified.getChangeKind());
+        assertEquals(IntegrityMonitor.WATCH, modified.getDetectedBy());
+    }
+
+    private IntegrityEvent next() throws InterruptedException {
+        IntegrityEvent event = events.poll(2, TimeUnit.SECONDS);
+        assertNotNull(event);
+        return event;
+    }
+
+    private IntegrityMonitor monitor(long scrubBytesPerSecond) throws Exception {
+        IntegrityMonitor monitor = new IntegrityMonitor();
+        ReflectionTestUtils.setField(monitor, "ap", (Caravane.publisher.EventPublisher<IntegrityEvent>) events::add);
+        ReflectionTestUtils.setField(monitor, "include", new String[] {"*.conf"});
+        ReflectionTestUtils.setField(monitor, "exclude", new String[0]);
+        ReflectionTestUtils.setField(monitor, "appendOnlyGlobs", new String[0]);
+        ReflectionTestUtils.setField(monitor, "chunking", "content-defined");
+        ReflectionTestUtils.setField(monitor, "chunkBytes", 4096);
+        ReflectionTestUtils.setField(monitor, "ioBytesPerSecond", 0L);
+        ReflectionTestUtils.setField(monitor, "ioBurstBytes", 64L << 10);
+        ReflectionTestUtils.setField(monitor, "scrubHours", 0L);
+        ReflectionTestUtils.setField(monitor, "scrubBytesPerSecond", scrubBytesPerSecond);
+        ReflectionTestUtils.setField(monitor, "workers", 1);
+        ReflectionTestUtils.setField(monitor, "maxReportedChunks", 32);
+        ReflectionTestUtils.setField(monitor, "stateFile", dir.resolve("integrity.state"));
+        ReflectionTestUtils.setField(monitor, "checkpointSeconds", 3600L);
+        monitor.init();
+        return monitor;
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
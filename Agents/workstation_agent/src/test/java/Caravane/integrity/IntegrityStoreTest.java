@@ -0,0 +1,78 @@
+package Caravane.integrity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntegrityStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reloadsTheSavedIndexes() throws Exception {
+        Chunker chunker = Chunker.contentDefined(4096);
+        Path file = dir.resolve("sshd_config");
+        ChunkIndex index = hash(chunker, file, 200_000);
+
+        IntegrityStore store = new IntegrityStore(dir.resolve("integrity.state"), chunker);
+        store.load();
+        assertFalse(store.loaded());
+        store.put(file, index);
+        store.put(dir.resolve("removed"), index);
+        store.remove(dir.resolve("removed"));
+        store.checkpoint();
+
+        IntegrityStore reloaded = new IntegrityStore(dir.resolve("integrity.state"), chunker);
+        reloaded.load();
+        assertTrue(reloaded.loaded());
+        assertEquals(1, reloaded.files().size());
+        ChunkIndex saved = reloaded.get(file);
+        assertEquals(index.fileKey, saved.fileKey);
+        assertEquals(index.size, saved.size);
+        assertEquals(index.modifiedMillis, saved.modifiedMillis);
+        assertArrayEquals(index.hashes(), saved.hashes());
+        assertEquals(index.digestHex(), saved.digestHex());
+        assertTrue(index.sameContent(saved));
+        assertEquals(index.chunkCount(), saved.chunkCount());
+        for (int i = 0; i < index.chunkCount(); i++) {
+            assertEquals(index.end(i), saved.end(i));
+        }
+    }
+
+    @Test
+    void ignoresStateWrittenWithAnotherChunking() throws Exception {
+        Chunker chunker = Chunker.contentDefined(4096);
+        Path file = dir.resolve("sshd_config");
+        IntegrityStore store = new IntegrityStore(dir.resolve("integrity.state"), chunker);
+        store.put(file, hash(chunker, file, 50_000));
+        store.checkpoint();
+
+        IntegrityStore reloaded = new IntegrityStore(dir.resolve("integrity.state"), Chunker.fixed(4096));
+        reloaded.load();
+        assertFalse(reloaded.loaded());
+        assertNull(reloaded.get(file));
+    }
+
+    private static ChunkIndex hash(Chunker chunker, Path file, int size) throws IOException, InterruptedException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        Files.write(file, content);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ChunkHasher(chunker).hash(channel, "inode-7", size, 1_700_000_000_000L, null,
+                    new IoBudget(0, 0));
+        }
+    }
+}
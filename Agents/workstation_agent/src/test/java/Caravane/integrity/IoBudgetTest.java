@@ -0,0 +1,36 @@
+package Caravane.integrity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IoBudgetTest {
+
+    @Test
+    void grantsTheBurstAtOnceThenHoldsTheRate() throws InterruptedException {
+        // 1 MiB/s, 256 KiB burst
+        IoBudget budget = new IoBudget(1 << 20, 256 << 10);
+        budget.acquire(256 << 10);
+        assertEquals(0, budget.nanosWaited());
+
+        long start = System.nanoTime();
+        // Larger than the bucket: granted, then repaid at 1 MiB/s
+        budget.acquire(128 << 10);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(384 << 10, budget.bytesGranted());
+        assertTrue(waitedMillis >= 100, "waited " + waitedMillis + " ms");
+        assertTrue(waitedMillis < 1000, "waited " + waitedMillis + " ms");
+    }
+
+    @Test
+    void neverWaitsWithoutRate() throws InterruptedException {
+        IoBudget budget = new IoBudget(0, 0);
+        budget.acquire(1L << 40);
+        assertEquals(1L << 40, budget.bytesGranted());
+        assertEquals(0, budget.nanosWaited());
+    }
+}
@@ -0,0 +1,74 @@
+package Caravane.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonLinesParserTest {
+
+    private final JsonLinesParser parser = new JsonLinesParser(new JsonFactory());
+
+    @Test
+    void mapsTheCommonFields() {
+        LogEvent event = new LogEvent();
+        assertTrue(parser.parse("{\"ts\":\"2025-12-18T21:52:11\",\"level\":\"error\",\"msg\":\"disk full\","
+                + "\"user\":\"mrc\",\"program\":\"backup\",\"pid\":4242,\"host\":\"maya\",\"type\":\"BACKUP_FAILED\","
+                + "\"src_ip\":\"10.0.0.5\",\"ctx\":{\"msg\":\"nested\",\"a\":[1,2]},\"extra\":true,\"hostname\":null}",
+                event));
+        assertEquals(LocalDateTime.of(2025, 12, 18, 21, 52, 11), event.timestamp);
+        assertEquals("HIGH", event.severity);
+        assertEquals("disk full", event.message);
+        assertEquals("mrc", event.username);
+        assertEquals("backup", event.processName);
+        assertEquals("4242", event.pid);
+        assertEquals("maya", event.hostname);
+        assertEquals("BACKUP_FAILED", event.eventType);
+        assertEquals("10.0.0.5", event.sourceIp);
+    }
+
+    @Test
+    void readsEpochMillisAndDefaults() {
+        LogEvent event = new LogEvent();
+        assertTrue(parser.parse("{\"time\":1700000000000,\"message\":\"started\"}", event));
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(1700000000000L), ZoneId.systemDefault()),
+                event.timestamp);
+        assertEquals("APP_LOG", event.eventType);
+        assertEquals("LOW", event.severity);
+
+        LogEvent unknownTime = new LogEvent();
+        assertTrue(parser.parse("{\"@timestamp\":\"yesterday\",\"severity\":\"warning\"}", unknownTime));
+        assertNull(unknownTime.timestamp);
+        assertEquals("MEDIUM", unknownTime.severity);
+    }
+
+    @Test
+    void unescapesStrings() {
+        LogEvent event = new LogEvent();
+        assertTrue(parser.parse("{\"msg\":\"line 1\\nline 2 \\\"quoted\\\" C:\\\\temp \\u00e9t\\u00e9 مرحبا\"}", event));
+        assertEquals("line 1\nline 2 \"quoted\" C:\\temp été مرحبا", event.message);
+    }
+
+    @Test
+    void rejectsMalformedLines() {
+        assertFalse(parser.parse("", new LogEvent()));
+        assertFalse(parser.parse("plain text", new LogEvent()));
+        assertFalse(parser.parse("{\"msg\":\"unterminated", new LogEvent()));
+        assertFalse(parser.parse("{\"msg\" \"no colon\"}", new LogEvent()));
+        assertFalse(parser.parse("{\"msg\":\"a\",}", new LogEvent()));
+
+        // In a *.log chain the line then goes to syslog, then raw
+        LogEvent raw = new LogEvent();
+        assertTrue(LogParserRegistry.defaults(new JsonFactory()).parserFor("app.log").parse("{\"msg\":", raw));
+        assertEquals("LOG_LINE", raw.eventType);
+        assertEquals("{\"msg\":", raw.message);
+        assertNull(raw.username);
+    }
+}
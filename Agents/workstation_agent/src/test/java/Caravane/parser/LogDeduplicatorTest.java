@@ -0,0 +1,186 @@
+package Caravane.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class LogDeduplicatorTest {
+
+    private static final long WINDOW = 30_000;
+
+    private final List<LogEvent> emitted = new ArrayList<>();
+    private final List<String> files = new ArrayList<>();
+
+    @Test
+    void sendsTheFirstEventThenOneSummaryPerWindow() {
+        LogDeduplicator dedup = dedup(100);
+        for (int i = 0; i < 5; i++) {
+            dedup.offer(session(24704 + i, 14 + i), "sudo_usage.log", 1_000 + i * 1_000L);
+        }
+        // The first one at once, the repeats only counted
+        assertEquals(1, emitted.size());
+        assertEquals(0, emitted.get(0).repeatCount);
+        assertEquals("24704", emitted.get(0).pid);
+
+        dedup.expire(1_000 + WINDOW - 1);
+        assertEquals(1, emitted.size());
+        dedup.expire(1_000 + WINDOW);
+        assertEquals(2, emitted.size());
+
+        LogEvent summary = emitted.get(1);
+        assertEquals(4, summary.repeatCount);
+        assertEquals("24708", summary.pid);
+        assertEquals(at(15), summary.firstSeen);
+        assertEquals(at(18), summary.lastSeen);
+        assertEquals(at(18), summary.timestamp);
+        assertEquals("sudo_usage.log", files.get(1));
+
+        assertEquals(5, dedup.linesIn());
+        assertEquals(2, dedup.eventsOut());
+        assertEquals(0.6, dedup.reductionRatio(), 1e-9);
+        assertEquals(0, dedup.size());
+    }
+
+    @Test
+    void masksDigitRunsOnly() {
+        LogEvent a = session(24704, 14);
+        a.message = "session 12 opened at 21:52:14";
+        LogEvent b = session(31, 15);
+        b.message = "session 9000 opened at 08:00:01";
+        assertEquals(LogDeduplicator.fingerprint("auth.log", a), LogDeduplicator.fingerprint("auth.log", b));
+
+        // Another user, source IP, file or wording is another event
+        LogEvent otherUser = session(24704, 14);
+        otherUser.username = "bob";
+        LogEvent otherIp = session(24704, 14);
+        otherIp.sourceIp = "203.0.113.8";
+        LogEvent otherText = session(24704, 14);
+        otherText.message = "session closed";
+        long key = LogDeduplicator.fingerprint("auth.log", session(24704, 14));
+        assertNotEquals(key, LogDeduplicator.fingerprint("auth.log", otherUser));
+        assertNotEquals(key, LogDeduplicator.fingerprint("auth.log", otherIp));
+        assertNotEquals(key, LogDeduplicator.fingerprint("auth.log", otherText));
+        assertNotEquals(key, LogDeduplicator.fingerprint("secure", session(24704, 14)));
+
+        // Digits of the source IP are not masked
+        LogEvent nearIp = session(24704, 14);
+        nearIp.sourceIp = "203.0.113.70";
+        assertNotEquals(key, LogDeduplicator.fingerprint("auth.log", nearIp));
+    }
+
+    @Test
+    void separatesTheFields() {
+        LogEvent ab = session(1, 14);
+        ab.username = "ab";
+        ab.targetUser = "c";
+        LogEvent bc = session(1, 14);
+        bc.username = "a";
+        bc.targetUser = "bc";
+        assertNotEquals(LogDeduplicator.fingerprint("auth.log", ab), LogDeduplicator.fingerprint("auth.log", bc));
+    }
+
+    @Test
+    void hashesWithFnv1a() {
+        LogEvent empty = new LogEvent();
+        // 64-bit FNV-1a: offset basis, then per char xor and multiply; 0xFFFF closes each field
+        long h = 0xcbf29ce484222325L;
+        for (char c : "a".toCharArray()) {
+            h = (h ^ c) * 0x100000001b3L;
+        }
+        h = (h ^ 0xFFFF) * 0x100000001b3L;
+        for (int field = 0; field < 6; field++) {
+            h = (h ^ 0xFFFF) * 0x100000001b3L;
+        }
+        assertEquals(h, LogDeduplicator.fingerprint("a", empty));
+    }
+
+    @Test
+    void closesTheOldestWindowWhenFull() {
+        LogDeduplicator dedup = dedup(2);
+        dedup.offer(failure("10.0.0.1"), "auth.log", 0);
+        dedup.offer(failure("10.0.0.1"), "auth.log", 10);
+        dedup.offer(failure("10.0.0.2"), "auth.log", 20);
+        dedup.offer(failure("10.0.0.2"), "auth.log", 30);
+        assertEquals(2, emitted.size());
+
+        // A third fingerprint: the window of 10.0.0.1 closes early, its count is not lost
+        dedup.offer(failure("10.0.0.3"), "auth.log", 40);
+        assertEquals(4, emitted.size());
+        assertEquals("10.0.0.1", emitted.get(2).sourceIp);
+        assertEquals(1, emitted.get(2).repeatCount);
+        assertEquals("10.0.0.3", emitted.get(3).sourceIp);
+        assertEquals(2, dedup.size());
+
+        // Past its window, the same event is sent again as a new first
+        dedup.offer(failure("10.0.0.2"), "auth.log", 20 + WINDOW);
+        assertEquals("10.0.0.2", emitted.get(4).sourceIp);
+        assertEquals(1, emitted.get(4).repeatCount);
+        assertEquals("10.0.0.2", emitted.get(5).sourceIp);
+        assertEquals(0, emitted.get(5).repeatCount);
+
+        dedup.flush();
+        assertEquals(6, emitted.size());
+        assertEquals(0, dedup.size());
+    }
+
+    @Test
+    void emitsToTheSinkOfTheOffer() {
+        LogDeduplicator dedup = dedup(100);
+        List<LogEvent> chunk = new ArrayList<>();
+        LogDeduplicator.Sink toChunk = (event, logFile) -> chunk.add(copy(event));
+        dedup.offer(failure("10.0.0.1"), "auth.log", 0, toChunk);
+        dedup.offer(failure("10.0.0.1"), "auth.log", 10, toChunk);
+        assertEquals(1, chunk.size());
+        assertEquals(0, emitted.size());
+
+        // The summary of a window closed by the timer goes to the default sink
+        dedup.expire(WINDOW);
+        assertEquals(1, emitted.size());
+        assertEquals(1, emitted.get(0).repeatCount);
+    }
+
+    private LogDeduplicator dedup(int maxEntries) {
+        return new LogDeduplicator(WINDOW, maxEntries, (event, logFile) -> {
+            emitted.add(copy(event));
+            files.add(logFile);
+        });
+    }
+
+    private static LogEvent copy(LogEvent event) {
+        LogEvent copy = new LogEvent();
+        copy.copyFrom(event);
+        return copy;
+    }
+
+    private static LogEvent session(int pid, int second) {
+        LogEvent event = new LogEvent();
+        event.timestamp = at(second);
+        event.eventType = "SUDO_SESSION_OPENED";
+        event.username = "mrc";
+        event.targetUser = "root";
+        event.processName = "sudo";
+        event.pid = String.valueOf(pid);
+        event.message = "pam_unix(sudo:session): session opened for user root(uid=0) by mrc(uid=1000)";
+        return event;
+    }
+
+    private static LogEvent failure(String sourceIp) {
+        LogEvent event = new LogEvent();
+        event.timestamp = at(0);
+        event.eventType = "LOGIN_FAILURE";
+        event.username = "admin";
+        event.sourceIp = sourceIp;
+        event.processName = "sshd";
+        event.message = "Failed password for invalid user admin from " + sourceIp + " port 40022 ssh2";
+        return event;
+    }
+
+    private static LocalDateTime at(int second) {
+        return LocalDateTime.of(2025, 12, 18, 21, 52, second);
+    }
+}
@@ -0,0 +1,92 @@
+package Caravane.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogEventWriterTest {
+
+    private final JsonFactory json = new JsonFactory();
+    private final LogEventWriter writer = new LogEventWriter(json);
+
+    @Test
+    void writesAWorkstationEvent() throws IOException {
+        LogEvent event = new LogEvent();
+        event.timestamp = LocalDateTime.of(2025, 12, 18, 21, 52, 11, 500_000_000);
+        event.eventType = "LOGIN_FAILURE";
+        event.severity = "HIGH";
+        event.username = "admin";
+        event.sourceIp = "203.0.113.7";
+        event.authentication(false);
+
+        String written = writer.write(event, "WS-maya", "auth.log");
+        Map<String, String> fields = read(written);
+
+        assertEquals("2025-12-18T21:52:11", fields.get("timestamp"));
+        assertEquals("WS-maya", fields.get("deviceId"));
+        assertEquals("WORKSTATION", fields.get("deviceType"));
+        assertEquals("LOGIN_FAILURE", fields.get("eventType"));
+        assertEquals("FAILURE", fields.get("authenticationStatus"));
+        assertEquals("false", fields.get("loginSuccess"));
+        assertEquals("auth.log", fields.get("logFile"));
+        assertEquals(4, UUID.fromString(fields.get("eventId")).version());
+        // Null fields are left out, not written as null
+        assertFalse(fields.containsKey("targetUser"));
+        assertFalse(fields.containsKey("repeatCount"));
+    }
+
+    @Test
+    void escapesTheMessage() throws IOException {
+        LogEvent event = new LogEvent();
+        event.eventType = "LOG_LINE";
+        event.message = "line 1\nline 2\t\"quoted\" C:\\temp \u0001 été مرحبا";
+
+        String written = writer.write(event, "WS-maya", "app.log");
+
+        assertFalse(written.contains("\n"));
+        assertTrue(written.contains("line 1\\nline 2\\t\\\"quoted\\\" C:\\\\temp \\u0001"));
+        assertEquals(event.message, read(written).get("message"));
+        assertEquals("LOW", read(written).get("severity"));
+        assertEquals("NONE", read(written).get("authenticationStatus"));
+    }
+
+    @Test
+    void writesTheRepeatSummary() throws IOException {
+        LogEvent event = new LogEvent();
+        event.eventType = "SUDO_SESSION_CLOSED";
+        event.timestamp = LocalDateTime.of(2025, 12, 18, 21, 54, 44);
+        event.repeatCount = 7;
+        event.firstSeen = LocalDateTime.of(2025, 12, 18, 21, 52, 14);
+        event.lastSeen = event.timestamp;
+
+        Map<String, String> fields = read(writer.write(event, "WS-maya", "sudo_usage.log"));
+
+        assertEquals("7", fields.get("repeatCount"));
+        assertEquals("2025-12-18T21:52:14", fields.get("firstSeen"));
+        assertEquals("2025-12-18T21:54:44", fields.get("lastSeen"));
+    }
+
+    private Map<String, String> read(String written) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        try (JsonParser parser = json.createParser(written)) {
+            assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                fields.put(name, parser.getText());
+            }
+        }
+        return fields;
+    }
+}
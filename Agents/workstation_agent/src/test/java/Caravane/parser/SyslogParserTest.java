@@ -0,0 +1,169 @@
+package Caravane.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyslogParserTest {
+
+    private final LogParserRegistry registry = LogParserRegistry.defaults(new JsonFactory());
+
+    @Test
+    void readsTheShippedSudoLog() throws IOException {
+        List<String> lines = Files.readAllLines(Path.of("watch/sudo_usage.log"), StandardCharsets.UTF_8);
+        assertFalse(lines.isEmpty());
+        for (String line : lines) {
+            LogEvent event = parse("sudo_usage.log", line);
+            assertTrue(event.eventType.startsWith("SUDO_SESSION_"), line + " -> " + event.eventType);
+            assertEquals(12, event.timestamp.getMonthValue());
+            assertEquals("maya", event.hostname);
+            assertEquals("sudo", event.processName);
+            assertEquals("root", event.targetUser);
+        }
+
+        LogEvent opened = parse("sudo_usage.log",
+                "ديسمبر 18 21:52:14 maya sudo[24704]: pam_unix(sudo:session): session opened for user root(uid=0) by mrc(uid=1000)");
+        assertEquals("SUDO_SESSION_OPENED", opened.eventType);
+        assertEquals("MEDIUM", opened.severity);
+        assertEquals("mrc", opened.username);
+        assertEquals("1000", opened.userId);
+        assertEquals("24704", opened.pid);
+        assertEquals("SUCCESS", opened.authenticationStatus);
+        assertEquals(18, opened.timestamp.getDayOfMonth());
+        assertEquals(21, opened.timestamp.getHour());
+
+        LogEvent closed = parse("sudo_usage.log",
+                "ديسمبر 18 21:52:14 maya sudo[24704]: pam_unix(sudo:session): session closed for user root");
+        assertEquals("SUDO_SESSION_CLOSED", closed.eventType);
+        assertEquals("LOW", closed.severity);
+        assertEquals("root", closed.username);
+        assertNull(closed.authenticationStatus);
+    }
+
+    @Test
+    void readsSudoCommands() {
+        LogEvent command = parse("auth.log",
+                "Dec 18 21:52:11 maya sudo:      mrc : TTY=pts/0 ; PWD=/home/mrc ; USER=root ; COMMAND=/usr/bin/apt update");
+        assertEquals("SUDO_COMMAND", command.eventType);
+        assertEquals("MEDIUM", command.severity);
+        assertEquals("mrc", command.username);
+        assertEquals("root", command.targetUser);
+        assertEquals("/usr/bin/apt", command.fileName);
+        assertEquals("apt", command.processName);
+        assertEquals(Boolean.TRUE, command.loginSuccess);
+
+        LogEvent failed = parse("auth.log", "Dec 18 21:52:11 maya sudo:      mrc : 3 incorrect password attempts ;"
+                + " TTY=pts/0 ; PWD=/home/mrc ; USER=root ; COMMAND=/usr/bin/id");
+        assertEquals("SUDO_AUTH_FAILURE", failed.eventType);
+        assertEquals("HIGH", failed.severity);
+
+        LogEvent denied = parse("auth.log", "Dec 18 21:52:11 maya sudo:      bob : user NOT in sudoers ;"
+                + " TTY=pts/1 ; PWD=/home/bob ; USER=root ; COMMAND=/bin/sh");
+        assertEquals("SUDO_DENIED", denied.eventType);
+        assertEquals("bob", denied.username);
+        assertEquals(Boolean.FALSE, denied.loginSuccess);
+    }
+
+    @Test
+    void readsSshdFailures() {
+        LogEvent invalid = parse("auth.log",
+                "Dec 18 21:52:11 maya sshd[812]: Failed password for invalid user admin from 203.0.113.7 port 40022 ssh2");
+        assertEquals("LOGIN_FAILURE", invalid.eventType);
+        assertEquals("HIGH", invalid.severity);
+        assertEquals("admin", invalid.username);
+        assertEquals("203.0.113.7", invalid.sourceIp);
+        assertEquals("FAILURE", invalid.authenticationStatus);
+        assertEquals(Boolean.FALSE, invalid.loginSuccess);
+
+        LogEvent known = parse("auth.log",
+                "2025-12-18T21:52:11.123456+01:00 maya sshd[812]: Failed publickey for mrc from 10.0.0.5 port 51234 ssh2");
+        assertEquals("LOGIN_FAILURE", known.eventType);
+        assertEquals("mrc", known.username);
+        assertEquals(LocalDateTime.of(2025, 12, 18, 21, 52, 11), known.timestamp);
+
+        LogEvent accepted = parse("auth.log",
+                "Dec 18 21:52:11 maya sshd[812]: Accepted publickey for mrc from 10.0.0.5 port 51234 ssh2");
+        assertEquals("LOGIN_SUCCESS", accepted.eventType);
+        assertEquals("LOW", accepted.severity);
+    }
+
+    @Test
+    void readsFrenchAndArabicMonths() {
+        assertEquals(12, SyslogParser.month("كانون الأول"));
+        assertEquals(12, SyslogParser.month("كانون الاول"));
+        assertEquals(1, SyslogParser.month("كانون الثاني"));
+        assertEquals(4, SyslogParser.month("أبريل"));
+        assertEquals(12, SyslogParser.month("déc."));
+        assertEquals(2, SyslogParser.month("Févr."));
+        assertEquals(8, SyslogParser.month("août"));
+        assertNull(SyslogParser.month("foo"));
+
+        LogEvent levantine = parse("sudo_usage.log",
+                "كانون الأول 18 21:52:14 maya sudo[24704]: pam_unix(sudo:session): session closed for user root");
+        assertEquals("SUDO_SESSION_CLOSED", levantine.eventType);
+        assertEquals(12, levantine.timestamp.getMonthValue());
+        assertEquals("maya", levantine.hostname);
+
+        LogEvent french = parse("auth.log", "janv. 3 08:00:01 maya su[90]: FAILED su for root by mrc");
+        assertEquals("SU_FAILURE", french.eventType);
+        assertEquals(1, french.timestamp.getMonthValue());
+        assertEquals(3, french.timestamp.getDayOfMonth());
+    }
+
+    @Test
+    void infersTheYearAcrossNewYear() {
+        LocalDateTime newYear = LocalDateTime.of(2026, 1, 2, 0, 30);
+        // December lines read in January are last year's
+        assertEquals(LocalDateTime.of(2025, 12, 31, 23, 59, 58), SyslogParser.withYear(12, 31, 23, 59, 58, newYear));
+        assertEquals(LocalDateTime.of(2026, 1, 1, 23, 0, 0), SyslogParser.withYear(1, 1, 23, 0, 0, newYear));
+        // Up to a day ahead (clock skew, time zones): still this year
+        assertEquals(LocalDateTime.of(2026, 1, 3, 0, 0, 0), SyslogParser.withYear(1, 3, 0, 0, 0, newYear));
+
+        LocalDateTime lastDay = LocalDateTime.of(2025, 12, 31, 23, 0);
+        assertEquals(LocalDateTime.of(2025, 12, 31, 22, 59, 0), SyslogParser.withYear(12, 31, 22, 59, 0, lastDay));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0, 5), SyslogParser.withYear(1, 1, 0, 0, 5, lastDay));
+
+        // Feb 29 outside a leap year: the last leap year's
+        assertEquals(LocalDateTime.of(2024, 2, 29, 12, 0, 0),
+                SyslogParser.withYear(2, 29, 12, 0, 0, LocalDateTime.of(2026, 3, 1, 0, 0)));
+        assertEquals(LocalDateTime.of(2028, 2, 29, 12, 0, 0),
+                SyslogParser.withYear(2, 29, 12, 0, 0, LocalDateTime.of(2028, 3, 1, 0, 0)));
+        assertThrows(DateTimeException.class, () -> SyslogParser.withYear(2, 30, 0, 0, 0, newYear));
+    }
+
+    @Test
+    void leavesOtherLinesToTheNextParser() {
+        SyslogParser syslog = new SyslogParser(new SudoPamMessages());
+        assertFalse(syslog.parse("not a syslog line", new LogEvent()));
+        assertFalse(syslog.parse("Foo 18 21:52:14 maya sudo[1]: hello", new LogEvent()));
+        assertFalse(syslog.parse("Feb 30 21:52:14 maya sudo[1]: hello", new LogEvent()));
+
+        LogEvent other = parse("auth.log", "Dec 18 21:52:14 maya CRON[77]: (root) CMD (run-parts /etc/cron.hourly)");
+        assertEquals("SYSLOG", other.eventType);
+        assertEquals("CRON", other.processName);
+        assertEquals("(root) CMD (run-parts /etc/cron.hourly)", other.message);
+
+        LogEvent raw = parse("auth.log", "garbage");
+        assertEquals("LOG_LINE", raw.eventType);
+        assertEquals("garbage", raw.message);
+    }
+
+    private LogEvent parse(String fileName, String line) {
+        LogEvent event = new LogEvent();
+        assertTrue(registry.parserFor(fileName).parse(line, event));
+        return event;
+    }
+}
@@ -0,0 +1,101 @@
+package Caravane.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void peeksBothLanesInAppendOrder() throws IOException {
+        try (DiskSpool spool = new DiskSpool(dir, 1 << 20, 4096)) {
+            spool.append(List.of(message("a", false), message("b", true), message("c", false),
+                    message("d", true), message("e", true)));
+
+            assertEquals(List.of("a", "b", "c", "d", "e"), values(spool.peek(10)));
+            // Not removed: the same batch again
+            assertEquals(List.of("a", "b", "c", "d", "e"), values(spool.peek(10)));
+
+            spool.remove(spool.peek(10).subList(0, 2));
+            assertEquals(List.of("c", "d", "e"), values(spool.peek(10)));
+            spool.remove(spool.peek(10));
+            assertTrue(spool.isEmpty());
+        }
+    }
+
+    @Test
+    void evictsLowSeverityFirst() throws IOException {
+        // Records are about 40 bytes: a few per segment, room for a few segments
+        try (DiskSpool spool = new DiskSpool(dir, 600, 100)) {
+            List<SpooledMessage> messages = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                messages.add(message("other-" + i, false));
+                messages.add(message("low-" + i, true));
+            }
+            spool.append(messages.subList(0, 10));
+            for (int i = 0; i < 10; i++) {
+                spool.append(message("low-extra-" + i, true));
+            }
+            spool.sync();
+
+            assertTrue(spool.evictedSegments() > 0);
+            assertTrue(spool.sizeInBytes() <= 600);
+            List<String> left = values(spool.peek(100));
+            // Every important message kept, the oldest LOW ones dropped
+            assertEquals(List.of("other-0", "other-1", "other-2", "other-3", "other-4"),
+                    left.stream().filter(v -> v.startsWith("other-")).toList());
+            assertFalse(left.contains("low-0"));
+            assertTrue(left.contains("low-extra-9"));
+        }
+    }
+
+    @Test
+    void recoversUnsentMessagesAfterRestart() throws IOException {
+        // One record per segment: a delivered message's segment is deleted right away
+        try (DiskSpool spool = new DiskSpool(dir, 1 << 20, 1)) {
+            spool.append(List.of(message("a", false), message("b", true), message("c", false), message("d", false)));
+            // Delivered before the stop
+            spool.remove(spool.peek(1));
+            // Handed out but not acknowledged: sent again after the restart
+            spool.peek(2);
+        }
+
+        try (DiskSpool spool = new DiskSpool(dir, 1 << 20, 1)) {
+            spool.append(List.of(message("e", true)));
+            List<SpooledMessage> batch = spool.peek(10);
+            assertEquals(List.of("b", "c", "d", "e"), values(batch));
+            assertEquals("device-events-workstation", batch.get(0).topic);
+            assertEquals("WS-1", batch.get(0).key);
+            spool.remove(batch);
+            assertTrue(spool.isEmpty());
+        }
+
+        try (DiskSpool spool = new DiskSpool(dir, 1 << 20, 1)) {
+            assertTrue(spool.isEmpty());
+            assertEquals(0, spool.sizeInBytes());
+        }
+    }
+
+    private static SpooledMessage message(String value, boolean low) {
+        return new SpooledMessage("device-events-workstation", "WS-1", value, low);
+    }
+
+    private static List<String> values(List<SpooledMessage> messages) {
+        List<String> values = new ArrayList<>();
+        for (SpooledMessage message : messages) {
+            values.add(message.value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,94 @@
+package Caravane.service;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KafkaProducerTest {
+
+    private static final int MESSAGES = 50;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsTheBatchSpooledAtTheFirstSendWithoutBroker() throws Exception {
+        List<String> expected = new ArrayList<>();
+        try (DiskSpool spool = new DiskSpool(dir, 1 << 20, 4096)) {
+            for (int i = 0; i < MESSAGES; i++) {
+                expected.add("m" + i);
+                spool.append(new SpooledMessage("device-events-workstation", "WS-1", "m" + i, false));
+            }
+        }
+        // Nothing listens on port 1: every send waits max.block.ms for the metadata
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "127.0.0.1:1",
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.MAX_BLOCK_MS_CONFIG, 200));
+        AtomicInteger attempts = new AtomicInteger();
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(factory) {
+            @Override
+            public CompletableFuture<SendResult<String, String>> send(String topic, String key, String data) {
+                attempts.incrementAndGet();
+                return super.send(topic, key, data);
+            }
+        };
+        KafkaProducer producer = producer(template);
+        try {
+            long start = System.nanoTime();
+            // Spool not empty: the sender's first batch is a drain of all of it
+            producer.start();
+            long deadline = start + TimeUnit.SECONDS.toNanos(5);
+            while (attempts.get() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            producer.stop();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // One blocked send, not one per message (50 x 200 ms)
+            assertEquals(1, attempts.get());
+            assertTrue(elapsedMs < 3000, "took " + elapsedMs + " ms");
+        } finally {
+            factory.destroy();
+        }
+
+        try (DiskSpool spool = new DiskSpool(dir, 1 << 20, 4096)) {
+            List<String> spooled = new ArrayList<>();
+            for (SpooledMessage message : spool.peek(MESSAGES + 1)) {
+                spooled.add(message.value);
+            }
+            assertEquals(expected, spooled);
+        }
+    }
+
+    private KafkaProducer producer(KafkaTemplate<String, String> template) {
+        KafkaProducer producer = new KafkaProducer();
+        ReflectionTestUtils.setField(producer, "kft", template);
+        ReflectionTestUtils.setField(producer, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(producer, "batchSize", MESSAGES);
+        ReflectionTestUtils.setField(producer, "lingerMs", 10L);
+        ReflectionTestUtils.setField(producer, "sendTimeoutSeconds", 30L);
+        ReflectionTestUtils.setField(producer, "retrySeconds", 60L);
+        ReflectionTestUtils.setField(producer, "spoolDir", dir);
+        ReflectionTestUtils.setField(producer, "spoolMaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(producer, "spoolSegmentBytes", 4096L);
+        return producer;
+    }
+}
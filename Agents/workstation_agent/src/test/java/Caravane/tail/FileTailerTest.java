@@ -0,0 +1,139 @@
+package Caravane.tail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileTailerTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<TailOffsetStore> stores = new ArrayList<>();
+    private final List<String> chunks = new ArrayList<>();
+
+    @AfterEach
+    void close() throws IOException {
+        for (TailOffsetStore store : stores) {
+            store.close();
+        }
+    }
+
+    @Test
+    void finishesTheRenamedFileBeforeTheNewOne() throws IOException {
+        FileTailer tailer = tailer(store());
+        Path log = dir.resolve("app.log");
+        Files.writeString(log, "one\ntwo\n");
+        tailer.tail(log, this::handOff);
+        assertEquals(List.of("one\ntwo"), chunks);
+
+        // logrotate: rename, the writer finishes its line, then a new file
+        Files.move(log, dir.resolve("app.log.1"));
+        append(dir.resolve("app.log.1"), "three\n");
+        Files.writeString(dir.resolve("app.log.2"), "older\n");
+        Files.writeString(dir.resolve("other.log"), "other\n");
+        Files.writeString(log, "four\n");
+        chunks.clear();
+        tailer.tail(log, this::handOff);
+        assertEquals(List.of("three", "four"), chunks);
+
+        append(log, "five\n");
+        chunks.clear();
+        tailer.tail(log, this::handOff);
+        assertEquals(List.of("five"), chunks);
+    }
+
+    @Test
+    void readsATruncatedFileFromTheStart() throws IOException {
+        FileTailer tailer = tailer(store());
+        Path log = dir.resolve("app.log");
+        Files.writeString(log, "a long first line\nsecond\n");
+        tailer.tail(log, this::handOff);
+
+        // copytruncate: same inode, emptied, then written again
+        Files.writeString(log, "");
+        append(log, "new\n");
+        chunks.clear();
+        tailer.tail(log, this::handOff);
+        assertEquals(List.of("new"), chunks);
+    }
+
+    @Test
+    void resumesAfterARestartFromTheHandedOffOffset() throws IOException {
+        TailOffsetStore store = store();
+        FileTailer tailer = tailer(store);
+        Path log = dir.resolve("app.log");
+        Files.writeString(log, "sent\n");
+        tailer.tail(log, this::handOff);
+        append(log, "queued\n");
+        // Read but never acked nor spooled before the stop
+        tailer.tail(log, (chunk, handedOff) -> chunks.add(chunk));
+        append(log, "written while stopped\n");
+        store.close();
+
+        chunks.clear();
+        tailer(store()).tail(log, this::handOff);
+        assertEquals(List.of("queued\nwritten while stopped"), chunks);
+    }
+
+    @Test
+    void keepsCutsThatEndOnACharacter() {
+        byte[] bytes = "abcé".getBytes(StandardCharsets.UTF_8);
+        assertEquals(5, FileTailer.charBoundary(bytes, 5));
+        assertEquals(3, FileTailer.charBoundary(bytes, 3));
+    }
+
+    @Test
+    void movesCutsInsideACharacterBackToItsFirstByte() {
+        // e-acute: 2 bytes, euro sign: 3 bytes, emoji: 4 bytes
+        byte[] bytes = "aé€😀".getBytes(StandardCharsets.UTF_8);
+        assertEquals(1, FileTailer.charBoundary(bytes, 2));
+        assertEquals(3, FileTailer.charBoundary(bytes, 4));
+        assertEquals(3, FileTailer.charBoundary(bytes, 5));
+        assertEquals(6, FileTailer.charBoundary(bytes, 7));
+        assertEquals(6, FileTailer.charBoundary(bytes, 9));
+        assertEquals(10, FileTailer.charBoundary(bytes, 10));
+    }
+
+    @Test
+    void cutsInvalidBytesAsIs() {
+        byte[] bytes = {'a', (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80};
+        assertEquals(5, FileTailer.charBoundary(bytes, 5));
+    }
+
+    private void handOff(String chunk, Runnable handedOff) {
+        chunks.add(chunk);
+        handedOff.run();
+    }
+
+    private TailOffsetStore store() throws IOException {
+        TailOffsetStore store = new TailOffsetStore();
+        ReflectionTestUtils.setField(store, "stateFile", dir.resolve("tail-offsets.state"));
+        ReflectionTestUtils.setField(store, "checkpointSeconds", 3600L);
+        store.init();
+        stores.add(store);
+        return store;
+    }
+
+    private static FileTailer tailer(TailOffsetStore store) {
+        FileTailer tailer = new FileTailer();
+        ReflectionTestUtils.setField(tailer, "offsets", store);
+        ReflectionTestUtils.setField(tailer, "chunkBytes", 65536);
+        return tailer;
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,87 @@
+package Caravane.tail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TailOffsetStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<TailOffsetStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void close() throws IOException {
+        for (TailOffsetStore store : stores) {
+            store.close();
+        }
+    }
+
+    @Test
+    void savesAnOffsetOnceItAndTheEarlierOnesAreHandedOff() throws IOException {
+        TailOffsetStore store = store();
+        Path log = dir.resolve("app.log");
+        Runnable first = store.advance(log, "inode-1", 100);
+        Runnable second = store.advance(log, "inode-1", 250);
+        // Reads go on without waiting
+        assertEquals(250, store.get(log).position);
+
+        second.run();
+        // A crash now would lose the first chunk if the second one were saved
+        assertNull(savedAfterRestart(store, log));
+
+        first.run();
+        TailOffsetStore.Offset saved = savedAfterRestart(store, log);
+        assertEquals(250, saved.position);
+        assertEquals("inode-1", saved.fileKey);
+    }
+
+    @Test
+    void resumesFromTheLastHandedOffChunk() throws IOException {
+        TailOffsetStore store = store();
+        Path log = dir.resolve("app.log");
+        store.put(log, "inode-1", 0);
+        store.advance(log, "inode-1", 100).run();
+        // Read, still on the bus or in the producer queue
+        store.advance(log, "inode-1", 180);
+
+        assertEquals(100, savedAfterRestart(store, log).position);
+    }
+
+    @Test
+    void forgetsRemovedFiles() throws IOException {
+        TailOffsetStore store = store();
+        Path log = dir.resolve("app.log");
+        Runnable pending = store.advance(log, "inode-1", 100);
+        store.remove(log);
+        // Handed off after the deletion: not brought back
+        pending.run();
+
+        assertNull(store.get(log));
+        assertNull(savedAfterRestart(store, log));
+    }
+
+    private TailOffsetStore store() throws IOException {
+        TailOffsetStore store = new TailOffsetStore();
+        ReflectionTestUtils.setField(store, "stateFile", dir.resolve("tail-offsets.state"));
+        ReflectionTestUtils.setField(store, "checkpointSeconds", 3600L);
+        store.init();
+        stores.add(store);
+        return store;
+    }
+
+    private TailOffsetStore.Offset savedAfterRestart(TailOffsetStore store, Path file) throws IOException {
+        store.checkpoint();
+        return store().get(file);
+    }
+}
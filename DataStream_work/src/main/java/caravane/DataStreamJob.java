@@ -0,0 +1,278 @@
+package caravane;
+
+import caravane.cassandra.AnomalyAlertRowMapper;
+import caravane.cassandra.CassandraBatchingSink;
+import caravane.cassandra.CassandraSettings;
+import caravane.cassandra.DeviceEventRowMapper;
+import caravane.config.CheckpointSettings;
+import caravane.config.KafkaConfig;
+import caravane.model.AnomalyAlert;
+import caravane.model.AssetRecord;
+import caravane.model.DeadLetter;
+import caravane.model.DeviceEvent;
+import caravane.model.HeavyHitterReport;
+import caravane.model.IoTEvent;
+import caravane.model.NetworkDeviceEvent;
+import caravane.model.ServerEvent;
+import caravane.model.SessionSummary;
+import caravane.processor.AssetEnrichment;
+import caravane.processor.DeadLetterSplitter;
+import caravane.processor.DeviceEventTimestampAssigner;
+import caravane.processor.EventProcessor;
+import caravane.processor.HeavyHitterDetector;
+import caravane.processor.IoTSensorAggregation;
+import caravane.processor.LateEventSplitter;
+import caravane.processor.PortScanDetector;
+import caravane.processor.ServerMetricAnomalyDetector;
+import caravane.processor.SourceZoneEnrichment;
+import caravane.processor.UserSessionization;
+import caravane.serde.AssetRecordDeserializer;
+import caravane.serde.DeadLetterSerializationSchema;
+import caravane.serde.DeviceEventRecordDeserializer;
+import caravane.serde.JsonSerializationSchema;
+import org.apache.flink.api.common.eventtime.WatermarkStrategy;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.connector.base.DeliveryGuarantee;
+import org.apache.flink.connector.kafka.sink.KafkaRecordSerializationSchema;
+import org.apache.flink.connector.kafka.sink.KafkaSink;
+import org.apache.flink.connector.kafka.source.KafkaSource;
+import org.apache.flink.connector.kafka.source.enumerator.initializer.OffsetsInitializer;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.util.Collector;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Flink job of the DataStream module (entry class of target/flink-job.jar).
+ *
+ * Options (Flink program arguments):
+ * <pre>
+ * --iot.tumbling 60          tumbling IoT aggregation window (seconds)
+ * --iot.sliding.size 300     sliding IoT aggregation window (seconds)
+ * --iot.sliding.slide 60     sliding IoT aggregation slide (seconds)
+ * --watermark.out-of-orderness 10   bounded out-of-orderness (seconds)
+ * --watermark.idleness 60    a partition silent this long stops holding back the watermark (seconds)
+ * --event-time.zone UTC      zone of the agents' DeviceEvent.timestamp
+ * --event-time.max-future-skew 300  event times further ahead of the Kafka record time are ignored (seconds)
+ * --zones.file               CIDR -> zone table on the TaskManagers (default: zones.conf in the jar)
+ * --zones.reload 60          seconds between checks of the zone table file for changes
+ * --anomaly.alpha 0.05       EWMA smoothing factor of server baselines
+ * --anomaly.threshold 4.0    z-score above which a server metric is anomalous
+ * --anomaly.warmup 30        samples per metric before alerting
+ * --anomaly.ttl-days 7       baseline retention of silent servers
+ * --portscan.window 300      port-scan sliding window (seconds)
+ * --portscan.slide 60        port-scan window slide (seconds)
+ * --portscan.precision 10    HyperLogLog precision (2^p bytes max per source and pane)
+ * --portscan.threshold 100   distinct destination:port targets raising an alert
+ * --heavy.window 300         heavy-hitter sliding window (seconds)
+ * --heavy.slide 60           heavy-hitter window slide (seconds)
+ * --heavy.shards 8           sketch partitions per dimension
+ * --heavy.k 20               talkers reported per dimension and window
+ * --heavy.cms.depth 4 / --heavy.cms.width 2048   Count-Min dimensions
+ * --heavy.min-share 0.05     share of window volume a surge must reach
+ * --heavy.surge-factor 2.0   share growth since the previous window flagged as surge
+ * --sessions.gap 1800        inactivity closing a user session (seconds)
+ * --sessions.max-items 50    distinct processes / files / IPs kept per session
+ * </pre>
+ * Checkpointing, state backend and sink delivery options: see {@link CheckpointSettings}.
+ * Cassandra sink options ({@code --cassandra.enabled true}): see {@link CassandraSettings}.
+ */
+public class DataStreamJob {
+
+    public static void main(String[] args) throws Exception {
+        ParameterTool params = ParameterTool.fromArgs(args);
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        env.getConfig().setGlobalJobParameters(params);
+        CheckpointSettings.apply(env, params);
+        DeliveryGuarantee delivery = CheckpointSettings.sinkDelivery(params);
+
+        // Event time: per-partition bounded out-of-orderness watermarks
+        WatermarkStrategy<DeviceEvent> watermarks = WatermarkStrategy
+                .<DeviceEvent>forBoundedOutOfOrderness(Duration.ofSeconds(params.getLong("watermark.out-of-orderness", 10)))
+                .withTimestampAssigner(new DeviceEventTimestampAssigner(
+                        ZoneId.of(params.get("event-time.zone", "UTC")),
+                        Duration.ofSeconds(params.getLong("event-time.max-future-skew", 300)).toMillis()))
+                .withIdleness(Duration.ofSeconds(params.getLong("watermark.idleness", 60)));
+
+        // Records that do not decode go to the dead-letter topic, untouched
+        SingleOutputStreamOperator<DeviceEvent> parsed = deviceEvents(env, KafkaConfig.ALL_TOPICS, watermarks, "device-events")
+                .process(new DeadLetterSplitter()).uid("dead-letter-splitter").name("dead-letter-splitter");
+        parsed.getSideOutput(DeadLetterSplitter.DEAD_LETTERS)
+                .sinkTo(deadLetterSink(delivery))
+                .uid("dead-letter-sink").name("dead-letter-sink");
+
+        // Phase 1: log every event with its severity
+        parsed.map(new EventProcessor()).uid("event-processor").name("event-processor")
+                .print().name("event-log");
+
+        // Too-late events to a side topic
+        SingleOutputStreamOperator<DeviceEvent> onTime = parsed
+                .process(new LateEventSplitter()).uid("late-event-splitter").name("late-event-splitter");
+        onTime.getSideOutput(LateEventSplitter.LATE_EVENTS)
+                .sinkTo(jsonSink(KafkaConfig.TOPIC_LATE_EVENTS, DeviceEvent::getDeviceId, delivery))
+                .uid("late-events-sink").name("late-events-sink");
+
+        // Owner and criticality from the asset inventory (broadcast state)
+        DataStream<DeviceEvent> events = AssetEnrichment.attach(onTime, assetInventory(env))
+                .map(new SourceZoneEnrichment(params.get("zones.file"), params.getLong("zones.reload", 60)))
+                .uid("source-zone-enrichment").name("source-zone-enrichment");
+
+        // IoT sensor aggregation
+        IoTSensorAggregation.attach(ofType(events, IoTEvent.class),
+                Duration.ofSeconds(params.getLong("iot.tumbling", 60)),
+                Duration.ofSeconds(params.getLong("iot.sliding.size", 300)),
+                Duration.ofSeconds(params.getLong("iot.sliding.slide", 60)))
+                .sinkTo(jsonSink(KafkaConfig.TOPIC_IOT_METRICS,
+                        m -> m.getDeviceId() != null ? m.getDeviceId() : m.getLocation(), delivery))
+                .uid("iot-metrics-sink").name("iot-metrics-sink");
+
+        // Server metric anomaly detection
+        DataStream<AnomalyAlert> serverAnomalies = ofType(events, ServerEvent.class)
+                .filter(e -> e.getDeviceId() != null).name("server-with-device")
+                .keyBy(new ServerMetricAnomalyDetector.ServerServiceKey())
+                .process(new ServerMetricAnomalyDetector(
+                        params.getDouble("anomaly.alpha", 0.05),
+                        params.getDouble("anomaly.threshold", 4.0),
+                        params.getLong("anomaly.warmup", 30),
+                        params.getInt("anomaly.ttl-days", 7)))
+                .uid("server-anomaly-detector").name("server-anomaly-detector");
+
+        // Port-scan detection
+        DataStream<NetworkDeviceEvent> traffic = ofType(events, NetworkDeviceEvent.class);
+        DataStream<AnomalyAlert> portScans = PortScanDetector.attach(traffic,
+                Duration.ofSeconds(params.getLong("portscan.window", 300)),
+                Duration.ofSeconds(params.getLong("portscan.slide", 60)),
+                params.getInt("portscan.precision", 10),
+                params.getLong("portscan.threshold", 100));
+
+        // Heavy-hitter traffic
+        HeavyHitterDetector.attach(traffic,
+                Duration.ofSeconds(params.getLong("heavy.window", 300)),
+                Duration.ofSeconds(params.getLong("heavy.slide", 60)),
+                params.getInt("heavy.shards", 8),
+                params.getInt("heavy.k", 20),
+                params.getInt("heavy.cms.depth", 4),
+                params.getInt("heavy.cms.width", 2048),
+                params.getDouble("heavy.min-share", 0.05),
+                params.getDouble("heavy.surge-factor", 2.0))
+                .sinkTo(jsonSink(KafkaConfig.TOPIC_HEAVY_HITTERS, HeavyHitterReport::getDimension, delivery))
+                .uid("heavy-hitters-sink").name("heavy-hitters-sink");
+
+        // User sessions
+        UserSessionization.attach(events,
+                Duration.ofSeconds(params.getLong("sessions.gap", 1800)),
+                params.getInt("sessions.max-items", 50))
+                .sinkTo(jsonSink(KafkaConfig.TOPIC_USER_SESSIONS, SessionSummary::getUsername, delivery))
+                .uid("user-sessions-sink").name("user-sessions-sink");
+
+        DataStream<AnomalyAlert> anomalies = serverAnomalies.union(portScans);
+        anomalies
+                .sinkTo(jsonSink(KafkaConfig.TOPIC_ANOMALY_ALERTS, AnomalyAlert::getDeviceId, delivery))
+                .uid("anomaly-alerts-sink").name("anomaly-alerts-sink");
+
+        // History in Cassandra, for the backend
+        if (params.getBoolean("cassandra.enabled", false)) {
+            CassandraSettings cassandra = CassandraSettings.fromParams(params);
+            ZoneId zone = ZoneId.of(params.get("event-time.zone", "UTC"));
+            events.addSink(new CassandraBatchingSink<>(cassandra, new DeviceEventRowMapper(zone)))
+                    .uid("cassandra-events-sink").name("cassandra-events-sink");
+            anomalies.addSink(new CassandraBatchingSink<>(cassandra, new AnomalyAlertRowMapper(zone)))
+                    .uid("cassandra-anomalies-sink").name("cassandra-anomalies-sink");
+        }
+
+        env.execute("HiveMind DataStream Job");
+    }
+
+    /**
+     * Kafka source of DeviceEvents. Watermarks are generated inside the source, per
+     * Kafka partition, so a lagging or idle partition is accounted for on its own.
+     */
+    private static DataStream<DeviceEvent> deviceEvents(StreamExecutionEnvironment env, List<String> topics,
+            WatermarkStrategy<DeviceEvent> watermarks, String name) {
+        KafkaSource<DeviceEvent> source = KafkaSource.<DeviceEvent>builder()
+                .setBootstrapServers(KafkaConfig.BOOTSTRAP_SERVERS)
+                .setTopics(topics)
+                .setGroupId(KafkaConfig.CONSUMER_GROUP_ID)
+                .setStartingOffsets(OffsetsInitializer.committedOffsets(OffsetResetStrategy.LATEST))
+                .setDeserializer(new DeviceEventRecordDeserializer())
+                .build();
+        return env.fromSource(source, watermarks, name).uid(name + "-source");
+    }
+
+    /**
+     * Asset inventory changelog, always read from the beginning: the compacted topic
+     * is the full inventory.
+     */
+    private static DataStream<AssetRecord> assetInventory(StreamExecutionEnvironment env) {
+        KafkaSource<AssetRecord> source = KafkaSource.<AssetRecord>builder()
+                .setBootstrapServers(KafkaConfig.BOOTSTRAP_SERVERS)
+                .setTopics(KafkaConfig.TOPIC_ASSET_INVENTORY)
+                .setGroupId(KafkaConfig.CONSUMER_GROUP_ID + "-inventory")
+                .setStartingOffsets(OffsetsInitializer.earliest())
+                .setDeserializer(new AssetRecordDeserializer())
+                .build();
+        return env.fromSource(source, AssetEnrichment.inventoryWatermarks(), "asset-inventory")
+                .uid("asset-inventory-source");
+    }
+
+    private static <T extends DeviceEvent> DataStream<T> ofType(DataStream<DeviceEvent> events, Class<T> type) {
+        return events
+                .flatMap((DeviceEvent event, Collector<T> out) -> {
+                    if (type.isInstance(event)) {
+                        out.collect(type.cast(event));
+                    }
+                })
+                .returns(type)
+                .uid("filter-" + type.getSimpleName())
+                .name(type.getSimpleName());
+    }
+
+    /**
+     * JSON Kafka sink. With EXACTLY_ONCE, records are written in a Kafka transaction
+     * committed on checkpoint completion, so a restart from a checkpoint neither loses
+     * nor duplicates output for read_committed consumers.
+     */
+    private static <T> KafkaSink<T> jsonSink(String topic, KeyFunction<T> key, DeliveryGuarantee delivery) {
+        return KafkaSink.<T>builder()
+                .setBootstrapServers(KafkaConfig.BOOTSTRAP_SERVERS)
+                .setDeliveryGuarantee(delivery)
+                .setTransactionalIdPrefix("hivemind-" + topic)
+                .setProperty(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, CheckpointSettings.TRANSACTION_TIMEOUT_MS)
+                .setRecordSerializer(KafkaRecordSerializationSchema.<T>builder()
+                        .setTopic(topic)
+                        .setKeySerializationSchema((SerializationSchema<T>) element -> {
+                            String k = key.apply(element);
+                            return k == null ? null : k.getBytes(StandardCharsets.UTF_8);
+                        })
+                        .setValueSerializationSchema(new JsonSerializationSchema<T>())
+                        .build())
+                .build();
+    }
+
+    private static KafkaSink<DeadLetter> deadLetterSink(DeliveryGuarantee delivery) {
+        return KafkaSink.<DeadLetter>builder()
+                .setBootstrapServers(KafkaConfig.BOOTSTRAP_SERVERS)
+                .setDeliveryGuarantee(delivery)
+                .setTransactionalIdPrefix("hivemind-" + KafkaConfig.TOPIC_DEAD_LETTERS)
+                .setProperty(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, CheckpointSettings.TRANSACTION_TIMEOUT_MS)
+                .setRecordSerializer(new DeadLetterSerializationSchema(KafkaConfig.TOPIC_DEAD_LETTERS))
+                .build();
+    }
+
+    /**
+     * Serializable record -> Kafka key function.
+     */
+    @FunctionalInterface
+    interface KeyFunction<T> extends Serializable {
+        String apply(T element);
+    }
+}
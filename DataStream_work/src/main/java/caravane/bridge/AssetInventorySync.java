@@ -0,0 +1,183 @@
+package caravane.bridge;
+
+import caravane.config.KafkaConfig;
+import caravane.model.AssetRecord;
+import caravane.serde.DeviceEventSerde;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes the backend's laptop registry ({@code GET /api/laptops}) as the asset
+ * inventory changelog read by the Flink enrichment stage.
+ *
+ * The registry is polled periodically and only differences are sent to
+ * {@link KafkaConfig#TOPIC_ASSET_INVENTORY} (a compacted topic keyed by deviceId =
+ * laptop name): new or changed assets as upserts, removed ones as tombstones. A
+ * difference counts as published once the broker acknowledged it; a failed send is
+ * retried at the next poll. The first poll after a restart republishes everything,
+ * which compaction absorbs.
+ *
+ * Criticality is not in the registry: compromised laptops are CRITICAL, the others
+ * get {@code asset.sync.default-criticality}.
+ */
+@Component
+@ConditionalOnProperty(name = "asset.sync.enabled", havingValue = "true")
+public class AssetInventorySync {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetInventorySync.class);
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${asset.sync.backend-url:http://localhost:8080}")
+    private String backendUrl;
+
+    @Value("${asset.sync.username:}")
+    private String username;
+
+    @Value("${asset.sync.password:}")
+    private String password;
+
+    @Value("${asset.sync.interval-seconds:30}")
+    private long intervalSeconds;
+
+    @Value("${asset.sync.default-criticality:MEDIUM}")
+    private String defaultCriticality;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    // What the topic holds, as acknowledged by the broker; only the sync thread uses it
+    private final Map<String, AssetRecord> published = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "asset-inventory-sync"));
+        scheduler.scheduleWithFixedDelay(this::sync, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    void sync() {
+        // An exception out of a scheduleWithFixedDelay task cancels every later run
+        try {
+            publishChanges(fetchInventory());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Asset inventory sync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the differences with {@link #published} and waits for them: an asset
+     * whose send failed keeps its published state, so the next sync sends it again.
+     */
+    private void publishChanges(Map<String, AssetRecord> current) throws InterruptedException {
+        Map<String, CompletableFuture<?>> sends = new HashMap<>();
+        for (AssetRecord asset : current.values()) {
+            if (!asset.sameContent(published.get(asset.getDeviceId()))) {
+                try {
+                    sends.put(asset.getDeviceId(), kafkaTemplate.send(KafkaConfig.TOPIC_ASSET_INVENTORY,
+                            asset.getDeviceId(), DeviceEventSerde.mapper().writeValueAsString(asset)));
+                } catch (Exception e) {
+                    logger.error("❌ Error publishing asset {}: {}", asset.getDeviceId(), e.getMessage());
+                }
+            }
+        }
+        for (String deviceId : published.keySet()) {
+            if (!current.containsKey(deviceId)) {
+                sends.put(deviceId, kafkaTemplate.send(KafkaConfig.TOPIC_ASSET_INVENTORY, deviceId, null));
+            }
+        }
+
+        int upserts = 0;
+        int deletes = 0;
+        for (Map.Entry<String, CompletableFuture<?>> send : sends.entrySet()) {
+            String deviceId = send.getKey();
+            try {
+                send.getValue().get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                logger.error("❌ Error publishing asset {}: {}", deviceId,
+                        e instanceof ExecutionException ? e.getCause().getMessage() : "timed out");
+                continue;
+            }
+            AssetRecord asset = current.get(deviceId);
+            if (asset != null) {
+                published.put(deviceId, asset);
+                upserts++;
+            } else {
+                published.remove(deviceId);
+                deletes++;
+            }
+        }
+        if (upserts > 0 || deletes > 0) {
+            logger.info("🗂️ Asset inventory: {} upserts, {} deletions ({} assets)", upserts, deletes, current.size());
+        }
+    }
+
+    private Map<String, AssetRecord> fetchInventory() throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(backendUrl + "/api/laptops"))
+                .timeout(Duration.ofSeconds(10))
+                .GET();
+        if (!username.isEmpty()) {
+            String credentials = username + ":" + password;
+            request.header("Authorization",
+                    "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/laptops returned " + response.statusCode());
+        }
+
+        Map<String, AssetRecord> inventory = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (JsonNode laptop : DeviceEventSerde.mapper().readTree(response.body())) {
+            String name = laptop.path("name").asText(null);
+            if (name == null || name.isEmpty()) {
+                continue;
+            }
+            AssetRecord asset = new AssetRecord();
+            asset.setDeviceId(name);
+            asset.setIpAddress(laptop.path("ipAddress").asText(null));
+            asset.setMacAddress(laptop.path("macAddress").asText(null));
+            asset.setOwner(laptop.path("owner").asText(null));
+            asset.setOsVersion(laptop.path("osVersion").asText(null));
+            asset.setStatus(laptop.path("status").asText(null));
+            asset.setCriticality("COMPROMISED".equalsIgnoreCase(asset.getStatus()) ? "CRITICAL" : defaultCriticality);
+            asset.setUpdatedAt(now);
+            inventory.put(name, asset);
+        }
+        return inventory;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
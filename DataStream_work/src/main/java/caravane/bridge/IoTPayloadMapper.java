@@ -0,0 +1,141 @@
+package caravane.bridge;
+
+import caravane.model.IoTEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Maps an MQTT message (topic + payload) to an {@link IoTEvent}.
+ *
+ * The topic is matched against a level template such as
+ * {@code sensors/{location}/{deviceId}/{sensorType}}; each {@code {field}} level fills
+ * the matching event field. The payload is either a bare number (the reading) or a
+ * JSON object whose fields ({@code value}/{@code sensorValue}, {@code unit},
+ * {@code timestamp}, {@code deviceId}, ...) take precedence over the topic.
+ */
+public class IoTPayloadMapper {
+
+    private static final String DEVICE_ID = "deviceId";
+    private static final String SENSOR_TYPE = "sensorType";
+    private static final String LOCATION = "location";
+    private static final String UNIT = "unit";
+    private static final String[] TEXT_FIELDS = { DEVICE_ID, SENSOR_TYPE, LOCATION, UNIT, "sourceIp", "severity" };
+
+    private final ObjectMapper objectMapper;
+    // Field name per topic level, null for literal / wildcard levels
+    private final String[] levelFields;
+
+    public IoTPayloadMapper(String topicTemplate, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        String[] levels = topicTemplate.split("/");
+        this.levelFields = new String[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            String level = levels[i];
+            if (level.startsWith("{") && level.endsWith("}")) {
+                levelFields[i] = level.substring(1, level.length() - 1);
+            }
+        }
+    }
+
+    public IoTEvent map(String topic, byte[] payload) throws IOException {
+        IoTEvent event = new IoTEvent();
+        event.setEventType("SENSOR_READING");
+        event.setSeverity("LOW");
+        applyTopic(topic, event);
+
+        int first = firstNonWhitespace(payload);
+        if (first >= 0 && payload[first] == '{') {
+            applyJson(objectMapper.readTree(payload), event);
+        } else {
+            String text = new String(payload, StandardCharsets.US_ASCII).trim();
+            try {
+                event.setSensorValue(Double.parseDouble(text));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unreadable sensor payload on " + topic);
+            }
+        }
+
+        if (event.getDeviceId() == null || event.getSensorValue() == null) {
+            throw new IllegalArgumentException("Missing deviceId or sensor value on " + topic);
+        }
+        return event;
+    }
+
+    private void applyTopic(String topic, IoTEvent event) {
+        int level = 0;
+        int start = 0;
+        while (level < levelFields.length && start <= topic.length()) {
+            int end = topic.indexOf('/', start);
+            if (end < 0) {
+                end = topic.length();
+            }
+            String field = levelFields[level];
+            if (field != null) {
+                set(event, field, topic.substring(start, end));
+            }
+            level++;
+            start = end + 1;
+        }
+    }
+
+    private void applyJson(JsonNode node, IoTEvent event) {
+        JsonNode value = node.has("sensorValue") ? node.get("sensorValue") : node.get("value");
+        if (value != null && value.isNumber()) {
+            event.setSensorValue(value.asDouble());
+        }
+        for (String field : TEXT_FIELDS) {
+            JsonNode text = node.get(field);
+            if (text != null && text.isTextual()) {
+                set(event, field, text.asText());
+            }
+        }
+        JsonNode ts = node.get("timestamp");
+        if (ts != null) {
+            if (ts.isNumber()) {
+                event.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(ts.asLong()), ZoneOffset.UTC));
+            } else if (ts.isTextual()) {
+                event.setTimestamp(LocalDateTime.parse(ts.asText()));
+            }
+        }
+    }
+
+    private static void set(IoTEvent event, String field, String value) {
+        switch (field) {
+            case DEVICE_ID:
+                event.setDeviceId(value);
+                break;
+            case SENSOR_TYPE:
+                event.setSensorType(value.toUpperCase());
+                break;
+            case LOCATION:
+                event.setLocation(value);
+                break;
+            case UNIT:
+                event.setUnit(value);
+                break;
+            case "sourceIp":
+                event.setSourceIp(value);
+                break;
+            case "severity":
+                event.setSeverity(value);
+                break;
+            default:
+                // unknown placeholder: ignored
+        }
+    }
+
+    private static int firstNonWhitespace(byte[] payload) {
+        for (int i = 0; i < payload.length; i++) {
+            if (!Character.isWhitespace(payload[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
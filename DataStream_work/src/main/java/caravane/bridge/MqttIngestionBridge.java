@@ -0,0 +1,264 @@
+package caravane.bridge;
+
+import caravane.config.KafkaConfig;
+import caravane.model.IoTEvent;
+import caravane.serde.DeviceEventSerde;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MQTT -> Kafka bridge for IoT devices.
+ *
+ * Subscribes to the configured topic filters, maps every message to an
+ * {@link IoTEvent} and publishes it to {@link KafkaConfig#TOPIC_IOT} keyed by
+ * deviceId. Batching is left to the Kafka producer (linger/batch size in
+ * application.properties), so the MQTT callback thread never waits on the broker.
+ *
+ * Acks are manual: a QoS 1/2 message is acknowledged to the MQTT broker only once
+ * Kafka has confirmed the write, and acks go out in arrival order. A failed Kafka
+ * send is retried with backoff, since the broker does not redeliver on a live
+ * connection. With a persistent session, anything not yet acked when the bridge
+ * dies or loses its connection is redelivered by the broker on reconnect. Messages
+ * that cannot be mapped are acked and dropped so they are not redelivered forever.
+ */
+@Component
+@ConditionalOnProperty(name = "mqtt.bridge.enabled", havingValue = "true")
+public class MqttIngestionBridge implements MqttCallbackExtended {
+
+    private static final Logger logger = LoggerFactory.getLogger(MqttIngestionBridge.class);
+    private static final long RETRY_DELAY_MS = 500;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    private static final class Pending {
+        final MqttMessage message;
+        // Guarded by the unacked queue
+        boolean done;
+        volatile boolean abandoned;
+
+        Pending(MqttMessage message) {
+            this.message = message;
+        }
+    }
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${mqtt.bridge.broker-url:tcp://localhost:1883}")
+    private String brokerUrl;
+
+    @Value("${mqtt.bridge.client-id:hivemind-mqtt-bridge}")
+    private String clientId;
+
+    @Value("${mqtt.bridge.topic-filters:sensors/#}")
+    private String[] topicFilters;
+
+    @Value("${mqtt.bridge.topic-pattern:sensors/{location}/{deviceId}/{sensorType}}")
+    private String topicPattern;
+
+    @Value("${mqtt.bridge.qos:1}")
+    private int qos;
+
+    @Value("${mqtt.bridge.max-inflight:1000}")
+    private int maxInflight;
+
+    @Value("${mqtt.bridge.stats-interval-seconds:10}")
+    private long statsIntervalSeconds;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    // QoS 1/2 messages in arrival order, acked from the head once processed
+    private final Deque<Pending> unacked = new ArrayDeque<>();
+
+    private MqttAsyncClient client;
+    private IoTPayloadMapper mapper;
+    // Stats and send retries
+    private ScheduledExecutorService timer;
+
+    @PostConstruct
+    public void start() throws MqttException {
+        mapper = new IoTPayloadMapper(topicPattern, DeviceEventSerde.mapper());
+
+        client = new MqttAsyncClient(brokerUrl, clientId, new MemoryPersistence());
+        client.setManualAcks(true);
+        client.setCallback(this);
+
+        MqttConnectOptions options = new MqttConnectOptions();
+        // Persistent session: unacked QoS 1/2 messages survive a bridge restart
+        options.setCleanSession(false);
+        options.setAutomaticReconnect(true);
+        options.setMaxInflight(maxInflight);
+        client.connect(options).waitForCompletion();
+
+        timer = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "mqtt-bridge-timer"));
+        timer.scheduleAtFixedRate(this::logStats, statsIntervalSeconds, statsIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void connectComplete(boolean reconnect, String serverURI) {
+        try {
+            int[] qosLevels = new int[topicFilters.length];
+            Arrays.fill(qosLevels, qos);
+            client.subscribe(topicFilters, qosLevels);
+            logger.info("📡 MQTT bridge {} to {} - subscribed to {}",
+                    reconnect ? "reconnected" : "connected", serverURI, Arrays.toString(topicFilters));
+        } catch (MqttException e) {
+            logger.error("❌ MQTT subscribe failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) {
+        received.increment();
+        Pending pending = track(message);
+        IoTEvent event;
+        String json;
+        try {
+            event = mapper.map(topic, message.getPayload());
+            json = DeviceEventSerde.mapper().writeValueAsString(event);
+        } catch (Exception e) {
+            rejected.increment();
+            logger.warn("Dropping unreadable MQTT message on {}: {}", topic, e.getMessage());
+            complete(pending);
+            return;
+        }
+        forward(topic, event.getDeviceId(), json, pending, 0);
+    }
+
+    /**
+     * Sends to Kafka until it succeeds: the broker only redelivers an unacked message
+     * after a reconnect, so giving up would leave it holding an in-flight slot. While
+     * Kafka is down the unacked messages pile up to the broker's in-flight limit, which
+     * stops the flow until the sends succeed again.
+     */
+    private void forward(String topic, String key, String json, Pending pending, int attempt) {
+        CompletableFuture<?> send;
+        try {
+            send = kafkaTemplate.send(KafkaConfig.TOPIC_IOT, key, json);
+        } catch (RuntimeException e) {
+            send = CompletableFuture.failedFuture(e);
+        }
+        send.whenComplete((result, ex) -> {
+            if (ex == null) {
+                forwarded.increment();
+                complete(pending);
+                return;
+            }
+            failed.increment();
+            if (pending != null && pending.abandoned) {
+                // Connection lost meanwhile: the broker redelivers it on the new session
+                return;
+            }
+            long delayMs = Math.min(MAX_RETRY_DELAY_MS, RETRY_DELAY_MS << Math.min(attempt, 10));
+            logger.error("❌ Error forwarding MQTT message from {} (attempt {}), retrying in {} ms: {}",
+                    topic, attempt + 1, delayMs, ex.getMessage());
+            try {
+                timer.schedule(() -> forward(topic, key, json, pending, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException stopping) {
+                // Unacked: redelivered to the next run by the persistent session
+            }
+        });
+    }
+
+    /**
+     * Queues a QoS 1/2 message for its ack. MQTT 3.1.1 (4.6) requires PUBACKs in the
+     * order the messages arrived, whatever order Kafka confirms them in.
+     */
+    private Pending track(MqttMessage message) {
+        if (message.getQos() == 0) {
+            return null;
+        }
+        Pending pending = new Pending(message);
+        synchronized (unacked) {
+            unacked.addLast(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Marks a message processed and acks every processed message at the head of the
+     * arrival queue.
+     */
+    private void complete(Pending pending) {
+        if (pending == null) {
+            return;
+        }
+        synchronized (unacked) {
+            pending.done = true;
+            while (!unacked.isEmpty() && unacked.peekFirst().done) {
+                ack(unacked.pollFirst().message);
+            }
+        }
+    }
+
+    private void ack(MqttMessage message) {
+        try {
+            client.messageArrivedComplete(message.getId(), message.getQos());
+        } catch (MqttException e) {
+            logger.warn("MQTT ack failed for message {}: {}", message.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+        logger.warn("MQTT connection lost: {}", cause.getMessage());
+        // Their ids belong to the lost connection; the broker resends them on the new one
+        synchronized (unacked) {
+            for (Pending pending : unacked) {
+                pending.abandoned = true;
+            }
+            unacked.clear();
+        }
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+        // The bridge only subscribes
+    }
+
+    private void logStats() {
+        logger.info("📊 MQTT bridge: received={} forwarded={} rejected={} failed={}",
+                received.sum(), forwarded.sum(), rejected.sum(), failed.sum());
+    }
+
+    @PreDestroy
+    public void stop() throws MqttException {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        if (client != null && client.isConnected()) {
+            // Let pending Kafka acks complete the MQTT handshake before disconnecting
+            kafkaTemplate.flush();
+            client.disconnect().waitForCompletion();
+        }
+        if (client != null) {
+            client.close();
+        }
+    }
+}
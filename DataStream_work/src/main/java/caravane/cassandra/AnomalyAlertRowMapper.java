@@ -0,0 +1,43 @@
+package caravane.cassandra;
+
+import caravane.model.AnomalyAlert;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+
+import java.time.ZoneId;
+
+/**
+ * AnomalyAlert -> backend {@code anomaly_alerts} row. Alert ids are deterministic, so
+ * a replayed alert overwrites itself.
+ */
+public class AnomalyAlertRowMapper implements CassandraRowMapper<AnomalyAlert> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ZoneId zone;
+
+    public AnomalyAlertRowMapper(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public String insertCql() {
+        return "INSERT INTO anomaly_alerts (alert_id, device_id, description, detected_value, timestamp) "
+                + "VALUES (?, ?, ?, ?, ?)";
+    }
+
+    @Override
+    public Object partitionKey(AnomalyAlert alert) {
+        return alert.getAlertId();
+    }
+
+    @Override
+    public BoundStatement bind(PreparedStatement insert, AnomalyAlert alert) {
+        return insert.bind(
+                alert.getAlertId(),
+                alert.getDeviceId(),
+                alert.getDescription(),
+                alert.getDetectedValue(),
+                alert.getTimestamp() != null ? alert.getTimestamp().atZone(zone).toInstant() : null);
+    }
+}
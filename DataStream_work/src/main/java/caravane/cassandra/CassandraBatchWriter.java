@@ -0,0 +1,143 @@
+package caravane.cassandra;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchType;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous, partition-aware Cassandra writer.
+ *
+ * Rows are buffered per partition key and sent as UNLOGGED batches of one partition
+ * each: a single-partition batch is applied as one mutation by one replica set, so
+ * it costs one round trip instead of {@code batchRows}, without the coordinator
+ * fan-out of multi-partition batches. A partition's rows are sent once it reaches
+ * {@code batchRows}, or when the writer is flushed.
+ *
+ * At most {@code maxInFlight} writes are pending; {@link #write} blocks while the cap
+ * is reached, which backpressures the caller instead of queueing without bound or
+ * dropping rows. The first failed write is rethrown by the next {@link #write} or
+ * {@link #flush} call. Not thread-safe: one writer per task.
+ */
+public class CassandraBatchWriter<T> implements AutoCloseable {
+
+    private final CqlSession session;
+    private final CassandraRowMapper<T> mapper;
+    private final PreparedStatement insert;
+    private final int batchRows;
+    private final int maxInFlight;
+    private final int maxBufferedRows;
+    private final Semaphore inFlight;
+
+    private final Map<Object, List<BoundStatement>> buffered = new HashMap<>();
+    private int bufferedRows;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder requestsSent = new LongAdder();
+
+    public CassandraBatchWriter(CqlSession session, CassandraRowMapper<T> mapper, int batchRows, int maxInFlight,
+            int maxBufferedRows) {
+        this.session = session;
+        this.mapper = mapper;
+        this.insert = session.prepare(mapper.insertCql());
+        this.batchRows = batchRows;
+        this.maxInFlight = maxInFlight;
+        this.maxBufferedRows = maxBufferedRows;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public void write(T record) throws IOException, InterruptedException {
+        checkFailure();
+        Object key = mapper.partitionKey(record);
+        List<BoundStatement> rows = buffered.computeIfAbsent(key, k -> new ArrayList<>(batchRows));
+        rows.add(mapper.bind(insert, record));
+        bufferedRows++;
+        if (rows.size() >= batchRows) {
+            buffered.remove(key);
+            send(rows);
+        } else if (bufferedRows >= maxBufferedRows) {
+            sendBuffered();
+        }
+    }
+
+    /**
+     * Sends every buffered row without waiting for the writes to complete.
+     */
+    public void sendBuffered() throws InterruptedException {
+        for (List<BoundStatement> rows : buffered.values()) {
+            send(rows);
+        }
+        buffered.clear();
+    }
+
+    /**
+     * Sends every buffered row and waits until all writes are acknowledged.
+     */
+    public void flush() throws IOException, InterruptedException {
+        sendBuffered();
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+        checkFailure();
+    }
+
+    public int bufferedRows() {
+        return bufferedRows;
+    }
+
+    public int inFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public long rowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public long requestsSent() {
+        return requestsSent.sum();
+    }
+
+    private void send(List<BoundStatement> rows) throws InterruptedException {
+        bufferedRows -= rows.size();
+        int count = rows.size();
+        Statement<?> statement = count == 1
+                ? rows.get(0).setIdempotent(true)
+                : BatchStatement.newInstance(BatchType.UNLOGGED, rows.toArray(new BatchableStatement<?>[0]))
+                        .setIdempotent(true);
+
+        inFlight.acquire();
+        requestsSent.increment();
+        session.executeAsync(statement).whenComplete((result, error) -> {
+            if (error != null) {
+                failure.compareAndSet(null, error);
+            } else {
+                rowsWritten.add(count);
+            }
+            inFlight.release();
+        });
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new IOException("Cassandra write failed", error);
+        }
+    }
+
+    @Override
+    public void close() {
+        session.close();
+    }
+}
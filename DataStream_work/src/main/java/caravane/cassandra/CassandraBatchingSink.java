@@ -0,0 +1,84 @@
+package caravane.cassandra;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
+import org.apache.flink.streaming.api.functions.sink.RichSinkFunction;
+
+/**
+ * Flink sink writing to Cassandra through a {@link CassandraBatchWriter}.
+ *
+ * Every checkpoint flushes the buffered rows and waits for all pending writes, so a
+ * completed checkpoint means every record before its barrier is in Cassandra. A
+ * failed write fails the task; the job restarts from the last checkpoint and replays
+ * the records after it, which the idempotent upserts of the row mappers absorb
+ * (at-least-once delivery, exactly-once rows). When the writer is at its in-flight
+ * cap, {@link #invoke} blocks and Flink backpressures the upstream operators.
+ *
+ * Rows buffered longer than {@code lingerMs} are sent with the next record; on an
+ * idle stream the next checkpoint sends them.
+ */
+public class CassandraBatchingSink<T> extends RichSinkFunction<T> implements CheckpointedFunction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CassandraSettings settings;
+    private final CassandraRowMapper<T> mapper;
+
+    private transient CassandraBatchWriter<T> writer;
+    private transient long lastSendMs;
+
+    public CassandraBatchingSink(CassandraSettings settings, CassandraRowMapper<T> mapper) {
+        this.settings = settings;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        writer = new CassandraBatchWriter<>(settings.connect(), mapper,
+                settings.batchRows, settings.maxInFlight, settings.maxBufferedRows);
+        lastSendMs = System.currentTimeMillis();
+
+        MetricGroup metrics = getRuntimeContext().getMetricGroup().addGroup("cassandra");
+        metrics.gauge("inFlight", (Gauge<Integer>) writer::inFlight);
+        metrics.gauge("bufferedRows", (Gauge<Integer>) writer::bufferedRows);
+        metrics.gauge("rowsWritten", (Gauge<Long>) writer::rowsWritten);
+        metrics.gauge("requestsSent", (Gauge<Long>) writer::requestsSent);
+    }
+
+    @Override
+    public void invoke(T value, Context context) throws Exception {
+        writer.write(value);
+        long now = System.currentTimeMillis();
+        if (now - lastSendMs >= settings.lingerMs) {
+            writer.sendBuffered();
+            lastSendMs = now;
+        }
+    }
+
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        writer.flush();
+        lastSendMs = System.currentTimeMillis();
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) {
+        // Nothing to restore: everything before a checkpoint is already written
+    }
+
+    @Override
+    public void finish() throws Exception {
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
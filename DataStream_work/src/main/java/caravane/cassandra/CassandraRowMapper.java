@@ -0,0 +1,28 @@
+package caravane.cassandra;
+
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+
+import java.io.Serializable;
+
+/**
+ * Maps a record to one row of a Cassandra table.
+ *
+ * The insert must be an upsert on a key derived from the record itself (eventId,
+ * deterministic alert id...), so that writing a record twice after a replay from a
+ * checkpoint leaves a single row.
+ */
+public interface CassandraRowMapper<T> extends Serializable {
+
+    /**
+     * INSERT statement with bind markers, prepared once per sink instance.
+     */
+    String insertCql();
+
+    /**
+     * Partition key of the row: rows with equal keys share unlogged batches.
+     */
+    Object partitionKey(T record);
+
+    BoundStatement bind(PreparedStatement insert, T record);
+}
@@ -0,0 +1,56 @@
+package caravane.cassandra;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import org.apache.flink.api.java.utils.ParameterTool;
+
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+
+/**
+ * Connection and batching settings of the Cassandra sinks.
+ *
+ * Options (Flink program arguments):
+ * <pre>
+ * --cassandra.enabled false       write events and anomaly alerts to Cassandra
+ * --cassandra.host localhost / --cassandra.port 9042 / --cassandra.dc datacenter1
+ * --cassandra.keyspace security_keyspace
+ * --cassandra.batch-rows 20       rows per unlogged batch (one partition per batch)
+ * --cassandra.max-in-flight 64    concurrent async writes per sink instance
+ * --cassandra.max-buffered 2000   buffered rows before every partition is flushed
+ * --cassandra.linger-ms 200       age of buffered rows before they are flushed
+ * </pre>
+ */
+public class CassandraSettings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public String host = "localhost";
+    public int port = 9042;
+    public String localDatacenter = "datacenter1";
+    public String keyspace = "security_keyspace";
+    public int batchRows = 20;
+    public int maxInFlight = 64;
+    public int maxBufferedRows = 2000;
+    public long lingerMs = 200;
+
+    public static CassandraSettings fromParams(ParameterTool params) {
+        CassandraSettings settings = new CassandraSettings();
+        settings.host = params.get("cassandra.host", settings.host);
+        settings.port = params.getInt("cassandra.port", settings.port);
+        settings.localDatacenter = params.get("cassandra.dc", settings.localDatacenter);
+        settings.keyspace = params.get("cassandra.keyspace", settings.keyspace);
+        settings.batchRows = params.getInt("cassandra.batch-rows", settings.batchRows);
+        settings.maxInFlight = params.getInt("cassandra.max-in-flight", settings.maxInFlight);
+        settings.maxBufferedRows = params.getInt("cassandra.max-buffered", settings.maxBufferedRows);
+        settings.lingerMs = params.getLong("cassandra.linger-ms", settings.lingerMs);
+        return settings;
+    }
+
+    public CqlSession connect() {
+        return CqlSession.builder()
+                .addContactPoint(new InetSocketAddress(host, port))
+                .withLocalDatacenter(localDatacenter)
+                .withKeyspace(keyspace)
+                .build();
+    }
+}
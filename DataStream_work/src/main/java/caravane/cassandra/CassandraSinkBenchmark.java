@@ -0,0 +1,70 @@
+package caravane.cassandra;
+
+import caravane.model.DeviceEvent;
+import caravane.producer.DeviceEventProducer;
+import com.datastax.oss.driver.api.core.CqlSession;
+
+import java.time.ZoneId;
+
+/**
+ * Write throughput of {@link CassandraBatchWriter} into {@code device_events_by_device}
+ * against a running Cassandra (docker compose cassandra-dev with create_tables.cql
+ * applied), one row per request versus partition-grouped unlogged batches.
+ *
+ * Events are simulator workstation events spread over {@code devices} devices; fewer
+ * devices means fuller batches. Each configuration writes the same events, so later
+ * rounds overwrite the same rows.
+ *
+ * Usage: {@code CassandraSinkBenchmark [events] [devices] [max-in-flight] [host]}
+ */
+public class CassandraSinkBenchmark {
+
+    private static final int[] BATCH_ROWS = {1, 10, 20, 50};
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int devices = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int maxInFlight = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        CassandraSettings settings = new CassandraSettings();
+        if (args.length > 3) {
+            settings.host = args[3];
+        }
+
+        DeviceEvent[] input = new DeviceEvent[events];
+        for (int i = 0; i < events; i++) {
+            input[i] = DeviceEventProducer.buildWorkstationEvent(devices);
+        }
+        DeviceEventRowMapper mapper = new DeviceEventRowMapper(ZoneId.of("UTC"));
+
+        System.out.println("=".repeat(60));
+        System.out.println("🗄️  Cassandra sink: " + events + " events, " + devices + " devices, "
+                + maxInFlight + " in flight -> " + settings.host + ":" + settings.port);
+        try (CqlSession session = settings.connect()) {
+            // Warm-up: connection pool, prepared statement, JIT
+            run(session, mapper, input, 20, maxInFlight, events / 10);
+
+            for (int batchRows : BATCH_ROWS) {
+                long t0 = System.nanoTime();
+                CassandraBatchWriter<DeviceEvent> writer = run(session, mapper, input, batchRows, maxInFlight, events);
+                double seconds = (System.nanoTime() - t0) / 1e9;
+                System.out.printf("batch %3d rows   %,10.0f rows/s   %,8d requests   %5.1f rows/request%n",
+                        batchRows, writer.rowsWritten() / seconds, writer.requestsSent(),
+                        writer.rowsWritten() / (double) writer.requestsSent());
+            }
+        }
+        System.out.println("=".repeat(60));
+    }
+
+    private static CassandraBatchWriter<DeviceEvent> run(CqlSession session, DeviceEventRowMapper mapper,
+            DeviceEvent[] input, int batchRows, int maxInFlight, int count) throws Exception {
+        // Not closed: the session is shared by every run
+        CassandraBatchWriter<DeviceEvent> writer = new CassandraBatchWriter<>(session, mapper,
+                batchRows, maxInFlight, 10_000);
+        for (int i = 0; i < count; i++) {
+            writer.write(input[i]);
+        }
+        writer.flush();
+        return writer;
+    }
+}
@@ -0,0 +1,93 @@
+package caravane.config;
+
+import org.apache.flink.api.common.restartstrategy.RestartStrategies;
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.connector.base.DeliveryGuarantee;
+import org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend;
+import org.apache.flink.contrib.streaming.state.PredefinedOptions;
+import org.apache.flink.streaming.api.CheckpointingMode;
+import org.apache.flink.streaming.api.environment.CheckpointConfig;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+
+/**
+ * State backend, checkpointing and restart settings of the Flink job.
+ *
+ * Keyed state (windows, sketches, server baselines) lives in RocksDB on local disk,
+ * so it can grow past the heap, and checkpoints are incremental: only the SST files
+ * created since the previous checkpoint are uploaded. Checkpoints are exactly-once
+ * and retained on cancellation, so the job can be restarted from the last one as
+ * well as from a savepoint ({@code flink run -s <path>}).
+ *
+ * Checkpoint duration and size are reported by Flink itself
+ * ({@code lastCheckpointDuration}, {@code lastCheckpointSize},
+ * {@code lastCheckpointFullSize}); RocksDB size metrics are enabled here.
+ *
+ * Options (Flink program arguments):
+ * <pre>
+ * --checkpoint.interval 10        seconds between checkpoints (also the latency of transactional sinks)
+ * --checkpoint.min-pause 5        seconds between the end of a checkpoint and the next one
+ * --checkpoint.timeout 600        seconds before a checkpoint is declared failed
+ * --checkpoint.tolerable-failures 3
+ * --checkpoint.unaligned false    unaligned checkpoints (faster under backpressure, larger)
+ * --checkpoint.dir file:///tmp/flink-checkpoints
+ * --state.rocksdb.dir             local RocksDB working directory (default: TaskManager tmp dirs)
+ * --state.rocksdb.profile SSD     SSD or DISK
+ * --sink.delivery EXACTLY_ONCE    EXACTLY_ONCE (Kafka transactions) or AT_LEAST_ONCE
+ * </pre>
+ */
+public final class CheckpointSettings {
+
+    /**
+     * Must stay under the broker's {@code transaction.max.timeout.ms} (15 min by default).
+     */
+    public static final String TRANSACTION_TIMEOUT_MS = String.valueOf(15 * 60 * 1000);
+
+    private CheckpointSettings() {
+    }
+
+    public static void apply(StreamExecutionEnvironment env, ParameterTool params) {
+        env.enableCheckpointing(params.getLong("checkpoint.interval", 10) * 1000, CheckpointingMode.EXACTLY_ONCE);
+
+        CheckpointConfig checkpoints = env.getCheckpointConfig();
+        checkpoints.setMinPauseBetweenCheckpoints(params.getLong("checkpoint.min-pause", 5) * 1000);
+        checkpoints.setCheckpointTimeout(params.getLong("checkpoint.timeout", 600) * 1000);
+        checkpoints.setMaxConcurrentCheckpoints(1);
+        checkpoints.setTolerableCheckpointFailureNumber(params.getInt("checkpoint.tolerable-failures", 3));
+        checkpoints.enableUnalignedCheckpoints(params.getBoolean("checkpoint.unaligned", false));
+        checkpoints.setExternalizedCheckpointCleanup(
+                CheckpointConfig.ExternalizedCheckpointCleanup.RETAIN_ON_CANCELLATION);
+        checkpoints.setCheckpointStorage(params.get("checkpoint.dir", "file:///tmp/flink-checkpoints"));
+
+        // Incremental RocksDB checkpoints
+        EmbeddedRocksDBStateBackend rocksDb = new EmbeddedRocksDBStateBackend(true);
+        rocksDb.setPredefinedOptions("DISK".equalsIgnoreCase(params.get("state.rocksdb.profile", "SSD"))
+                ? PredefinedOptions.SPINNING_DISK_OPTIMIZED_HIGH_MEM
+                : PredefinedOptions.FLASH_SSD_OPTIMIZED);
+        if (params.has("state.rocksdb.dir")) {
+            rocksDb.setDbStoragePath(params.get("state.rocksdb.dir"));
+        }
+        env.setStateBackend(rocksDb.configure(rocksDbMetrics(), CheckpointSettings.class.getClassLoader()));
+
+        // Resume from the last checkpoint, backing off while Kafka or the disk is unavailable
+        env.setRestartStrategy(RestartStrategies.exponentialDelayRestart(
+                Time.seconds(1), Time.minutes(2), 2.0, Time.minutes(10), 0.1));
+    }
+
+    public static DeliveryGuarantee sinkDelivery(ParameterTool params) {
+        return DeliveryGuarantee.valueOf(params.get("sink.delivery", "EXACTLY_ONCE").toUpperCase());
+    }
+
+    private static Configuration rocksDbMetrics() {
+        Configuration metrics = new Configuration();
+        metrics.setString("state.backend.rocksdb.metrics.estimate-num-keys", "true");
+        metrics.setString("state.backend.rocksdb.metrics.estimate-live-data-size", "true");
+        metrics.setString("state.backend.rocksdb.metrics.total-sst-files-size", "true");
+        metrics.setString("state.backend.rocksdb.metrics.size-all-mem-tables", "true");
+        metrics.setString("state.backend.rocksdb.metrics.block-cache-usage", "true");
+        metrics.setString("state.backend.rocksdb.metrics.compaction-pending", "true");
+        metrics.setString("state.backend.rocksdb.metrics.background-errors", "true");
+        return metrics;
+    }
+}
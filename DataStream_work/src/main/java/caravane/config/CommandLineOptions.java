@@ -0,0 +1,30 @@
+package caravane.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --name=value} and {@code --flag} arguments of the command-line tools
+ * (LoadGenerator, DlqReplayer). A flag without value maps to "true".
+ */
+public final class CommandLineOptions {
+
+    private CommandLineOptions() {
+    }
+
+    public static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,107 @@
+package caravane.config;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kafka partitioner placing every record of a device on the same partition.
+ *
+ * Keyed records go to {@code murmur2(key) % partitions}, the formula of Kafka's
+ * default partitioner, so producers keying by deviceId agree with any client using
+ * the defaults (Flink sinks, kafka-console-producer...). Unkeyed records are placed
+ * by the {@code "deviceId"} field of their JSON value, hashed the same way as a key,
+ * so they land next to the keyed records of the same device. Records with neither
+ * are spread round-robin.
+ *
+ * The agents always key by deviceId and keep Kafka's default partitioner, which
+ * places their records the same way.
+ *
+ * Enabled with {@code partitioner.class=caravane.config.DeviceIdPartitioner}.
+ */
+public class DeviceIdPartitioner implements Partitioner {
+
+    private static final byte[] FIELD = "\"deviceId\"".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes,
+            Cluster cluster) {
+        int partitions = cluster.partitionsForTopic(topic).size();
+        if (keyBytes != null) {
+            return partitionOf(keyBytes, partitions);
+        }
+        byte[] deviceId = valueBytes != null ? deviceId(valueBytes) : null;
+        if (deviceId != null) {
+            return partitionOf(deviceId, partitions);
+        }
+        return Utils.toPositive(roundRobin.getAndIncrement()) % partitions;
+    }
+
+    public static int partitionOf(byte[] deviceId, int partitions) {
+        return Utils.toPositive(Utils.murmur2(deviceId)) % partitions;
+    }
+
+    /**
+     * UTF-8 bytes of the first {@code "deviceId": "..."} string of
+     * a JSON document, or null. A plain byte scan, no JSON parsing: values with
+     * escapes are ignored rather than decoded.
+     */
+    static byte[] deviceId(byte[] json) {
+        int at = indexOf(json, FIELD, 0);
+        while (at >= 0) {
+            int i = skipWhitespace(json, at + FIELD.length);
+            if (i < json.length && json[i] == ':') {
+                i = skipWhitespace(json, i + 1);
+                if (i < json.length && json[i] == '"') {
+                    int start = i + 1;
+                    for (int j = start; j < json.length; j++) {
+                        if (json[j] == '\\') {
+                            return null;
+                        }
+                        if (json[j] == '"') {
+                            return j > start ? Arrays.copyOfRange(json, start, j) : null;
+                        }
+                    }
+                }
+                return null;
+            }
+            at = indexOf(json, FIELD, at + 1);
+        }
+        return null;
+    }
+
+    private static int skipWhitespace(byte[] json, int i) {
+        while (i < json.length && (json[i] == ' ' || json[i] == '\t' || json[i] == '\n' || json[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
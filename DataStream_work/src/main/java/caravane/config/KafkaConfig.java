@@ -17,6 +17,19 @@ public class KafkaConfig {
         public static final String TOPIC_NETWORK = "device-events-network";
         public static final String TOPIC_SERVER = "device-events-server";
 
+        // Flink output topics
+        public static final String TOPIC_IOT_METRICS = "device-metrics-iot-1m";
+        public static final String TOPIC_ANOMALY_ALERTS = "anomaly-alerts";
+        public static final String TOPIC_HEAVY_HITTERS = "network-heavy-hitters";
+        public static final String TOPIC_LATE_EVENTS = "device-events-late";
+        public static final String TOPIC_USER_SESSIONS = "user-sessions";
+
+        // Asset inventory changelog (compacted, keyed by deviceId), broadcast to the enrichment stage
+        public static final String TOPIC_ASSET_INVENTORY = "asset-inventory";
+
+        // Malformed records (raw bytes + dlq.* headers), written by the collector and the Flink job
+        public static final String TOPIC_DEAD_LETTERS = "device-events-dlq";
+
         // Flink consumer topics - ALL TOPICS in Phase 2
         public static final List<String> ALL_TOPICS = Arrays.asList(
                         TOPIC_WORKSTATION,
@@ -0,0 +1,72 @@
+package caravane.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates the HiveMind topics at startup, through the KafkaAdmin of Spring Boot,
+ * instead of relying on broker auto-creation (1 partition).
+ *
+ * Each setting is read from {@code kafka.topics.<topic>.<setting>}, falling back to
+ * {@code kafka.topics.default.<setting>}: partitions, replicas, retention.ms,
+ * compression.type, segment.bytes, cleanup.policy. Existing topics keep their
+ * settings; their partition count is only ever increased, and doing so moves the
+ * devices to other partitions (see {@link DeviceIdPartitioner}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "kafka.topics.provision", havingValue = "true", matchIfMissing = true)
+public class TopicProvisioningConfig {
+
+    static final List<String> TOPICS = Arrays.asList(
+            KafkaConfig.TOPIC_WORKSTATION,
+            KafkaConfig.TOPIC_IOT,
+            KafkaConfig.TOPIC_NETWORK,
+            KafkaConfig.TOPIC_SERVER,
+            KafkaConfig.TOPIC_IOT_METRICS,
+            KafkaConfig.TOPIC_ANOMALY_ALERTS,
+            KafkaConfig.TOPIC_HEAVY_HITTERS,
+            KafkaConfig.TOPIC_LATE_EVENTS,
+            KafkaConfig.TOPIC_USER_SESSIONS,
+            KafkaConfig.TOPIC_ASSET_INVENTORY,
+            KafkaConfig.TOPIC_DEAD_LETTERS);
+
+    private static final List<String> TOPIC_SETTINGS = Arrays.asList(
+            TopicConfig.RETENTION_MS_CONFIG,
+            TopicConfig.COMPRESSION_TYPE_CONFIG,
+            TopicConfig.SEGMENT_BYTES_CONFIG,
+            TopicConfig.CLEANUP_POLICY_CONFIG);
+
+    @Bean
+    public KafkaAdmin.NewTopics hivemindTopics(Environment env) {
+        return new KafkaAdmin.NewTopics(TOPICS.stream()
+                .map(topic -> newTopic(env, topic))
+                .toArray(NewTopic[]::new));
+    }
+
+    private static NewTopic newTopic(Environment env, String topic) {
+        TopicBuilder builder = TopicBuilder.name(topic)
+                .partitions(Integer.parseInt(setting(env, topic, "partitions", "1")))
+                .replicas(Integer.parseInt(setting(env, topic, "replicas", "1")));
+        for (String name : TOPIC_SETTINGS) {
+            String value = setting(env, topic, name, null);
+            if (value != null && !value.isEmpty()) {
+                builder.config(name, value);
+            }
+        }
+        return builder.build();
+    }
+
+    private static String setting(Environment env, String topic, String name, String fallback) {
+        return env.getProperty("kafka.topics." + topic + "." + name,
+                env.getProperty("kafka.topics.default." + name, fallback));
+    }
+}
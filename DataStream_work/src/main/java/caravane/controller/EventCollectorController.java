@@ -1,8 +1,13 @@
 package caravane.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import caravane.config.KafkaConfig;
+import caravane.dlq.DeadLetters;
+import caravane.dlq.ErrorCounters;
+import caravane.model.DeadLetter;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,28 +15,45 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api")
 public class EventCollectorController {
 
     private static final Logger logger = LoggerFactory.getLogger(EventCollectorController.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ErrorCounters rejected = new ErrorCounters(10_000);
 
     @Autowired
     private KafkaTemplate<String, String> kafkaTemplate;
 
     @PostMapping("/events")
     public ResponseEntity<String> collectEvent(@RequestBody String eventJson) {
+        JsonNode json;
         try {
             // Validate JSON
-            JsonNode json = objectMapper.readTree(eventJson);
+            json = objectMapper.readTree(eventJson);
+        } catch (JsonProcessingException e) {
+            // Only a malformed payload is dead-lettered: the event itself is the problem
+            logger.error("Invalid JSON: {}", e.getMessage());
+            quarantine(eventJson, e);
+            return ResponseEntity.badRequest()
+                    .body("Invalid JSON: " + e.getMessage());
+        }
+
+        try {
             logger.info("📩 Received HTTP Event: {}", eventJson);
 
             // Determine Topic based on device type (simple logic)
             String topic = determineTopicFromEvent(eventJson);
 
-            // Forward to Kafka
-            kafkaTemplate.send(topic, eventJson)
+            // Forward to Kafka keyed by deviceId (the Flink job adds the network zone)
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic,
+                    json.path("deviceId").asText(null), eventJson);
+            kafkaTemplate.send(record)
                     .whenComplete((result, ex) -> {
                         if (ex != null) {
                             logger.error("❌ Error sending to Kafka: {}", ex.getMessage());
@@ -43,9 +65,10 @@ public class EventCollectorController {
             return ResponseEntity.ok("Event received and forwarded to " + topic);
 
         } catch (Exception e) {
-            logger.error("Invalid JSON or Internal Error: {}", e.getMessage());
-            return ResponseEntity.badRequest()
-                    .body("Invalid JSON or Internal Error: " + e.getMessage());
+            // Kafka unavailable or similar: the client can retry, the event is not bad
+            logger.error("Internal Error: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body("Internal Error: " + e.getMessage());
         }
     }
 
@@ -54,6 +77,33 @@ public class EventCollectorController {
         return ResponseEntity.ok("HiveMind DataStream API is running");
     }
 
+    @GetMapping("/events/errors")
+    public ResponseEntity<Map<String, Object>> errors() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", rejected.total());
+        body.put("byDevice", rejected.snapshot());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Keeps a rejected payload in the dead-letter topic, byte for byte, instead of
+     * only logging it.
+     */
+    private void quarantine(String eventJson, Exception error) {
+        byte[] raw = eventJson == null ? new byte[0] : eventJson.getBytes(StandardCharsets.UTF_8);
+        DeadLetter letter = DeadLetters.of(raw, DeadLetters.SOURCE_HTTP, error);
+        rejected.increment(letter.getDeviceId(), error.getClass().getSimpleName());
+
+        ProducerRecord<String, String> record = new ProducerRecord<>(KafkaConfig.TOPIC_DEAD_LETTERS, null,
+                letter.getFailedAt(), letter.getDeviceId(), eventJson, DeadLetters.headers(letter));
+        kafkaTemplate.send(record)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        logger.error("❌ Error sending to dead-letter topic: {}", ex.getMessage());
+                    }
+                });
+    }
+
     private String determineTopicFromEvent(String eventJson) {
         // Simple logic to determine topic based on content
         if (eventJson.contains("IOT"))
@@ -0,0 +1,155 @@
+package caravane.dlq;
+
+import caravane.model.DeadLetter;
+import caravane.serde.DeviceEventSerde;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dead-letter record layout, shared by the collector, the Flink job and
+ * {@link DlqReplayer}.
+ *
+ * The DLQ record value is the raw value that failed, untouched, and its key is the
+ * original key (or the deviceId when one can be recovered). Provenance and error
+ * travel as {@code dlq.*} headers so the payload can be replayed byte for byte.
+ */
+public final class DeadLetters {
+
+    public static final String HEADER_SOURCE_TOPIC = "dlq.source.topic";
+    public static final String HEADER_SOURCE_PARTITION = "dlq.source.partition";
+    public static final String HEADER_SOURCE_OFFSET = "dlq.source.offset";
+    public static final String HEADER_SOURCE_TIMESTAMP = "dlq.source.timestamp";
+    public static final String HEADER_ERROR_CLASS = "dlq.error.class";
+    public static final String HEADER_ERROR_MESSAGE = "dlq.error.message";
+    public static final String HEADER_FAILED_AT = "dlq.failed.at";
+    public static final String HEADER_DEVICE_ID = "dlq.device.id";
+    public static final String HEADER_REPLAY_COUNT = "dlq.replay.count";
+
+    /** Source topic of dead letters raised by the HTTP collector. */
+    public static final String SOURCE_HTTP = "http:/api/events";
+
+    private static final int MAX_ERROR_MESSAGE = 1024;
+
+    private DeadLetters() {
+    }
+
+    /**
+     * Dead letter for a Kafka record that failed to deserialize.
+     */
+    public static DeadLetter of(ConsumerRecord<byte[], byte[]> record, Exception error) {
+        DeadLetter letter = of(record.value(), record.topic(), error);
+        letter.setSourcePartition(record.partition());
+        letter.setSourceOffset(record.offset());
+        letter.setSourceTimestamp(record.timestamp());
+        letter.setKey(record.key());
+        letter.setReplayCount(replayCount(record.headers()));
+        return letter;
+    }
+
+    /**
+     * Dead letter for a payload that never reached Kafka (partition and offset -1).
+     */
+    public static DeadLetter of(byte[] value, String sourceTopic, Exception error) {
+        DeadLetter letter = new DeadLetter();
+        letter.setSourceTopic(sourceTopic);
+        letter.setValue(value);
+        letter.setErrorClass(error.getClass().getName());
+        String message = error.getMessage();
+        if (message != null && message.length() > MAX_ERROR_MESSAGE) {
+            message = message.substring(0, MAX_ERROR_MESSAGE);
+        }
+        letter.setErrorMessage(message);
+        letter.setFailedAt(System.currentTimeMillis());
+        letter.setSourceTimestamp(letter.getFailedAt());
+        letter.setDeviceId(extractDeviceId(value));
+        return letter;
+    }
+
+    public static List<Header> headers(DeadLetter letter) {
+        List<Header> headers = new ArrayList<>(9);
+        add(headers, HEADER_SOURCE_TOPIC, letter.getSourceTopic());
+        add(headers, HEADER_SOURCE_PARTITION, String.valueOf(letter.getSourcePartition()));
+        add(headers, HEADER_SOURCE_OFFSET, String.valueOf(letter.getSourceOffset()));
+        add(headers, HEADER_SOURCE_TIMESTAMP, String.valueOf(letter.getSourceTimestamp()));
+        add(headers, HEADER_ERROR_CLASS, letter.getErrorClass());
+        add(headers, HEADER_ERROR_MESSAGE, letter.getErrorMessage());
+        add(headers, HEADER_FAILED_AT, String.valueOf(letter.getFailedAt()));
+        add(headers, HEADER_DEVICE_ID, letter.getDeviceId());
+        add(headers, HEADER_REPLAY_COUNT, String.valueOf(letter.getReplayCount()));
+        return headers;
+    }
+
+    public static ProducerRecord<byte[], byte[]> toProducerRecord(String topic, DeadLetter letter) {
+        return new ProducerRecord<>(topic, null, letter.getSourceTimestamp(), recordKey(letter),
+                letter.getValue(), headers(letter));
+    }
+
+    /**
+     * DLQ record key: the original key, else the recovered deviceId, so a device's
+     * dead letters stay together.
+     */
+    public static byte[] recordKey(DeadLetter letter) {
+        if (letter.getKey() != null) {
+            return letter.getKey();
+        }
+        return letter.getDeviceId() == null ? null : letter.getDeviceId().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    public static int replayCount(Headers headers) {
+        String count = header(headers, HEADER_REPLAY_COUNT);
+        if (count == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(count);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Best-effort deviceId of a payload that failed to parse: streams top-level JSON
+     * fields until {@code deviceId}, so it still works when the document breaks later
+     * on. Returns null for binary or unreadable payloads.
+     */
+    public static String extractDeviceId(byte[] value) {
+        if (value == null || value.length == 0 || value[0] != '{') {
+            return null;
+        }
+        try (JsonParser parser = DeviceEventSerde.mapper().getFactory().createParser(value)) {
+            parser.nextToken();
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                token = parser.nextToken();
+                if ("deviceId".equals(field) && token == JsonToken.VALUE_STRING) {
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+        } catch (Exception e) {
+            // Broken before deviceId
+        }
+        return null;
+    }
+
+    private static void add(List<Header> headers, String name, String value) {
+        if (value != null) {
+            headers.add(new RecordHeader(name, value.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
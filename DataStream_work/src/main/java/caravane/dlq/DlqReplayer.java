@@ -0,0 +1,197 @@
+package caravane.dlq;
+
+import caravane.config.CommandLineOptions;
+import caravane.config.KafkaConfig;
+import caravane.model.DeviceEvent;
+import caravane.serde.DeviceEventSerde;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Pushes dead letters back into the device-events topics once whatever broke them
+ * has been fixed (parser, schema, agent).
+ *
+ * Reads {@link KafkaConfig#TOPIC_DEAD_LETTERS} with its own consumer group, so each
+ * run resumes where the last one stopped. A record is replayed only if it now
+ * decodes (unless {@code --force}), to the topic it came from, with the original key
+ * and an incremented {@code dlq.replay.count}; records that keep failing come back to
+ * the DLQ and are skipped once they reach {@code --max-replays}. Offsets are
+ * committed once every replayed record of a batch is acknowledged; a batch with a
+ * failed send is read again, and the run stops if that keeps failing. Stops after
+ * {@code --idle-seconds} without new dead letters.
+ *
+ * Usage (all flags optional):
+ * <pre>
+ * DlqReplayer --dry-run --error-class=JsonParseException --source-topic=device-events-iot
+ * </pre>
+ */
+public class DlqReplayer {
+
+    // Consecutive batches the main topics rejected before giving up (the run can be restarted)
+    private static final int MAX_FAILED_BATCHES = 3;
+
+    public static void main(String[] args) {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        String bootstrap = options.getOrDefault("bootstrap-servers", KafkaConfig.BOOTSTRAP_SERVERS);
+        String groupId = options.getOrDefault("group-id", "hivemind-dlq-replayer");
+        int maxReplays = Integer.parseInt(options.getOrDefault("max-replays", "3"));
+        long idleSeconds = Long.parseLong(options.getOrDefault("idle-seconds", "10"));
+        boolean dryRun = options.containsKey("dry-run");
+        boolean force = options.containsKey("force");
+        String errorClass = options.get("error-class");
+        String sourceTopic = options.get("source-topic");
+
+        Properties consumerProps = new Properties();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        consumerProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // The Flink job writes the DLQ transactionally
+        consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+
+        Properties producerProps = new Properties();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        producerProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+
+        System.out.println("🔁 Replaying " + KafkaConfig.TOPIC_DEAD_LETTERS + (dryRun ? " (dry run)" : ""));
+        long replayed = 0;
+        long stillBroken = 0;
+        long exhausted = 0;
+        long filtered = 0;
+        int failedBatches = 0;
+        try (KafkaConsumer<byte[], byte[]> consumer = new KafkaConsumer<>(consumerProps);
+                KafkaProducer<byte[], byte[]> producer = new KafkaProducer<>(producerProps)) {
+            consumer.subscribe(List.of(KafkaConfig.TOPIC_DEAD_LETTERS));
+            long idleSince = System.currentTimeMillis();
+            while (System.currentTimeMillis() - idleSince < idleSeconds * 1000) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofSeconds(1));
+                if (records.isEmpty()) {
+                    continue;
+                }
+                idleSince = System.currentTimeMillis();
+                // Counted once the batch is committed: a failed batch is read again
+                long batchReplayed = 0;
+                long batchStillBroken = 0;
+                long batchExhausted = 0;
+                long batchFiltered = 0;
+                List<Future<RecordMetadata>> sends = new ArrayList<>(records.count());
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    String error = DeadLetters.header(record.headers(), DeadLetters.HEADER_ERROR_CLASS);
+                    String source = DeadLetters.header(record.headers(), DeadLetters.HEADER_SOURCE_TOPIC);
+                    if ((errorClass != null && (error == null || !error.endsWith(errorClass)))
+                            || (sourceTopic != null && !sourceTopic.equals(source))) {
+                        batchFiltered++;
+                        continue;
+                    }
+                    int replayCount = DeadLetters.replayCount(record.headers());
+                    if (replayCount >= maxReplays) {
+                        batchExhausted++;
+                        continue;
+                    }
+
+                    DeviceEvent event = null;
+                    try {
+                        event = DeviceEventSerde.deserialize(record.value());
+                    } catch (Exception e) {
+                        if (!force) {
+                            batchStillBroken++;
+                            continue;
+                        }
+                    }
+
+                    String target = targetTopic(source, event);
+                    if (!dryRun) {
+                        List<Header> headers = List.of(new RecordHeader(DeadLetters.HEADER_REPLAY_COUNT,
+                                String.valueOf(replayCount + 1).getBytes(StandardCharsets.UTF_8)));
+                        sends.add(producer.send(new ProducerRecord<>(target, null, record.key(), record.value(), headers)));
+                    }
+                    batchReplayed++;
+                }
+                if (!dryRun) {
+                    // Commit only what the main topics have acknowledged: flush() does not
+                    // report failed sends, their futures do
+                    producer.flush();
+                    Throwable failure = firstFailure(sends);
+                    if (failure != null) {
+                        if (++failedBatches >= MAX_FAILED_BATCHES) {
+                            System.err.println("❌ Replay failed " + failedBatches + " times in a row, stopping: " + failure);
+                            break;
+                        }
+                        System.err.println("⚠️ Replay failed, reading the batch again: " + failure);
+                        rewind(consumer, records);
+                        continue;
+                    }
+                    failedBatches = 0;
+                    consumer.commitSync();
+                }
+                replayed += batchReplayed;
+                stillBroken += batchStillBroken;
+                exhausted += batchExhausted;
+                filtered += batchFiltered;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        System.out.println("=".repeat(60));
+        System.out.printf("✅ replayed=%d  still broken=%d  max replays reached=%d  filtered out=%d%n",
+                replayed, stillBroken, exhausted, filtered);
+    }
+
+    private static Throwable firstFailure(List<Future<RecordMetadata>> sends) throws InterruptedException {
+        for (Future<RecordMetadata> send : sends) {
+            try {
+                send.get();
+            } catch (ExecutionException e) {
+                return e.getCause();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Back to the first record of the batch in each partition, which is the committed
+     * offset: every batch is committed or rewound.
+     */
+    private static void rewind(KafkaConsumer<byte[], byte[]> consumer, ConsumerRecords<byte[], byte[]> records) {
+        for (TopicPartition partition : records.partitions()) {
+            consumer.seek(partition, records.records(partition).get(0).offset());
+        }
+    }
+
+    /**
+     * Original topic for records read from Kafka, topic of the device type for those
+     * rejected by the HTTP collector.
+     */
+    private static String targetTopic(String source, DeviceEvent event) {
+        if (source != null && KafkaConfig.ALL_TOPICS.contains(source)) {
+            return source;
+        }
+        return KafkaConfig.getTopicForDeviceType(event != null ? event.getDeviceType() : null);
+    }
+}
@@ -0,0 +1,57 @@
+package caravane.dlq;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rejected-event counters per device and error type, for the collector.
+ *
+ * The number of tracked devices is capped: once {@code maxDevices} devices have been
+ * seen, new ones are counted under {@value #OTHER_DEVICE}, so a flood of garbage with
+ * random device ids cannot grow the map without bound.
+ */
+public class ErrorCounters {
+
+    public static final String UNKNOWN_DEVICE = "unknown";
+    public static final String OTHER_DEVICE = "other";
+
+    private final int maxDevices;
+    private final Map<String, Map<String, LongAdder>> byDevice = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    public ErrorCounters(int maxDevices) {
+        this.maxDevices = maxDevices;
+    }
+
+    public void increment(String deviceId, String errorType) {
+        String device = deviceId != null ? deviceId : UNKNOWN_DEVICE;
+        Map<String, LongAdder> counters = byDevice.get(device);
+        if (counters == null) {
+            if (byDevice.size() >= maxDevices) {
+                device = OTHER_DEVICE;
+            }
+            counters = byDevice.computeIfAbsent(device, d -> new ConcurrentHashMap<>());
+        }
+        counters.computeIfAbsent(errorType, t -> new LongAdder()).increment();
+        total.increment();
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    /**
+     * deviceId -> error type -> count, sorted for display.
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        byDevice.forEach((device, counters) -> {
+            Map<String, Long> copy = new TreeMap<>();
+            counters.forEach((type, count) -> copy.put(type, count.sum()));
+            snapshot.put(device, copy);
+        });
+        return snapshot;
+    }
+}
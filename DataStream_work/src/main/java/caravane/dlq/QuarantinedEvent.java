@@ -0,0 +1,32 @@
+package caravane.dlq;
+
+import caravane.model.DeadLetter;
+import caravane.model.DeviceEvent;
+
+/**
+ * Placeholder emitted by the Kafka source for a record that failed to deserialize.
+ *
+ * Keeping failures in the source's DeviceEvent stream (instead of dropping them in
+ * the deserializer) lets {@link caravane.processor.DeadLetterSplitter} route them to
+ * the DLQ while watermarks stay generated per Kafka partition. It has no timestamp,
+ * so it takes the Kafka record time, which feeds the partition's bounded
+ * out-of-orderness watermark like any other event: it can move the watermark up to
+ * its record time minus the bound.
+ */
+public class QuarantinedEvent extends DeviceEvent {
+    private DeadLetter deadLetter;
+
+    public QuarantinedEvent() {
+        setTimestamp(null);
+    }
+
+    public QuarantinedEvent(DeadLetter deadLetter) {
+        this();
+        this.deadLetter = deadLetter;
+        setDeviceId(deadLetter.getDeviceId());
+    }
+
+    // Getters and Setters
+    public DeadLetter getDeadLetter() { return deadLetter; }
+    public void setDeadLetter(DeadLetter deadLetter) { this.deadLetter = deadLetter; }
+}
@@ -0,0 +1,58 @@
+package caravane.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Streaming anomaly, same shape as the backend's {@code anomaly_alerts} table
+ * (com.security.backend.model.AnomalyAlert) so it can be stored as-is.
+ */
+public class AnomalyAlert {
+    private String alertId;
+    private String deviceId;
+    private String description;
+    private double detectedValue;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+
+    public AnomalyAlert() {
+    }
+
+    public AnomalyAlert(String alertId, String deviceId, String description, double detectedValue,
+            LocalDateTime timestamp) {
+        this.alertId = alertId;
+        this.deviceId = deviceId;
+        this.description = description;
+        this.detectedValue = detectedValue;
+        this.timestamp = timestamp;
+    }
+
+    // Getters and Setters
+    public String getAlertId() { return alertId; }
+    public void setAlertId(String alertId) { this.alertId = alertId; }
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public double getDetectedValue() { return detectedValue; }
+    public void setDetectedValue(double detectedValue) { this.detectedValue = detectedValue; }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+
+    @Override
+    public String toString() {
+        return "AnomalyAlert{" +
+                "alertId='" + alertId + '\'' +
+                ", deviceId='" + deviceId + '\'' +
+                ", description='" + description + '\'' +
+                ", detectedValue=" + detectedValue +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,82 @@
+package caravane.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * One asset of the inventory changelog topic ({@code asset-inventory}), keyed by
+ * deviceId. Fields follow the backend's {@code laptops} registry
+ * (com.security.backend.model.Laptop), plus the criticality used to rank events.
+ * A record with a null value (tombstone) removes the asset; it is read as a record
+ * with {@code deleted} set.
+ */
+public class AssetRecord {
+    private String deviceId;
+    private String ipAddress;
+    private String macAddress;
+    private String owner;
+    private String osVersion;
+    private String status; // ONLINE, OFFLINE, COMPROMISED
+    private String criticality; // LOW, MEDIUM, HIGH, CRITICAL
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+
+    @JsonIgnore
+    private boolean deleted;
+
+    public AssetRecord() {
+    }
+
+    public static AssetRecord tombstone(String deviceId) {
+        AssetRecord record = new AssetRecord();
+        record.setDeviceId(deviceId);
+        record.setDeleted(true);
+        return record;
+    }
+
+    // Getters and Setters
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+
+    public String getIpAddress() { return ipAddress; }
+    public void setIpAddress(String ipAddress) { this.ipAddress = ipAddress; }
+
+    public String getMacAddress() { return macAddress; }
+    public void setMacAddress(String macAddress) { this.macAddress = macAddress; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public String getOsVersion() { return osVersion; }
+    public void setOsVersion(String osVersion) { this.osVersion = osVersion; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getCriticality() { return criticality; }
+    public void setCriticality(String criticality) { this.criticality = criticality; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+
+    /**
+     * Same asset content, ignoring {@code updatedAt}: used to publish only real changes.
+     */
+    public boolean sameContent(AssetRecord other) {
+        return other != null
+                && Objects.equals(deviceId, other.deviceId)
+                && Objects.equals(ipAddress, other.ipAddress)
+                && Objects.equals(macAddress, other.macAddress)
+                && Objects.equals(owner, other.owner)
+                && Objects.equals(osVersion, other.osVersion)
+                && Objects.equals(status, other.status)
+                && Objects.equals(criticality, other.criticality);
+    }
+}
@@ -0,0 +1,58 @@
+package caravane.model;
+
+/**
+ * A record that could not be turned into a {@link DeviceEvent}: the raw key/value
+ * bytes as they were read, where they came from and why they failed. Written to the
+ * dead-letter topic with the raw value as payload and the rest as record headers
+ * (see caravane.dlq.DeadLetters).
+ */
+public class DeadLetter {
+    private String sourceTopic;
+    private int sourcePartition = -1;
+    private long sourceOffset = -1;
+    private long sourceTimestamp;
+    private byte[] key;
+    private byte[] value;
+    private String errorClass;
+    private String errorMessage;
+    private long failedAt;
+    private String deviceId;
+    private int replayCount;
+
+    public DeadLetter() {
+    }
+
+    // Getters and Setters
+    public String getSourceTopic() { return sourceTopic; }
+    public void setSourceTopic(String sourceTopic) { this.sourceTopic = sourceTopic; }
+
+    public int getSourcePartition() { return sourcePartition; }
+    public void setSourcePartition(int sourcePartition) { this.sourcePartition = sourcePartition; }
+
+    public long getSourceOffset() { return sourceOffset; }
+    public void setSourceOffset(long sourceOffset) { this.sourceOffset = sourceOffset; }
+
+    public long getSourceTimestamp() { return sourceTimestamp; }
+    public void setSourceTimestamp(long sourceTimestamp) { this.sourceTimestamp = sourceTimestamp; }
+
+    public byte[] getKey() { return key; }
+    public void setKey(byte[] key) { this.key = key; }
+
+    public byte[] getValue() { return value; }
+    public void setValue(byte[] value) { this.value = value; }
+
+    public String getErrorClass() { return errorClass; }
+    public void setErrorClass(String errorClass) { this.errorClass = errorClass; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public long getFailedAt() { return failedAt; }
+    public void setFailedAt(long failedAt) { this.failedAt = failedAt; }
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+
+    public int getReplayCount() { return replayCount; }
+    public void setReplayCount(int replayCount) { this.replayCount = replayCount; }
+}
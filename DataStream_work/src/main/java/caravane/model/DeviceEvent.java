@@ -1,6 +1,7 @@
 package caravane.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
@@ -28,6 +29,15 @@ public abstract class DeviceEvent {
     private String username;
     private String authenticationStatus; // SUCCESS, FAILURE, NONE
 
+    // Filled by the Flink asset enrichment stage (asset inventory), absent on raw events
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String owner;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String criticality; // LOW, MEDIUM, HIGH, CRITICAL
+    // Network zone of sourceIp (zones.conf), filled by the Flink job
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String sourceZone;
+
     public DeviceEvent() {
         this.eventId = UUID.randomUUID().toString();
         this.timestamp = LocalDateTime.now();
@@ -105,4 +115,28 @@ public abstract class DeviceEvent {
     public void setAuthenticationStatus(String authenticationStatus) {
         this.authenticationStatus = authenticationStatus;
     }
-}
\ No newline at end of file
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getCriticality() {
+        return criticality;
+    }
+
+    public void setCriticality(String criticality) {
+        this.criticality = criticality;
+    }
+
+    public String getSourceZone() {
+        return sourceZone;
+    }
+
+    public void setSourceZone(String sourceZone) {
+        this.sourceZone = sourceZone;
+    }
+}
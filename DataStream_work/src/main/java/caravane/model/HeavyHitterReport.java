@@ -0,0 +1,85 @@
+package caravane.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Top talkers of one traffic dimension ({@code SOURCE_IP}, {@code DESTINATION_IP},
+ * {@code DEVICE_ID}) for one window, published to {@code network-heavy-hitters}.
+ */
+public class HeavyHitterReport {
+
+    /**
+     * One top talker. Volumes are Count-Min estimates (never below the real value).
+     */
+    public static class Talker {
+        private String key;
+        private long bytes;
+        private long events;
+        private double share;
+        private Double previousShare;
+        private boolean surge;
+
+        public Talker() {
+        }
+
+        public String getKey() { return key; }
+        public void setKey(String key) { this.key = key; }
+
+        public long getBytes() { return bytes; }
+        public void setBytes(long bytes) { this.bytes = bytes; }
+
+        public long getEvents() { return events; }
+        public void setEvents(long events) { this.events = events; }
+
+        public double getShare() { return share; }
+        public void setShare(double share) { this.share = share; }
+
+        public Double getPreviousShare() { return previousShare; }
+        public void setPreviousShare(Double previousShare) { this.previousShare = previousShare; }
+
+        public boolean isSurge() { return surge; }
+        public void setSurge(boolean surge) { this.surge = surge; }
+    }
+
+    private String dimension;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime windowStart;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime windowEnd;
+
+    private long totalBytes;
+    private long totalEvents;
+    private boolean surge;
+    private List<Talker> talkers = new ArrayList<>();
+
+    public HeavyHitterReport() {
+    }
+
+    // Getters and Setters
+    public String getDimension() { return dimension; }
+    public void setDimension(String dimension) { this.dimension = dimension; }
+
+    public LocalDateTime getWindowStart() { return windowStart; }
+    public void setWindowStart(LocalDateTime windowStart) { this.windowStart = windowStart; }
+
+    public LocalDateTime getWindowEnd() { return windowEnd; }
+    public void setWindowEnd(LocalDateTime windowEnd) { this.windowEnd = windowEnd; }
+
+    public long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
+
+    public long getTotalEvents() { return totalEvents; }
+    public void setTotalEvents(long totalEvents) { this.totalEvents = totalEvents; }
+
+    public boolean isSurge() { return surge; }
+    public void setSurge(boolean surge) { this.surge = surge; }
+
+    public List<Talker> getTalkers() { return talkers; }
+    public void setTalkers(List<Talker> talkers) { this.talkers = talkers; }
+}
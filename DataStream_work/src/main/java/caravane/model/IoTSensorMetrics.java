@@ -0,0 +1,74 @@
+package caravane.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Windowed aggregate of IoT sensor readings, published to
+ * {@code device-metrics-iot-1m}. {@code groupBy} is {@code DEVICE} (keyed by
+ * deviceId + sensorType) or {@code LOCATION} (keyed by location + sensorType).
+ */
+public class IoTSensorMetrics {
+    private String groupBy;
+    private String window;
+    private String deviceId;
+    private String location;
+    private String sensorType;
+    private String unit;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime windowStart;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime windowEnd;
+
+    private long count;
+    private double min;
+    private double max;
+    private double avg;
+    private double stddev;
+
+    public IoTSensorMetrics() {
+    }
+
+    // Getters and Setters
+    public String getGroupBy() { return groupBy; }
+    public void setGroupBy(String groupBy) { this.groupBy = groupBy; }
+
+    public String getWindow() { return window; }
+    public void setWindow(String window) { this.window = window; }
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public String getSensorType() { return sensorType; }
+    public void setSensorType(String sensorType) { this.sensorType = sensorType; }
+
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+
+    public LocalDateTime getWindowStart() { return windowStart; }
+    public void setWindowStart(LocalDateTime windowStart) { this.windowStart = windowStart; }
+
+    public LocalDateTime getWindowEnd() { return windowEnd; }
+    public void setWindowEnd(LocalDateTime windowEnd) { this.windowEnd = windowEnd; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public double getMin() { return min; }
+    public void setMin(double min) { this.min = min; }
+
+    public double getMax() { return max; }
+    public void setMax(double max) { this.max = max; }
+
+    public double getAvg() { return avg; }
+    public void setAvg(double avg) { this.avg = avg; }
+
+    public double getStddev() { return stddev; }
+    public void setStddev(double stddev) { this.stddev = stddev; }
+}
@@ -0,0 +1,101 @@
+package caravane.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One reconstructed user session on a device (username + deviceId, closed after an
+ * inactivity gap), published to {@code user-sessions}. {@code start}/{@code end} are
+ * the first and last event times (UTC). Process, file and IP lists are capped;
+ * {@code truncated} counts the values left out.
+ */
+public class SessionSummary {
+    private String sessionId;
+    private String username;
+    private String deviceId;
+    private String deviceType;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String owner;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String criticality;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime start;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime end;
+
+    private long durationSeconds;
+    private long eventCount;
+    private Map<String, Long> eventCounts;
+    private long failedAuthCount;
+    private long successfulAuthCount;
+    private String maxSeverity;
+    private List<String> processes;
+    private List<String> files;
+    private List<String> sourceIps;
+    private long truncated;
+
+    public SessionSummary() {
+    }
+
+    // Getters and Setters
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+
+    public String getDeviceType() { return deviceType; }
+    public void setDeviceType(String deviceType) { this.deviceType = deviceType; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public String getCriticality() { return criticality; }
+    public void setCriticality(String criticality) { this.criticality = criticality; }
+
+    public LocalDateTime getStart() { return start; }
+    public void setStart(LocalDateTime start) { this.start = start; }
+
+    public LocalDateTime getEnd() { return end; }
+    public void setEnd(LocalDateTime end) { this.end = end; }
+
+    public long getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(long durationSeconds) { this.durationSeconds = durationSeconds; }
+
+    public long getEventCount() { return eventCount; }
+    public void setEventCount(long eventCount) { this.eventCount = eventCount; }
+
+    public Map<String, Long> getEventCounts() { return eventCounts; }
+    public void setEventCounts(Map<String, Long> eventCounts) { this.eventCounts = eventCounts; }
+
+    public long getFailedAuthCount() { return failedAuthCount; }
+    public void setFailedAuthCount(long failedAuthCount) { this.failedAuthCount = failedAuthCount; }
+
+    public long getSuccessfulAuthCount() { return successfulAuthCount; }
+    public void setSuccessfulAuthCount(long successfulAuthCount) { this.successfulAuthCount = successfulAuthCount; }
+
+    public String getMaxSeverity() { return maxSeverity; }
+    public void setMaxSeverity(String maxSeverity) { this.maxSeverity = maxSeverity; }
+
+    public List<String> getProcesses() { return processes; }
+    public void setProcesses(List<String> processes) { this.processes = processes; }
+
+    public List<String> getFiles() { return files; }
+    public void setFiles(List<String> files) { this.files = files; }
+
+    public List<String> getSourceIps() { return sourceIps; }
+    public void setSourceIps(List<String> sourceIps) { this.sourceIps = sourceIps; }
+
+    public long getTruncated() { return truncated; }
+    public void setTruncated(long truncated) { this.truncated = truncated; }
+}
@@ -0,0 +1,440 @@
+package caravane.net;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable longest-prefix-match table from CIDR blocks (IPv4 and IPv6) to zone
+ * names, compiled into a multibit trie over primitive arrays.
+ *
+ * Every node has 256 slots (stride 8: one address byte per level), stored at
+ * {@code node * 256 + byte} in two flat int arrays: {@code child} (next node, 0 for
+ * none) and {@code value} (zone index + 1 of the longest prefix ending in this slot,
+ * 0 for none). Prefixes that do not end on a byte boundary are expanded over the
+ * slots they cover, shorter prefixes first so longer ones overwrite them. A lookup is
+ * at most 4 (IPv4) or 16 (IPv6) array reads, keeping the last value seen on the way
+ * down, and allocates nothing, including the textual lookups which parse in place.
+ *
+ * IPv4-mapped IPv6 addresses ({@code ::ffff:a.b.c.d}) are looked up in the IPv4 table.
+ * Tables are rebuilt, not updated: see {@link ZoneClassifier} for runtime reloads.
+ */
+public final class CidrTrie {
+
+    private static final int FANOUT = 256;
+    private static final int V4_ROOT = 0;
+    private static final int V6_ROOT = 1;
+
+    private final String[] zones;
+    private final int[] child;
+    private final int[] value;
+    private final int v4Default;
+    private final int v6Default;
+    private final int prefixes;
+
+    private CidrTrie(String[] zones, int[] child, int[] value, int v4Default, int v6Default, int prefixes) {
+        this.zones = zones;
+        this.child = child;
+        this.value = value;
+        this.v4Default = v4Default;
+        this.v6Default = v6Default;
+        this.prefixes = prefixes;
+    }
+
+    // ==================== Lookups ====================
+
+    /**
+     * Zone index of an IPv4 address (as a big-endian int), or -1 if no prefix matches.
+     */
+    public int lookupV4(int address) {
+        int best = v4Default;
+        int node = V4_ROOT;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            int slot = (node << 8) | ((address >>> shift) & 0xFF);
+            int v = value[slot];
+            if (v != 0) {
+                best = v;
+            }
+            node = child[slot];
+            if (node == 0) {
+                break;
+            }
+        }
+        return best - 1;
+    }
+
+    /**
+     * Zone index of an IPv6 address given as its high and low 64 bits, or -1.
+     */
+    public int lookupV6(long hi, long lo) {
+        if (hi == 0 && (lo >>> 32) == 0xFFFFL) {
+            return lookupV4((int) lo);
+        }
+        int best = v6Default;
+        int node = V6_ROOT;
+        for (int i = 0; i < 16; i++) {
+            long half = i < 8 ? hi : lo;
+            int slot = (node << 8) | (int) ((half >>> (56 - 8 * (i & 7))) & 0xFF);
+            int v = value[slot];
+            if (v != 0) {
+                best = v;
+            }
+            node = child[slot];
+            if (node == 0) {
+                break;
+            }
+        }
+        return best - 1;
+    }
+
+    /**
+     * Zone index of a textual IPv4 or IPv6 address, or -1 if it does not parse or no
+     * prefix matches.
+     */
+    public int lookup(CharSequence ip) {
+        if (ip == null) {
+            return -1;
+        }
+        int length = ip.length();
+        // Dotted quad first: it fails fast on the first ':' or hex letter of an IPv6
+        long v4 = parseV4(ip, 0, length);
+        if (v4 >= 0) {
+            return lookupV4((int) v4);
+        }
+        // No pre-scan for ':': the IPv6 parser rejects anything else in the same pass
+        return lookupV6Text(ip, length);
+    }
+
+    public String zoneOf(CharSequence ip) {
+        int index = lookup(ip);
+        return index < 0 ? null : zones[index];
+    }
+
+    public String zone(int index) {
+        return index < 0 ? null : zones[index];
+    }
+
+    public int prefixCount() {
+        return prefixes;
+    }
+
+    public int nodeCount() {
+        return child.length / FANOUT;
+    }
+
+    public long sizeInBytes() {
+        return 8L * child.length;
+    }
+
+    private int lookupV6Text(CharSequence s, int end) {
+        long headHi = 0;
+        long headLo = 0;
+        long tailHi = 0;
+        long tailLo = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = 0;
+        // Where the groups after "::" start, -1 before it
+        int afterGap = -1;
+        if (end >= 2 && s.charAt(0) == ':' && s.charAt(1) == ':') {
+            compressed = true;
+            i = 2;
+            afterGap = 2;
+        }
+        while (i < end) {
+            if (i == afterGap && s.charAt(i) == '%') {
+                // Scoped address ending in "::" (fe80::%eth0)
+                break;
+            }
+            int j = i;
+            int group = 0;
+            while (j < end) {
+                int h = hexDigit(s.charAt(j));
+                if (h < 0) {
+                    break;
+                }
+                group = (group << 4) | h;
+                j++;
+            }
+            boolean embeddedV4 = j < end && s.charAt(j) == '.';
+            long v4 = 0;
+            if (embeddedV4) {
+                int v4End = j;
+                while (v4End < end && s.charAt(v4End) != '%') {
+                    v4End++;
+                }
+                v4 = parseV4(s, i, v4End);
+                if (v4 < 0) {
+                    return -1;
+                }
+            } else if (j == i || j - i > 4) {
+                return -1;
+            }
+
+            int groups = embeddedV4 ? 2 : 1;
+            for (int k = 0; k < groups; k++) {
+                long g = embeddedV4 ? (k == 0 ? v4 >>> 16 : v4 & 0xFFFF) : group;
+                if (compressed) {
+                    tailHi = (tailHi << 16) | (tailLo >>> 48);
+                    tailLo = (tailLo << 16) | g;
+                    tailGroups++;
+                } else {
+                    headHi = (headHi << 16) | (headLo >>> 48);
+                    headLo = (headLo << 16) | g;
+                    headGroups++;
+                }
+            }
+            if (headGroups + tailGroups > 8) {
+                return -1;
+            }
+            if (embeddedV4 || j == end) {
+                break;
+            }
+            char separator = s.charAt(j);
+            if (separator == '%') {
+                // Scoped address (fe80::1%eth0): the zone id is not part of the address
+                break;
+            }
+            if (separator != ':') {
+                return -1;
+            }
+            if (j + 1 < end && s.charAt(j + 1) == ':') {
+                if (compressed) {
+                    return -1;
+                }
+                compressed = true;
+                i = j + 2;
+                afterGap = i;
+            } else {
+                i = j + 1;
+                if (i == end) {
+                    return -1;
+                }
+            }
+        }
+        if (compressed ? headGroups + tailGroups > 7 : headGroups != 8) {
+            return -1;
+        }
+
+        // Head groups go to the top of the address, tail groups to the bottom
+        int shift = 16 * (8 - headGroups);
+        long hi;
+        long lo;
+        if (shift == 0) {
+            hi = headHi;
+            lo = headLo;
+        } else if (shift < 64) {
+            hi = (headHi << shift) | (headLo >>> (64 - shift));
+            lo = headLo << shift;
+        } else if (shift < 128) {
+            hi = headLo << (shift - 64);
+            lo = 0;
+        } else {
+            hi = 0;
+            lo = 0;
+        }
+        return lookupV6(hi | tailHi, lo | tailLo);
+    }
+
+    // Value of a hex digit by char, -1 otherwise: a table read instead of range tests,
+    // whose branches mispredict on random digits and letters
+    private static final byte[] HEX = new byte[128];
+
+    static {
+        Arrays.fill(HEX, (byte) -1);
+        for (int c = '0'; c <= '9'; c++) {
+            HEX[c] = (byte) (c - '0');
+        }
+        for (int c = 'a'; c <= 'f'; c++) {
+            HEX[c] = (byte) (c - 'a' + 10);
+            HEX[c - 'a' + 'A'] = (byte) (c - 'a' + 10);
+        }
+    }
+
+    private static int hexDigit(char c) {
+        return c < 128 ? HEX[c] : -1;
+    }
+
+    /**
+     * Dotted-quad IPv4 in {@code [from, to)} as an unsigned int value, or -1.
+     */
+    static long parseV4(CharSequence s, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int i = from;
+        while (i < to) {
+            int octet = 0;
+            int digits = 0;
+            while (i < to) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                octet = octet * 10 + (c - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0 || digits > 3 || octet > 255) {
+                return -1;
+            }
+            address = (address << 8) | octet;
+            octets++;
+            if (i == to) {
+                break;
+            }
+            if (s.charAt(i) != '.' || octets == 4 || i + 1 == to) {
+                return -1;
+            }
+            i++;
+        }
+        return octets == 4 ? address : -1;
+    }
+
+    // ==================== Construction ====================
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Table from text lines {@code <cidr> <zone>}; {@code #} starts a comment, a bare
+     * address is a /32 (or /128). Equal prefixes: the last line wins.
+     */
+    public static CidrTrie parse(BufferedReader reader) throws IOException {
+        Builder builder = builder();
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            int comment = line.indexOf('#');
+            String entry = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Line " + number + ": expected '<cidr> <zone>': " + line);
+            }
+            try {
+                builder.add(parts[0], parts[1]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + number + ": " + e.getMessage(), e);
+            }
+        }
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private final List<byte[]> addresses = new ArrayList<>();
+        private final List<Integer> lengths = new ArrayList<>();
+        private final List<Integer> zoneIndexes = new ArrayList<>();
+        private final List<String> zones = new ArrayList<>();
+        private final Map<String, Integer> zoneIndex = new HashMap<>();
+
+        private int[] child = new int[2 * FANOUT];
+        private int[] value = new int[2 * FANOUT];
+        private int nodes = 2;
+
+        private Builder() {
+        }
+
+        public Builder add(String cidr, String zone) {
+            int slash = cidr.indexOf('/');
+            String address = slash < 0 ? cidr : cidr.substring(0, slash);
+            byte[] bytes = toBytes(address);
+            int length = slash < 0 ? bytes.length * 8 : Integer.parseInt(cidr.substring(slash + 1));
+            if (bytes.length == 4 && address.indexOf(':') >= 0 && slash >= 0) {
+                // ::ffff:a.b.c.d/n is returned as IPv4 and stored in the IPv4 table
+                length -= 96;
+            }
+            if (length < 0 || length > bytes.length * 8) {
+                throw new IllegalArgumentException("Bad prefix length: " + cidr);
+            }
+            addresses.add(bytes);
+            lengths.add(length);
+            zoneIndexes.add(zoneIndex.computeIfAbsent(zone, z -> {
+                zones.add(z);
+                return zones.size() - 1;
+            }));
+            return this;
+        }
+
+        public CidrTrie build() {
+            Integer[] order = new Integer[addresses.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            // Shorter prefixes first: longer ones overwrite the slots they share
+            Arrays.sort(order, (a, b) -> Integer.compare(lengths.get(a), lengths.get(b)));
+
+            int v4Default = 0;
+            int v6Default = 0;
+            for (int i : order) {
+                byte[] address = addresses.get(i);
+                int length = lengths.get(i);
+                int zone = zoneIndexes.get(i) + 1;
+                if (length == 0) {
+                    if (address.length == 4) {
+                        v4Default = zone;
+                    } else {
+                        v6Default = zone;
+                    }
+                    continue;
+                }
+                insert(address.length == 4 ? V4_ROOT : V6_ROOT, address, length, zone);
+            }
+            return new CidrTrie(zones.toArray(new String[0]), Arrays.copyOf(child, nodes * FANOUT),
+                    Arrays.copyOf(value, nodes * FANOUT), v4Default, v6Default, addresses.size());
+        }
+
+        private void insert(int root, byte[] address, int length, int zone) {
+            int depth = (length - 1) / 8;
+            int node = root;
+            for (int d = 0; d < depth; d++) {
+                int slot = node * FANOUT + (address[d] & 0xFF);
+                if (child[slot] == 0) {
+                    // newNode() may reallocate child: read the array after the call
+                    int created = newNode();
+                    child[slot] = created;
+                }
+                node = child[slot];
+            }
+            int bits = length - 8 * depth;
+            int base = (address[depth] & 0xFF) & (0xFF << (8 - bits)) & 0xFF;
+            int count = 1 << (8 - bits);
+            Arrays.fill(value, node * FANOUT + base, node * FANOUT + base + count, zone);
+        }
+
+        private int newNode() {
+            if ((nodes + 1) * FANOUT > child.length) {
+                child = Arrays.copyOf(child, child.length * 2);
+                value = Arrays.copyOf(value, value.length * 2);
+            }
+            return nodes++;
+        }
+
+        private static byte[] toBytes(String address) {
+            if (address.indexOf(':') < 0) {
+                long v4 = parseV4(address, 0, address.length());
+                if (v4 < 0) {
+                    throw new IllegalArgumentException("Bad IPv4 address: " + address);
+                }
+                return new byte[] {(byte) (v4 >>> 24), (byte) (v4 >>> 16), (byte) (v4 >>> 8), (byte) v4};
+            }
+            try {
+                // Literal with ':' only, no name resolution happens
+                return InetAddress.getByName(address).getAddress();
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Bad IPv6 address: " + address, e);
+            }
+        }
+    }
+}
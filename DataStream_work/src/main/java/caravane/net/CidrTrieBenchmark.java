@@ -0,0 +1,115 @@
+package caravane.net;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ns/lookup of {@link CidrTrie} on the bundled zone table plus random prefixes, for
+ * binary and textual IPv4 and IPv6 addresses.
+ *
+ * Usage: {@code CidrTrieBenchmark [extra-prefixes] [lookups] [rounds]}
+ */
+public class CidrTrieBenchmark {
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        int extra = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        CidrTrie.Builder builder = CidrTrie.builder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                CidrTrieBenchmark.class.getClassLoader().getResourceAsStream(ZoneClassifier.DEFAULT_RESOURCE),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String entry = line.replaceAll("#.*", "").trim();
+                if (!entry.isEmpty()) {
+                    String[] parts = entry.split("\\s+");
+                    builder.add(parts[0], parts[1]);
+                }
+            }
+        }
+        for (int i = 0; i < extra; i++) {
+            int address = random.nextInt();
+            builder.add(v4(address) + "/" + (8 + random.nextInt(25)), "ZONE_" + (i % 64));
+            builder.add(String.format("2001:db8:%x:%x::/%d", random.nextInt(0x10000), random.nextInt(0x10000),
+                    32 + random.nextInt(33)), "ZONE6_" + (i % 64));
+        }
+        long t0 = System.nanoTime();
+        CidrTrie trie = builder.build();
+        long buildMs = (System.nanoTime() - t0) / 1_000_000;
+
+        int[] v4 = new int[lookups];
+        long[] v6hi = new long[lookups];
+        long[] v6lo = new long[lookups];
+        String[] v4Text = new String[lookups];
+        String[] v6Text = new String[lookups];
+        for (int i = 0; i < lookups; i++) {
+            v4[i] = random.nextInt();
+            v4Text[i] = v4(v4[i]);
+            v6hi[i] = 0x20010db800000000L | (random.nextLong() & 0xFFFFFFFFL);
+            v6lo[i] = random.nextLong();
+            v6Text[i] = String.format("%x:%x:%x:%x::%x", v6hi[i] >>> 48, (v6hi[i] >>> 32) & 0xFFFF,
+                    (v6hi[i] >>> 16) & 0xFFFF, v6hi[i] & 0xFFFF, v6lo[i] & 0xFFFF);
+        }
+
+        System.out.println("=".repeat(60));
+        System.out.printf("🌐 %,d prefixes -> %,d nodes, %,d KiB, built in %d ms%n",
+                trie.prefixCount(), trie.nodeCount(), trie.sizeInBytes() / 1024, buildMs);
+        long bestV4 = Long.MAX_VALUE;
+        long bestV6 = Long.MAX_VALUE;
+        long bestV4Text = Long.MAX_VALUE;
+        long bestV6Text = Long.MAX_VALUE;
+        // Round 0 is warm-up
+        for (int round = 0; round <= rounds; round++) {
+            long v4Ns = timeV4(trie, v4);
+            long v6Ns = timeV6(trie, v6hi, v6lo);
+            long v4TextNs = timeText(trie, v4Text);
+            long v6TextNs = timeText(trie, v6Text);
+            if (round > 0) {
+                bestV4 = Math.min(bestV4, v4Ns);
+                bestV6 = Math.min(bestV6, v6Ns);
+                bestV4Text = Math.min(bestV4Text, v4TextNs);
+                bestV6Text = Math.min(bestV6Text, v6TextNs);
+            }
+        }
+        System.out.printf("IPv4 int    %6.1f ns/lookup%n", bestV4 / (double) lookups);
+        System.out.printf("IPv6 longs  %6.1f ns/lookup%n", bestV6 / (double) lookups);
+        System.out.printf("IPv4 text   %6.1f ns/lookup%n", bestV4Text / (double) lookups);
+        System.out.printf("IPv6 text   %6.1f ns/lookup%n", bestV6Text / (double) lookups);
+        System.out.println("(sink=" + sink + ")");
+    }
+
+    private static long timeV4(CidrTrie trie, int[] addresses) {
+        long start = System.nanoTime();
+        for (int address : addresses) {
+            sink += trie.lookupV4(address);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long timeV6(CidrTrie trie, long[] hi, long[] lo) {
+        long start = System.nanoTime();
+        for (int i = 0; i < hi.length; i++) {
+            sink += trie.lookupV6(hi[i], lo[i]);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long timeText(CidrTrie trie, String[] addresses) {
+        long start = System.nanoTime();
+        for (String address : addresses) {
+            sink += trie.lookup(address);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String v4(int address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+}
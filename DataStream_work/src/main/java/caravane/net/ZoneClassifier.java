@@ -0,0 +1,111 @@
+package caravane.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network zone of an IP address (workstation VLAN, IoT, DMZ, external...), from a
+ * CIDR table file or the {@value #DEFAULT_RESOURCE} resource bundled in the jar.
+ *
+ * Reloading builds a new {@link CidrTrie} on the side and swaps a volatile reference:
+ * lookups never wait, and keep the previous table if the new file does not parse.
+ */
+public class ZoneClassifier implements AutoCloseable {
+
+    public static final String DEFAULT_RESOURCE = "zones.conf";
+
+    private static final Logger logger = LoggerFactory.getLogger(ZoneClassifier.class);
+
+    private final Path file;
+    private volatile CidrTrie table;
+    private long loadedModified;
+    private ScheduledExecutorService reloader;
+
+    /**
+     * @param file CIDR table, or null for the bundled default table
+     */
+    public ZoneClassifier(Path file) throws IOException {
+        this.file = file;
+        this.table = load();
+    }
+
+    public String zoneOf(CharSequence ip) {
+        return table.zoneOf(ip);
+    }
+
+    public CidrTrie table() {
+        return table;
+    }
+
+    /**
+     * Reloads the table file if it changed since the last load.
+     *
+     * @return true if a new table is in use
+     */
+    public synchronized boolean reloadIfChanged() {
+        if (file == null) {
+            return false;
+        }
+        try {
+            if (Files.getLastModifiedTime(file).toMillis() == loadedModified) {
+                return false;
+            }
+            CidrTrie reloaded = load();
+            table = reloaded;
+            logger.info("Zone table reloaded from {}: {} prefixes", file, reloaded.prefixCount());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Keeping the current zone table, {} failed to load: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    public synchronized void startAutoReload(long intervalSeconds) {
+        if (file == null || reloader != null || intervalSeconds <= 0) {
+            return;
+        }
+        reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "zone-table-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloader.scheduleWithFixedDelay(this::reloadIfChanged, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+    }
+
+    private CidrTrie load() throws IOException {
+        if (file == null) {
+            InputStream in = ZoneClassifier.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE);
+            if (in == null) {
+                throw new IOException("Missing resource " + DEFAULT_RESOURCE);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                return CidrTrie.parse(reader);
+            }
+        }
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CidrTrie parsed = CidrTrie.parse(reader);
+            loadedModified = modified;
+            return parsed;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package caravane.processor;
+
+import caravane.model.AssetRecord;
+import caravane.model.DeviceEvent;
+import org.apache.flink.api.common.eventtime.Watermark;
+import org.apache.flink.api.common.eventtime.WatermarkGenerator;
+import org.apache.flink.api.common.eventtime.WatermarkOutput;
+import org.apache.flink.api.common.eventtime.WatermarkStrategy;
+import org.apache.flink.api.common.state.BroadcastState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ReadOnlyBroadcastState;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.functions.co.BroadcastProcessFunction;
+import org.apache.flink.util.Collector;
+
+import java.util.Objects;
+
+/**
+ * Adds owner and criticality from the asset inventory to every device event.
+ *
+ * The inventory changelog is broadcast to every parallel instance and kept in
+ * broadcast state (checkpointed), indexed both by deviceId and by IP address. Events
+ * are matched by deviceId first, then by sourceIp, with a local map lookup and no
+ * remote call. Upserts and tombstones apply incrementally; an asset whose IP changes
+ * loses its old IP entry.
+ *
+ * Events seen before their asset was loaded pass through without enrichment.
+ */
+public class AssetEnrichment extends BroadcastProcessFunction<DeviceEvent, AssetRecord, DeviceEvent> {
+
+    public static final MapStateDescriptor<String, AssetRecord> ASSETS = new MapStateDescriptor<>(
+            "asset-inventory", Types.STRING, TypeInformation.of(AssetRecord.class));
+
+    private static final String BY_ID = "id:";
+    private static final String BY_IP = "ip:";
+
+    public static DataStream<DeviceEvent> attach(DataStream<DeviceEvent> events, DataStream<AssetRecord> inventory) {
+        return events
+                .connect(inventory.broadcast(ASSETS))
+                .process(new AssetEnrichment())
+                .uid("asset-enrichment").name("asset-enrichment");
+    }
+
+    /**
+     * The inventory is a control stream without event time: it reports a final
+     * watermark so it never holds back the event-time windows fed by the enriched
+     * stream.
+     */
+    public static WatermarkStrategy<AssetRecord> inventoryWatermarks() {
+        return WatermarkStrategy.forGenerator(ctx -> new WatermarkGenerator<AssetRecord>() {
+            @Override
+            public void onEvent(AssetRecord asset, long eventTimestamp, WatermarkOutput output) {
+            }
+
+            @Override
+            public void onPeriodicEmit(WatermarkOutput output) {
+                output.emitWatermark(new Watermark(Long.MAX_VALUE));
+            }
+        });
+    }
+
+    @Override
+    public void processElement(DeviceEvent event, ReadOnlyContext ctx, Collector<DeviceEvent> out) throws Exception {
+        ReadOnlyBroadcastState<String, AssetRecord> assets = ctx.getBroadcastState(ASSETS);
+        AssetRecord asset = event.getDeviceId() != null ? assets.get(BY_ID + event.getDeviceId()) : null;
+        if (asset == null && event.getSourceIp() != null) {
+            asset = assets.get(BY_IP + event.getSourceIp());
+        }
+        if (asset != null) {
+            event.setOwner(asset.getOwner());
+            event.setCriticality(asset.getCriticality());
+        }
+        out.collect(event);
+    }
+
+    @Override
+    public void processBroadcastElement(AssetRecord update, Context ctx, Collector<DeviceEvent> out) throws Exception {
+        BroadcastState<String, AssetRecord> assets = ctx.getBroadcastState(ASSETS);
+        String idKey = BY_ID + update.getDeviceId();
+        AssetRecord previous = assets.get(idKey);
+
+        if (previous != null && previous.getIpAddress() != null
+                && (update.isDeleted() || !previous.getIpAddress().equals(update.getIpAddress()))) {
+            // Only drop the IP entry if another asset has not taken the address since
+            String ipKey = BY_IP + previous.getIpAddress();
+            AssetRecord owner = assets.get(ipKey);
+            if (owner != null && Objects.equals(owner.getDeviceId(), update.getDeviceId())) {
+                assets.remove(ipKey);
+            }
+        }
+        if (update.isDeleted()) {
+            assets.remove(idKey);
+            return;
+        }
+        assets.put(idKey, update);
+        if (update.getIpAddress() != null) {
+            assets.put(BY_IP + update.getIpAddress(), update);
+        }
+    }
+}
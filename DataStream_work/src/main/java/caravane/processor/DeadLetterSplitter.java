@@ -0,0 +1,54 @@
+package caravane.processor;
+
+import caravane.dlq.QuarantinedEvent;
+import caravane.model.DeadLetter;
+import caravane.model.DeviceEvent;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes {@link QuarantinedEvent}s (records the source could not decode) to
+ * {@link #DEAD_LETTERS} and counts them in the {@code deadLetters} metric group, per
+ * source topic (device family) and error class.
+ */
+public class DeadLetterSplitter extends ProcessFunction<DeviceEvent, DeviceEvent> {
+
+    public static final OutputTag<DeadLetter> DEAD_LETTERS = new OutputTag<DeadLetter>("dead-letters") {
+    };
+
+    private transient MetricGroup metrics;
+    private transient Counter total;
+    private transient Map<String, Counter> counters;
+
+    @Override
+    public void open(Configuration parameters) {
+        metrics = getRuntimeContext().getMetricGroup().addGroup("deadLetters");
+        total = metrics.counter("total");
+        counters = new HashMap<>();
+    }
+
+    @Override
+    public void processElement(DeviceEvent event, Context ctx, Collector<DeviceEvent> out) {
+        if (!(event instanceof QuarantinedEvent)) {
+            out.collect(event);
+            return;
+        }
+        DeadLetter letter = ((QuarantinedEvent) event).getDeadLetter();
+        total.inc();
+        counter(letter.getSourceTopic(), letter.getErrorClass()).inc();
+        ctx.output(DEAD_LETTERS, letter);
+    }
+
+    private Counter counter(String topic, String errorClass) {
+        String error = errorClass.substring(errorClass.lastIndexOf('.') + 1);
+        return counters.computeIfAbsent(topic + '|' + error,
+                k -> metrics.addGroup("topic", String.valueOf(topic)).addGroup("error", error).counter("count"));
+    }
+}
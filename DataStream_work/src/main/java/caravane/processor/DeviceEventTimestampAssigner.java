@@ -0,0 +1,45 @@
+package caravane.processor;
+
+import caravane.model.DeviceEvent;
+import org.apache.flink.api.common.eventtime.SerializableTimestampAssigner;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Event time of a {@link DeviceEvent}, in epoch millis.
+ *
+ * {@code DeviceEvent.timestamp} is a zone-less {@link LocalDateTime}; it is read in
+ * the zone the agents write it in ({@code UTC} unless configured otherwise). Events
+ * without a timestamp, or stamped further than {@code maxFutureSkewMs} ahead of their
+ * Kafka record time, fall back to the record time: one agent with a clock set in
+ * the future would otherwise drag the watermark ahead and make every other device
+ * late.
+ */
+public class DeviceEventTimestampAssigner implements SerializableTimestampAssigner<DeviceEvent> {
+
+    private final ZoneId zone;
+    private final long maxFutureSkewMs;
+
+    public DeviceEventTimestampAssigner(ZoneId zone, long maxFutureSkewMs) {
+        this.zone = zone;
+        this.maxFutureSkewMs = maxFutureSkewMs;
+    }
+
+    @Override
+    public long extractTimestamp(DeviceEvent event, long recordTimestamp) {
+        LocalDateTime timestamp = event.getTimestamp();
+        if (timestamp == null) {
+            return recordTimestamp;
+        }
+        long eventTime = toEpochMillis(timestamp, zone);
+        if (recordTimestamp > 0 && eventTime - recordTimestamp > maxFutureSkewMs) {
+            return recordTimestamp;
+        }
+        return eventTime;
+    }
+
+    public static long toEpochMillis(LocalDateTime timestamp, ZoneId zone) {
+        return timestamp.atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,284 @@
+package caravane.processor;
+
+import caravane.model.HeavyHitterReport;
+import caravane.model.NetworkDeviceEvent;
+import caravane.sketch.Hashing;
+import caravane.sketch.HeavyHitters;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.functions.FlatMapFunction;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heavy-hitter traffic detection on {@link NetworkDeviceEvent#getBytesTransferred()}.
+ *
+ * Every event is counted under three dimensions: sourceIp, destinationIp and
+ * deviceId. Keys are spread over {@code shards} partitions per dimension by hash, and
+ * each (dimension, shard) keeps one fixed-size {@link HeavyHitters} sketch per sliding
+ * window pane: no per-IP map, whatever the number of distinct addresses. Since a key
+ * always lands in the same shard, the per-shard top-K lists are disjoint and merging
+ * them gives the dimension's top-K.
+ *
+ * Each window emits a {@link HeavyHitterReport} per dimension. A talker is flagged as
+ * a surge when its share of the window volume is at least {@code minShare} and either
+ * grew {@code surgeFactor} times since the previous window or is new to the top-K.
+ */
+public final class HeavyHitterDetector {
+
+    public static final String SOURCE_IP = "SOURCE_IP";
+    public static final String DESTINATION_IP = "DESTINATION_IP";
+    public static final String DEVICE_ID = "DEVICE_ID";
+
+    private HeavyHitterDetector() {
+    }
+
+    /**
+     * One (dimension, key, volume) observation.
+     */
+    public static class TrafficSample {
+        public String dimension;
+        public int shard;
+        public String key;
+        public long bytes;
+
+        public TrafficSample() {
+        }
+    }
+
+    /**
+     * Top-K of one shard for one window.
+     */
+    public static class ShardTopK {
+        public String dimension;
+        public long windowStart;
+        public long windowEnd;
+        public String[] keys;
+        public long[] bytes;
+        public long[] events;
+        public long totalBytes;
+        public long totalEvents;
+
+        public ShardTopK() {
+        }
+    }
+
+    public static DataStream<HeavyHitterReport> attach(DataStream<NetworkDeviceEvent> traffic, Duration size,
+            Duration slide, int shards, int k, int depth, int width, double minShare, double surgeFactor) {
+        return traffic
+                .flatMap(new Explode(shards)).name("heavy-hitters-samples")
+                .keyBy(new ShardKey())
+                .window(SlidingEventTimeWindows.of(Time.milliseconds(size.toMillis()), Time.milliseconds(slide.toMillis())))
+                .aggregate(new TopK(k, depth, width), new ToShardTopK())
+                .uid("heavy-hitters-shards").name("heavy-hitters-shards")
+                .keyBy(new DimensionKey())
+                .process(new MergeShards(k, minShare, surgeFactor))
+                .uid("heavy-hitters-merge").name("heavy-hitters-merge");
+    }
+
+    static class Explode implements FlatMapFunction<NetworkDeviceEvent, TrafficSample> {
+        private final int shards;
+
+        Explode(int shards) {
+            this.shards = shards;
+        }
+
+        @Override
+        public void flatMap(NetworkDeviceEvent event, Collector<TrafficSample> out) {
+            long bytes = event.getBytesTransferred() != null ? event.getBytesTransferred() : 0L;
+            emit(SOURCE_IP, event.getSourceIp(), bytes, out);
+            emit(DESTINATION_IP, event.getDestinationIp(), bytes, out);
+            emit(DEVICE_ID, event.getDeviceId(), bytes, out);
+        }
+
+        private void emit(String dimension, String key, long bytes, Collector<TrafficSample> out) {
+            if (key == null) {
+                return;
+            }
+            TrafficSample sample = new TrafficSample();
+            sample.dimension = dimension;
+            sample.key = key;
+            sample.bytes = bytes;
+            sample.shard = (int) Math.floorMod(Hashing.hash64(key), (long) shards);
+            out.collect(sample);
+        }
+    }
+
+    static class ShardKey implements KeySelector<TrafficSample, Tuple2<String, Integer>> {
+        @Override
+        public Tuple2<String, Integer> getKey(TrafficSample sample) {
+            return Tuple2.of(sample.dimension, sample.shard);
+        }
+    }
+
+    static class DimensionKey implements KeySelector<ShardTopK, String> {
+        @Override
+        public String getKey(ShardTopK shard) {
+            return shard.dimension;
+        }
+    }
+
+    static class TopK implements AggregateFunction<TrafficSample, HeavyHitters, HeavyHitters> {
+        private final int k;
+        private final int depth;
+        private final int width;
+
+        TopK(int k, int depth, int width) {
+            this.k = k;
+            this.depth = depth;
+            this.width = width;
+        }
+
+        @Override
+        public HeavyHitters createAccumulator() {
+            return new HeavyHitters(k, depth, width);
+        }
+
+        @Override
+        public HeavyHitters add(TrafficSample sample, HeavyHitters sketch) {
+            sketch.add(sample.key, sample.bytes);
+            return sketch;
+        }
+
+        @Override
+        public HeavyHitters getResult(HeavyHitters sketch) {
+            return sketch;
+        }
+
+        @Override
+        public HeavyHitters merge(HeavyHitters a, HeavyHitters b) {
+            return a.merge(b);
+        }
+    }
+
+    /**
+     * Ships only the top-K (not the counters) downstream.
+     */
+    static class ToShardTopK
+            extends ProcessWindowFunction<HeavyHitters, ShardTopK, Tuple2<String, Integer>, TimeWindow> {
+        @Override
+        public void process(Tuple2<String, Integer> key, Context context, Iterable<HeavyHitters> sketches,
+                Collector<ShardTopK> out) {
+            HeavyHitters sketch = sketches.iterator().next();
+            ShardTopK top = new ShardTopK();
+            top.dimension = key.f0;
+            top.windowStart = context.window().getStart();
+            top.windowEnd = context.window().getEnd();
+            top.keys = Arrays.copyOf(sketch.keys, sketch.size);
+            top.bytes = Arrays.copyOf(sketch.keyBytes, sketch.size);
+            top.events = Arrays.copyOf(sketch.keyEvents, sketch.size);
+            top.totalBytes = sketch.totalBytes;
+            top.totalEvents = sketch.totalEvents;
+            out.collect(top);
+        }
+    }
+
+    /**
+     * Collects the shard results of a window until the watermark passes its end (all
+     * shards have fired by then), then ranks them and compares shares with the
+     * previous window.
+     */
+    static class MergeShards extends KeyedProcessFunction<String, ShardTopK, HeavyHitterReport> {
+        private final int k;
+        private final double minShare;
+        private final double surgeFactor;
+
+        private transient ListState<ShardTopK> pending;
+        private transient MapState<String, Double> previousShares;
+
+        MergeShards(int k, double minShare, double surgeFactor) {
+            this.k = k;
+            this.minShare = minShare;
+            this.surgeFactor = surgeFactor;
+        }
+
+        @Override
+        public void open(Configuration parameters) {
+            pending = getRuntimeContext().getListState(
+                    new ListStateDescriptor<>("heavy-hitters-pending", ShardTopK.class));
+            previousShares = getRuntimeContext().getMapState(
+                    new MapStateDescriptor<>("heavy-hitters-previous-shares", String.class, Double.class));
+        }
+
+        @Override
+        public void processElement(ShardTopK shard, Context ctx, Collector<HeavyHitterReport> out) throws Exception {
+            pending.add(shard);
+            ctx.timerService().registerEventTimeTimer(shard.windowEnd - 1);
+        }
+
+        @Override
+        public void onTimer(long timestamp, OnTimerContext ctx, Collector<HeavyHitterReport> out) throws Exception {
+            List<ShardTopK> ready = new ArrayList<>();
+            List<ShardTopK> later = new ArrayList<>();
+            for (ShardTopK shard : pending.get()) {
+                (shard.windowEnd - 1 == timestamp ? ready : later).add(shard);
+            }
+            pending.update(later);
+            if (ready.isEmpty()) {
+                return;
+            }
+
+            HeavyHitterReport report = new HeavyHitterReport();
+            report.setDimension(ctx.getCurrentKey());
+            report.setWindowStart(toDateTime(ready.get(0).windowStart));
+            report.setWindowEnd(toDateTime(ready.get(0).windowEnd));
+            List<HeavyHitterReport.Talker> candidates = new ArrayList<>();
+            for (ShardTopK shard : ready) {
+                report.setTotalBytes(report.getTotalBytes() + shard.totalBytes);
+                report.setTotalEvents(report.getTotalEvents() + shard.totalEvents);
+                for (int i = 0; i < shard.keys.length; i++) {
+                    HeavyHitterReport.Talker talker = new HeavyHitterReport.Talker();
+                    talker.setKey(shard.keys[i]);
+                    talker.setBytes(shard.bytes[i]);
+                    talker.setEvents(shard.events[i]);
+                    candidates.add(talker);
+                }
+            }
+            candidates.sort((a, b) -> Long.compare(b.getBytes(), a.getBytes()));
+            List<HeavyHitterReport.Talker> top = new ArrayList<>(candidates.subList(0, Math.min(k, candidates.size())));
+
+            boolean hasHistory = previousShares.keys().iterator().hasNext();
+            Map<String, Double> shares = new HashMap<>();
+            for (HeavyHitterReport.Talker talker : top) {
+                double share = report.getTotalBytes() > 0 ? (double) talker.getBytes() / report.getTotalBytes() : 0.0;
+                Double previous = previousShares.get(talker.getKey());
+                talker.setShare(share);
+                talker.setPreviousShare(previous);
+                talker.setSurge(hasHistory && share >= minShare
+                        && (previous == null || share >= previous * surgeFactor));
+                report.setSurge(report.isSurge() || talker.isSurge());
+                shares.put(talker.getKey(), share);
+            }
+            report.setTalkers(top);
+
+            previousShares.clear();
+            previousShares.putAll(shares);
+            out.collect(report);
+        }
+
+        private static LocalDateTime toDateTime(long epochMillis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+        }
+    }
+}
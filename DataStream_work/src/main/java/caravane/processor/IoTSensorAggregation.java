@@ -0,0 +1,139 @@
+package caravane.processor;
+
+import caravane.model.IoTEvent;
+import caravane.model.IoTSensorMetrics;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.KeyedStream;
+import org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.assigners.TumblingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Event-time aggregation of IoT sensor readings.
+ *
+ * Readings are grouped per (deviceId, sensorType) and per (location, sensorType);
+ * mixing sensor types in one location aggregate would average degrees with percents.
+ * Each grouping gets a tumbling window and a sliding window, all reduced
+ * incrementally by {@link SensorStatsAggregate}.
+ */
+public final class IoTSensorAggregation {
+
+    public static final String GROUP_DEVICE = "DEVICE";
+    public static final String GROUP_LOCATION = "LOCATION";
+
+    private IoTSensorAggregation() {
+    }
+
+    public static DataStream<IoTSensorMetrics> attach(DataStream<IoTEvent> readings, Duration tumbling,
+            Duration slidingSize, Duration slidingSlide) {
+        DataStream<IoTEvent> valid = readings
+                .filter(e -> e.getSensorValue() != null && e.getSensorType() != null && e.getDeviceId() != null)
+                .name("iot-valid-readings");
+
+        KeyedStream<IoTEvent, Tuple2<String, String>> byDevice = valid.keyBy(new DeviceSensorKey());
+        KeyedStream<IoTEvent, Tuple2<String, String>> byLocation = valid
+                .filter(e -> e.getLocation() != null)
+                .name("iot-located-readings")
+                .keyBy(new LocationSensorKey());
+
+        String tumblingLabel = "TUMBLING_" + label(tumbling);
+        String slidingLabel = "SLIDING_" + label(slidingSize) + "_" + label(slidingSlide);
+
+        DataStream<IoTSensorMetrics> deviceTumbling = byDevice
+                .window(TumblingEventTimeWindows.of(time(tumbling)))
+                .aggregate(new SensorStatsAggregate(), new ToMetrics(GROUP_DEVICE, tumblingLabel))
+                .uid("iot-device-tumbling").name("iot-device-" + tumblingLabel);
+        DataStream<IoTSensorMetrics> deviceSliding = byDevice
+                .window(SlidingEventTimeWindows.of(time(slidingSize), time(slidingSlide)))
+                .aggregate(new SensorStatsAggregate(), new ToMetrics(GROUP_DEVICE, slidingLabel))
+                .uid("iot-device-sliding").name("iot-device-" + slidingLabel);
+        DataStream<IoTSensorMetrics> locationTumbling = byLocation
+                .window(TumblingEventTimeWindows.of(time(tumbling)))
+                .aggregate(new SensorStatsAggregate(), new ToMetrics(GROUP_LOCATION, tumblingLabel))
+                .uid("iot-location-tumbling").name("iot-location-" + tumblingLabel);
+        DataStream<IoTSensorMetrics> locationSliding = byLocation
+                .window(SlidingEventTimeWindows.of(time(slidingSize), time(slidingSlide)))
+                .aggregate(new SensorStatsAggregate(), new ToMetrics(GROUP_LOCATION, slidingLabel))
+                .uid("iot-location-sliding").name("iot-location-" + slidingLabel);
+
+        return deviceTumbling.union(deviceSliding, locationTumbling, locationSliding);
+    }
+
+    private static Time time(Duration duration) {
+        return Time.milliseconds(duration.toMillis());
+    }
+
+    private static String label(Duration duration) {
+        long seconds = duration.getSeconds();
+        if (seconds % 3600 == 0) return (seconds / 3600) + "H";
+        if (seconds % 60 == 0) return (seconds / 60) + "M";
+        return seconds + "S";
+    }
+
+    static class DeviceSensorKey implements KeySelector<IoTEvent, Tuple2<String, String>> {
+        @Override
+        public Tuple2<String, String> getKey(IoTEvent event) {
+            return Tuple2.of(event.getDeviceId(), event.getSensorType());
+        }
+    }
+
+    static class LocationSensorKey implements KeySelector<IoTEvent, Tuple2<String, String>> {
+        @Override
+        public Tuple2<String, String> getKey(IoTEvent event) {
+            return Tuple2.of(event.getLocation(), event.getSensorType());
+        }
+    }
+
+    /**
+     * Attaches key and window bounds to the pre-aggregated stats.
+     */
+    static class ToMetrics extends ProcessWindowFunction<SensorStatsAggregate.Stats, IoTSensorMetrics,
+            Tuple2<String, String>, TimeWindow> {
+
+        private final String groupBy;
+        private final String window;
+
+        ToMetrics(String groupBy, String window) {
+            this.groupBy = groupBy;
+            this.window = window;
+        }
+
+        @Override
+        public void process(Tuple2<String, String> key, Context context,
+                Iterable<SensorStatsAggregate.Stats> aggregates, Collector<IoTSensorMetrics> out) {
+            SensorStatsAggregate.Stats stats = aggregates.iterator().next();
+            IoTSensorMetrics metrics = new IoTSensorMetrics();
+            metrics.setGroupBy(groupBy);
+            metrics.setWindow(window);
+            if (GROUP_DEVICE.equals(groupBy)) {
+                metrics.setDeviceId(key.f0);
+            } else {
+                metrics.setLocation(key.f0);
+            }
+            metrics.setSensorType(key.f1);
+            metrics.setUnit(stats.unit);
+            metrics.setWindowStart(toDateTime(context.window().getStart()));
+            metrics.setWindowEnd(toDateTime(context.window().getEnd()));
+            metrics.setCount(stats.count);
+            metrics.setMin(stats.min);
+            metrics.setMax(stats.max);
+            metrics.setAvg(stats.mean);
+            metrics.setStddev(stats.stddev());
+            out.collect(metrics);
+        }
+
+        private static LocalDateTime toDateTime(long epochMillis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+        }
+    }
+}
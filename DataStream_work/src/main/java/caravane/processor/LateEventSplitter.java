@@ -0,0 +1,29 @@
+package caravane.processor;
+
+import caravane.model.DeviceEvent;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+/**
+ * Routes events that are already behind the watermark to {@link #LATE_EVENTS}.
+ *
+ * Placed right after the source, so downstream windows and timers only see events
+ * they can still account for, and too-late events are kept (late topic) rather than
+ * silently dropped by the window operators.
+ */
+public class LateEventSplitter extends ProcessFunction<DeviceEvent, DeviceEvent> {
+
+    public static final OutputTag<DeviceEvent> LATE_EVENTS = new OutputTag<DeviceEvent>("late-device-events") {
+    };
+
+    @Override
+    public void processElement(DeviceEvent event, Context ctx, Collector<DeviceEvent> out) {
+        Long timestamp = ctx.timestamp();
+        if (timestamp != null && timestamp < ctx.timerService().currentWatermark()) {
+            ctx.output(LATE_EVENTS, event);
+        } else {
+            out.collect(event);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package caravane.processor;
+
+import caravane.model.AnomalyAlert;
+import caravane.model.NetworkDeviceEvent;
+import caravane.sketch.Hashing;
+import caravane.sketch.HyperLogLog;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Port-scan detection on {@link NetworkDeviceEvent}s.
+ *
+ * Per sourceIp and sliding event-time window, a {@link HyperLogLog} counts distinct
+ * (destinationIp, portNumber) targets. The sketch starts sparse and never grows past
+ * {@code 2^precision} bytes, so a window pane costs a few bytes for quiet sources and
+ * at most 1 KB (precision 10) for scanners. When the estimate reaches
+ * {@code threshold}, an {@link AnomalyAlert} is emitted for the window.
+ */
+public final class PortScanDetector {
+
+    private PortScanDetector() {
+    }
+
+    public static DataStream<AnomalyAlert> attach(DataStream<NetworkDeviceEvent> traffic, Duration size,
+            Duration slide, int precision, long threshold) {
+        return traffic
+                .filter(e -> e.getSourceIp() != null && e.getDestinationIp() != null)
+                .name("network-with-endpoints")
+                .keyBy(new SourceIpKey())
+                .window(SlidingEventTimeWindows.of(Time.milliseconds(size.toMillis()), Time.milliseconds(slide.toMillis())))
+                .aggregate(new DistinctTargets(precision), new ScanAlert(threshold, size))
+                .uid("port-scan-detector").name("port-scan-detector");
+    }
+
+    static class SourceIpKey implements KeySelector<NetworkDeviceEvent, String> {
+        @Override
+        public String getKey(NetworkDeviceEvent event) {
+            return event.getSourceIp();
+        }
+    }
+
+    /**
+     * Folds (destinationIp, port) targets into a HyperLogLog.
+     */
+    static class DistinctTargets implements AggregateFunction<NetworkDeviceEvent, HyperLogLog, Long> {
+        private final int precision;
+
+        DistinctTargets(int precision) {
+            this.precision = precision;
+        }
+
+        @Override
+        public HyperLogLog createAccumulator() {
+            return new HyperLogLog(precision);
+        }
+
+        @Override
+        public HyperLogLog add(NetworkDeviceEvent event, HyperLogLog sketch) {
+            int port = event.getPortNumber() != null ? event.getPortNumber() : -1;
+            sketch.add(Hashing.hash64(event.getDestinationIp(), port));
+            return sketch;
+        }
+
+        @Override
+        public Long getResult(HyperLogLog sketch) {
+            return sketch.estimate();
+        }
+
+        @Override
+        public HyperLogLog merge(HyperLogLog a, HyperLogLog b) {
+            return a.merge(b);
+        }
+    }
+
+    static class ScanAlert extends ProcessWindowFunction<Long, AnomalyAlert, String, TimeWindow> {
+        private final long threshold;
+        private final long windowMinutes;
+
+        ScanAlert(long threshold, Duration size) {
+            this.threshold = threshold;
+            this.windowMinutes = Math.max(1, size.toMinutes());
+        }
+
+        @Override
+        public void process(String sourceIp, Context context, Iterable<Long> estimates, Collector<AnomalyAlert> out) {
+            long distinct = estimates.iterator().next();
+            if (distinct < threshold) {
+                return;
+            }
+            long windowEnd = context.window().getEnd();
+            String id = UUID.nameUUIDFromBytes(("PORT_SCAN|" + sourceIp + '|' + windowEnd)
+                    .getBytes(StandardCharsets.UTF_8)).toString();
+            String description = "PORT_SCAN suspected: ~" + distinct + " distinct destination:port targets from "
+                    + sourceIp + " in " + windowMinutes + " min (threshold " + threshold + ")";
+            out.collect(new AnomalyAlert(id, sourceIp, description, distinct,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(windowEnd), ZoneOffset.UTC)));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package caravane.processor;
+
+import caravane.model.IoTEvent;
+import org.apache.flink.api.common.functions.AggregateFunction;
+
+/**
+ * Incremental min/max/mean/variance of {@link IoTEvent#getSensorValue()}.
+ *
+ * Uses Welford's update per reading and Chan's formula to merge partial
+ * accumulators (session/sliding window merges), so a window holds one small
+ * accumulator instead of its readings.
+ */
+public class SensorStatsAggregate
+        implements AggregateFunction<IoTEvent, SensorStatsAggregate.Stats, SensorStatsAggregate.Stats> {
+
+    /**
+     * Flink POJO accumulator.
+     */
+    public static class Stats {
+        public long count;
+        public double min = Double.POSITIVE_INFINITY;
+        public double max = Double.NEGATIVE_INFINITY;
+        public double mean;
+        public double m2;
+        public String unit;
+
+        public Stats() {
+        }
+
+        public double stddev() {
+            return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+        }
+    }
+
+    @Override
+    public Stats createAccumulator() {
+        return new Stats();
+    }
+
+    @Override
+    public Stats add(IoTEvent event, Stats acc) {
+        double value = event.getSensorValue();
+        acc.count++;
+        double delta = value - acc.mean;
+        acc.mean += delta / acc.count;
+        acc.m2 += delta * (value - acc.mean);
+        if (value < acc.min) acc.min = value;
+        if (value > acc.max) acc.max = value;
+        if (event.getUnit() != null) acc.unit = event.getUnit();
+        return acc;
+    }
+
+    @Override
+    public Stats getResult(Stats acc) {
+        return acc;
+    }
+
+    @Override
+    public Stats merge(Stats a, Stats b) {
+        if (a.count == 0) return b;
+        if (b.count == 0) return a;
+        long count = a.count + b.count;
+        double delta = b.mean - a.mean;
+        a.mean += delta * b.count / count;
+        a.m2 += b.m2 + delta * delta * a.count * b.count / count;
+        a.count = count;
+        a.min = Math.min(a.min, b.min);
+        a.max = Math.max(a.max, b.max);
+        if (a.unit == null) a.unit = b.unit;
+        return a;
+    }
+}
@@ -0,0 +1,137 @@
+package caravane.processor;
+
+import caravane.model.AnomalyAlert;
+import caravane.model.ServerEvent;
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.util.Collector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Per-(deviceId, service) anomaly detection on {@link ServerEvent} metrics.
+ *
+ * Each key keeps an exponentially weighted mean and variance per metric (cpu, memory,
+ * disk, connections) in one fixed-size {@link Baseline}, whatever the event rate. Once
+ * {@code warmup} samples have been seen, a reading whose z-score exceeds
+ * {@code threshold} emits an {@link AnomalyAlert}. Baselines of servers that stop
+ * reporting expire after {@code ttlDays}.
+ */
+public class ServerMetricAnomalyDetector
+        extends KeyedProcessFunction<Tuple2<String, String>, ServerEvent, AnomalyAlert> {
+
+    static final String[] METRICS = { "cpuUsage", "memoryUsage", "diskUsage", "activeConnections" };
+    // Smallest standard deviation used for the z-score, so a flat baseline does not
+    // turn a 0.1% wobble into an alert
+    private static final double[] MIN_STDDEV = { 2.0, 2.0, 1.0, 5.0 };
+
+    /**
+     * Flink POJO state: EWMA mean/variance per metric.
+     */
+    public static class Baseline {
+        public double[] mean = new double[METRICS.length];
+        public double[] variance = new double[METRICS.length];
+        public long[] samples = new long[METRICS.length];
+
+        public Baseline() {
+        }
+    }
+
+    private final double alpha;
+    private final double threshold;
+    private final long warmup;
+    private final int ttlDays;
+
+    private transient ValueState<Baseline> baselineState;
+
+    public ServerMetricAnomalyDetector(double alpha, double threshold, long warmup, int ttlDays) {
+        this.alpha = alpha;
+        this.threshold = threshold;
+        this.warmup = warmup;
+        this.ttlDays = ttlDays;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        ValueStateDescriptor<Baseline> descriptor = new ValueStateDescriptor<>("server-metric-baseline", Baseline.class);
+        descriptor.enableTimeToLive(StateTtlConfig.newBuilder(Time.days(ttlDays))
+                .setUpdateType(StateTtlConfig.UpdateType.OnCreateAndWrite)
+                .setStateVisibility(StateTtlConfig.StateVisibility.NeverReturnExpired)
+                .build());
+        baselineState = getRuntimeContext().getState(descriptor);
+    }
+
+    @Override
+    public void processElement(ServerEvent event, Context ctx, Collector<AnomalyAlert> out) throws Exception {
+        Baseline baseline = baselineState.value();
+        if (baseline == null) {
+            baseline = new Baseline();
+        }
+
+        observe(baseline, 0, event.getCpuUsage(), event, ctx, out);
+        observe(baseline, 1, event.getMemoryUsage(), event, ctx, out);
+        observe(baseline, 2, event.getDiskUsage(), event, ctx, out);
+        Integer connections = event.getActiveConnections();
+        observe(baseline, 3, connections != null ? connections.doubleValue() : null, event, ctx, out);
+
+        baselineState.update(baseline);
+    }
+
+    private void observe(Baseline b, int m, Double value, ServerEvent event, Context ctx,
+            Collector<AnomalyAlert> out) {
+        if (value == null || value.isNaN()) {
+            return;
+        }
+        double x = value;
+        if (b.samples[m] == 0) {
+            b.mean[m] = x;
+            b.samples[m] = 1;
+            return;
+        }
+
+        if (b.samples[m] >= warmup) {
+            double stddev = Math.max(Math.sqrt(b.variance[m]), MIN_STDDEV[m]);
+            double z = (x - b.mean[m]) / stddev;
+            if (Math.abs(z) > threshold) {
+                out.collect(alert(event, ctx.getCurrentKey().f1, m, x, z, b.mean[m], stddev, ctx.timestamp()));
+            }
+        }
+
+        // Incremental EWMA mean / variance (Finch, 2009)
+        double diff = x - b.mean[m];
+        double increment = alpha * diff;
+        b.mean[m] += increment;
+        b.variance[m] = (1 - alpha) * (b.variance[m] + diff * increment);
+        b.samples[m]++;
+    }
+
+    private static AnomalyAlert alert(ServerEvent event, String service, int m, double value, double z,
+            double mean, double stddev, Long eventTime) {
+        String description = String.format(Locale.ROOT,
+                "%s %.2f is %.1f sigma %s baseline %.2f +/- %.2f (service=%s, server=%s)",
+                METRICS[m], value, Math.abs(z), z > 0 ? "above" : "below", mean, stddev,
+                service.isEmpty() ? "n/a" : service, event.getServerName());
+        // Deterministic id: replaying the same event yields the same alert
+        String id = UUID.nameUUIDFromBytes((event.getDeviceId() + '|' + service + '|' + METRICS[m] + '|'
+                + (eventTime != null ? eventTime : event.getEventId())).getBytes(StandardCharsets.UTF_8)).toString();
+        return new AnomalyAlert(id, event.getDeviceId(), description, value, event.getTimestamp());
+    }
+
+    /**
+     * (deviceId, service) key; a missing service is keyed as "".
+     */
+    public static class ServerServiceKey implements KeySelector<ServerEvent, Tuple2<String, String>> {
+        @Override
+        public Tuple2<String, String> getKey(ServerEvent event) {
+            return Tuple2.of(event.getDeviceId(), event.getService() != null ? event.getService() : "");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package caravane.processor;
+
+import caravane.model.DeviceEvent;
+import caravane.net.ZoneClassifier;
+import org.apache.flink.api.common.functions.RichMapFunction;
+import org.apache.flink.configuration.Configuration;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Sets {@code sourceZone} from the event's sourceIp with the CIDR zone table.
+ *
+ * Each task loads the table in {@link #open} (file on the TaskManager, or the
+ * zones.conf bundled in the job jar) and, for a file, checks it for changes every
+ * {@code reloadSeconds}; a reload swaps the table without stopping the stream.
+ */
+public class SourceZoneEnrichment extends RichMapFunction<DeviceEvent, DeviceEvent> {
+
+    private final String zoneFile;
+    private final long reloadSeconds;
+
+    private transient ZoneClassifier zones;
+
+    /**
+     * @param zoneFile CIDR table path, or null for the bundled default table
+     */
+    public SourceZoneEnrichment(String zoneFile, long reloadSeconds) {
+        this.zoneFile = zoneFile;
+        this.reloadSeconds = reloadSeconds;
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        Path file = zoneFile != null ? Paths.get(zoneFile) : null;
+        zones = new ZoneClassifier(file);
+        zones.startAutoReload(reloadSeconds);
+    }
+
+    @Override
+    public DeviceEvent map(DeviceEvent event) {
+        if (event.getSourceIp() != null) {
+            event.setSourceZone(zones.zoneOf(event.getSourceIp()));
+        }
+        return event;
+    }
+
+    @Override
+    public void close() {
+        if (zones != null) {
+            zones.close();
+        }
+    }
+}
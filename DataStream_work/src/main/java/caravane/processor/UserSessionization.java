@@ -0,0 +1,210 @@
+package caravane.processor;
+
+import caravane.model.DeviceEvent;
+import caravane.model.SessionSummary;
+import caravane.model.WorkstationEvent;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction;
+import org.apache.flink.streaming.api.windowing.assigners.EventTimeSessionWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * User-session reconstruction.
+ *
+ * Events with a username are keyed by (username, deviceId) and grouped into
+ * event-time session windows: a session closes once no event arrived for
+ * {@code gap}. Each session is folded incrementally into a {@link Session}
+ * accumulator (counts, auth outcomes, capped distinct processes/files/IPs), so the
+ * window keeps one small object per open session instead of its events, and emits a
+ * single {@link SessionSummary}.
+ */
+public final class UserSessionization {
+
+    private static final String[] SEVERITY_ORDER = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    private UserSessionization() {
+    }
+
+    public static DataStream<SessionSummary> attach(DataStream<DeviceEvent> events, Duration gap, int maxItems) {
+        return events
+                .filter(e -> e.getUsername() != null && e.getDeviceId() != null)
+                .name("events-with-user")
+                .keyBy(new UserDeviceKey())
+                .window(EventTimeSessionWindows.withGap(Time.milliseconds(gap.toMillis())))
+                .aggregate(new SessionAggregate(maxItems), new EmitSession(gap))
+                .uid("user-sessions").name("user-sessions");
+    }
+
+    public static class UserDeviceKey implements KeySelector<DeviceEvent, Tuple2<String, String>> {
+        @Override
+        public Tuple2<String, String> getKey(DeviceEvent event) {
+            return Tuple2.of(event.getUsername(), event.getDeviceId());
+        }
+    }
+
+    /**
+     * Running summary of one session (Flink POJO, merged when sessions join).
+     */
+    public static class Session {
+        public String deviceType;
+        public String owner;
+        public String criticality;
+        public long eventCount;
+        public Map<String, Long> eventCounts = new HashMap<>();
+        public long failedAuth;
+        public long successfulAuth;
+        public int maxSeverity = -1;
+        public List<String> processes = new ArrayList<>();
+        public List<String> files = new ArrayList<>();
+        public List<String> sourceIps = new ArrayList<>();
+        public long truncated;
+
+        public Session() {
+        }
+    }
+
+    static class SessionAggregate implements AggregateFunction<DeviceEvent, Session, Session> {
+        private final int maxItems;
+
+        SessionAggregate(int maxItems) {
+            this.maxItems = maxItems;
+        }
+
+        @Override
+        public Session createAccumulator() {
+            return new Session();
+        }
+
+        @Override
+        public Session add(DeviceEvent event, Session session) {
+            session.eventCount++;
+            if (event.getEventType() != null) {
+                session.eventCounts.merge(event.getEventType(), 1L, Long::sum);
+            }
+            if ("FAILURE".equals(event.getAuthenticationStatus())) {
+                session.failedAuth++;
+            } else if ("SUCCESS".equals(event.getAuthenticationStatus())) {
+                session.successfulAuth++;
+            }
+            session.maxSeverity = Math.max(session.maxSeverity, severityRank(event.getSeverity()));
+            if (session.deviceType == null) {
+                session.deviceType = event.getDeviceType();
+            }
+            if (event.getOwner() != null) {
+                session.owner = event.getOwner();
+                session.criticality = event.getCriticality();
+            }
+            addCapped(session, session.sourceIps, event.getSourceIp());
+            if (event instanceof WorkstationEvent) {
+                WorkstationEvent workstation = (WorkstationEvent) event;
+                addCapped(session, session.processes, workstation.getProcessName());
+                addCapped(session, session.files, workstation.getFileName());
+            }
+            return session;
+        }
+
+        @Override
+        public Session getResult(Session session) {
+            return session;
+        }
+
+        @Override
+        public Session merge(Session a, Session b) {
+            a.eventCount += b.eventCount;
+            b.eventCounts.forEach((type, count) -> a.eventCounts.merge(type, count, Long::sum));
+            a.failedAuth += b.failedAuth;
+            a.successfulAuth += b.successfulAuth;
+            a.maxSeverity = Math.max(a.maxSeverity, b.maxSeverity);
+            if (a.deviceType == null) {
+                a.deviceType = b.deviceType;
+            }
+            if (a.owner == null) {
+                a.owner = b.owner;
+                a.criticality = b.criticality;
+            }
+            a.truncated += b.truncated;
+            b.sourceIps.forEach(ip -> addCapped(a, a.sourceIps, ip));
+            b.processes.forEach(process -> addCapped(a, a.processes, process));
+            b.files.forEach(file -> addCapped(a, a.files, file));
+            return a;
+        }
+
+        private void addCapped(Session session, List<String> values, String value) {
+            if (value == null || values.contains(value)) {
+                return;
+            }
+            if (values.size() < maxItems) {
+                values.add(value);
+            } else {
+                session.truncated++;
+            }
+        }
+    }
+
+    static class EmitSession extends ProcessWindowFunction<Session, SessionSummary, Tuple2<String, String>, TimeWindow> {
+        private final long gapMs;
+
+        EmitSession(Duration gap) {
+            this.gapMs = gap.toMillis();
+        }
+
+        @Override
+        public void process(Tuple2<String, String> key, Context context, Iterable<Session> sessions,
+                Collector<SessionSummary> out) {
+            Session session = sessions.iterator().next();
+            // A session window ends one gap after its last event
+            long start = context.window().getStart();
+            long end = context.window().getEnd() - gapMs;
+
+            SessionSummary summary = new SessionSummary();
+            summary.setSessionId(UUID.nameUUIDFromBytes((key.f0 + '|' + key.f1 + '|' + start)
+                    .getBytes(StandardCharsets.UTF_8)).toString());
+            summary.setUsername(key.f0);
+            summary.setDeviceId(key.f1);
+            summary.setDeviceType(session.deviceType);
+            summary.setOwner(session.owner);
+            summary.setCriticality(session.criticality);
+            summary.setStart(LocalDateTime.ofInstant(Instant.ofEpochMilli(start), ZoneOffset.UTC));
+            summary.setEnd(LocalDateTime.ofInstant(Instant.ofEpochMilli(end), ZoneOffset.UTC));
+            summary.setDurationSeconds((end - start) / 1000);
+            summary.setEventCount(session.eventCount);
+            summary.setEventCounts(session.eventCounts);
+            summary.setFailedAuthCount(session.failedAuth);
+            summary.setSuccessfulAuthCount(session.successfulAuth);
+            summary.setMaxSeverity(session.maxSeverity >= 0 ? SEVERITY_ORDER[session.maxSeverity] : null);
+            summary.setProcesses(session.processes);
+            summary.setFiles(session.files);
+            summary.setSourceIps(session.sourceIps);
+            summary.setTruncated(session.truncated);
+            out.collect(summary);
+        }
+    }
+
+    private static int severityRank(String severity) {
+        if (severity == null) {
+            return -1;
+        }
+        for (int i = 0; i < SEVERITY_ORDER.length; i++) {
+            if (SEVERITY_ORDER[i].equals(severity)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
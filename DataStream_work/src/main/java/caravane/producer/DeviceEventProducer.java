@@ -5,22 +5,60 @@ import caravane.model.WorkstationEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import caravane.model.*;
+import caravane.config.DeviceIdPartitioner;
 import caravane.config.KafkaConfig;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.StringSerializer;
 
+import java.util.Arrays;
 import java.util.Properties;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public class DeviceEventProducer {
+    private static final String[] WORKSTATION_EVENT_TYPES = { "LOGIN_SUCCESS", "LOGIN_FAILURE", "FILE_ACCESS",
+            "PROCESS_START", "SUSPICIOUS_ACTIVITY", "FILE_DOWNLOAD" };
+    private static final String[] USERS = { "alice", "bob", "admin", "john", "guest", "david" };
+    private static final String[] PROCESSES = { "chrome.exe", "notepad.exe", "cmd.exe", "powershell.exe",
+            "python.exe", "java.exe" };
+    private static final String[] FILES = { "document.pdf", "config.ini", "data.xlsx", "script.ps1" };
+
+    private static final String[] SENSOR_TYPES = { "TEMPERATURE", "HUMIDITY", "MOTION", "DOOR_SENSOR",
+            "SMOKE_DETECTOR", "CAMERA" };
+    private static final String[] LOCATIONS = { "Building-A-Floor1", "Building-A-Floor2", "Building-B",
+            "Warehouse", "Parking-Lot" };
+
+    private static final String[] NETWORK_EVENT_TYPES = { "NORMAL_TRAFFIC", "PORT_SCAN", "TRAFFIC_SPIKE",
+            "UNAUTHORIZED_ACCESS", "DDoS_ATTEMPT" };
+    private static final String[] PROTOCOLS = { "TCP", "UDP", "ICMP", "HTTP", "HTTPS" };
+    private static final String[] ACTIONS = { "ALLOW", "BLOCK", "DROP" };
+
+    private static final String[] SERVER_EVENT_TYPES = { "NORMAL_OPERATION", "CPU_HIGH", "MEMORY_HIGH",
+            "DISK_FULL", "SERVICE_RESTART", "CRASH" };
+    private static final String[] SERVICES = { "web-server", "database", "api-gateway", "cache",
+            "auth-service", "email-service" };
+
+    // Default device cardinality of the simulator families
+    public static final int DEFAULT_WORKSTATIONS = 10;
+    public static final int DEFAULT_IOT_DEVICES = 50;
+    public static final int DEFAULT_ROUTERS = 5;
+    public static final int DEFAULT_SERVERS = 10;
+
     private final KafkaProducer<String, String> producer;
     private final ObjectMapper objectMapper;
-    private final Random random = new Random();
 
     public DeviceEventProducer(String bootstrapServers) {
+        this(bootstrapServers, new Properties());
+    }
+
+    /**
+     * @param overrides extra producer properties (batching, compression...) applied
+     *                  on top of the defaults, used by the load generator
+     */
+    public DeviceEventProducer(String bootstrapServers, Properties overrides) {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
 
@@ -30,190 +68,205 @@ public class DeviceEventProducer {
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
         props.put(ProducerConfig.ACKS_CONFIG, "all");
         props.put(ProducerConfig.RETRIES_CONFIG, 3);
+        props.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, DeviceIdPartitioner.class.getName());
+        props.putAll(overrides);
 
         this.producer = new KafkaProducer<>(props);
         System.out.println("✅ Kafka Producer initialized");
     }
 
     private void sendEvent(String topic, DeviceEvent event) {
+        sendEvent(topic, event, (metadata, exception) -> {
+            if (exception != null) {
+                System.err.println("❌ Error sending event: " + exception.getMessage());
+            } else {
+                System.out.println("✓ Sent " + event.getDeviceType() + " event to " +
+                        topic + " [partition=" + metadata.partition() + "]");
+            }
+        });
+    }
+
+    /**
+     * Asynchronous send with a caller supplied completion callback. Serialization
+     * failures are reported through the callback as well, so every call completes
+     * exactly once.
+     */
+    public void sendEvent(String topic, DeviceEvent event, Callback callback) {
+        String json;
         try {
-            String json = objectMapper.writeValueAsString(event);
-            ProducerRecord<String, String> record = new ProducerRecord<>(topic, event.getEventId(), json);
-
-            producer.send(record, (metadata, exception) -> {
-                if (exception != null) {
-                    System.err.println("❌ Error sending event: " + exception.getMessage());
-                } else {
-                    System.out.println("✓ Sent " + event.getDeviceType() + " event to " +
-                            topic + " [partition=" + metadata.partition() + "]");
-                }
-            });
+            json = objectMapper.writeValueAsString(event);
         } catch (Exception e) {
             System.err.println("❌ Error serializing event: " + e.getMessage());
+            callback.onCompletion(null, e);
+            return;
         }
+        // Keyed by device: per-device order is kept within a partition
+        producer.send(new ProducerRecord<>(topic, event.getDeviceId(), json), callback);
     }
 
-    public void generateWorkstationEvents(int count, long delayMs) {
-        System.out.println("\n🖥️  Generating " + count + " Workstation events...");
-        String[] eventTypes = { "LOGIN_SUCCESS", "LOGIN_FAILURE", "FILE_ACCESS",
-                "PROCESS_START", "SUSPICIOUS_ACTIVITY", "FILE_DOWNLOAD" };
-        String[] users = { "alice", "bob", "admin", "john", "guest", "david" };
-        String[] processes = { "chrome.exe", "notepad.exe", "cmd.exe", "powershell.exe",
-                "python.exe", "java.exe" };
-        String[] files = { "document.pdf", "config.ini", "data.xlsx", "script.ps1" };
+    public void flush() {
+        producer.flush();
+    }
 
-        for (int i = 0; i < count; i++) {
-            WorkstationEvent event = new WorkstationEvent();
-            event.setDeviceId("WS-" + (random.nextInt(10) + 1));
-
-            String eventType = eventTypes[random.nextInt(eventTypes.length)];
-            event.setEventType(eventType);
-            event.setSourceIp("192.168.1." + (random.nextInt(200) + 1));
-            event.setUserId(users[random.nextInt(users.length)]);
-            event.setProcessName(processes[random.nextInt(processes.length)]);
-            event.setFileName(files[random.nextInt(files.length)]);
-
-            boolean success = !eventType.contains("FAILURE");
-            event.setLoginSuccess(success);
-
-            // Set severity based on event type
-            if (eventType.contains("SUSPICIOUS") || eventType.contains("FAILURE")) {
-                event.setSeverity("HIGH");
-            } else if (eventType.contains("cmd") || eventType.contains("powershell")) {
-                event.setSeverity("MEDIUM");
-            } else {
-                event.setSeverity("LOW");
-            }
+    // ==================== Event builders ====================
+
+    public static WorkstationEvent buildWorkstationEvent(int devices) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        WorkstationEvent event = new WorkstationEvent();
+        event.setDeviceId("WS-" + (random.nextInt(devices) + 1));
+
+        String eventType = WORKSTATION_EVENT_TYPES[random.nextInt(WORKSTATION_EVENT_TYPES.length)];
+        event.setEventType(eventType);
+        event.setSourceIp("192.168.1." + (random.nextInt(200) + 1));
+        event.setUserId(USERS[random.nextInt(USERS.length)]);
+        event.setProcessName(PROCESSES[random.nextInt(PROCESSES.length)]);
+        event.setFileName(FILES[random.nextInt(FILES.length)]);
+
+        boolean success = !eventType.contains("FAILURE");
+        event.setLoginSuccess(success);
+
+        // Set severity based on event type
+        if (eventType.contains("SUSPICIOUS") || eventType.contains("FAILURE")) {
+            event.setSeverity("HIGH");
+        } else if (eventType.contains("cmd") || eventType.contains("powershell")) {
+            event.setSeverity("MEDIUM");
+        } else {
+            event.setSeverity("LOW");
+        }
+
+        // Set new fields
+        event.setUsername(event.getUserId());
+        event.setAuthenticationStatus(success ? "SUCCESS" : "FAILURE");
+        return event;
+    }
+
+    public static IoTEvent buildIoTEvent(int devices) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        IoTEvent event = new IoTEvent();
+        event.setDeviceId("IOT-" + (random.nextInt(devices) + 1));
+        event.setEventType("SENSOR_READING");
+
+        String sensorType = SENSOR_TYPES[random.nextInt(SENSOR_TYPES.length)];
+        event.setSensorType(sensorType);
+        event.setLocation(LOCATIONS[random.nextInt(LOCATIONS.length)]);
+        event.setSourceIp("10.0.0." + (random.nextInt(254) + 1));
+
+        // Generate realistic sensor values
+        switch (sensorType) {
+            case "TEMPERATURE":
+                event.setSensorValue(15.0 + random.nextDouble() * 20); // 15-35°C
+                event.setUnit("celsius");
+                break;
+            case "HUMIDITY":
+                event.setSensorValue(30.0 + random.nextDouble() * 50); // 30-80%
+                event.setUnit("percent");
+                break;
+            case "MOTION":
+                event.setSensorValue(random.nextBoolean() ? 1.0 : 0.0);
+                event.setUnit("boolean");
+                break;
+            default:
+                event.setSensorValue(random.nextDouble() * 100);
+                event.setUnit("units");
+        }
+
+        event.setSeverity("LOW");
+        return event;
+    }
+
+    public static NetworkDeviceEvent buildNetworkEvent(int devices) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        NetworkDeviceEvent event = new NetworkDeviceEvent();
+        event.setDeviceId("RTR-" + (random.nextInt(devices) + 1));
+        event.setDeviceName("Router-Main-" + (random.nextInt(3) + 1));
+
+        String eventType = NETWORK_EVENT_TYPES[random.nextInt(NETWORK_EVENT_TYPES.length)];
+        event.setEventType(eventType);
+        event.setPortNumber(random.nextInt(65535));
+        event.setProtocol(PROTOCOLS[random.nextInt(PROTOCOLS.length)]);
+        event.setBytesTransferred((long) (random.nextDouble() * 10000000));
+        event.setSourceIp("172.16.0." + (random.nextInt(254) + 1));
+        event.setDestinationIp("8.8.8." + (random.nextInt(10) + 1));
+        event.setAction(ACTIONS[random.nextInt(ACTIONS.length)]);
+
+        // Set severity
+        if (eventType.contains("SCAN") || eventType.contains("DDoS") ||
+                eventType.contains("UNAUTHORIZED")) {
+            event.setSeverity("CRITICAL");
+        } else if (eventType.contains("SPIKE")) {
+            event.setSeverity("MEDIUM");
+        } else {
+            event.setSeverity("LOW");
+        }
+        return event;
+    }
+
+    public static ServerEvent buildServerEvent(int devices) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ServerEvent event = new ServerEvent();
+        event.setDeviceId("SRV-" + (random.nextInt(devices) + 1));
+        event.setServerName("Server-" + (char) ('A' + random.nextInt(5)));
+
+        String eventType = SERVER_EVENT_TYPES[random.nextInt(SERVER_EVENT_TYPES.length)];
+        event.setEventType(eventType);
+        event.setCpuUsage(20.0 + random.nextDouble() * 70);
+        event.setMemoryUsage(30.0 + random.nextDouble() * 60);
+        event.setDiskUsage(40.0 + random.nextDouble() * 50);
+        event.setActiveConnections(random.nextInt(1000));
+        event.setService(SERVICES[random.nextInt(SERVICES.length)]);
+        event.setSourceIp("192.168.100." + (random.nextInt(254) + 1));
+
+        // Set severity based on metrics
+        if (event.getCpuUsage() > 80 || event.getMemoryUsage() > 85 ||
+                eventType.contains("CRASH")) {
+            event.setSeverity("CRITICAL");
+        } else if (event.getCpuUsage() > 60 || event.getMemoryUsage() > 70) {
+            event.setSeverity("HIGH");
+        } else {
+            event.setSeverity("LOW");
+        }
 
-            // Set new fields
-            event.setUsername(event.getUserId());
-            event.setAuthenticationStatus(success ? "SUCCESS" : "FAILURE");
+        // Set new fields for Server events (simulating admin access)
+        if (eventType.contains("SERVICE") || eventType.contains("CRASH")) {
+            event.setUsername("system");
+            event.setAuthenticationStatus("NONE");
+        } else {
+            event.setUsername("admin");
+            event.setAuthenticationStatus("SUCCESS");
+        }
+        return event;
+    }
 
-            sendEvent(KafkaConfig.TOPIC_WORKSTATION, event);
+    // ==================== Sequential generators ====================
+
+    public void generateWorkstationEvents(int count, long delayMs) {
+        System.out.println("\n🖥️  Generating " + count + " Workstation events...");
+        for (int i = 0; i < count; i++) {
+            sendEvent(KafkaConfig.TOPIC_WORKSTATION, buildWorkstationEvent(DEFAULT_WORKSTATIONS));
             sleep(delayMs);
         }
     }
 
     public void generateIoTEvents(int count, long delayMs) {
         System.out.println("\n🔌 Generating " + count + " IoT events...");
-        String[] sensorTypes = { "TEMPERATURE", "HUMIDITY", "MOTION", "DOOR_SENSOR",
-                "SMOKE_DETECTOR", "CAMERA" };
-        String[] locations = { "Building-A-Floor1", "Building-A-Floor2", "Building-B",
-                "Warehouse", "Parking-Lot" };
-
         for (int i = 0; i < count; i++) {
-            IoTEvent event = new IoTEvent();
-            event.setDeviceId("IOT-" + (random.nextInt(50) + 1));
-            event.setEventType("SENSOR_READING");
-
-            String sensorType = sensorTypes[random.nextInt(sensorTypes.length)];
-            event.setSensorType(sensorType);
-            event.setLocation(locations[random.nextInt(locations.length)]);
-            event.setSourceIp("10.0.0." + (random.nextInt(254) + 1));
-
-            // Generate realistic sensor values
-            switch (sensorType) {
-                case "TEMPERATURE":
-                    event.setSensorValue(15.0 + random.nextDouble() * 20); // 15-35°C
-                    event.setUnit("celsius");
-                    break;
-                case "HUMIDITY":
-                    event.setSensorValue(30.0 + random.nextDouble() * 50); // 30-80%
-                    event.setUnit("percent");
-                    break;
-                case "MOTION":
-                    event.setSensorValue(random.nextBoolean() ? 1.0 : 0.0);
-                    event.setUnit("boolean");
-                    break;
-                default:
-                    event.setSensorValue(random.nextDouble() * 100);
-                    event.setUnit("units");
-            }
-
-            event.setSeverity("LOW");
-
-            sendEvent(KafkaConfig.TOPIC_IOT, event);
+            sendEvent(KafkaConfig.TOPIC_IOT, buildIoTEvent(DEFAULT_IOT_DEVICES));
             sleep(delayMs);
         }
     }
 
     public void generateNetworkEvents(int count, long delayMs) {
         System.out.println("\n🌐 Generating " + count + " Network events...");
-        String[] eventTypes = { "NORMAL_TRAFFIC", "PORT_SCAN", "TRAFFIC_SPIKE",
-                "UNAUTHORIZED_ACCESS", "DDoS_ATTEMPT" };
-        String[] protocols = { "TCP", "UDP", "ICMP", "HTTP", "HTTPS" };
-        String[] actions = { "ALLOW", "BLOCK", "DROP" };
-
         for (int i = 0; i < count; i++) {
-            NetworkDeviceEvent event = new NetworkDeviceEvent();
-            event.setDeviceId("RTR-" + (random.nextInt(5) + 1));
-            event.setDeviceName("Router-Main-" + (random.nextInt(3) + 1));
-
-            String eventType = eventTypes[random.nextInt(eventTypes.length)];
-            event.setEventType(eventType);
-            event.setPortNumber(random.nextInt(65535));
-            event.setProtocol(protocols[random.nextInt(protocols.length)]);
-            event.setBytesTransferred((long) (random.nextDouble() * 10000000));
-            event.setSourceIp("172.16.0." + (random.nextInt(254) + 1));
-            event.setDestinationIp("8.8.8." + (random.nextInt(10) + 1));
-            event.setAction(actions[random.nextInt(actions.length)]);
-
-            // Set severity
-            if (eventType.contains("SCAN") || eventType.contains("DDoS") ||
-                    eventType.contains("UNAUTHORIZED")) {
-                event.setSeverity("CRITICAL");
-            } else if (eventType.contains("SPIKE")) {
-                event.setSeverity("MEDIUM");
-            } else {
-                event.setSeverity("LOW");
-            }
-
-            sendEvent(KafkaConfig.TOPIC_NETWORK, event);
+            sendEvent(KafkaConfig.TOPIC_NETWORK, buildNetworkEvent(DEFAULT_ROUTERS));
             sleep(delayMs);
         }
     }
 
     public void generateServerEvents(int count, long delayMs) {
         System.out.println("\n🖥️  Generating " + count + " Server events...");
-        String[] eventTypes = { "NORMAL_OPERATION", "CPU_HIGH", "MEMORY_HIGH",
-                "DISK_FULL", "SERVICE_RESTART", "CRASH" };
-        String[] services = { "web-server", "database", "api-gateway", "cache",
-                "auth-service", "email-service" };
-
         for (int i = 0; i < count; i++) {
-            ServerEvent event = new ServerEvent();
-            event.setDeviceId("SRV-" + (random.nextInt(10) + 1));
-            event.setServerName("Server-" + (char) ('A' + random.nextInt(5)));
-
-            String eventType = eventTypes[random.nextInt(eventTypes.length)];
-            event.setEventType(eventType);
-            event.setCpuUsage(20.0 + random.nextDouble() * 70);
-            event.setMemoryUsage(30.0 + random.nextDouble() * 60);
-            event.setDiskUsage(40.0 + random.nextDouble() * 50);
-            event.setActiveConnections(random.nextInt(1000));
-            event.setService(services[random.nextInt(services.length)]);
-            event.setSourceIp("192.168.100." + (random.nextInt(254) + 1));
-
-            // Set severity based on metrics
-            if (event.getCpuUsage() > 80 || event.getMemoryUsage() > 85 ||
-                    eventType.contains("CRASH")) {
-                event.setSeverity("CRITICAL");
-            } else if (event.getCpuUsage() > 60 || event.getMemoryUsage() > 70) {
-                event.setSeverity("HIGH");
-            } else {
-                event.setSeverity("LOW");
-            }
-
-            // Set new fields for Server events (simulating admin access)
-            if (eventType.contains("SERVICE") || eventType.contains("CRASH")) {
-                event.setUsername("system");
-                event.setAuthenticationStatus("NONE");
-            } else {
-                event.setUsername("admin");
-                event.setAuthenticationStatus("SUCCESS");
-            }
-
-            sendEvent(KafkaConfig.TOPIC_SERVER, event);
+            sendEvent(KafkaConfig.TOPIC_SERVER, buildServerEvent(DEFAULT_SERVERS));
             sleep(delayMs);
         }
     }
@@ -232,6 +285,12 @@ public class DeviceEventProducer {
     }
 
     public static void main(String[] args) {
+        // Load generator mode: java ... DeviceEventProducer load --rate=1000 --duration=60
+        if (args.length > 0 && "load".equals(args[0])) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         DeviceEventProducer producer = new DeviceEventProducer(KafkaConfig.BOOTSTRAP_SERVERS);
 
         System.out.println("🚀 Starting HiveMind Workstation Event Simulator (Phase 1)\n");
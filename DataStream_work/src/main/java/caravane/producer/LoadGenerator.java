@@ -0,0 +1,234 @@
+package caravane.producer;
+
+import caravane.config.CommandLineOptions;
+import caravane.config.KafkaConfig;
+import caravane.model.DeviceEvent;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Open-loop, rate-controlled load generator running the four simulator families
+ * concurrently.
+ *
+ * Each family has its own sender thread with a fixed schedule: event {@code i} is due
+ * at {@code start + i / rate}. The thread never sleeps a fixed delay between sends, so
+ * a slow broker does not lower the offered load; the sender falls behind and catches
+ * up instead. Send latency is measured from the scheduled send time to the broker ack,
+ * which keeps queueing delay in the numbers (no coordinated omission).
+ *
+ * Usage (all flags optional):
+ * <pre>
+ * DeviceEventProducer load --rate=1000 --iot-rate=20000 --iot-devices=100000 --duration=60
+ * </pre>
+ * {@code --rate} / {@code --devices} set every family, {@code --<family>-rate} and
+ * {@code --<family>-devices} override one family (family = workstation, iot, network,
+ * server). A rate of 0 disables the family.
+ */
+public class LoadGenerator {
+
+    private static final long MAX_LATENCY_NS = TimeUnit.MINUTES.toNanos(5);
+
+    enum Family {
+        WORKSTATION(KafkaConfig.TOPIC_WORKSTATION, DeviceEventProducer.DEFAULT_WORKSTATIONS),
+        IOT(KafkaConfig.TOPIC_IOT, DeviceEventProducer.DEFAULT_IOT_DEVICES),
+        NETWORK(KafkaConfig.TOPIC_NETWORK, DeviceEventProducer.DEFAULT_ROUTERS),
+        SERVER(KafkaConfig.TOPIC_SERVER, DeviceEventProducer.DEFAULT_SERVERS);
+
+        final String topic;
+        final int defaultDevices;
+
+        Family(String topic, int defaultDevices) {
+            this.topic = topic;
+            this.defaultDevices = defaultDevices;
+        }
+
+        String flag() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * Per-family sender: schedule, counters and latency recorder.
+     */
+    static class FamilyLoad implements Runnable {
+        final Family family;
+        final double ratePerSec;
+        final int devices;
+        final long durationNs;
+        final DeviceEventProducer producer;
+        final IntFunction<DeviceEvent> builder;
+
+        final LongAdder sent = new LongAdder();
+        final LongAdder acked = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final Recorder latency = new Recorder(MAX_LATENCY_NS, 3);
+        final Histogram total = new Histogram(MAX_LATENCY_NS, 3);
+        volatile long maxLagNs;
+
+        FamilyLoad(Family family, double ratePerSec, int devices, long durationNs,
+                DeviceEventProducer producer) {
+            this.family = family;
+            this.ratePerSec = ratePerSec;
+            this.devices = devices;
+            this.durationNs = durationNs;
+            this.producer = producer;
+            switch (family) {
+                case IOT:
+                    this.builder = DeviceEventProducer::buildIoTEvent;
+                    break;
+                case NETWORK:
+                    this.builder = DeviceEventProducer::buildNetworkEvent;
+                    break;
+                case SERVER:
+                    this.builder = DeviceEventProducer::buildServerEvent;
+                    break;
+                default:
+                    this.builder = DeviceEventProducer::buildWorkstationEvent;
+            }
+        }
+
+        @Override
+        public void run() {
+            double nanosPerEvent = 1_000_000_000d / ratePerSec;
+            long start = System.nanoTime();
+            long i = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                long offset = (long) (i * nanosPerEvent);
+                if (offset >= durationNs) {
+                    break;
+                }
+                long intended = start + offset;
+                long now = System.nanoTime();
+                if (now < intended) {
+                    LockSupport.parkNanos(intended - now);
+                    continue;
+                }
+                if (now - intended > maxLagNs) {
+                    maxLagNs = now - intended;
+                }
+
+                producer.sendEvent(family.topic, builder.apply(devices), (metadata, exception) -> {
+                    if (exception != null) {
+                        failed.increment();
+                    } else {
+                        latency.recordValue(Math.min(System.nanoTime() - intended, MAX_LATENCY_NS));
+                        acked.increment();
+                    }
+                });
+                sent.increment();
+                i++;
+            }
+        }
+
+        /**
+         * Swaps the interval histogram, folds it into the run total and returns it.
+         */
+        Histogram drainInterval() {
+            Histogram interval = latency.getIntervalHistogram();
+            total.add(interval);
+            return interval;
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        long durationSec = Long.parseLong(options.getOrDefault("duration", "60"));
+        long reportSec = Long.parseLong(options.getOrDefault("report-interval", "5"));
+        String bootstrap = options.getOrDefault("bootstrap-servers", KafkaConfig.BOOTSTRAP_SERVERS);
+
+        Properties tuning = new Properties();
+        tuning.put(ProducerConfig.LINGER_MS_CONFIG, options.getOrDefault("linger-ms", "5"));
+        tuning.put(ProducerConfig.BATCH_SIZE_CONFIG, options.getOrDefault("batch-size", "65536"));
+        tuning.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, options.getOrDefault("compression", "lz4"));
+        tuning.put(ProducerConfig.ACKS_CONFIG, options.getOrDefault("acks", "all"));
+        DeviceEventProducer producer = new DeviceEventProducer(bootstrap, tuning);
+
+        long durationNs = TimeUnit.SECONDS.toNanos(durationSec);
+        List<FamilyLoad> loads = new ArrayList<>();
+        for (Family family : Family.values()) {
+            double rate = Double.parseDouble(options.getOrDefault(family.flag() + "-rate",
+                    options.getOrDefault("rate", "100")));
+            int devices = Integer.parseInt(options.getOrDefault(family.flag() + "-devices",
+                    options.getOrDefault("devices", String.valueOf(family.defaultDevices))));
+            if (rate > 0) {
+                loads.add(new FamilyLoad(family, rate, devices, durationNs, producer));
+            }
+        }
+
+        System.out.println("🚀 Starting HiveMind load generator (open-loop)\n");
+        System.out.println("=".repeat(60));
+        for (FamilyLoad load : loads) {
+            System.out.printf("📌 %-12s %,10.0f events/s  %,9d devices  -> %s%n",
+                    load.family, load.ratePerSec, load.devices, load.family.topic);
+        }
+        System.out.println("📌 Duration: " + durationSec + "s");
+        System.out.println("=".repeat(60) + "\n");
+
+        List<Thread> threads = new ArrayList<>();
+        for (FamilyLoad load : loads) {
+            Thread thread = new Thread(load, "load-" + load.family.flag());
+            threads.add(thread);
+            thread.start();
+        }
+
+        long start = System.nanoTime();
+        Map<FamilyLoad, Long> lastAcked = new HashMap<>();
+        try {
+            while (threads.stream().anyMatch(Thread::isAlive)) {
+                TimeUnit.SECONDS.sleep(reportSec);
+                report(loads, lastAcked, reportSec);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            threads.forEach(Thread::interrupt);
+        }
+
+        // Wait for every in-flight send to complete before the final report
+        producer.flush();
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+        summary(loads, elapsedSec);
+        producer.close();
+    }
+
+    private static void report(List<FamilyLoad> loads, Map<FamilyLoad, Long> lastAcked, long intervalSec) {
+        for (FamilyLoad load : loads) {
+            long acked = load.acked.sum();
+            long delta = acked - lastAcked.getOrDefault(load, 0L);
+            lastAcked.put(load, acked);
+            Histogram interval = load.drainInterval();
+            System.out.printf("⏱️  %-12s %,10.0f acks/s  p50=%,8.0fµs  p99=%,8.0fµs  p99.9=%,8.0fµs  lag=%,dms  failed=%d%n",
+                    load.family, delta / (double) intervalSec,
+                    interval.getValueAtPercentile(50) / 1000.0,
+                    interval.getValueAtPercentile(99) / 1000.0,
+                    interval.getValueAtPercentile(99.9) / 1000.0,
+                    TimeUnit.NANOSECONDS.toMillis(load.maxLagNs),
+                    load.failed.sum());
+        }
+    }
+
+    private static void summary(List<FamilyLoad> loads, double elapsedSec) {
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println("📊 Load generator summary (" + String.format("%.1f", elapsedSec) + "s)");
+        for (FamilyLoad load : loads) {
+            load.drainInterval();
+            System.out.println("=".repeat(60));
+            System.out.printf("%s: target %,.0f/s, achieved %,.0f/s (sent=%d acked=%d failed=%d)%n",
+                    load.family, load.ratePerSec, load.acked.sum() / elapsedSec,
+                    load.sent.sum(), load.acked.sum(), load.failed.sum());
+            System.out.println("Send latency (µs, scheduled send -> ack):");
+            load.total.outputPercentileDistribution(System.out, 1000.0);
+        }
+        System.out.println("=".repeat(60));
+    }
+}
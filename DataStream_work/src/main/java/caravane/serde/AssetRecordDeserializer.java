@@ -0,0 +1,41 @@
+package caravane.serde;
+
+import caravane.model.AssetRecord;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.connector.kafka.source.reader.deserializer.KafkaRecordDeserializationSchema;
+import org.apache.flink.util.Collector;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kafka source deserializer of the asset inventory changelog: JSON upserts, and
+ * tombstones (null value) turned into {@link AssetRecord#tombstone deleted} records
+ * so removals reach the broadcast state too.
+ */
+public class AssetRecordDeserializer implements KafkaRecordDeserializationSchema<AssetRecord> {
+
+    @Override
+    public void deserialize(ConsumerRecord<byte[], byte[]> record, Collector<AssetRecord> out) throws IOException {
+        String key = record.key() == null ? null : new String(record.key(), StandardCharsets.UTF_8);
+        if (record.value() == null) {
+            if (key != null) {
+                out.collect(AssetRecord.tombstone(key));
+            }
+            return;
+        }
+        AssetRecord asset = DeviceEventSerde.mapper().readValue(record.value(), AssetRecord.class);
+        if (asset.getDeviceId() == null) {
+            asset.setDeviceId(key);
+        }
+        if (asset.getDeviceId() != null) {
+            out.collect(asset);
+        }
+    }
+
+    @Override
+    public TypeInformation<AssetRecord> getProducedType() {
+        return TypeInformation.of(AssetRecord.class);
+    }
+}
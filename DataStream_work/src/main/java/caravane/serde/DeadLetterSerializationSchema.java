@@ -0,0 +1,24 @@
+package caravane.serde;
+
+import caravane.dlq.DeadLetters;
+import caravane.model.DeadLetter;
+import org.apache.flink.connector.kafka.sink.KafkaRecordSerializationSchema;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+/**
+ * Writes a {@link DeadLetter} to the DLQ topic: raw value as payload, provenance and
+ * error as headers.
+ */
+public class DeadLetterSerializationSchema implements KafkaRecordSerializationSchema<DeadLetter> {
+
+    private final String topic;
+
+    public DeadLetterSerializationSchema(String topic) {
+        this.topic = topic;
+    }
+
+    @Override
+    public ProducerRecord<byte[], byte[]> serialize(DeadLetter letter, KafkaSinkContext context, Long timestamp) {
+        return DeadLetters.toProducerRecord(topic, letter);
+    }
+}
@@ -0,0 +1,549 @@
+package caravane.serde;
+
+import caravane.model.DeviceEvent;
+import caravane.model.IoTEvent;
+import caravane.model.NetworkDeviceEvent;
+import caravane.model.ServerEvent;
+import caravane.model.WorkstationEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hand-rolled, schema'd binary encoding of the four {@link DeviceEvent} subtypes.
+ *
+ * <pre>
+ * [0xC7 magic][schema version][type tag][presence bitmap (varint)][fields in schema order]
+ * </pre>
+ *
+ * Field names are never written: the schema version fixes the field order, and a
+ * presence bitmap marks null fields. Integers are (zig-zag) varints, doubles are
+ * 8 bytes, timestamps are epoch seconds + nanos. Low-cardinality strings (severity,
+ * event type, protocol...) are written as an index into a per-schema dictionary,
+ * falling back to the literal. UUID event ids and dotted IPv4 addresses are packed
+ * to 16 and 4 bytes.
+ *
+ * The magic byte can never start a JSON document, so {@link DeviceEventSerde} can tell
+ * both formats apart and JSON and binary producers can share a topic. Dictionaries
+ * and field order are frozen per schema version: new values or fields mean a new
+ * version, and decoders keep reading the old ones.
+ */
+public final class DeviceEventBinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xC7;
+    public static final byte SCHEMA_V1 = 1;
+    /** v1 + asset enrichment fields (owner, criticality) after the subtype fields. */
+    public static final byte SCHEMA_V2 = 2;
+    /** v2 + sourceZone. */
+    public static final byte SCHEMA_V3 = 3;
+    public static final byte CURRENT_SCHEMA = SCHEMA_V3;
+
+    static final byte TAG_WORKSTATION = 1;
+    static final byte TAG_IOT = 2;
+    static final byte TAG_NETWORK = 3;
+    static final byte TAG_SERVER = 4;
+
+    // ==================== Presence bitmap layout (v1) ====================
+    private static final int F_EVENT_ID = 0;
+    private static final int F_TIMESTAMP = 1;
+    private static final int F_DEVICE_ID = 2;
+    private static final int F_EVENT_TYPE = 3;
+    private static final int F_SOURCE_IP = 4;
+    private static final int F_SEVERITY = 5;
+    private static final int F_USERNAME = 6;
+    private static final int F_AUTH_STATUS = 7;
+    // Subtype fields start here; meaning depends on the type tag
+    private static final int F_SUB = 8;
+    // Boolean carried in the bitmap itself (WorkstationEvent.loginSuccess)
+    private static final int F_FLAG = 15;
+    // ==================== Added in v2 ====================
+    private static final int F_OWNER = 16;
+    private static final int F_CRITICALITY = 17;
+    // ==================== Added in v3 ====================
+    private static final int F_SOURCE_ZONE = 18;
+
+    // ==================== Dictionaries (v1, append-only) ====================
+    private static final Dictionary SEVERITIES = new Dictionary("LOW", "MEDIUM", "HIGH", "CRITICAL");
+    private static final Dictionary AUTH_STATUSES = new Dictionary("SUCCESS", "FAILURE", "NONE");
+    private static final Dictionary EVENT_TYPES = new Dictionary(
+            "LOGIN_SUCCESS", "LOGIN_FAILURE", "FILE_ACCESS", "PROCESS_START", "SUSPICIOUS_ACTIVITY",
+            "FILE_DOWNLOAD", "SENSOR_READING", "NORMAL_TRAFFIC", "PORT_SCAN", "TRAFFIC_SPIKE",
+            "UNAUTHORIZED_ACCESS", "DDoS_ATTEMPT", "NORMAL_OPERATION", "CPU_HIGH", "MEMORY_HIGH",
+            "DISK_FULL", "SERVICE_RESTART", "CRASH", "FILE_CHANGED");
+    private static final Dictionary SENSOR_TYPES = new Dictionary(
+            "TEMPERATURE", "HUMIDITY", "MOTION", "DOOR_SENSOR", "SMOKE_DETECTOR", "CAMERA");
+    private static final Dictionary UNITS = new Dictionary("celsius", "percent", "boolean", "units");
+    private static final Dictionary PROTOCOLS = new Dictionary("TCP", "UDP", "ICMP", "HTTP", "HTTPS");
+    private static final Dictionary ACTIONS = new Dictionary("ALLOW", "BLOCK", "DROP");
+
+    private DeviceEventBinaryCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    // ==================== Encoding ====================
+
+    public static byte[] encode(DeviceEvent event) {
+        Writer out = new Writer(96);
+        out.writeByte(MAGIC);
+        out.writeByte(CURRENT_SCHEMA);
+        out.writeByte(tagOf(event));
+        out.writeVarLong(presence(event));
+
+        if (event.getEventId() != null) out.writeUuidOrString(event.getEventId());
+        if (event.getTimestamp() != null) {
+            out.writeVarLong(zigZag(event.getTimestamp().toEpochSecond(ZoneOffset.UTC)));
+            out.writeVarLong(event.getTimestamp().getNano());
+        }
+        if (event.getDeviceId() != null) out.writeString(event.getDeviceId());
+        if (event.getEventType() != null) out.writeDictString(EVENT_TYPES, event.getEventType());
+        if (event.getSourceIp() != null) out.writeIpOrString(event.getSourceIp());
+        if (event.getSeverity() != null) out.writeDictString(SEVERITIES, event.getSeverity());
+        if (event.getUsername() != null) out.writeString(event.getUsername());
+        if (event.getAuthenticationStatus() != null) out.writeDictString(AUTH_STATUSES, event.getAuthenticationStatus());
+
+        if (event instanceof WorkstationEvent) {
+            WorkstationEvent e = (WorkstationEvent) event;
+            if (e.getUserId() != null) out.writeString(e.getUserId());
+            if (e.getProcessName() != null) out.writeString(e.getProcessName());
+            if (e.getFileName() != null) out.writeString(e.getFileName());
+        } else if (event instanceof IoTEvent) {
+            IoTEvent e = (IoTEvent) event;
+            if (e.getSensorType() != null) out.writeDictString(SENSOR_TYPES, e.getSensorType());
+            if (e.getSensorValue() != null) out.writeDouble(e.getSensorValue());
+            if (e.getLocation() != null) out.writeString(e.getLocation());
+            if (e.getUnit() != null) out.writeDictString(UNITS, e.getUnit());
+        } else if (event instanceof NetworkDeviceEvent) {
+            NetworkDeviceEvent e = (NetworkDeviceEvent) event;
+            if (e.getDeviceName() != null) out.writeString(e.getDeviceName());
+            if (e.getPortNumber() != null) out.writeVarLong(zigZag(e.getPortNumber()));
+            if (e.getProtocol() != null) out.writeDictString(PROTOCOLS, e.getProtocol());
+            if (e.getBytesTransferred() != null) out.writeVarLong(zigZag(e.getBytesTransferred()));
+            if (e.getDestinationIp() != null) out.writeIpOrString(e.getDestinationIp());
+            if (e.getAction() != null) out.writeDictString(ACTIONS, e.getAction());
+        } else {
+            ServerEvent e = (ServerEvent) event;
+            if (e.getServerName() != null) out.writeString(e.getServerName());
+            if (e.getCpuUsage() != null) out.writeDouble(e.getCpuUsage());
+            if (e.getMemoryUsage() != null) out.writeDouble(e.getMemoryUsage());
+            if (e.getDiskUsage() != null) out.writeDouble(e.getDiskUsage());
+            if (e.getActiveConnections() != null) out.writeVarLong(zigZag(e.getActiveConnections()));
+            if (e.getService() != null) out.writeString(e.getService());
+        }
+        if (event.getOwner() != null) out.writeString(event.getOwner());
+        if (event.getCriticality() != null) out.writeDictString(SEVERITIES, event.getCriticality());
+        if (event.getSourceZone() != null) out.writeString(event.getSourceZone());
+        return out.toByteArray();
+    }
+
+    private static byte tagOf(DeviceEvent event) {
+        if (event instanceof WorkstationEvent) return TAG_WORKSTATION;
+        if (event instanceof IoTEvent) return TAG_IOT;
+        if (event instanceof NetworkDeviceEvent) return TAG_NETWORK;
+        if (event instanceof ServerEvent) return TAG_SERVER;
+        throw new IllegalArgumentException("Unsupported event type: " + event.getClass().getName());
+    }
+
+    private static long presence(DeviceEvent event) {
+        long bits = 0;
+        bits |= bit(F_EVENT_ID, event.getEventId());
+        bits |= bit(F_TIMESTAMP, event.getTimestamp());
+        bits |= bit(F_DEVICE_ID, event.getDeviceId());
+        bits |= bit(F_EVENT_TYPE, event.getEventType());
+        bits |= bit(F_SOURCE_IP, event.getSourceIp());
+        bits |= bit(F_SEVERITY, event.getSeverity());
+        bits |= bit(F_USERNAME, event.getUsername());
+        bits |= bit(F_AUTH_STATUS, event.getAuthenticationStatus());
+
+        if (event instanceof WorkstationEvent) {
+            WorkstationEvent e = (WorkstationEvent) event;
+            bits |= bit(F_SUB, e.getUserId());
+            bits |= bit(F_SUB + 1, e.getProcessName());
+            bits |= bit(F_SUB + 2, e.getFileName());
+            if (e.isLoginSuccess()) bits |= 1L << F_FLAG;
+        } else if (event instanceof IoTEvent) {
+            IoTEvent e = (IoTEvent) event;
+            bits |= bit(F_SUB, e.getSensorType());
+            bits |= bit(F_SUB + 1, e.getSensorValue());
+            bits |= bit(F_SUB + 2, e.getLocation());
+            bits |= bit(F_SUB + 3, e.getUnit());
+        } else if (event instanceof NetworkDeviceEvent) {
+            NetworkDeviceEvent e = (NetworkDeviceEvent) event;
+            bits |= bit(F_SUB, e.getDeviceName());
+            bits |= bit(F_SUB + 1, e.getPortNumber());
+            bits |= bit(F_SUB + 2, e.getProtocol());
+            bits |= bit(F_SUB + 3, e.getBytesTransferred());
+            bits |= bit(F_SUB + 4, e.getDestinationIp());
+            bits |= bit(F_SUB + 5, e.getAction());
+        } else if (event instanceof ServerEvent) {
+            ServerEvent e = (ServerEvent) event;
+            bits |= bit(F_SUB, e.getServerName());
+            bits |= bit(F_SUB + 1, e.getCpuUsage());
+            bits |= bit(F_SUB + 2, e.getMemoryUsage());
+            bits |= bit(F_SUB + 3, e.getDiskUsage());
+            bits |= bit(F_SUB + 4, e.getActiveConnections());
+            bits |= bit(F_SUB + 5, e.getService());
+        }
+        bits |= bit(F_OWNER, event.getOwner());
+        bits |= bit(F_CRITICALITY, event.getCriticality());
+        bits |= bit(F_SOURCE_ZONE, event.getSourceZone());
+        return bits;
+    }
+
+    private static long bit(int position, Object value) {
+        return value != null ? 1L << position : 0L;
+    }
+
+    // ==================== Decoding ====================
+
+    public static DeviceEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary DeviceEvent (bad magic byte)");
+        }
+        byte schema = in.readByte();
+        // Older records simply never set the bits added after their version
+        if (schema < SCHEMA_V1 || schema > SCHEMA_V3) {
+            throw new IllegalArgumentException("Unsupported DeviceEvent schema version: " + schema);
+        }
+        byte tag = in.readByte();
+        long bits = in.readVarLong();
+
+        DeviceEvent event;
+        switch (tag) {
+            case TAG_WORKSTATION:
+                event = new WorkstationEvent();
+                break;
+            case TAG_IOT:
+                event = new IoTEvent();
+                break;
+            case TAG_NETWORK:
+                event = new NetworkDeviceEvent();
+                break;
+            case TAG_SERVER:
+                event = new ServerEvent();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown DeviceEvent type tag: " + tag);
+        }
+
+        // The no-arg constructors fill eventId/timestamp: absent fields must stay null
+        event.setEventId(has(bits, F_EVENT_ID) ? in.readUuidOrString() : null);
+        if (has(bits, F_TIMESTAMP)) {
+            long seconds = unZigZag(in.readVarLong());
+            int nanos = (int) in.readVarLong();
+            event.setTimestamp(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+        } else {
+            event.setTimestamp(null);
+        }
+        if (has(bits, F_DEVICE_ID)) event.setDeviceId(in.readString());
+        if (has(bits, F_EVENT_TYPE)) event.setEventType(in.readDictString(EVENT_TYPES));
+        if (has(bits, F_SOURCE_IP)) event.setSourceIp(in.readIpOrString());
+        if (has(bits, F_SEVERITY)) event.setSeverity(in.readDictString(SEVERITIES));
+        if (has(bits, F_USERNAME)) event.setUsername(in.readString());
+        if (has(bits, F_AUTH_STATUS)) event.setAuthenticationStatus(in.readDictString(AUTH_STATUSES));
+
+        switch (tag) {
+            case TAG_WORKSTATION: {
+                WorkstationEvent e = (WorkstationEvent) event;
+                if (has(bits, F_SUB)) e.setUserId(in.readString());
+                if (has(bits, F_SUB + 1)) e.setProcessName(in.readString());
+                if (has(bits, F_SUB + 2)) e.setFileName(in.readString());
+                e.setLoginSuccess(has(bits, F_FLAG));
+                break;
+            }
+            case TAG_IOT: {
+                IoTEvent e = (IoTEvent) event;
+                if (has(bits, F_SUB)) e.setSensorType(in.readDictString(SENSOR_TYPES));
+                if (has(bits, F_SUB + 1)) e.setSensorValue(in.readDouble());
+                if (has(bits, F_SUB + 2)) e.setLocation(in.readString());
+                if (has(bits, F_SUB + 3)) e.setUnit(in.readDictString(UNITS));
+                break;
+            }
+            case TAG_NETWORK: {
+                NetworkDeviceEvent e = (NetworkDeviceEvent) event;
+                if (has(bits, F_SUB)) e.setDeviceName(in.readString());
+                if (has(bits, F_SUB + 1)) e.setPortNumber((int) unZigZag(in.readVarLong()));
+                if (has(bits, F_SUB + 2)) e.setProtocol(in.readDictString(PROTOCOLS));
+                if (has(bits, F_SUB + 3)) e.setBytesTransferred(unZigZag(in.readVarLong()));
+                if (has(bits, F_SUB + 4)) e.setDestinationIp(in.readIpOrString());
+                if (has(bits, F_SUB + 5)) e.setAction(in.readDictString(ACTIONS));
+                break;
+            }
+            default: {
+                ServerEvent e = (ServerEvent) event;
+                if (has(bits, F_SUB)) e.setServerName(in.readString());
+                if (has(bits, F_SUB + 1)) e.setCpuUsage(in.readDouble());
+                if (has(bits, F_SUB + 2)) e.setMemoryUsage(in.readDouble());
+                if (has(bits, F_SUB + 3)) e.setDiskUsage(in.readDouble());
+                if (has(bits, F_SUB + 4)) e.setActiveConnections((int) unZigZag(in.readVarLong()));
+                if (has(bits, F_SUB + 5)) e.setService(in.readString());
+            }
+        }
+        if (has(bits, F_OWNER)) event.setOwner(in.readString());
+        if (has(bits, F_CRITICALITY)) event.setCriticality(in.readDictString(SEVERITIES));
+        if (has(bits, F_SOURCE_ZONE)) event.setSourceZone(in.readString());
+        return event;
+    }
+
+    private static boolean has(long bits, int position) {
+        return (bits & (1L << position)) != 0;
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // ==================== Buffers ====================
+
+    private static final class Dictionary {
+        private final String[] values;
+        private final Map<String, Integer> index = new HashMap<>();
+
+        Dictionary(String... values) {
+            this.values = values;
+            for (int i = 0; i < values.length; i++) {
+                index.put(values[i], i);
+            }
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeDouble(double v) {
+            writeLong(Double.doubleToRawLongBits(v));
+        }
+
+        void writeString(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        /** 0 = literal follows, n = dictionary entry n-1. */
+        void writeDictString(Dictionary dict, String s) {
+            Integer i = dict.index.get(s);
+            if (i != null) {
+                writeVarLong(i + 1);
+            } else {
+                writeVarLong(0);
+                writeString(s);
+            }
+        }
+
+        /** 0 = literal follows, 1 = 4 raw IPv4 bytes. */
+        void writeIpOrString(String ip) {
+            long v4 = parseIpv4(ip);
+            if (v4 >= 0) {
+                writeByte(1);
+                ensure(4);
+                buf[pos++] = (byte) (v4 >>> 24);
+                buf[pos++] = (byte) (v4 >>> 16);
+                buf[pos++] = (byte) (v4 >>> 8);
+                buf[pos++] = (byte) v4;
+            } else {
+                writeByte(0);
+                writeString(ip);
+            }
+        }
+
+        /** 0 = literal follows, 1 = 16 raw UUID bytes. */
+        void writeUuidOrString(String id) {
+            if (isCanonicalUuid(id)) {
+                writeByte(1);
+                ensure(16);
+                for (int i = 0; i < id.length(); i++) {
+                    char c = id.charAt(i);
+                    if (c == '-') continue;
+                    char d = id.charAt(++i);
+                    buf[pos++] = (byte) ((hex(c) << 4) | hex(d));
+                }
+            } else {
+                writeByte(0);
+                writeString(id);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte readByte() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated DeviceEvent at byte " + pos);
+            }
+            return buf[pos++];
+        }
+
+        long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at byte " + pos);
+        }
+
+        double readDouble() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (readByte() & 0xFF);
+            }
+            return Double.longBitsToDouble(v);
+        }
+
+        String readString() {
+            int len = (int) readVarLong();
+            if (len < 0 || pos + len > buf.length) {
+                throw new IllegalArgumentException("Truncated string at byte " + pos);
+            }
+            String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+
+        String readDictString(Dictionary dict) {
+            int i = (int) readVarLong();
+            if (i == 0) {
+                return readString();
+            }
+            if (i > dict.values.length) {
+                throw new IllegalArgumentException("Unknown dictionary index " + i + " at byte " + pos);
+            }
+            return dict.values[i - 1];
+        }
+
+        String readIpOrString() {
+            if (readByte() == 0) {
+                return readString();
+            }
+            return (readByte() & 0xFF) + "." + (readByte() & 0xFF) + "."
+                    + (readByte() & 0xFF) + "." + (readByte() & 0xFF);
+        }
+
+        String readUuidOrString() {
+            if (readByte() == 0) {
+                return readString();
+            }
+            char[] out = new char[36];
+            int o = 0;
+            for (int i = 0; i < 16; i++) {
+                if (i == 4 || i == 6 || i == 8 || i == 10) {
+                    out[o++] = '-';
+                }
+                int b = readByte() & 0xFF;
+                out[o++] = HEX[b >>> 4];
+                out[o++] = HEX[b & 0xF];
+            }
+            return new String(out);
+        }
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static int hex(char c) {
+        return c <= '9' ? c - '0' : (c | 0x20) - 'a' + 10;
+    }
+
+    /** Lower-case 8-4-4-4-12 only, so decoding gives back the exact same string. */
+    private static boolean isCanonicalUuid(String s) {
+        if (s.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = s.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the address as an unsigned 32-bit value, or -1 when the string is not a
+     * canonical dotted quad (leading zeros are rejected so decoding is exact)
+     */
+    static long parseIpv4(String s) {
+        int len = s.length();
+        if (len < 7 || len > 15) return -1;
+        long result = 0;
+        int octets = 0;
+        int i = 0;
+        while (i < len) {
+            int start = i;
+            int value = 0;
+            while (i < len && s.charAt(i) != '.') {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') return -1;
+                value = value * 10 + (c - '0');
+                i++;
+            }
+            int digits = i - start;
+            if (digits == 0 || digits > 3 || value > 255 || (digits > 1 && s.charAt(start) == '0')) return -1;
+            result = (result << 8) | value;
+            octets++;
+            if (i < len) {
+                i++; // skip '.'
+                if (i == len) return -1;
+            }
+        }
+        return octets == 4 ? result : -1;
+    }
+}
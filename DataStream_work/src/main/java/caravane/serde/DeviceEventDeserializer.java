@@ -0,0 +1,24 @@
+package caravane.serde;
+
+import caravane.model.DeviceEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka value deserializer for {@link DeviceEvent} accepting both JSON and binary
+ * records.
+ */
+public class DeviceEventDeserializer implements Deserializer<DeviceEvent> {
+
+    @Override
+    public DeviceEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return DeviceEventSerde.deserialize(data);
+        } catch (Exception e) {
+            throw new SerializationException("Cannot deserialize DeviceEvent from " + topic, e);
+        }
+    }
+}
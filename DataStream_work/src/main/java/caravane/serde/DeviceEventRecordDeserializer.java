@@ -0,0 +1,36 @@
+package caravane.serde;
+
+import caravane.dlq.DeadLetters;
+import caravane.dlq.QuarantinedEvent;
+import caravane.model.DeviceEvent;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.connector.kafka.source.reader.deserializer.KafkaRecordDeserializationSchema;
+import org.apache.flink.util.Collector;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Kafka source deserializer for the device-events topics (JSON or binary). A record
+ * that does not decode is emitted as a {@link QuarantinedEvent} carrying the raw
+ * bytes and the source topic/partition/offset, instead of failing the job.
+ */
+public class DeviceEventRecordDeserializer implements KafkaRecordDeserializationSchema<DeviceEvent> {
+
+    @Override
+    public void deserialize(ConsumerRecord<byte[], byte[]> record, Collector<DeviceEvent> out) {
+        DeviceEvent event;
+        try {
+            event = DeviceEventSerde.deserialize(record.value());
+        } catch (Exception e) {
+            out.collect(new QuarantinedEvent(DeadLetters.of(record, e)));
+            return;
+        }
+        if (event != null) {
+            out.collect(event);
+        }
+    }
+
+    @Override
+    public TypeInformation<DeviceEvent> getProducedType() {
+        return TypeInformation.of(DeviceEvent.class);
+    }
+}
@@ -0,0 +1,52 @@
+package caravane.serde;
+
+import caravane.model.DeviceEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Format-agnostic entry point for {@link DeviceEvent} payloads on the device-events
+ * topics. Reading auto-detects the format from the first byte, so consumers accept
+ * JSON and binary records on the same topic.
+ */
+public final class DeviceEventSerde {
+
+    public enum WireFormat {
+        JSON, BINARY
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private DeviceEventSerde() {
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static byte[] serialize(DeviceEvent event, WireFormat format) {
+        if (format == WireFormat.BINARY) {
+            return DeviceEventBinaryCodec.encode(event);
+        }
+        try {
+            return MAPPER.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static DeviceEvent deserialize(byte[] data) throws IOException {
+        if (DeviceEventBinaryCodec.isBinary(data)) {
+            return DeviceEventBinaryCodec.decode(data);
+        }
+        return MAPPER.readValue(data, DeviceEvent.class);
+    }
+}
@@ -0,0 +1,37 @@
+package caravane.serde;
+
+import caravane.model.DeviceEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Kafka value serializer for {@link DeviceEvent}. The wire format is chosen with the
+ * {@value #FORMAT_CONFIG} producer property ({@code json} by default, or {@code binary}).
+ */
+public class DeviceEventSerializer implements Serializer<DeviceEvent> {
+
+    public static final String FORMAT_CONFIG = "hivemind.wire.format";
+
+    private DeviceEventSerde.WireFormat format = DeviceEventSerde.WireFormat.JSON;
+
+    public DeviceEventSerializer() {
+    }
+
+    public DeviceEventSerializer(DeviceEventSerde.WireFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object value = configs.get(FORMAT_CONFIG);
+        if (value != null) {
+            format = DeviceEventSerde.WireFormat.valueOf(value.toString().toUpperCase());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, DeviceEvent event) {
+        return event == null ? null : DeviceEventSerde.serialize(event, format);
+    }
+}
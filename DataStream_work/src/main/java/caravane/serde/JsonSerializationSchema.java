@@ -0,0 +1,22 @@
+package caravane.serde;
+
+import org.apache.flink.api.common.serialization.SerializationSchema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Flink {@link SerializationSchema} writing any record as JSON with the shared
+ * {@link DeviceEventSerde#mapper()} settings (ISO dates, java.time support).
+ */
+public class JsonSerializationSchema<T> implements SerializationSchema<T> {
+
+    @Override
+    public byte[] serialize(T element) {
+        try {
+            return DeviceEventSerde.mapper().writeValueAsBytes(element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
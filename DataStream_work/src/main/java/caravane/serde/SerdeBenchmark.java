@@ -0,0 +1,67 @@
+package caravane.serde;
+
+import caravane.model.DeviceEvent;
+import caravane.producer.DeviceEventProducer;
+
+import java.util.function.IntFunction;
+
+/**
+ * Bytes/event and serialize/deserialize ns/event of the JSON and binary wire formats,
+ * per device family, on simulator events.
+ *
+ * Usage: {@code SerdeBenchmark [events-per-round] [rounds]}
+ */
+public class SerdeBenchmark {
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        run("WORKSTATION", DeviceEventProducer::buildWorkstationEvent, events, rounds);
+        run("IOT", DeviceEventProducer::buildIoTEvent, events, rounds);
+        run("NETWORK", DeviceEventProducer::buildNetworkEvent, events, rounds);
+        run("SERVER", DeviceEventProducer::buildServerEvent, events, rounds);
+        System.out.println("(sink=" + sink + ")");
+    }
+
+    private static void run(String family, IntFunction<DeviceEvent> builder, int events, int rounds)
+            throws Exception {
+        DeviceEvent[] input = new DeviceEvent[events];
+        for (int i = 0; i < events; i++) {
+            input[i] = builder.apply(100_000);
+        }
+
+        System.out.println("=".repeat(60));
+        System.out.println("📦 " + family + " (" + events + " events x " + rounds + " rounds)");
+        for (DeviceEventSerde.WireFormat format : DeviceEventSerde.WireFormat.values()) {
+            byte[][] encoded = new byte[events][];
+            long bestSer = Long.MAX_VALUE;
+            long bestDeser = Long.MAX_VALUE;
+            // Round 0 is warm-up
+            for (int round = 0; round <= rounds; round++) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < events; i++) {
+                    encoded[i] = DeviceEventSerde.serialize(input[i], format);
+                }
+                long t1 = System.nanoTime();
+                for (int i = 0; i < events; i++) {
+                    sink += DeviceEventSerde.deserialize(encoded[i]).hashCode();
+                }
+                long t2 = System.nanoTime();
+                if (round > 0) {
+                    bestSer = Math.min(bestSer, t1 - t0);
+                    bestDeser = Math.min(bestDeser, t2 - t1);
+                }
+            }
+
+            long bytes = 0;
+            for (byte[] e : encoded) {
+                bytes += e.length;
+            }
+            System.out.printf("%-7s %7.1f bytes/event   ser %7.0f ns/event   deser %7.0f ns/event%n",
+                    format, bytes / (double) events, bestSer / (double) events, bestDeser / (double) events);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package caravane.sketch;
+
+/**
+ * Count-Min sketch with conservative update.
+ *
+ * {@code depth} rows of {@code width} counters (width rounded up to a power of two);
+ * row indexes come from one 64-bit hash (Kirsch-Mitzenmacher double hashing).
+ * Estimates never undercount and overcount by at most {@code e/width * total} with
+ * probability {@code 1 - e^-depth}. Memory is fixed: {@code depth * width} longs.
+ *
+ * Public fields and no-arg constructor make it a Flink POJO.
+ */
+public class CountMinSketch {
+
+    public int depth;
+    public int width;
+    public long[] table;
+
+    public CountMinSketch() {
+        this(4, 2048);
+    }
+
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.table = new long[depth * this.width];
+    }
+
+    /**
+     * Adds {@code count} for {@code hash} and returns the new estimate.
+     */
+    public long add(long hash, long count) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int mask = width - 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long value = table[row * width + ((h1 + row * h2) & mask)];
+            if (value < min) min = value;
+        }
+        // Conservative update: only raise counters below the new estimate
+        long target = min + count;
+        for (int row = 0; row < depth; row++) {
+            int i = row * width + ((h1 + row * h2) & mask);
+            if (table[i] < target) table[i] = target;
+        }
+        return target;
+    }
+
+    public long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int mask = width - 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long value = table[row * width + ((h1 + row * h2) & mask)];
+            if (value < min) min = value;
+        }
+        return min;
+    }
+
+    /**
+     * Counter-wise sum of {@code other} into this sketch (same dimensions only).
+     */
+    public CountMinSketch merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge Count-Min sketches of different dimensions");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        return this;
+    }
+}
@@ -0,0 +1,43 @@
+package caravane.sketch;
+
+/**
+ * Allocation-free 64-bit hashing for sketch keys.
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    public static long hash64(CharSequence s) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return fmix64(h);
+    }
+
+    public static long hash64(CharSequence s, long salt) {
+        long h = FNV_OFFSET ^ fmix64(salt);
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return fmix64(h);
+    }
+
+    /**
+     * MurmurHash3 finalizer: spreads FNV's weak low-entropy bits over the whole word.
+     */
+    public static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,84 @@
+package caravane.sketch;
+
+/**
+ * Fixed-memory top-K heavy hitters by volume (bytes), with event counts.
+ *
+ * Volumes and counts of every key go into two {@link CountMinSketch}es; only the
+ * {@code k} keys with the largest estimated volume are kept by name. A key outside
+ * the top-K replaces the smallest entry once its estimate exceeds it, so a talker
+ * that ramps up mid-window is still caught. Memory is
+ * {@code 2 * depth * width} longs plus {@code k} keys, whatever the number of keys.
+ *
+ * Public fields and no-arg constructor make it a Flink POJO.
+ */
+public class HeavyHitters {
+
+    public CountMinSketch bytes;
+    public CountMinSketch events;
+    public String[] keys;
+    public long[] keyBytes;
+    public long[] keyEvents;
+    public int size;
+    public long totalBytes;
+    public long totalEvents;
+
+    public HeavyHitters() {
+        this(20, 4, 2048);
+    }
+
+    public HeavyHitters(int k, int depth, int width) {
+        this.bytes = new CountMinSketch(depth, width);
+        this.events = new CountMinSketch(depth, width);
+        this.keys = new String[k];
+        this.keyBytes = new long[k];
+        this.keyEvents = new long[k];
+    }
+
+    public void add(String key, long volume) {
+        long hash = Hashing.hash64(key);
+        long estBytes = bytes.add(hash, volume);
+        long estEvents = events.add(hash, 1);
+        totalBytes += volume;
+        totalEvents++;
+        offer(key, estBytes, estEvents);
+    }
+
+    private void offer(String key, long estBytes, long estEvents) {
+        int min = -1;
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                keyBytes[i] = estBytes;
+                keyEvents[i] = estEvents;
+                return;
+            }
+            if (min < 0 || keyBytes[i] < keyBytes[min]) min = i;
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            keyBytes[size] = estBytes;
+            keyEvents[size] = estEvents;
+            size++;
+        } else if (estBytes > keyBytes[min]) {
+            keys[min] = key;
+            keyBytes[min] = estBytes;
+            keyEvents[min] = estEvents;
+        }
+    }
+
+    public HeavyHitters merge(HeavyHitters other) {
+        bytes.merge(other.bytes);
+        events.merge(other.events);
+        totalBytes += other.totalBytes;
+        totalEvents += other.totalEvents;
+        // Re-rank both candidate sets against the merged counters
+        String[] candidates = new String[size + other.size];
+        System.arraycopy(keys, 0, candidates, 0, size);
+        System.arraycopy(other.keys, 0, candidates, size, other.size);
+        size = 0;
+        for (String key : candidates) {
+            long hash = Hashing.hash64(key);
+            offer(key, bytes.estimate(hash), events.estimate(hash));
+        }
+        return this;
+    }
+}